@@ -24,12 +24,18 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.geom.AffineTransform;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
@@ -47,6 +53,7 @@ import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
@@ -84,10 +91,12 @@ import prefuse.activity.ActivityListener;
 import prefuse.data.Graph;
 import prefuse.data.Table;
 import prefuse.data.Tree;
+import prefuse.data.expression.ExpressionCompiler;
 import prefuse.data.expression.Predicate;
 import prefuse.data.expression.parser.ExpressionParser;
 import prefuse.data.query.SearchQueryBinding;
 import prefuse.data.search.SearchTupleSet;
+import prefuse.data.tuple.TupleSet;
 import prefuse.util.FontLib;
 import prefuse.util.display.ExportDisplayAction;
 import prefuse.util.display.PaintListener;
@@ -95,10 +104,14 @@ import prefuse.util.io.IOLib;
 import prefuse.util.ui.JSearchPanel;
 import prefuse.util.ui.UILib;
 import prefuse.visual.VisualGraph;
+import ca.utoronto.cs.docuburst.data.TileCounts;
 import ca.utoronto.cs.docuburst.data.WordNetTree;
-import ca.utoronto.cs.docuburst.data.treecut.TreeCutCache;
+import ca.utoronto.cs.docuburst.data.treecut.WeightedTreeCut;
 import ca.utoronto.cs.docuburst.prefuse.DefaultTreeCutFilter;
 import ca.utoronto.cs.docuburst.prefuse.DocuBurstActionList;
+import ca.utoronto.cs.docuburst.preprocess.ConcordanceIndex;
+import ca.utoronto.cs.docuburst.preprocess.DocumentLoader;
+import ca.utoronto.cs.docuburst.preprocess.PreprocessedDocument.Stage;
 import ca.utoronto.cs.docuburst.swing.ConcordancePanel;
 import ca.utoronto.cs.docuburst.swing.TilesPanel;
 import ca.utoronto.cs.docuburst.swing.widget.ScentedSlider;
@@ -115,6 +128,7 @@ import ca.utoronto.cs.wordnetexplorer.prefuse.controls.LoadDataControl;
 import ca.utoronto.cs.wordnetexplorer.swing.SensePane;
 import ca.utoronto.cs.wordnetexplorer.swing.TwoComponentSlidingPanel;
 import ca.utoronto.cs.wordnetexplorer.swing.WordNetSearchPanel;
+import ca.utoronto.cs.wordnetexplorer.utilities.LanguageLib.CountMethod;
 
 /**
  * Runnable main class, initiates the GUI for the Radial WordNet Visualization.
@@ -151,9 +165,9 @@ public class DocuBurst extends JPanel implements LoadData {
     // Predicates
     public static final Predicate NOT_LEAF_PREDICATE = (Predicate) ExpressionParser.parse("childcount() > 0");
     
-    public static final Predicate NOT_S2W_PREDICATE = (Predicate) ExpressionParser.parse("type != " + S2W);
+    public static final Predicate NOT_S2W_PREDICATE = ExpressionCompiler.compile(ExpressionParser.predicate("type != " + S2W));
 
-    public static final Predicate OMIT_WORDS_PREDICATE = (Predicate) ExpressionParser.parse("(type != " + WORD + ") and (type != " + S2W + ")");
+    public static final Predicate OMIT_WORDS_PREDICATE = ExpressionCompiler.compile(ExpressionParser.predicate("(type != " + WORD + ") and (type != " + S2W + ")"));
 
     /**
      * The pane in which sense information is listed on search
@@ -163,7 +177,7 @@ public class DocuBurst extends JPanel implements LoadData {
     /**
      * Filter for words and sense-to-word edges.
      */
-    public static final Predicate WORDS_PREDICATE = (Predicate) ExpressionParser.parse("(type = " + WORD + ") or (type = " + S2W + ")");
+    public static final Predicate WORDS_PREDICATE = ExpressionCompiler.compile(ExpressionParser.predicate("(type = " + WORD + ") or (type = " + S2W + ")"));
 
     /**
      * If the application is run as an applet, some features will be disabled
@@ -218,6 +232,7 @@ public class DocuBurst extends JPanel implements LoadData {
                 docuburstLayout.setDepthFilterApproach(Param.DepthFilter.TREECUT);
             else
                 docuburstLayout.setDepthFilterApproach(Param.DepthFilter.FISHEYE);
+            setTreeCutPanelVisible(docuburstLayout.isTreeCutEnabled());
         }
     };
 
@@ -254,6 +269,22 @@ public class DocuBurst extends JPanel implements LoadData {
      */
     private FisheyeDocument fishEyeDocument;
 
+    /**
+     * Loads the dictionary and the document; null once loading has stopped.
+     */
+    private DocumentLoader documentLoader;
+
+    /**
+     * Shows the stage and progress of loading, with a button to cancel it.
+     */
+    private JPanel loadPanel;
+    private JProgressBar loadProgressBar;
+
+    /**
+     * True once the tree has been shown for the loaded document, or without it.
+     */
+    private boolean rootShown;
+
     /**
      * The backing storage of the graph.
      */
@@ -269,6 +300,9 @@ public class DocuBurst extends JPanel implements LoadData {
 
     private ScentedSlider scentedSlider;
     
+    /** Finds the tree cuts shown by scentedSlider; cancelled when the slider is replaced */
+    private SwingWorker<Void, double[]> treeCutWorker;
+    
     /**
      * Action which resets the graph and updates the sense panel when the search
      * button is clicked.
@@ -301,6 +335,17 @@ public class DocuBurst extends JPanel implements LoadData {
      * The search interface to find specific concepts in the WordNet
      */
     private WordNetSearchPanel searchPanel;
+
+    /**
+     * The first and last tiles counted, limited to the tiles of the document.
+     */
+    private JSpinner startSpinner;
+    private JSpinner endSpinner;
+
+    /**
+     * The text of one tile at a time.
+     */
+    private TilesPanel tilesPanel;
     
     /*
      * Docuburst node weight action
@@ -469,10 +514,113 @@ public class DocuBurst extends JPanel implements LoadData {
         docuburst.searchPanel.requestFocusInWindow();
         jFrame.setVisible(true);
         
-        // Load "entity.n.01" as Default root
-		docuburst.reset(docuburst.searchPanel.getWord("entity", 
-					POS.getPOSForLabel("noun"),	1));
+        // the tree is shown as soon as the document is counted
+        docuburst.load(documentFile);
+    }
+
+    /**
+     * Load the dictionary and the document off the Event Dispatching Thread.
+     * The tree is shown, from the default root, as soon as the counts of the
+     * document are ready; the text panels are filled in as the tiles and their
+     * index follow.
+     * 
+     * @param filename the plain text document
+     */
+    public void load(final String filename) {
+        loadProgressBar.setValue(0);
+        loadProgressBar.setString("Loading WordNet");
+        loadPanel.setVisible(true);
+        documentLoader = new DocumentLoader(filename, CountMethod.FIRST, initializeJWNL(), new DocumentLoader.Listener() {
+            public void dictionaryLoaded(Dictionary dictionary) {
+                // searching is enabled once the counts are in: a tree built
+                // before then would be cached with empty counts
+                searchPanel.setDictionary(dictionary);
+            }
+
+            public void tilesLoaded(List<String> tiles) {
+                docuburstLayout.setTiles(tiles);
+                int tileCount = Math.max(1, tiles.size());
+                ((SpinnerNumberModel) startSpinner.getModel()).setMaximum(tileCount);
+                SpinnerNumberModel endModel = (SpinnerNumberModel) endSpinner.getModel();
+                endModel.setMaximum(tileCount);
+                endModel.setValue(tileCount);
+                tilesPanel.reset();
+            }
+
+            public void countsLoaded(HashMap<String, TileCounts> wordMap) {
+                docuburstLayout.setWordMap(wordMap);
+                showDefaultRoot();
+                searchPanel.wordTextField.setEnabled(true);
+            }
+
+            public void indexLoaded(ConcordanceIndex index) {
+                docuburstLayout.setConcordanceIndex(index);
+                tilesPanel.reset();
+                docuburstLayout.getHighlightTextHoverActionControl().updateTextArea(true);
+                loadStopped(null);
+            }
+
+            public void loadStopped(Exception cause) {
+                if (cause != null)
+                    LOGGER.log(Level.SEVERE, "Could not load " + filename, cause);
+                documentLoader = null;
+                loadPanel.setVisible(false);
+                // without the counts, show the tree uncounted
+                if (dictionary != null) {
+                    showDefaultRoot();
+                    searchPanel.wordTextField.setEnabled(true);
+                }
+            }
+        });
+        documentLoader.addPropertyChangeListener(new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent event) {
+                if (documentLoader == null)
+                    return;
+                loadProgressBar.setValue(documentLoader.getProgress());
+                loadProgressBar.setString(String.format("%s %d%%", STAGE_LABELS.get(documentLoader.getStage()), 
+                        documentLoader.getProgress()));
+            }
+        });
+        documentLoader.execute();
+    }
+
+    /**
+     * Descriptions of the stages of loading, for the progress bar
+     */
+    private static final EnumMap<Stage, String> STAGE_LABELS = new EnumMap<Stage, String>(Stage.class);
+    static {
+        STAGE_LABELS.put(Stage.DICTIONARY, "Loading WordNet");
+        STAGE_LABELS.put(Stage.TILING, "Dividing the text into tiles");
+        STAGE_LABELS.put(Stage.TAGGING, "Tagging and counting");
+        STAGE_LABELS.put(Stage.COUNTING, "Counting");
+        STAGE_LABELS.put(Stage.INDEXING, "Indexing the text");
+    }
 
+    private JPanel createLoadPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        loadProgressBar = new JProgressBar(0, 100);
+        loadProgressBar.setStringPainted(true);
+        panel.add(loadProgressBar, BorderLayout.CENTER);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if (documentLoader != null)
+                    documentLoader.cancel(true);
+            }
+        });
+        panel.add(cancelButton, BorderLayout.EAST);
+        panel.setVisible(false);
+        return panel;
+    }
+
+    /**
+     * Load "entity.n.01" as the default root, once.
+     */
+    private void showDefaultRoot() {
+        if (!rootShown) {
+            rootShown = true;
+            reset(searchPanel.getWord("entity", POS.getPOSForLabel("noun"), 1));
+        }
     }
 
     /**
@@ -488,16 +636,8 @@ public class DocuBurst extends JPanel implements LoadData {
         super();
 
         /**
-         * JWNL initialization
-         */
-
-        // initialize JWNL in a separate thread; continue on Event Dispatching
-        // Thread
-        final SwingWorker<Dictionary, Void> JWNLWorker = initializeJWNL();
-        JWNLWorker.execute();
-
-        /**
-         * prefuse initialization
+         * prefuse initialization; JWNL and the document are loaded off the
+         * Event Dispatching Thread once the window is shown, see load(String)
          */
 
         // load default graph
@@ -547,20 +687,13 @@ public class DocuBurst extends JPanel implements LoadData {
         Utilities.setGBC(docuburstGBC, 1, 0, 0, 1, 1, 1, GridBagConstraints.VERTICAL);
         displayPanel.add(fishEyeDocument, docuburstGBC);
 
-        // now check for dictionary initialization (need to to initialize
-        // DocuBurstActionList)
-        // look up the dictionary (hangs EDT until JWNL initialized, so put this
-        // here rather than in done() method)
-        try {
-            dictionary = ((Dictionary) JWNLWorker.get());
-        } catch (InterruptedException ignore) {
-            // ignore interrupted exception
-        } catch (ExecutionException e1) {
-            // print error indicating task did not finish
-            e1.printStackTrace();
-        }
+        // loading progress, below the display until loading has finished
+        loadPanel = createLoadPanel();
+        Utilities.setGBC(docuburstGBC, 0, 1, 1, 0, 2, 1, GridBagConstraints.HORIZONTAL);
+        displayPanel.add(loadPanel, docuburstGBC);
 
-        docuburstLayout = new DocuBurstActionList(docuburstVisualization, fishEyeDocument, documentFile);
+        // the document is filled in as it is loaded
+        docuburstLayout = new DocuBurstActionList(docuburstVisualization, fishEyeDocument);
 //        if (docuburstLayout.TREECUT)
 //            docuburstLayout.addActivityListener(getDocuBurstActivityListener());
         /**
@@ -814,17 +947,15 @@ public class DocuBurst extends JPanel implements LoadData {
      **************************************************************************/
 
     /**
-     * Initialize the JWNL off the event-dispatching thread, to provide for
-     * continued construction of the GUI. When everything else is done, GUI will
-     * call "get()" which blocks until dictionary is ready.
+     * Initialize the JWNL off the event-dispatching thread, as the first stage
+     * of loading the document.
      * 
-     * @return a SwingWorker which will initialize the JWNL with a file-backed
+     * @return a task which will initialize the JWNL with a file-backed
      *         dictionary
      */
-    private SwingWorker<Dictionary, Void> initializeJWNL() {
-        final SwingWorker<Dictionary, Void> worker = new SwingWorker<Dictionary, Void>() {
-            @Override
-            protected Dictionary doInBackground() throws Exception {
+    private Callable<Dictionary> initializeJWNL() {
+        return new Callable<Dictionary>() {
+            public Dictionary call() throws Exception {
                 // initialize JWNL using properties file; must be done before
                 // use
 //            	String propsFile = "jwnl_file_properties.xml"; // jwnl properties
@@ -845,10 +976,9 @@ public class DocuBurst extends JPanel implements LoadData {
                     System.exit(-1);
                 }
 
-                return tempDict; // not used -- get this with get() instead
-            };
+                return tempDict;
+            }
         };
-        return worker;
     }
     
     
@@ -935,28 +1065,81 @@ public class DocuBurst extends JPanel implements LoadData {
 
     }
     
+    /**
+     * Create the scented slider of tree cut weights. The cuts for all weights are found
+     * in parallel, off the Event Dispatching Thread, and fill in the slider as they are
+     * found; those already cached by the filter fill it in at once. A search still
+     * running for a previous slider is cancelled, and the cuts it finds are no longer
+     * shown, though they stay in the filter's cache.
+     */
     private JPanel createTreeCutPanel(){
         
         JPanel panel = new JPanel(new BorderLayout());
-        TreeCutCache cache = ((DefaultTreeCutFilter)docuburstLayout.getFisheyeTreeFilter()).getTreeCutCache();
-        List<Double> weights = cache.getSortedWeights();
-        ArrayList<Point> points = new ArrayList<ScentedSliderModel.Point>();
-        for (Double w : weights) {
-            points.add(new Point(w, cache.get(w).size()));
-        }
-        this.scentedSlider = new ScentedSlider(points, 0, true);
-        this.scentedSlider.getModel().addChangeListener(new ChangeListener() {
+        DefaultTreeCutFilter treeCutFilter = (DefaultTreeCutFilter)docuburstLayout.getFisheyeTreeFilter();
+        final WeightedTreeCut treeCut = treeCutFilter.getWeightedTreeCut();
+        final double[] weights = treeCutFilter.getStepWeights();
+        final int[] cutSizes = new int[weights.length];
+        final ScentedSlider slider = new ScentedSlider(treeCutPoints(weights, cutSizes), 0, true);
+        slider.setValue(treeCutFilter.getWeight());
+        this.scentedSlider = slider;
+        treeCutWorker = new SwingWorker<Void, double[]>() {
+            @Override
+            protected Void doInBackground() {
+                treeCut.findcuts(weights, new WeightedTreeCut.Listener() {
+                    public void cutFound(double weight, List<prefuse.data.Node> cut) {
+                        publish(new double[] { weight, cut.size() });
+                    }
+                });
+                return null;
+            }
+            
+            @Override
+            protected void process(List<double[]> cuts) {
+                if (isCancelled())
+                    return;
+                for (double[] cut : cuts)
+                    cutSizes[Arrays.binarySearch(weights, cut[0])] = (int)cut[1];
+                slider.getModel().setPoints(treeCutPoints(weights, cutSizes));
+                slider.repaint();
+            }
+        };
+        treeCutWorker.execute();
+        slider.getModel().addChangeListener(new ChangeListener() {
             
             @Override
             public void stateChanged(ChangeEvent e) {
-                if (!scentedSlider.getModel().valueIsAdjusting())
-                    docuburstLayout.setTreeCutWeight(scentedSlider.getModel().getValue());
+                if (!slider.getModel().valueIsAdjusting())
+                    docuburstLayout.setTreeCutWeight(slider.getModel().getValue());
                 
             }
         });
-        panel.add(scentedSlider, BorderLayout.CENTER);
+        panel.add(slider, BorderLayout.CENTER);
         return panel;
     }
+    
+    private static List<Point> treeCutPoints(double[] weights, int[] cutSizes){
+        List<Point> points = new ArrayList<ScentedSliderModel.Point>();
+        for (int i = 0; i < weights.length; i++)
+            points.add(new Point(weights[i], cutSizes[i]));
+        return points;
+    }
+    
+    /**
+     * Show the tree cut slider for the current tree, or hide it.
+     */
+    private void setTreeCutPanelVisible(boolean visible){
+        int tab = interfacePane.indexOfTab("Tree Cut");
+        if (tab >= 0)
+            interfacePane.removeTabAt(tab);
+        // the search can not be interrupted, so its remaining cuts are only ignored
+        if (treeCutWorker != null)
+            treeCutWorker.cancel(false);
+        treeCutWorker = null;
+        scentedSlider = null;
+        TupleSet graph = docuburstVisualization.getGroup("graph");
+        if (visible && graph != null && graph.getTupleCount() > 0)
+            interfacePane.addTab("Tree Cut", createTreeCutPanel());
+    }
 
     private JPanel createOptionsPanel() {
         GridBagConstraints c = new GridBagConstraints();
@@ -1073,13 +1256,15 @@ public class DocuBurst extends JPanel implements LoadData {
         JPanel docuBurstOptionsPanel = new JPanel();
         docuBurstOptionsPanel.setBorder(new TitledBorder("DocuBurst Options"));
         JLabel startTileLabel = new JLabel("Start tile:");
-        JSpinner startSpinner = new JSpinner(new SpinnerNumberModel(1, 1, docuburstLayout.getHighlightTextHoverActionControl().getTotalTiles(), 1));
+        // the document has no tiles until it is loaded
+        startSpinner = new JSpinner(new SpinnerNumberModel(1, 1, Math.max(1, docuburstLayout.getHighlightTextHoverActionControl().getTotalTiles()), 1));
         docuburstLayout.setStartTile(((SpinnerNumberModel) startSpinner.getModel()).getNumber().intValue());
         docuBurstOptionsPanel.add(startTileLabel);
         docuBurstOptionsPanel.add(startSpinner);
 
         JLabel endTileLabel = new JLabel("End tile:");
-        final JSpinner endSpinner = new JSpinner(new SpinnerNumberModel(docuburstLayout.getHighlightTextHoverActionControl().getTotalTiles(), 1, docuburstLayout.getHighlightTextHoverActionControl().getTotalTiles(), 1));
+        int tileCount = Math.max(1, docuburstLayout.getHighlightTextHoverActionControl().getTotalTiles());
+        endSpinner = new JSpinner(new SpinnerNumberModel(tileCount, 1, tileCount, 1));
         docuburstLayout.setEndTile(((SpinnerNumberModel) endSpinner.getModel()).getNumber().intValue());
         docuBurstOptionsPanel.add(endTileLabel);
         docuBurstOptionsPanel.add(endSpinner);
@@ -1192,7 +1377,9 @@ public class DocuBurst extends JPanel implements LoadData {
     private JPanel createSearchPanel() {
         GridBagConstraints c = new GridBagConstraints();
         JPanel searchTab = new JPanel(new GridBagLayout());
+        // the dictionary is set once it is loaded
         searchPanel = new WordNetSearchPanel(dictionary);
+        searchPanel.wordTextField.setEnabled(dictionary != null);
         // associate search action with search button
         searchPanel.setSearchAction(searchAction);
 
@@ -1231,7 +1418,7 @@ public class DocuBurst extends JPanel implements LoadData {
         interfacePane.setMnemonicAt(interfacePane.getTabCount() - 1, KeyEvent.VK_O);
         
         // text tiles panel
-        final TilesPanel tilesPanel = new TilesPanel(docuburstLayout.getHighlightTextHoverActionControl());
+        tilesPanel = new TilesPanel(docuburstLayout.getHighlightTextHoverActionControl());
         fishEyeDocument.addValueListener(tilesPanel);
         fishEyeDocument.addValueListener(new ValueListener<Integer>() {
             @Override
@@ -0,0 +1,366 @@
+package ca.utoronto.cs.docuburst.data;
+
+import prefuse.data.DataReadOnlyException;
+import prefuse.data.DataTypeException;
+import prefuse.data.column.AbstractColumn;
+import prefuse.data.column.Column;
+
+/**
+ * A prefuse column that presents a slice of a {@link SynsetHierarchy} to a
+ * table without copying it. Table row <code>r</code> maps to hierarchy node
+ * <code>base + r</code>, and values are computed from the hierarchy arrays
+ * on demand.
+ * <br><br>
+ * The hierarchy itself is shared and immutable, so the first write to a
+ * column copies that column's values into a private array; later reads and
+ * writes go to the copy. Columns that are never written (offsets, types,
+ * parts of speech) are never copied.
+ *
+ * @see SynsetHierarchy#createGraph(int)
+ */
+abstract class HierarchyColumn extends AbstractColumn {
+
+	/** the hierarchy node shown at row 0 */
+	protected final int m_base;
+	/** the number of rows in this column */
+	protected final int m_size;
+
+	protected HierarchyColumn(Class type, Object defaultValue, int base, int size) {
+		super(type, defaultValue);
+		m_base = base;
+		m_size = size;
+	}
+
+	public int getRowCount() {
+		return m_size;
+	}
+
+	/**
+	 * Hierarchy views have a fixed number of rows.
+	 */
+	public void setMaximumRow(int nrows) {
+		if (nrows != m_size)
+			throw new UnsupportedOperationException(
+					"Rows can not be added to or removed from a hierarchy view.");
+	}
+
+	protected void checkRow(int row) {
+		if (row < 0 || row >= m_size)
+			throw new IllegalArgumentException("Row index out of bounds: " + row);
+	}
+
+	protected void checkWrite(int row) {
+		if (m_readOnly)
+			throw new DataReadOnlyException();
+		checkRow(row);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Integer valued hierarchy column.
+	 */
+	static abstract class IntView extends HierarchyColumn {
+		private int[] m_values;
+
+		IntView(int base, int size) {
+			super(int.class, new Integer(0), base, size);
+		}
+
+		/**
+		 * @param node the hierarchy node
+		 * @return the value of this column for the node
+		 */
+		abstract int value(int node);
+
+		public Object get(int row) {
+			return new Integer(getInt(row));
+		}
+
+		public void set(Object val, int row) throws DataTypeException {
+			if (val instanceof Number)
+				setInt(((Number) val).intValue(), row);
+			else if (val instanceof String)
+				setString((String) val, row);
+			else
+				throw new DataTypeException(val == null ? null : val.getClass());
+		}
+
+		public int getInt(int row) throws DataTypeException {
+			checkRow(row);
+			return m_values != null ? m_values[row] : value(m_base + row);
+		}
+
+		public void setInt(int val, int row) throws DataTypeException {
+			checkWrite(row);
+			if (m_values == null) {
+				m_values = new int[m_size];
+				for (int i = 0; i < m_size; i++)
+					m_values[i] = value(m_base + i);
+			}
+			int prev = m_values[row];
+			if (prev == val)
+				return;
+			m_values[row] = val;
+			fireColumnEvent(row, prev);
+		}
+
+		public long getLong(int row) throws DataTypeException {
+			return getInt(row);
+		}
+
+		public float getFloat(int row) throws DataTypeException {
+			return getInt(row);
+		}
+
+		public double getDouble(int row) throws DataTypeException {
+			return getInt(row);
+		}
+	}
+
+	/**
+	 * Long valued hierarchy column.
+	 */
+	static abstract class LongView extends HierarchyColumn {
+		private long[] m_values;
+
+		LongView(int base, int size) {
+			super(long.class, new Long(0L), base, size);
+		}
+
+		abstract long value(int node);
+
+		public Object get(int row) {
+			return new Long(getLong(row));
+		}
+
+		public void set(Object val, int row) throws DataTypeException {
+			if (val instanceof Number)
+				setLong(((Number) val).longValue(), row);
+			else if (val instanceof String)
+				setString((String) val, row);
+			else
+				throw new DataTypeException(val == null ? null : val.getClass());
+		}
+
+		public long getLong(int row) throws DataTypeException {
+			checkRow(row);
+			return m_values != null ? m_values[row] : value(m_base + row);
+		}
+
+		public void setLong(long val, int row) throws DataTypeException {
+			checkWrite(row);
+			if (m_values == null) {
+				m_values = new long[m_size];
+				for (int i = 0; i < m_size; i++)
+					m_values[i] = value(m_base + i);
+			}
+			long prev = m_values[row];
+			if (prev == val)
+				return;
+			m_values[row] = val;
+			fireColumnEvent(row, prev);
+		}
+
+		public int getInt(int row) throws DataTypeException {
+			return (int) getLong(row);
+		}
+
+		public float getFloat(int row) throws DataTypeException {
+			return getLong(row);
+		}
+
+		public double getDouble(int row) throws DataTypeException {
+			return getLong(row);
+		}
+	}
+
+	/**
+	 * Boolean valued hierarchy column.
+	 */
+	static abstract class BooleanView extends HierarchyColumn {
+		private boolean[] m_values;
+
+		BooleanView(int base, int size) {
+			super(boolean.class, Boolean.FALSE, base, size);
+		}
+
+		abstract boolean value(int node);
+
+		public Object get(int row) {
+			return getBoolean(row) ? Boolean.TRUE : Boolean.FALSE;
+		}
+
+		public void set(Object val, int row) throws DataTypeException {
+			if (val instanceof Boolean)
+				setBoolean(((Boolean) val).booleanValue(), row);
+			else if (val instanceof String)
+				setString((String) val, row);
+			else
+				throw new DataTypeException(val == null ? null : val.getClass());
+		}
+
+		public boolean getBoolean(int row) throws DataTypeException {
+			checkRow(row);
+			return m_values != null ? m_values[row] : value(m_base + row);
+		}
+
+		public void setBoolean(boolean val, int row) throws DataTypeException {
+			checkWrite(row);
+			if (m_values == null) {
+				m_values = new boolean[m_size];
+				for (int i = 0; i < m_size; i++)
+					m_values[i] = value(m_base + i);
+			}
+			boolean prev = m_values[row];
+			if (prev == val)
+				return;
+			m_values[row] = val;
+			fireColumnEvent(row, prev);
+		}
+	}
+
+	/**
+	 * String valued hierarchy column.
+	 */
+	static abstract class StringView extends HierarchyColumn {
+		private String[] m_values;
+
+		StringView(int base, int size) {
+			super(String.class, null, base, size);
+		}
+
+		abstract String value(int node);
+
+		public Object get(int row) {
+			checkRow(row);
+			return m_values != null ? m_values[row] : value(m_base + row);
+		}
+
+		public void set(Object val, int row) throws DataTypeException {
+			if (val != null && !(val instanceof String))
+				throw new DataTypeException(val.getClass());
+			checkWrite(row);
+			if (m_values == null) {
+				m_values = new String[m_size];
+				for (int i = 0; i < m_size; i++)
+					m_values[i] = value(m_base + i);
+			}
+			Object prev = m_values[row];
+			if (prev == val)
+				return;
+			m_values[row] = (String) val;
+			fireColumnEvent(row, prev);
+		}
+
+		public String getString(int row) throws DataTypeException {
+			return (String) get(row);
+		}
+
+		public void setString(String val, int row) throws DataTypeException {
+			set(val, row);
+		}
+	}
+
+	/**
+	 * A contiguous range of rows of another column, typically a column of the graph
+	 * of a whole hierarchy. Reads and writes go straight to the parent column, so
+	 * values computed on the whole graph (counts, for example) are shared with
+	 * every subtree view of it.
+	 *
+	 * @see SynsetHierarchy#createSubtreeView(prefuse.data.Graph, int)
+	 */
+	static class Slice extends HierarchyColumn {
+		private final Column m_parent;
+
+		Slice(Column parent, int base, int size) {
+			super(parent.getColumnType(), parent.getDefaultValue(), base, size);
+			m_parent = parent;
+		}
+
+		public Object get(int row) {
+			checkRow(row);
+			return m_parent.get(m_base + row);
+		}
+
+		public void set(Object val, int row) throws DataTypeException {
+			checkWrite(row);
+			Object prev = m_parent.get(m_base + row);
+			m_parent.set(val, m_base + row);
+			fireColumnEvent(row, prev);
+		}
+
+		public int getInt(int row) throws DataTypeException {
+			checkRow(row);
+			return m_parent.getInt(m_base + row);
+		}
+
+		public void setInt(int val, int row) throws DataTypeException {
+			checkWrite(row);
+			int prev = m_parent.getInt(m_base + row);
+			m_parent.setInt(val, m_base + row);
+			fireColumnEvent(row, prev);
+		}
+
+		public long getLong(int row) throws DataTypeException {
+			checkRow(row);
+			return m_parent.getLong(m_base + row);
+		}
+
+		public void setLong(long val, int row) throws DataTypeException {
+			checkWrite(row);
+			long prev = m_parent.getLong(m_base + row);
+			m_parent.setLong(val, m_base + row);
+			fireColumnEvent(row, prev);
+		}
+
+		public float getFloat(int row) throws DataTypeException {
+			checkRow(row);
+			return m_parent.getFloat(m_base + row);
+		}
+
+		public void setFloat(float val, int row) throws DataTypeException {
+			checkWrite(row);
+			float prev = m_parent.getFloat(m_base + row);
+			m_parent.setFloat(val, m_base + row);
+			fireColumnEvent(row, prev);
+		}
+
+		public double getDouble(int row) throws DataTypeException {
+			checkRow(row);
+			return m_parent.getDouble(m_base + row);
+		}
+
+		public void setDouble(double val, int row) throws DataTypeException {
+			checkWrite(row);
+			double prev = m_parent.getDouble(m_base + row);
+			m_parent.setDouble(val, m_base + row);
+			fireColumnEvent(row, prev);
+		}
+
+		public boolean getBoolean(int row) throws DataTypeException {
+			checkRow(row);
+			return m_parent.getBoolean(m_base + row);
+		}
+
+		public void setBoolean(boolean val, int row) throws DataTypeException {
+			checkWrite(row);
+			boolean prev = m_parent.getBoolean(m_base + row);
+			m_parent.setBoolean(val, m_base + row);
+			fireColumnEvent(row, prev);
+		}
+
+		public String getString(int row) throws DataTypeException {
+			checkRow(row);
+			return m_parent.getString(m_base + row);
+		}
+
+		public void setString(String val, int row) throws DataTypeException {
+			checkWrite(row);
+			Object prev = m_parent.get(m_base + row);
+			m_parent.setString(val, m_base + row);
+			fireColumnEvent(row, prev);
+		}
+	}
+
+}
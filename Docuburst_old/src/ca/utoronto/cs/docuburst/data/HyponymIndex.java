@@ -0,0 +1,564 @@
+package ca.utoronto.cs.docuburst.data;
+
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.dictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.logging.Logger;
+
+import net.didion.jwnl.JWNL;
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.dictionary.Dictionary;
+
+/**
+ * The transitive closure of the WordNet hyponym relation over all noun and verb
+ * synsets, stored as intervals of postorder numbers. It answers whether one
+ * synset lies under another, how deep a synset is and how many synsets lie
+ * under it, without following pointers through the dictionary.
+ * <br><br>
+ * The hyponym graph is a DAG: a few synsets have more than one hypernym. Nodes
+ * are numbered in postorder along a depth-first spanning tree, so every node
+ * covers the interval of its spanning subtree. A node also covers the intervals
+ * of its other hyponyms; overlapping and adjacent intervals are merged, and a
+ * node lies under another exactly when its number falls in one of the other's
+ * intervals. Almost every synset ends up with a single interval, so the test is
+ * a comparison or two; the rest need a binary search over a handful.
+ * <br><br>
+ * Building the index reads every noun and verb synset, so it is done once per
+ * dictionary, by the first query, and kept in a binary file. Index file layout
+ * (big endian):
+ * <pre>
+ * int magic, int version, double WordNet version
+ * int #nodes, then per node: long key, int postorder number, int minimum depth,
+ *                            int maximum depth, int #intervals, then per interval: int low, int high
+ * </pre>
+ * A key is the index of the part of speech in {@link #INDEXED_POS} in the high
+ * 32 bits and the synset offset in the low 32 bits.
+ */
+public class HyponymIndex {
+
+	private static final Logger logger = Logger.getLogger(HyponymIndex.class.getName());
+
+	/** Returned by lookups that do not match any node. */
+	public static final int NO_NODE = -1;
+
+	/** The parts of speech with a hyponym hierarchy. */
+	public static final POS[] INDEXED_POS = {POS.NOUN, POS.VERB};
+
+	private static final int MAGIC = 0x44424849; // "DBHI"
+	private static final int VERSION = 1;
+
+	private static File indexFile = new File(System.getProperty("user.home"), ".docuburst" + File.separator + "hyponyms.dbh");
+
+	// the index of the current dictionary
+	private static HyponymIndex instance;
+	private static Dictionary instanceDictionary;
+
+	private final int m_size;
+
+	// per node data; node ids are positions in m_keys
+	private final long[] m_keys;          // sorted
+	private final int[]  m_post;          // postorder number along the spanning tree
+	private final int[]  m_nodeAtPost;    // inverse of m_post
+	private final int[]  m_depth;         // length of the shortest hypernym path to a root
+	private final int[]  m_maxDepth;      // length of the longest hypernym path to a root
+	private final int[]  m_subtreeSize;   // number of synsets under the node, including it
+
+	// CSR intervals of postorder numbers covered by each node, sorted and disjoint
+	private final int[] m_intervalStart;
+	private final int[] m_low;
+	private final int[] m_high;
+
+	private HyponymIndex(long[] keys, int[] post, int[] depth, int[] maxDepth,
+			int[] intervalStart, int[] low, int[] high) {
+		m_size = keys.length;
+		m_keys = keys;
+		m_post = post;
+		m_depth = depth;
+		m_maxDepth = maxDepth;
+		m_intervalStart = intervalStart;
+		m_low = low;
+		m_high = high;
+
+		m_nodeAtPost = new int[m_size];
+		for (int n = 0; n < m_size; n++)
+			m_nodeAtPost[m_post[n]] = n;
+		m_subtreeSize = new int[m_size];
+		for (int n = 0; n < m_size; n++)
+			for (int i = m_intervalStart[n]; i < m_intervalStart[n + 1]; i++)
+				m_subtreeSize[n] += m_high[i] - m_low[i] + 1;
+	}
+
+	// ------------------------------------------------------------------------
+	// Instances
+
+	/**
+	 * @param file the file in which the index of the current dictionary is kept
+	 */
+	public static synchronized void setIndexFile(File file) {
+		indexFile = file;
+	}
+
+	public static synchronized File getIndexFile() {
+		return indexFile;
+	}
+
+	/**
+	 * Return the index of the current dictionary, reading it from the index file,
+	 * or building it and writing the index file if the file is missing or was built
+	 * for another version of WordNet.
+	 *
+	 * @return the index of {@link ca.utoronto.cs.wordnetexplorer.utilities.Constants#dictionary}
+	 * @throws JWNLException if the index has to be built and a lookup fails
+	 */
+	public static HyponymIndex getInstance() throws JWNLException {
+		return getInstance(dictionary);
+	}
+
+	/**
+	 * Return the index of the given dictionary, as {@link #getInstance()} does.
+	 */
+	public static synchronized HyponymIndex getInstance(Dictionary dict) throws JWNLException {
+		if (instance == null || instanceDictionary != dict) {
+			instance = load(dict, indexFile);
+			instanceDictionary = dict;
+		}
+		return instance;
+	}
+
+	/**
+	 * Read the index from the given file, or build it from the dictionary and write it
+	 * to the file.
+	 *
+	 * @param dict the dictionary to index
+	 * @param file the index file
+	 * @return the index
+	 * @throws JWNLException if the index has to be built and a lookup fails
+	 */
+	public static HyponymIndex load(Dictionary dict, File file) throws JWNLException {
+		try {
+			if (file.isFile()) {
+				HyponymIndex index = read(file);
+				if (index != null)
+					return index;
+			}
+		} catch (IOException e) {
+			logger.warning("Could not read hyponym index: " + e.getMessage());
+		}
+
+		HyponymIndex index = build(dict);
+		try {
+			index.write(file);
+		} catch (IOException e) {
+			logger.warning("Could not write hyponym index: " + e.getMessage());
+		}
+		return index;
+	}
+
+	// ------------------------------------------------------------------------
+	// Queries
+
+	public int getNodeCount() {
+		return m_size;
+	}
+
+	/**
+	 * @param pos the part of speech of a synset
+	 * @param offset the offset of the synset
+	 * @return the node of the synset, or {@link #NO_NODE} if it is not indexed
+	 */
+	public int indexOf(POS pos, long offset) {
+		for (int p = 0; p < INDEXED_POS.length; p++) {
+			if (INDEXED_POS[p].equals(pos)) {
+				int i = Arrays.binarySearch(m_keys, key(p, offset));
+				return i < 0 ? NO_NODE : i;
+			}
+		}
+		return NO_NODE;
+	}
+
+	public int indexOf(Synset synset) {
+		return indexOf(synset.getPOS(), synset.getOffset());
+	}
+
+	public POS getPOS(int node) {
+		return INDEXED_POS[(int) (m_keys[node] >>> 32)];
+	}
+
+	public long getOffset(int node) {
+		return m_keys[node] & 0xffffffffL;
+	}
+
+	/**
+	 * @return true if <code>node</code> is <code>ancestor</code> or one of its direct or indirect hyponyms
+	 */
+	public boolean isDescendant(int node, int ancestor) {
+		int p = m_post[node];
+		int lo = m_intervalStart[ancestor];
+		int hi = m_intervalStart[ancestor + 1] - 1;
+		// the last interval is the one of the spanning subtree, which ends at the ancestor
+		if (p > m_high[hi])
+			return false;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (m_high[mid] < p)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return m_low[lo] <= p;
+	}
+
+	/**
+	 * @return true if <code>synset</code> is <code>ancestor</code> or one of its direct or
+	 *         indirect hyponyms; false if either is not indexed
+	 */
+	public boolean isDescendant(Synset synset, Synset ancestor) {
+		int node = indexOf(synset);
+		int a = indexOf(ancestor);
+		return node != NO_NODE && a != NO_NODE && isDescendant(node, a);
+	}
+
+	/**
+	 * @return the number of hypernym links on the shortest path from the node to a root
+	 */
+	public int getDepth(int node) {
+		return m_depth[node];
+	}
+
+	/**
+	 * @return the number of hypernym links on the longest path from the node to a root
+	 */
+	public int getMaxDepth(int node) {
+		return m_maxDepth[node];
+	}
+
+	/**
+	 * @return the number of distinct synsets under the node, including it
+	 */
+	public int getSubtreeSize(int node) {
+		return m_subtreeSize[node];
+	}
+
+	/**
+	 * @return the nodes under the given node, including it, in postorder
+	 */
+	public int[] getDescendants(int node) {
+		int[] nodes = new int[m_subtreeSize[node]];
+		int k = 0;
+		for (int i = m_intervalStart[node]; i < m_intervalStart[node + 1]; i++)
+			for (int p = m_low[i]; p <= m_high[i]; p++)
+				nodes[k++] = m_nodeAtPost[p];
+		return nodes;
+	}
+
+	// ------------------------------------------------------------------------
+	// Building
+
+	private static long key(int pos, long offset) {
+		return ((long) pos << 32) | offset;
+	}
+
+	/**
+	 * Build the index of all noun and verb synsets of the given dictionary.
+	 *
+	 * @param dict the dictionary
+	 * @return the index
+	 * @throws JWNLException if a lookup fails
+	 */
+	public static HyponymIndex build(Dictionary dict) throws JWNLException {
+		// collect synsets and their hypernym links
+		LongList keys = new LongList();
+		LongList edgeChild = new LongList();
+		LongList edgeParent = new LongList();
+		for (int p = 0; p < INDEXED_POS.length; p++) {
+			for (Iterator it = dict.getSynsetIterator(INDEXED_POS[p]); it.hasNext();) {
+				Synset synset = (Synset) it.next();
+				long key = key(p, synset.getOffset());
+				keys.add(key);
+				Pointer[] pointers = synset.getPointers();
+				for (int k = 0; k < pointers.length; k++) {
+					PointerType type = pointers[k].getType();
+					if ((PointerType.HYPERNYM.equals(type) || PointerType.INSTANCE_HYPERNYM.equals(type))
+							&& INDEXED_POS[p].equals(pointers[k].getTargetPOS())) {
+						edgeChild.add(key);
+						edgeParent.add(key(p, pointers[k].getTargetOffset()));
+					}
+				}
+			}
+		}
+		long[] sorted = keys.toArray();
+		Arrays.sort(sorted);
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++)
+			if (size == 0 || sorted[i] != sorted[size - 1])
+				sorted[size++] = sorted[i];
+		sorted = Arrays.copyOf(sorted, size);
+
+		// CSR hyponym and hypernym lists
+		int[] child = new int[edgeChild.size()];
+		int[] parent = new int[edgeChild.size()];
+		int edges = 0;
+		for (int e = 0; e < edgeChild.size(); e++) {
+			int c = Arrays.binarySearch(sorted, edgeChild.get(e));
+			int p = Arrays.binarySearch(sorted, edgeParent.get(e));
+			if (c >= 0 && p >= 0 && c != p) {
+				child[edges] = c;
+				parent[edges++] = p;
+			}
+		}
+		int[] hyponymStart = new int[size + 1];
+		int[] hypernymCount = new int[size];
+		for (int e = 0; e < edges; e++) {
+			hyponymStart[parent[e] + 1]++;
+			hypernymCount[child[e]]++;
+		}
+		for (int n = 0; n < size; n++)
+			hyponymStart[n + 1] += hyponymStart[n];
+		int[] hyponyms = new int[edges];
+		int[] fill = Arrays.copyOf(hyponymStart, size);
+		for (int e = 0; e < edges; e++)
+			hyponyms[fill[parent[e]]++] = child[e];
+		for (int n = 0; n < size; n++)
+			Arrays.sort(hyponyms, hyponymStart[n], hyponymStart[n + 1]);
+
+		// depth-first search from the roots, then from anything left over (cycles);
+		// a node's intervals are complete when it finishes, since its hyponyms finish first
+		int[] post = new int[size];
+		int[] low = new int[size];
+		int[] next = new int[size];
+		byte[] state = new byte[size]; // 0 unvisited, 1 on the stack, 2 finished
+		int[][] intervals = new int[size][];
+		int[] stack = new int[size];
+		int counter = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			for (int r = 0; r < size; r++) {
+				if (state[r] != 0 || (pass == 0 && hypernymCount[r] > 0))
+					continue;
+				int top = 0;
+				stack[top++] = r;
+				state[r] = 1;
+				low[r] = counter;
+				next[r] = hyponymStart[r];
+				while (top > 0) {
+					int n = stack[top - 1];
+					if (next[n] < hyponymStart[n + 1]) {
+						int c = hyponyms[next[n]++];
+						if (state[c] == 0) {
+							stack[top++] = c;
+							state[c] = 1;
+							low[c] = counter;
+							next[c] = hyponymStart[c];
+						}
+					} else {
+						top--;
+						post[n] = counter++;
+						state[n] = 2;
+						intervals[n] = mergeIntervals(n, low[n], post[n], hyponyms, hyponymStart, intervals);
+					}
+				}
+			}
+		}
+
+		// depths, visiting hypernyms before hyponyms
+		int[] nodeAtPost = new int[size];
+		for (int n = 0; n < size; n++)
+			nodeAtPost[post[n]] = n;
+		int[] depth = new int[size];
+		int[] maxDepth = new int[size];
+		Arrays.fill(depth, Integer.MAX_VALUE);
+		for (int n = 0; n < size; n++)
+			if (hypernymCount[n] == 0)
+				depth[n] = 0;
+		for (int p = size - 1; p >= 0; p--) {
+			int n = nodeAtPost[p];
+			if (depth[n] == Integer.MAX_VALUE)
+				depth[n] = 0; // on a cycle with no root
+			for (int i = hyponymStart[n]; i < hyponymStart[n + 1]; i++) {
+				int c = hyponyms[i];
+				if (post[c] < post[n]) {
+					depth[c] = Math.min(depth[c], depth[n] + 1);
+					maxDepth[c] = Math.max(maxDepth[c], maxDepth[n] + 1);
+				}
+			}
+		}
+
+		// flatten the intervals
+		int[] intervalStart = new int[size + 1];
+		for (int n = 0; n < size; n++)
+			intervalStart[n + 1] = intervalStart[n] + intervals[n].length / 2;
+		int[] lows = new int[intervalStart[size]];
+		int[] highs = new int[intervalStart[size]];
+		for (int n = 0; n < size; n++) {
+			for (int i = 0; i < intervals[n].length / 2; i++) {
+				lows[intervalStart[n] + i] = intervals[n][2 * i];
+				highs[intervalStart[n] + i] = intervals[n][2 * i + 1];
+			}
+		}
+		return new HyponymIndex(sorted, post, depth, maxDepth, intervalStart, lows, highs);
+	}
+
+	/**
+	 * @return the sorted, disjoint intervals covered by node n, as low, high pairs
+	 */
+	private static int[] mergeIntervals(int n, int low, int post, int[] hyponyms, int[] hyponymStart, int[][] intervals) {
+		// intervals as low << 32 | high; those of the spanning subtree are already inside [low, post]
+		LongList all = new LongList();
+		all.add(((long) low << 32) | post);
+		for (int i = hyponymStart[n]; i < hyponymStart[n + 1]; i++) {
+			int[] c = intervals[hyponyms[i]];
+			if (c == null)
+				continue; // a cycle back to a node on the stack
+			for (int k = 0; k < c.length; k += 2)
+				if (c[k] < low || c[k + 1] > post)
+					all.add(((long) c[k] << 32) | c[k + 1]);
+		}
+		if (all.size() == 1)
+			return new int[] {low, post};
+
+		long[] sorted = all.toArray();
+		Arrays.sort(sorted);
+		int[] merged = new int[2 * sorted.length];
+		int count = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			int l = (int) (sorted[i] >>> 32);
+			int h = (int) sorted[i];
+			if (count > 0 && l <= merged[count - 1] + 1)
+				merged[count - 1] = Math.max(merged[count - 1], h);
+			else {
+				merged[count++] = l;
+				merged[count++] = h;
+			}
+		}
+		return Arrays.copyOf(merged, count);
+	}
+
+	/** A growable list of longs. */
+	private static class LongList {
+		private long[] values = new long[1024];
+		private int size;
+
+		void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2 * size);
+			values[size++] = value;
+		}
+
+		long get(int i) {
+			return values[i];
+		}
+
+		int size() {
+			return size;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Index files
+
+	/**
+	 * Write the index to the given file.
+	 *
+	 * @param file the index file
+	 * @throws IOException if the file can not be written
+	 */
+	public void write(File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Can not create " + dir);
+
+		// write to a temporary file and rename, so a partial file is never read
+		File tmp = new File(dir, file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeDouble(wordNetVersion());
+			out.writeInt(m_size);
+			for (int n = 0; n < m_size; n++) {
+				out.writeLong(m_keys[n]);
+				out.writeInt(m_post[n]);
+				out.writeInt(m_depth[n]);
+				out.writeInt(m_maxDepth[n]);
+				out.writeInt(m_intervalStart[n + 1] - m_intervalStart[n]);
+				for (int i = m_intervalStart[n]; i < m_intervalStart[n + 1]; i++) {
+					out.writeInt(m_low[i]);
+					out.writeInt(m_high[i]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+		if (file.exists())
+			file.delete();
+		if (!tmp.renameTo(file))
+			throw new IOException("Can not rename " + tmp + " to " + file);
+	}
+
+	/**
+	 * @return the index in the given file, or null if the file is of another version
+	 *         or was built for another version of WordNet
+	 */
+	public static HyponymIndex read(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getDouble() != wordNetVersion())
+				return null;
+
+			int size = buf.getInt();
+			long[] keys = new long[size];
+			int[] post = new int[size];
+			int[] depth = new int[size];
+			int[] maxDepth = new int[size];
+			int[] intervalStart = new int[size + 1];
+			int[] low = new int[Math.max(16, size)];
+			int[] high = new int[low.length];
+			for (int n = 0; n < size; n++) {
+				keys[n] = buf.getLong();
+				post[n] = buf.getInt();
+				depth[n] = buf.getInt();
+				maxDepth[n] = buf.getInt();
+				int count = buf.getInt();
+				intervalStart[n + 1] = intervalStart[n] + count;
+				if (intervalStart[n + 1] > low.length) {
+					low = Arrays.copyOf(low, Math.max(2 * low.length, intervalStart[n + 1]));
+					high = Arrays.copyOf(high, low.length);
+				}
+				for (int i = intervalStart[n]; i < intervalStart[n + 1]; i++) {
+					low[i] = buf.getInt();
+					high[i] = buf.getInt();
+				}
+			}
+			return new HyponymIndex(keys, post, depth, maxDepth, intervalStart,
+					Arrays.copyOf(low, intervalStart[size]), Arrays.copyOf(high, intervalStart[size]));
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated hyponym index " + file);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static double wordNetVersion() {
+		return JWNL.getVersion() == null ? 0 : JWNL.getVersion().getNumber();
+	}
+}
@@ -0,0 +1,103 @@
+package ca.utoronto.cs.docuburst.data;
+
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.dictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+
+/**
+ * The synsets reachable from a synset through pointers of one type, fetched before
+ * the tree is walked. The search is breadth first, and the targets of all synsets in
+ * a frontier are requested together with one
+ * {@link net.didion.jwnl.dictionary.Dictionary#getSynsetsAt(POS, long[])} call per
+ * part of speech, so a database dictionary answers a whole level of the tree in one
+ * query rather than one query per pointer.
+ */
+class ReachableSynsets {
+
+	// synsets by part of speech and offset; null for offsets with no synset
+	private final HashMap<POS, HashMap<Long, Synset>> m_synsets = new HashMap<POS, HashMap<Long, Synset>>();
+
+	private ReachableSynsets() {
+	}
+
+	/**
+	 * Fetch the synsets reachable from the given synset.
+	 *
+	 * @param synset the starting synset
+	 * @param pointerType the type of pointer to follow
+	 * @return the reachable synsets
+	 * @throws JWNLException if a lookup operation fails
+	 */
+	static ReachableSynsets fetch(Synset synset, PointerType pointerType) throws JWNLException {
+		ReachableSynsets reachable = new ReachableSynsets();
+		List<Synset> frontier = Collections.singletonList(synset);
+		while (!frontier.isEmpty()) {
+			// offsets of the new targets of the frontier, by part of speech
+			HashMap<POS, ArrayList<Long>> byPOS = new HashMap<POS, ArrayList<Long>>();
+			for (Synset s : frontier) {
+				Pointer[] pointers = s.getPointers();
+				for (int k = 0; k < pointers.length; k++) {
+					if (!pointerType.equals(pointers[k].getType()))
+						continue;
+					POS pos = pointers[k].getTargetPOS();
+					Long offset = pointers[k].getTargetOffset();
+					HashMap<Long, Synset> synsets = reachable.m_synsets.get(pos);
+					if (synsets == null) {
+						synsets = new HashMap<Long, Synset>();
+						reachable.m_synsets.put(pos, synsets);
+					}
+					if (synsets.containsKey(offset))
+						continue;
+					synsets.put(offset, null);
+					ArrayList<Long> offsets = byPOS.get(pos);
+					if (offsets == null) {
+						offsets = new ArrayList<Long>();
+						byPOS.put(pos, offsets);
+					}
+					offsets.add(offset);
+				}
+			}
+
+			List<Synset> next = new ArrayList<Synset>();
+			for (POS pos : byPOS.keySet()) {
+				ArrayList<Long> offsets = byPOS.get(pos);
+				long[] o = new long[offsets.size()];
+				for (int i = 0; i < o.length; i++)
+					o[i] = offsets.get(i);
+				Synset[] synsets = dictionary.getSynsetsAt(pos, o);
+				HashMap<Long, Synset> found = reachable.m_synsets.get(pos);
+				for (int i = 0; i < synsets.length; i++) {
+					if (synsets[i] != null) {
+						found.put(offsets.get(i), synsets[i]);
+						next.add(synsets[i]);
+					}
+				}
+			}
+			frontier = next;
+		}
+		return reachable;
+	}
+
+	/**
+	 * Get the target of a pointer, looking it up if it was not fetched.
+	 *
+	 * @param pointer a pointer followed by the search
+	 * @return the target synset
+	 * @throws JWNLException if a lookup operation fails
+	 */
+	Synset getTargetSynset(Pointer pointer) throws JWNLException {
+		HashMap<Long, Synset> synsets = m_synsets.get(pointer.getTargetPOS());
+		Synset target = synsets == null ? null : synsets.get(pointer.getTargetOffset());
+		return target != null ? target : pointer.getTargetSynset();
+	}
+
+}
@@ -0,0 +1,528 @@
+package ca.utoronto.cs.docuburst.data;
+
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.HYPERONOMY;
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.HYPONOMY;
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.S2W;
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.SENSE;
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.WORD;
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.data.Word;
+import prefuse.data.Graph;
+import prefuse.data.Table;
+import prefuse.data.column.Column;
+import ca.utoronto.cs.wordnetexplorer.swing.WordNetSearchPanel;
+
+/**
+ * An immutable, array-backed tree of WordNet synsets and their words, built by
+ * recursively following pointers of the given types from a root synset. It
+ * holds the same nodes, in the same order, as the prefuse graph that
+ * {@link WordNetTree#fillGraph(Synset, java.util.HashSet, boolean, boolean)}
+ * used to build tuple by tuple, but in a handful of primitive arrays:
+ * synset offsets, interned label ids, parent links and CSR child lists.
+ * <br><br>
+ * Nodes are numbered in depth-first preorder, so the subtree of node
+ * <code>n</code> is exactly the range <code>[n, n + getSubtreeSize(n))</code>.
+ * This lets {@link #createGraph(int)} hand out a prefuse {@link Graph} for any
+ * subtree whose columns read straight from these arrays.
+ *
+ * @author Rafael Veras
+ */
+public class SynsetHierarchy {
+
+	/** Returned by lookups that do not match any node. */
+	public static final int NO_NODE = -1;
+
+	private final int m_size;
+
+	// per node data; node ids are preorder positions
+	private final byte[] m_type;       // SENSE or WORD
+	private final long[] m_offset;     // synset offset (of the owning synset for words)
+	private final int[]  m_label;      // id into m_strings
+	private final int[]  m_gloss;      // id into m_strings, -1 for words
+	private final int[]  m_pos;        // id into m_strings
+	private final int[]  m_wordIndex;  // index of the word in its synset, 0 for synsets
+	private final int[]  m_polysemy;   // null unless polysemy was counted
+	private final byte[] m_linkType;   // index into m_pointerTypes of the edge to the parent, -1 for words and the root
+
+	// structure
+	private final int[] m_parent;      // NO_NODE for the root
+	private final int[] m_subtreeEnd;  // exclusive end of the preorder range of each subtree
+	private final int[] m_childStart;  // CSR offsets into m_children, length m_size + 1
+	private final int[] m_children;
+
+	// synset offsets in the high 32 bits and node ids in the low 32 bits, sorted,
+	// so the first node of a synset can be found by binary search
+	private final long[] m_offsetIndex;
+
+	private final String[] m_strings;
+	private final PointerType[] m_pointerTypes;
+
+	private SynsetHierarchy(Builder b) {
+		m_size = b.size;
+		m_type = Arrays.copyOf(b.type, m_size);
+		m_offset = Arrays.copyOf(b.offset, m_size);
+		m_label = Arrays.copyOf(b.label, m_size);
+		m_gloss = Arrays.copyOf(b.gloss, m_size);
+		m_pos = Arrays.copyOf(b.pos, m_size);
+		m_wordIndex = Arrays.copyOf(b.wordIndex, m_size);
+		m_polysemy = b.polysemy == null ? null : Arrays.copyOf(b.polysemy, m_size);
+		m_linkType = Arrays.copyOf(b.linkType, m_size);
+		m_parent = Arrays.copyOf(b.parent, m_size);
+		m_strings = b.strings.toArray(new String[b.strings.size()]);
+		m_pointerTypes = b.pointerTypes;
+
+		// children of each node, in creation order
+		m_childStart = new int[m_size + 1];
+		for (int n = 1; n < m_size; n++)
+			m_childStart[m_parent[n] + 1]++;
+		for (int n = 0; n < m_size; n++)
+			m_childStart[n + 1] += m_childStart[n];
+		m_children = new int[Math.max(0, m_size - 1)];
+		int[] fill = Arrays.copyOf(m_childStart, m_size);
+		for (int n = 1; n < m_size; n++)
+			m_children[fill[m_parent[n]]++] = n;
+
+		// preorder numbering: a subtree ends where its last descendant ends
+		m_subtreeEnd = new int[m_size];
+		for (int n = m_size - 1; n >= 0; n--) {
+			m_subtreeEnd[n] = Math.max(m_subtreeEnd[n], n + 1);
+			if (m_parent[n] != NO_NODE)
+				m_subtreeEnd[m_parent[n]] = Math.max(m_subtreeEnd[m_parent[n]], m_subtreeEnd[n]);
+		}
+
+		int synsets = 0;
+		for (int n = 0; n < m_size; n++)
+			if (m_type[n] == SENSE)
+				synsets++;
+		m_offsetIndex = new long[synsets];
+		for (int n = 0, i = 0; n < m_size; n++)
+			if (m_type[n] == SENSE)
+				m_offsetIndex[i++] = (m_offset[n] << 32) | n;
+		Arrays.sort(m_offsetIndex);
+	}
+
+	/**
+	 * Build the hierarchy rooted at the given synset.
+	 *
+	 * @param root the starting point for the search
+	 * @param pointerTypes the types of relationship to follow
+	 * @param countPolysemy whether to collect the number of meanings of each word
+	 * @return the filled hierarchy
+	 * @throws JWNLException if a lookup operation fails
+	 */
+	public static SynsetHierarchy build(Synset root, Collection<PointerType> pointerTypes,
+			boolean countPolysemy) throws JWNLException {
+		Builder b = new Builder(pointerTypes, countPolysemy);
+		int rootNode = b.addSynset(root, NO_NODE, -1);
+		for (int t = 0; t < b.pointerTypes.length; t++)
+			b.addRelations(root, rootNode, t, ReachableSynsets.fetch(root, b.pointerTypes[t]));
+		return new SynsetHierarchy(b);
+	}
+
+	// ------------------------------------------------------------------------
+	// Traversal
+
+	public int getNodeCount() {
+		return m_size;
+	}
+
+	public int getRoot() {
+		return 0;
+	}
+
+	public int getParent(int node) {
+		return m_parent[node];
+	}
+
+	public int getChildCount(int node) {
+		return m_childStart[node + 1] - m_childStart[node];
+	}
+
+	public int getChild(int node, int i) {
+		return m_children[m_childStart[node] + i];
+	}
+
+	/**
+	 * @param node a node
+	 * @return the number of nodes in the subtree rooted at node, including it
+	 */
+	public int getSubtreeSize(int node) {
+		return m_subtreeEnd[node] - node;
+	}
+
+	/**
+	 * @return true if <code>node</code> is <code>ancestor</code> or lies below it
+	 */
+	public boolean isDescendant(int node, int ancestor) {
+		return node >= ancestor && node < m_subtreeEnd[ancestor];
+	}
+
+	/**
+	 * Find the first synset node with the given offset. Synsets with more than one
+	 * parent appear once under each parent, with identical subtrees.
+	 *
+	 * @param offset a synset offset
+	 * @return the node, or {@link #NO_NODE}
+	 */
+	public int indexOf(long offset) {
+		// the smallest entry for this offset holds the smallest node id
+		int i = Arrays.binarySearch(m_offsetIndex, offset << 32);
+		if (i < 0)
+			i = -i - 1;
+		if (i < m_offsetIndex.length && (m_offsetIndex[i] >>> 32) == offset)
+			return (int) m_offsetIndex[i];
+		return NO_NODE;
+	}
+
+	// ------------------------------------------------------------------------
+	// Node data
+
+	public int getType(int node) {
+		return m_type[node];
+	}
+
+	public long getOffset(int node) {
+		return m_offset[node];
+	}
+
+	public String getLabel(int node) {
+		return m_strings[m_label[node]];
+	}
+
+	public String getGloss(int node) {
+		return m_gloss[node] < 0 ? null : m_strings[m_gloss[node]];
+	}
+
+	public String getPOS(int node) {
+		return m_strings[m_pos[node]];
+	}
+
+	public int getWordIndex(int node) {
+		return m_wordIndex[node];
+	}
+
+	/**
+	 * @return the number of words of a synset node; words are always its first children
+	 */
+	public int getWordChildren(int node) {
+		if (m_type[node] != SENSE)
+			return 0;
+		int count = 0;
+		for (int i = m_childStart[node]; i < m_childStart[node + 1]; i++) {
+			if (m_type[m_children[i]] != WORD)
+				break;
+			count++;
+		}
+		return count;
+	}
+
+	public boolean hasPolysemy() {
+		return m_polysemy != null;
+	}
+
+	public int getPolysemy(int node) {
+		return m_polysemy == null ? 0 : m_polysemy[node];
+	}
+
+	/**
+	 * @return the pointer type linking node to its parent, or null for words and the root
+	 */
+	public PointerType getPointerType(int node) {
+		return m_linkType[node] < 0 ? null : m_pointerTypes[m_linkType[node]];
+	}
+
+	/**
+	 * @return the graph edge type of the edge linking node to its parent
+	 */
+	public int getEdgeType(int node) {
+		if (m_type[node] == WORD)
+			return S2W;
+		PointerType p = getPointerType(node);
+		if (p == PointerType.HYPONYM)
+			return HYPONOMY;
+		if (p == PointerType.HYPERNYM)
+			return HYPERONOMY;
+		return 0;
+	}
+
+	// ------------------------------------------------------------------------
+	// prefuse views
+
+	/**
+	 * Create a directed prefuse graph presenting the subtree rooted at the given node,
+	 * with the columns set up by {@link WordNetTree}. The node and edge data are read
+	 * from this hierarchy on demand; nothing is copied until a column is written to.
+	 * Columns added to the returned graph are private to it.
+	 *
+	 * @param node the root of the subtree
+	 * @return a graph whose node row r is hierarchy node <code>node + r</code>
+	 */
+	public Graph createGraph(final int node) {
+		final int n = getSubtreeSize(node);
+
+		ViewTable nodes = new ViewTable(n);
+		nodes.addViewColumn("type", new HierarchyColumn.IntView(node, n) {
+			int value(int i) { return m_type[i]; }
+		});
+		nodes.addViewColumn("label", new HierarchyColumn.StringView(node, n) {
+			String value(int i) { return getLabel(i); }
+		});
+		nodes.addViewColumn("root", new HierarchyColumn.BooleanView(node, n) {
+			boolean value(int i) { return i == node; }
+		});
+		nodes.addViewColumn("pos", new HierarchyColumn.StringView(node, n) {
+			String value(int i) { return getPOS(i); }
+		});
+		nodes.addViewColumn("offset", new HierarchyColumn.LongView(node, n) {
+			long value(int i) { return m_offset[i]; }
+		});
+		nodes.addViewColumn("wordIndex", new HierarchyColumn.IntView(node, n) {
+			int value(int i) { return m_wordIndex[i]; }
+		});
+		nodes.addViewColumn("linktype", new HierarchyColumn.StringView(node, n) {
+			String value(int i) { return null; }
+		});
+		nodes.addViewColumn("wordChildren", new HierarchyColumn.IntView(node, n) {
+			int value(int i) { return getWordChildren(i); }
+		});
+		nodes.addViewColumn("gloss", new HierarchyColumn.StringView(node, n) {
+			String value(int i) { return getGloss(i); }
+		});
+		if (hasPolysemy()) {
+			nodes.addViewColumn("polysemy", new HierarchyColumn.IntView(node, n) {
+				int value(int i) { return m_polysemy[i]; }
+			});
+		}
+
+		// edge e links node + e + 1 to its parent
+		ViewTable edges = new ViewTable(n - 1);
+		edges.addViewColumn(Graph.DEFAULT_SOURCE_KEY, new HierarchyColumn.IntView(node + 1, n - 1) {
+			int value(int i) { return m_parent[i] - node; }
+		});
+		edges.addViewColumn(Graph.DEFAULT_TARGET_KEY, new HierarchyColumn.IntView(node + 1, n - 1) {
+			int value(int i) { return i - node; }
+		});
+		edges.addViewColumn("type", new HierarchyColumn.IntView(node + 1, n - 1) {
+			int value(int i) { return getEdgeType(i); }
+		});
+		edges.addViewColumn("label", new HierarchyColumn.StringView(node + 1, n - 1) {
+			String value(int i) { return getLabel(m_parent[i]) + " " + getLabel(i); }
+		});
+		edges.addViewColumn("linktype", new HierarchyColumn.StringView(node + 1, n - 1) {
+			String value(int i) {
+				PointerType p = getPointerType(i);
+				return p == null ? null : p.getLabel();
+			}
+		});
+
+		return newGraph(nodes, edges);
+	}
+
+	/**
+	 * Create a directed prefuse graph presenting the subtree rooted at the given node
+	 * as a window onto <code>graph</code>, which must have been created by
+	 * <code>createGraph(getRoot())</code>. Every node column of the full graph, including
+	 * columns added to it since it was created, is shared: reads and writes go to the
+	 * full graph. Creating the view costs time proportional to the size of the subtree
+	 * and copies no data.
+	 *
+	 * @param graph the graph of the whole hierarchy
+	 * @param node the root of the subtree
+	 * @return a graph whose node row r is row <code>node + r</code> of <code>graph</code>
+	 */
+	public Graph createSubtreeView(Graph graph, final int node) {
+		Table fullNodes = graph.getNodeTable();
+		Table fullEdges = graph.getEdgeTable();
+		if (fullNodes.getRowCount() != m_size)
+			throw new IllegalArgumentException("Graph is not a view of the whole hierarchy.");
+		final int n = getSubtreeSize(node);
+
+		ViewTable nodes = new ViewTable(n);
+		for (int c = 0; c < fullNodes.getColumnCount(); c++) {
+			String name = fullNodes.getColumnName(c);
+			if (name.equals("root")) {
+				nodes.addViewColumn(name, new HierarchyColumn.BooleanView(node, n) {
+					boolean value(int i) { return i == node; }
+				});
+			} else
+				nodes.addViewColumn(name, new HierarchyColumn.Slice(fullNodes.getColumn(c), node, n));
+		}
+
+		// edge e of the view is edge node + e of the full graph
+		ViewTable edges = new ViewTable(n - 1);
+		edges.addViewColumn(Graph.DEFAULT_SOURCE_KEY, new HierarchyColumn.IntView(node + 1, n - 1) {
+			int value(int i) { return m_parent[i] - node; }
+		});
+		edges.addViewColumn(Graph.DEFAULT_TARGET_KEY, new HierarchyColumn.IntView(node + 1, n - 1) {
+			int value(int i) { return i - node; }
+		});
+		for (int c = 0; c < fullEdges.getColumnCount(); c++) {
+			String name = fullEdges.getColumnName(c);
+			if (!name.equals(Graph.DEFAULT_SOURCE_KEY) && !name.equals(Graph.DEFAULT_TARGET_KEY))
+				edges.addViewColumn(name, new HierarchyColumn.Slice(fullEdges.getColumn(c), node, n - 1));
+		}
+
+		return newGraph(nodes, edges);
+	}
+
+	/**
+	 * Create a directed graph over hierarchy views. The edges of a view never change,
+	 * so the graph is compacted to keep its adjacency lists in two flat arrays.
+	 */
+	private static Graph newGraph(Table nodes, Table edges) {
+		Graph g = new Graph(nodes, edges, true);
+		g.compact();
+		return g;
+	}
+
+	/**
+	 * A fixed size table whose columns are hierarchy views.
+	 */
+	private static class ViewTable extends Table {
+		ViewTable(int nrows) {
+			super(nrows, 12);
+		}
+
+		void addViewColumn(String name, Column col) {
+			addColumn(name, col);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Construction
+
+	/**
+	 * Growable buffers filled by a depth-first walk of the WordNet pointers.
+	 */
+	private static class Builder {
+		int size = 0;
+		byte[] type = new byte[1024];
+		long[] offset = new long[1024];
+		int[] label = new int[1024];
+		int[] gloss = new int[1024];
+		int[] pos = new int[1024];
+		int[] wordIndex = new int[1024];
+		int[] polysemy;
+		byte[] linkType = new byte[1024];
+		int[] parent = new int[1024];
+
+		final PointerType[] pointerTypes;
+		final List<String> strings = new ArrayList<String>();
+		final HashMap<String, Integer> stringIds = new HashMap<String, Integer>();
+		final HashMap<String, Integer> lemmaPolysemy;
+
+		Builder(Collection<PointerType> pointerTypes, boolean countPolysemy) {
+			this.pointerTypes = pointerTypes.toArray(new PointerType[pointerTypes.size()]);
+			polysemy = countPolysemy ? new int[1024] : null;
+			lemmaPolysemy = countPolysemy ? new HashMap<String, Integer>() : null;
+		}
+
+		int intern(String s) {
+			Integer id = stringIds.get(s);
+			if (id == null) {
+				id = strings.size();
+				strings.add(s);
+				stringIds.put(s, id);
+			}
+			return id;
+		}
+
+		int addNode(int nodeType, int parentNode, long synsetOffset, String nodeLabel,
+				String nodeGloss, String posLabel, int link) {
+			if (size == type.length) {
+				int capacity = size * 2;
+				type = Arrays.copyOf(type, capacity);
+				offset = Arrays.copyOf(offset, capacity);
+				label = Arrays.copyOf(label, capacity);
+				gloss = Arrays.copyOf(gloss, capacity);
+				pos = Arrays.copyOf(pos, capacity);
+				wordIndex = Arrays.copyOf(wordIndex, capacity);
+				linkType = Arrays.copyOf(linkType, capacity);
+				parent = Arrays.copyOf(parent, capacity);
+				if (polysemy != null)
+					polysemy = Arrays.copyOf(polysemy, capacity);
+			}
+			type[size] = (byte) nodeType;
+			parent[size] = parentNode;
+			offset[size] = synsetOffset;
+			label[size] = intern(nodeLabel);
+			gloss[size] = nodeGloss == null ? -1 : intern(nodeGloss);
+			pos[size] = intern(posLabel);
+			linkType[size] = (byte) link;
+			return size++;
+		}
+
+		/**
+		 * Add a synset node followed by one node per word of the synset.
+		 */
+		int addSynset(Synset synset, int parentNode, int link) throws JWNLException {
+			String gl = WordNetSearchPanel.removeExamplesFromGloss(synset.getGloss());
+			String lb = synset.getWordsSize() > 0
+					? synset.getWord(0).getLemma().replace('_', ' ') : gl;
+			int node = addNode(SENSE, parentNode, synset.getOffset(), lb, gl,
+					synset.getPOS().getLabel(), link);
+
+			int synsetPolysemy = 0;
+			Word[] words = synset.getWords();
+			for (int i = 0; i < words.length; i++) {
+				int w = addNode(WORD, node, synset.getOffset(), words[i].getLemma().replace('_', ' '),
+						null, words[i].getPOS().getLabel(), -1);
+				wordIndex[w] = words[i].getIndex();
+				if (polysemy != null) {
+					polysemy[w] = countPolysemy(words[i].getLemma());
+					synsetPolysemy += polysemy[w];
+				}
+			}
+			if (polysemy != null)
+				polysemy[node] = synsetPolysemy;
+			return node;
+		}
+
+		/**
+		 * Recursively add all synsets related to the given synset through the pointer type
+		 * at index t, taking the targets from the synsets fetched for that type. Mirrors
+		 * <code>WordNetTree.findRelations</code> without word merging.
+		 */
+		void addRelations(Synset synset, int node, int t, ReachableSynsets targets) throws JWNLException {
+			Pointer[] pointers = synset.getPointers();
+			for (int k = 0; k < pointers.length; k++) {
+				PointerType pType = pointers[k].getType();
+				if (pType == null)
+					throw (new NullPointerException("pType null exception: " + synset.toString()
+							+ " pointer: " + pointers[k].toString()));
+				if (!pType.equals(pointerTypes[t]))
+					continue;
+				Synset target = targets.getTargetSynset(pointers[k]);
+				int child = addSynset(target, node, t);
+				addRelations(target, child, t, targets);
+			}
+		}
+
+		int countPolysemy(String lemma) throws JWNLException {
+			Integer count = lemmaPolysemy.get(lemma);
+			if (count == null) {
+				// use lookupAllIndexWords as we do not want morphological processing
+				IndexWord[] iw = dictionary.lookupAllIndexWords(lemma.replace(' ', '_')).getIndexWordArray();
+				int c = 0;
+				for (int i = 0; i < iw.length; i++)
+					c += iw[i].getSenseCount();
+				count = c;
+				lemmaPolysemy.put(lemma, count);
+			}
+			return count;
+		}
+	}
+
+}
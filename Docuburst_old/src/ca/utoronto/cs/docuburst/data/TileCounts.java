@@ -0,0 +1,209 @@
+package ca.utoronto.cs.docuburst.data;
+
+import java.util.Arrays;
+
+/**
+ * Occurrence counts of a word or synset over the tiles (sections) of a document,
+ * stored sparsely: only tiles with a non zero count are kept, as parallel arrays of
+ * tile indices (in increasing order) and values. Most words occur in a small fraction
+ * of the tiles of a long document, so this is far smaller than a dense array with one
+ * entry per tile.
+ * <br><br>
+ * Running totals of the values are kept alongside, so the total over any range of
+ * tiles costs two binary searches and a subtraction.
+ */
+public class TileCounts {
+
+	private int[] m_tiles;
+	private float[] m_values;
+	private int m_size;
+
+	// m_prefix[i] is the sum of m_values[0..i-1]; null when out of date
+	private float[] m_prefix;
+
+	public TileCounts() {
+		this(4);
+	}
+
+	public TileCounts(int capacity) {
+		m_tiles = new int[Math.max(1, capacity)];
+		m_values = new float[m_tiles.length];
+	}
+
+	/**
+	 * @return a new count vector with the same counts as this one
+	 */
+	public TileCounts copy() {
+		TileCounts c = new TileCounts(m_size);
+		System.arraycopy(m_tiles, 0, c.m_tiles, 0, m_size);
+		System.arraycopy(m_values, 0, c.m_values, 0, m_size);
+		c.m_size = m_size;
+		return c;
+	}
+
+	/**
+	 * @return the number of tiles with a stored count
+	 */
+	public int size() {
+		return m_size;
+	}
+
+	/**
+	 * @param i an entry, 0 &lt;= i &lt; size()
+	 * @return the tile of the i-th stored count
+	 */
+	public int getTile(int i) {
+		return m_tiles[i];
+	}
+
+	/**
+	 * @param i an entry, 0 &lt;= i &lt; size()
+	 * @return the i-th stored count
+	 */
+	public float getValue(int i) {
+		return m_values[i];
+	}
+
+	/**
+	 * @param tile a tile of the document
+	 * @return the count for the tile
+	 */
+	public float get(int tile) {
+		int i = Arrays.binarySearch(m_tiles, 0, m_size, tile);
+		return i < 0 ? 0 : m_values[i];
+	}
+
+	/**
+	 * Add to the count of a tile. Adding to tiles in increasing order, as a document
+	 * is read, appends to the end of the arrays.
+	 * @param tile a tile of the document
+	 * @param value the amount to add
+	 */
+	public void add(int tile, float value) {
+		m_prefix = null;
+		if (m_size > 0 && m_tiles[m_size - 1] == tile) {
+			m_values[m_size - 1] += value;
+			return;
+		}
+		int i = m_size > 0 && m_tiles[m_size - 1] > tile
+				? Arrays.binarySearch(m_tiles, 0, m_size, tile) : -m_size - 1;
+		if (i >= 0) {
+			m_values[i] += value;
+			return;
+		}
+		i = -i - 1;
+		if (m_size == m_tiles.length) {
+			m_tiles = Arrays.copyOf(m_tiles, m_size * 2);
+			m_values = Arrays.copyOf(m_values, m_size * 2);
+		}
+		System.arraycopy(m_tiles, i, m_tiles, i + 1, m_size - i);
+		System.arraycopy(m_values, i, m_values, i + 1, m_size - i);
+		m_tiles[i] = tile;
+		m_values[i] = value;
+		m_size++;
+	}
+
+	/**
+	 * Add all counts of another vector to this one, merging the two sorted tile lists.
+	 * @param other the counts to add
+	 */
+	public void addAll(TileCounts other) {
+		if (other == null || other.m_size == 0)
+			return;
+		m_prefix = null;
+		int[] tiles = new int[m_size + other.m_size];
+		float[] values = new float[tiles.length];
+		int i = 0, j = 0, k = 0;
+		while (i < m_size && j < other.m_size) {
+			if (m_tiles[i] < other.m_tiles[j]) {
+				tiles[k] = m_tiles[i];
+				values[k++] = m_values[i++];
+			} else if (m_tiles[i] > other.m_tiles[j]) {
+				tiles[k] = other.m_tiles[j];
+				values[k++] = other.m_values[j++];
+			} else {
+				tiles[k] = m_tiles[i];
+				values[k++] = m_values[i++] + other.m_values[j++];
+			}
+		}
+		while (i < m_size) {
+			tiles[k] = m_tiles[i];
+			values[k++] = m_values[i++];
+		}
+		while (j < other.m_size) {
+			tiles[k] = other.m_tiles[j];
+			values[k++] = other.m_values[j++];
+		}
+		m_tiles = tiles;
+		m_values = values;
+		m_size = k;
+	}
+
+	/**
+	 * Divide every count by the given divisor.
+	 * @param divisor the divisor
+	 */
+	public void divide(float divisor) {
+		m_prefix = null;
+		for (int i = 0; i < m_size; i++)
+			m_values[i] /= divisor;
+	}
+
+	/**
+	 * @param start the first tile of the range
+	 * @param end the tile after the last tile of the range
+	 * @return the sum of the counts of tiles start to end-1
+	 */
+	public float sum(int start, int end) {
+		if (start >= end || m_size == 0)
+			return 0;
+		float[] prefix = getPrefix();
+		return prefix[lowerBound(end)] - prefix[lowerBound(start)];
+	}
+
+	/**
+	 * @return the sum of the counts of all tiles
+	 */
+	public float total() {
+		return m_size == 0 ? 0 : getPrefix()[m_size];
+	}
+
+	/**
+	 * @param tiles the number of tiles in the document
+	 * @return the counts as a dense array with one entry per tile
+	 */
+	public float[] toArray(int tiles) {
+		float[] counts = new float[tiles];
+		for (int i = 0; i < m_size; i++)
+			counts[m_tiles[i]] = m_values[i];
+		return counts;
+	}
+
+	private float[] getPrefix() {
+		float[] prefix = m_prefix;
+		if (prefix == null) {
+			prefix = new float[m_size + 1];
+			for (int i = 0; i < m_size; i++)
+				prefix[i + 1] = prefix[i] + m_values[i];
+			m_prefix = prefix;
+		}
+		return prefix;
+	}
+
+	// index of the first stored tile >= tile
+	private int lowerBound(int tile) {
+		int i = Arrays.binarySearch(m_tiles, 0, m_size, tile);
+		return i < 0 ? -i - 1 : i;
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer("{");
+		for (int i = 0; i < m_size; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(m_tiles[i]).append('=').append(m_values[i]);
+		}
+		return sb.append('}').toString();
+	}
+
+}
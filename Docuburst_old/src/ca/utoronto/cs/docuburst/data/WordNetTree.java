@@ -12,95 +12,69 @@ import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.dictionary;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
 
 import net.didion.jwnl.JWNLException;
 import net.didion.jwnl.data.IndexWord;
 import net.didion.jwnl.data.IndexWordSet;
+import net.didion.jwnl.data.POS;
 import net.didion.jwnl.data.Pointer;
 import net.didion.jwnl.data.PointerType;
 import net.didion.jwnl.data.Synset;
 import net.didion.jwnl.data.Word;
+import net.didion.jwnl.dictionary.Dictionary;
 import prefuse.data.Edge;
 import prefuse.data.Graph;
 import prefuse.data.Node;
-import prefuse.data.Tuple;
-import prefuse.util.collections.IntIterator;
 import ca.utoronto.cs.wordnetexplorer.swing.WordNetSearchPanel;
 
 public abstract class WordNetTree {
 
-	// result of calling fillGraph with the synset entity as argument
-	private static Graph fullSynsetGraphCache = null;
-	// attribute of the cached graph above
+	// hierarchy built by the last call to fillGraph with a synset, and its attributes
+	private static SynsetHierarchy hierarchyCache = null;
 	private static HashSet<PointerType> pointerTypeLabelsCache = null;
-	private static Boolean countPolysemyCache = null;
-	private static Boolean mergeWordsCache = null;
+	private static boolean countPolysemyCache;
+	private static Dictionary dictionaryCache = null;
+	// graph of the whole cached hierarchy; reused as is so counts added to it are kept
+	private static Graph fullSynsetGraphCache = null;
+	// whether subtrees of the cached hierarchy share the columns of fullSynsetGraphCache
+	private static boolean subtreeViews = true;
 
 	private static String NODE_KEY_COLUMN = "key";
 	
 	/**
-	 * Creates a new graph based on a cache.
-	 * @param synset
+	 * Set whether graphs for subtrees of the cached hierarchy are views onto the graph
+	 * of the whole hierarchy, sharing its columns (and any counts stored in them), or
+	 * independent graphs.
+	 * @param views true to share the columns of the whole graph
+	 */
+	public static void setSubtreeViews(boolean views) {
+		subtreeViews = views;
+	}
+	
+	public static boolean isSubtreeViews() {
+		return subtreeViews;
+	}
+	
+	/**
+	 * Creates a graph for the subtree of the cached hierarchy rooted at the given node.
+	 * @param node a synset node of the cached hierarchy
 	 * @return
 	 */
-	private static Graph getCachedFilledGraph(Synset synset){
-		if (synset.getOffset() == 1740) // entity
-			return fullSynsetGraphCache;
-		Graph newGraph = new Graph(true);
-//		setupGraph(newGraph, countPolysemyCache, mergeWordsCache);
-		
-		Graph cacheGraph = fullSynsetGraphCache;
-				
-		// find the tuple corresponding to this synset		
-		Tuple synsetCachedTuple = null;
-		for (Iterator<Tuple> it = cacheGraph.getNodes().tuples(); it.hasNext();) {
-			Tuple tuple = it.next();
-			if (tuple.getLong("offset") == synset.getOffset()){
-				synsetCachedTuple = tuple;
-				break;
-			}
-		}
+	private static Graph getCachedFilledGraph(int node){
+		if (node != hierarchyCache.getRoot() && !subtreeViews)
+			return hierarchyCache.createGraph(node);
 		
-		// add to new graph all columns found in the cache
-		// this will include counts added to the graph in other parts of the code
-		newGraph.addColumns(synsetCachedTuple.getSchema());
-		
-		// copy that tuple into a node of the new graph and make it root
-		Node newRootNode = newGraph.addNode();
-		setupCloneNode(newRootNode, synsetCachedTuple);
-		newRootNode.setBoolean("root", true);
-		
-		// find the descendants of this node and copy them from the cache (Tuple instances)
-		// into the new graph (Node instances)
-		Queue<Tuple> cachedTupleQ = new LinkedList<Tuple>();
-		Queue<Node>  nodeQ  = new LinkedList<Node>();		
-		cachedTupleQ.add(synsetCachedTuple);
-		nodeQ.add(newRootNode);
-		
-		while (!cachedTupleQ.isEmpty()){
-			Tuple sourceTuple = cachedTupleQ.poll();
-			Node  sourceNode  = nodeQ.poll();
-			
-			IntIterator outEdges = cacheGraph.edgeRows(sourceTuple.getRow(), Graph.OUTEDGES);
-			while (outEdges.hasNext()) {
-				Tuple targetTuple = cacheGraph.getNode(cacheGraph.getTargetNode(outEdges.nextInt()));
-				Node  targetNode  = newGraph.addNode();
-				setupCloneNode(targetNode, targetTuple);
-				newGraph.addEdge(sourceNode, targetNode);
-				cachedTupleQ.add(targetTuple);
-				nodeQ.add(targetNode);
-			}
-		}
-				
-		return newGraph;
+		if (fullSynsetGraphCache == null)
+			fullSynsetGraphCache = hierarchyCache.createGraph(hierarchyCache.getRoot());
+		if (node == hierarchyCache.getRoot())
+			return fullSynsetGraphCache;
+		return hierarchyCache.createSubtreeView(fullSynsetGraphCache, node);
 	}
 	
-	private static boolean isCachedGraphUseful(HashSet<PointerType> pointerTypeLabels, 
-			boolean countPolysemy, boolean mergeWords){
-		return countPolysemy == countPolysemyCache && mergeWords == mergeWordsCache
+	private static boolean isCachedHierarchyUseful(HashSet<PointerType> pointerTypeLabels, 
+			boolean countPolysemy){
+		return hierarchyCache != null && dictionaryCache == dictionary
+				&& countPolysemy == countPolysemyCache
 				&& pointerTypeLabels.equals(pointerTypeLabelsCache);
 	}
 	
@@ -108,6 +82,10 @@ public abstract class WordNetTree {
      * Fill a tree graph starting at the provided synset and recursively following all 
      * pointers of the given type.  Only add edges once (don't loop in cycles) and
      * stops at leaves.
+     * <br><br>
+     * Unless words are merged, the tree is built once into a {@link SynsetHierarchy}
+     * and the returned graph is a view over it. Later calls with the same settings for 
+     * any synset in that tree return a view of its subtree without going back to WordNet.
      * 
      * @param synset the starting point for the search
      * @param pointerTypeLabels the types of relationship to search for
@@ -117,10 +95,71 @@ public abstract class WordNetTree {
      * @throws JWNLException 
      */
     public static Graph fillGraph(Synset synset, HashSet<PointerType> pointerTypeLabels, boolean countPolysemy, boolean mergeWords) throws JWNLException {
-    	if (fullSynsetGraphCache != null 
-    			&& isCachedGraphUseful(pointerTypeLabels, countPolysemy, mergeWords))
-    		return getCachedFilledGraph(synset); 
+    	if (mergeWords)
+    		return fillMergedGraph(synset, pointerTypeLabels, countPolysemy);
+    	
+    	int node = SynsetHierarchy.NO_NODE;
+    	if (isCachedHierarchyUseful(pointerTypeLabels, countPolysemy))
+    		node = hierarchyCache.indexOf(synset.getOffset());
     	
+    	if (node == SynsetHierarchy.NO_NODE) {
+    		// save in cache
+    		hierarchyCache         = SynsetHierarchy.build(synset, pointerTypeLabels, countPolysemy);
+    		pointerTypeLabelsCache = new HashSet<PointerType>(pointerTypeLabels);
+    		countPolysemyCache     = countPolysemy;
+    		dictionaryCache        = dictionary;
+    		fullSynsetGraphCache   = null;
+    		node = hierarchyCache.getRoot();
+    	}
+    	
+    	return getCachedFilledGraph(node);
+    }
+    
+    /**
+     * Find the node of the {@link HyponymIndex} for a synset or word node of a WordNet graph.
+     * 
+     * @param index the hyponym index of the current dictionary
+     * @param node a node of a graph built by this class
+     * @return the index node of the node's synset, or {@link HyponymIndex#NO_NODE} for lemma nodes 
+     * and parts of speech without hyponyms
+     */
+    public static int getHyponymIndexNode(HyponymIndex index, Node node) {
+    	if (node.getInt("type") != SENSE && node.getInt("type") != WORD)
+    		return HyponymIndex.NO_NODE;
+    	POS pos = POS.getPOSForLabel(node.getString("pos"));
+    	return pos == null ? HyponymIndex.NO_NODE : index.indexOf(pos, node.getLong("offset"));
+    }
+    
+    /**
+     * Test whether the synset of one node lies under the synset of another in the WordNet 
+     * hyponym hierarchy, whether or not the graph holds the path between them.
+     * 
+     * @return true if the synset of node is that of ancestor or one of its hyponyms
+     * @throws JWNLException if the hyponym index has to be built and a lookup fails
+     */
+    public static boolean isHyponym(Node node, Node ancestor) throws JWNLException {
+    	HyponymIndex index = HyponymIndex.getInstance();
+    	int n = getHyponymIndexNode(index, node);
+    	int a = getHyponymIndexNode(index, ancestor);
+    	return n != HyponymIndex.NO_NODE && a != HyponymIndex.NO_NODE && index.isDescendant(n, a);
+    }
+    
+    /**
+     * @return the depth of the synset of the node in the WordNet hyponym hierarchy, or -1 if 
+     * it is not indexed 
+     * @throws JWNLException if the hyponym index has to be built and a lookup fails
+     */
+    public static int getWordNetDepth(Node node) throws JWNLException {
+    	HyponymIndex index = HyponymIndex.getInstance();
+    	int n = getHyponymIndexNode(index, node);
+    	return n == HyponymIndex.NO_NODE ? -1 : index.getDepth(n);
+    }
+    
+    /**
+     * Fill a graph starting at the provided synset, creating only one instance of a given 
+     * lemma or synset and connecting all relations to it.
+     */
+    private static Graph fillMergedGraph(Synset synset, HashSet<PointerType> pointerTypeLabels, boolean countPolysemy) throws JWNLException {
     	Graph g = new Graph(true);
         setupGraph(g, countPolysemy, false);
         
@@ -159,16 +198,11 @@ public abstract class WordNetTree {
 
         //  get the various types of relationships and traverse them
         for (PointerType pointerTypeLabel : pointerTypeLabels) {
-            findRelations(synset, root, g, nodeHashMap, edgeSet, pointerTypeLabel, countPolysemy, mergeWords);
+            findRelations(synset, root, g, nodeHashMap, edgeSet, pointerTypeLabel, 
+                    ReachableSynsets.fetch(synset, pointerTypeLabel), countPolysemy, true);
             edgeSet.clear(); // edges can't be the same over different type labels, so clear to save memory
         }
         
-        // save in cache
-        fullSynsetGraphCache   = g;
-        countPolysemyCache     = countPolysemy;
-        mergeWordsCache        = mergeWords;
-        pointerTypeLabelsCache = pointerTypeLabels;
-        
         return g;
     }
 
@@ -246,7 +280,8 @@ public abstract class WordNetTree {
             
             //  get the various types of relationships and traverse them
             for (PointerType pointerTypeLabel : pointerTypeLabels) {
-                findRelations(synset, synsetRoot, g, nodeHashMap, edgeSet, pointerTypeLabel, countPolysemy, mergeWords);
+                findRelations(synset, synsetRoot, g, nodeHashMap, edgeSet, pointerTypeLabel, 
+                        ReachableSynsets.fetch(synset, pointerTypeLabel), countPolysemy, mergeWords);
                 edgeSet.clear();  // edges can't be the same over different type labels, so clear to save memory
             }
         }
@@ -351,10 +386,11 @@ public abstract class WordNetTree {
      * @param parent the graph node representing the source synset
      * @param g the graph in which to place the discovered relationships
      * @param nodeHashMap the temporary storage of nodes, for easy lookup of JWNL index if they have already been created and cached
+     * @param targets the synsets reachable from the starting synset through the relationship
      */
     private static void findRelations(Synset synset, Node parent,
             Graph g, HashMap nodeHashMap, HashSet edgeSet, PointerType pointerType, 
-            boolean countPolysemy, boolean mergeWords) throws JWNLException {
+            ReachableSynsets targets, boolean countPolysemy, boolean mergeWords) throws JWNLException {
         // ** Create a HashMap to put all the related "Word" objects we found
         Pointer[] pointers = synset.getPointers();
         if (pointers.length < 1)
@@ -370,7 +406,7 @@ public abstract class WordNetTree {
             if (!pType.equals(pointerType))
             	continue;
 
-            Synset targetSynset = pointers[k].getTargetSynset();
+            Synset targetSynset = targets.getTargetSynset(pointers[k]);
             // Create synsetNode for this sense
             Node targetNode;
             // if already encountered synset, use it, unless mergeWords not selected
@@ -427,7 +463,7 @@ public abstract class WordNetTree {
                 if (pType == PointerType.HYPERNYM) 
                     psynEdge.set("type", HYPERONOMY);
                 psynEdge.setString("linktype", pType.getLabel());
-                findRelations(targetSynset, targetNode, g, nodeHashMap, edgeSet, pointerType, countPolysemy, mergeWords);
+                findRelations(targetSynset, targetNode, g, nodeHashMap, edgeSet, pointerType, targets, countPolysemy, mergeWords);
             }
         }                
         
@@ -484,11 +520,6 @@ public abstract class WordNetTree {
         	synsetNode.setInt("senseIndex", senseIndex);
     }
     
-	private static void setupCloneNode(Node newNode, Tuple ref){
-		for (int i = 0; i < ref.getColumnCount(); i++)
-			newNode.set(i, ref.get(i));		
-	}
-   
 	
     private static void setupGraph(Graph g, boolean countPolysemy, boolean trackSenseIndex) {
 	   g.addColumn("type", int.class);
@@ -4,10 +4,13 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import net.didion.jwnl.JWNLException;
 import prefuse.data.Node;
 import ca.uoit.science.vialab.treecut.DescriptionLength;
 import ca.uoit.science.vialab.treecut.ITreeCutNode;
 import ca.uoit.science.vialab.treecut.LiAbe;
+import ca.utoronto.cs.docuburst.data.HyponymIndex;
+import ca.utoronto.cs.docuburst.data.WordNetTree;
 import ca.utoronto.cs.docuburst.util.Util;
 
 /**
@@ -107,6 +110,29 @@ public class DocuburstTreeCut extends ca.uoit.science.vialab.treecut.MDLTreeCut
         return prefuseNodes;
     }
       
+    /**
+     * Finds the node of a cut that a node rolls up to, that is the cut node whose
+     * synset the node's synset lies under in WordNet. Uses the {@link HyponymIndex},
+     * so the node need not be in the tree the cut was computed on.
+     * 
+     * @param cut a tree cut
+     * @param node a synset or word node
+     * @return the cut node covering {@code node}, or null if there is none
+     * @throws JWNLException if the hyponym index has to be built and a lookup fails
+     */
+    public static Node findCutNode(List<Node> cut, Node node) throws JWNLException {
+        HyponymIndex index = HyponymIndex.getInstance();
+        int n = WordNetTree.getHyponymIndexNode(index, node);
+        if (n == HyponymIndex.NO_NODE)
+            return null;
+        for (Node c : cut) {
+            int a = WordNetTree.getHyponymIndexNode(index, c);
+            if (a != HyponymIndex.NO_NODE && index.isDescendant(n, a))
+                return c;
+        }
+        return null;
+    }
+      
     /**
      * Translates the provided tree into the data structure used by
      * the tree cut algorithm. In particular, for every node,
@@ -3,19 +3,22 @@ package ca.utoronto.cs.docuburst.data.treecut;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import prefuse.data.Node;
 
+/**
+ * Tree cuts by weight. Cuts may be added and read on different threads.
+ */
 public class TreeCutCache {
 
 	// for each weight, a cut
 	private Map<Double, List<Node>> cache;
 	
 	public TreeCutCache() {
-		cache = new HashMap<Double, List<Node>>();
+		cache = new ConcurrentHashMap<Double, List<Node>>();
 	}
 	
 	public void add(double w, List<Node> cut){
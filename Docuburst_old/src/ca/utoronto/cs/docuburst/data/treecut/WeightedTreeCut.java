@@ -0,0 +1,340 @@
+package ca.utoronto.cs.docuburst.data.treecut;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import prefuse.data.Node;
+
+/**
+ * The Minimum Description Length tree cuts of one tree, for any weight of Wagner's
+ * measure of description length. The tree is flattened once, in preorder, and the
+ * description length of each node as a class of a cut is computed once, so finding
+ * the cut for another weight needs neither a new replica of the tree nor any
+ * logarithms. The cuts for many weights are found in a single bottom-up pass.
+ * <br><br>
+ * As in Li and Abe, 1998, a cut of <code>k</code> classes over a sample of size
+ * <code>|S|</code> costs <code>(k/2) log |S|</code> bits of parameters, and a class
+ * <code>C</code> of frequency <code>f(C)</code> covering <code>|C|</code> leaves costs
+ * <code>-f(C) log (f(C) / (|S| |C|))</code> bits of data. Following Wagner, 2000, the
+ * data description length is weighted by <code>weight * log |S| / |S|</code>, so the
+ * greater the weight, the finer the cut. Both lengths are sums over the classes of the
+ * cut, and the best cut of a subtree is either its root or the union of the best cuts
+ * of its children (Figure 7 of Li and Abe).
+ * <br><br>
+ * Cuts are cached per weight in a {@link TreeCutCache}. An instance holds on to the
+ * frequencies of the nodes at construction time; build another one when the counts
+ * change, e.g. when a different range of tiles is selected. Once built, an instance
+ * is never modified but for its cache, and never reads the nodes of the tree again, so
+ * cuts may be found on several threads at once.
+ *
+ * @see http://dl.acm.org/citation.cfm?id=972734
+ */
+public class WeightedTreeCut {
+
+	/** The field holding the frequency of the subtree of each node */
+	public static final String FREQUENCY = "cacheCountchildCount";
+
+	/** The nodes of the tree, in preorder */
+	private final Node[] nodes;
+
+	/** Per node, the preorder index of its parent, or -1 for the root */
+	private final int[] parents;
+
+	/** Per node, the preorder index just past its subtree */
+	private final int[] subtreeEnds;
+
+	/** Per node, the description length of the data of its class, in bits, unweighted */
+	private final double[] dataLengths;
+
+	/** The description length of the parameter of one class of a cut, in bits */
+	private final double parameterLength;
+
+	/** Wagner's factor on the data description length, but for the weight */
+	private final double dataScale;
+
+	private final double sampleSize;
+
+	private final TreeCutCache cache = new TreeCutCache();
+
+	private static ForkJoinPool pool = null;
+
+	/**
+	 * Receives the cuts found in parallel, on the thread that found them.
+	 */
+	public interface Listener {
+		public void cutFound(double weight, List<Node> cut);
+	}
+
+	/**
+	 * Flatten the subtree under the given node and compute the description length of
+	 * each of its nodes. The frequencies are read off the {@link #FREQUENCY} field.
+	 *
+	 * @param root the root of the tree to cut; its frequency is the sample size
+	 */
+	public WeightedTreeCut(Node root) {
+		List<Node> order = new ArrayList<Node>();
+		List<Integer> parentList = new ArrayList<Integer>();
+		// preorder, children in order
+		List<Node> stack = new ArrayList<Node>();
+		List<Integer> stackParents = new ArrayList<Integer>();
+		stack.add(root);
+		stackParents.add(-1);
+		List<Node> children = new ArrayList<Node>();
+		while (!stack.isEmpty()) {
+			Node node = stack.remove(stack.size() - 1);
+			int parent = stackParents.remove(stackParents.size() - 1);
+			int index = order.size();
+			order.add(node);
+			parentList.add(parent);
+			children.clear();
+			for (Iterator<?> it = node.children(); it.hasNext();)
+				children.add((Node) it.next());
+			for (int c = children.size() - 1; c >= 0; c--) {
+				stack.add(children.get(c));
+				stackParents.add(index);
+			}
+		}
+
+		int n = order.size();
+		nodes = order.toArray(new Node[n]);
+		parents = new int[n];
+		for (int i = 0; i < n; i++)
+			parents[i] = parentList.get(i);
+
+		// leaves and subtree sizes, children before their parents
+		int[] leaves = new int[n];
+		int[] sizes = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			sizes[i]++;
+			if (leaves[i] == 0)
+				leaves[i] = 1;
+			if (parents[i] >= 0) {
+				sizes[parents[i]] += sizes[i];
+				leaves[parents[i]] += leaves[i];
+			}
+		}
+		subtreeEnds = new int[n];
+		for (int i = 0; i < n; i++)
+			subtreeEnds[i] = i + sizes[i];
+
+		sampleSize = root.getFloat(FREQUENCY);
+		double logSampleSize = log2(Math.max(1, sampleSize));
+		parameterLength = logSampleSize / 2;
+		dataScale = logSampleSize / Math.max(1, sampleSize);
+		dataLengths = new double[n];
+		for (int i = 0; i < n; i++) {
+			double frequency = nodes[i].getFloat(FREQUENCY);
+			if (frequency > 0)
+				dataLengths[i] = -frequency * log2(frequency / (Math.max(1, sampleSize) * leaves[i]));
+		}
+	}
+
+	/**
+	 * @return the frequency of the root of the tree
+	 */
+	public double getSampleSize() {
+		return sampleSize;
+	}
+
+	/**
+	 * @return the number of nodes in the tree
+	 */
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	/**
+	 * @return the cuts found so far, by weight
+	 */
+	public TreeCutCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Find the cut that minimizes the description length with the given weight.
+	 *
+	 * @return the nodes of the cut, in preorder
+	 */
+	public List<Node> findcut(double weight) {
+		List<Node> cut = cache.get(weight);
+		if (cut == null) {
+			findcuts(new double[] { weight });
+			cut = cache.get(weight);
+		}
+		return cut;
+	}
+
+	/**
+	 * Find the cuts that minimize the description length with each of the given
+	 * weights, in one pass over the tree, and add them to the cache. Weights already
+	 * cached are skipped.
+	 */
+	public void findcuts(double[] weights) {
+		double[] missing = missing(weights);
+		if (missing.length == 0)
+			return;
+		BitSet[] collapsed = findCollapsed(missing);
+		for (int j = 0; j < missing.length; j++)
+			cache.add(missing[j], cut(collapsed[j]));
+	}
+
+	/**
+	 * Find the cuts for the given weights as {@link #findcuts(double[])} does, but
+	 * split over the weights into fork/join tasks sharing this tree. Every task makes
+	 * one pass over the tree, so the weights are split into one block per thread of
+	 * the pool rather than into smaller tasks, which would each repeat the pass. Each
+	 * cut is added to the cache, and handed to the listener, as soon as it is found;
+	 * the cuts already cached are handed over first.
+	 *
+	 * @param listener receives each cut, or null
+	 */
+	public void findcuts(double[] weights, final Listener listener) {
+		if (listener != null)
+			for (double weight : weights) {
+				List<Node> cut = cache.get(weight);
+				if (cut != null)
+					listener.cutFound(weight, cut);
+			}
+		double[] missing = missing(weights);
+		if (missing.length > 0) {
+			ForkJoinPool forkJoinPool = getPool();
+			int threads = forkJoinPool.getParallelism();
+			int block = (missing.length + threads - 1) / threads;
+			forkJoinPool.invoke(new WeightsTask(missing, 0, missing.length, block, listener));
+		}
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null)
+			pool = new ForkJoinPool();
+		return pool;
+	}
+
+	/**
+	 * @return the weights whose cuts are not cached
+	 */
+	private double[] missing(double[] weights) {
+		double[] missing = new double[weights.length];
+		int m = 0;
+		for (double weight : weights)
+			if (cache.get(weight) == null)
+				missing[m++] = weight;
+		return Arrays.copyOf(missing, m);
+	}
+
+	/**
+	 * Finds the cuts for a range of weights, splitting it until no more than a block
+	 * of weights is left for one pass over the tree.
+	 */
+	private class WeightsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] weights;
+		private final int start, end, block;
+		private final Listener listener;
+
+		WeightsTask(double[] weights, int start, int end, int block, Listener listener) {
+			this.weights = weights;
+			this.start = start;
+			this.end = end;
+			this.block = block;
+			this.listener = listener;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > block) {
+				// split on a block boundary, so no task is left with a sliver
+				int blocks = (end - start + block - 1) / block;
+				int middle = start + blocks / 2 * block;
+				invokeAll(new WeightsTask(weights, start, middle, block, listener),
+						new WeightsTask(weights, middle, end, block, listener));
+				return;
+			}
+			double[] range = Arrays.copyOfRange(weights, start, end);
+			BitSet[] collapsed = findCollapsed(range);
+			for (int j = 0; j < range.length; j++) {
+				List<Node> cut = cut(collapsed[j]);
+				cache.add(range[j], cut);
+				if (listener != null)
+					listener.cutFound(range[j], cut);
+			}
+		}
+	}
+
+	/**
+	 * For each weight, mark the nodes whose subtree is best described by the node
+	 * itself rather than by the best cuts of its children. Leaves are always marked.
+	 */
+	private BitSet[] findCollapsed(double[] weights) {
+		int m = weights.length, n = nodes.length;
+		BitSet[] collapsed = new BitSet[m];
+		for (int j = 0; j < m; j++)
+			collapsed[j] = new BitSet(n);
+
+		// the summed lengths of the best cuts of the children of each node; only the
+		// ancestors of the current node have sums at any time
+		double[][] childSums = new double[n][];
+		for (int i = n - 1; i >= 0; i--) {
+			double[] best = childSums[i];
+			childSums[i] = null;
+			if (best == null) {
+				best = new double[m];
+				for (int j = 0; j < m; j++) {
+					best[j] = length(i, weights[j]);
+					collapsed[j].set(i);
+				}
+			} else {
+				for (int j = 0; j < m; j++) {
+					double length = length(i, weights[j]);
+					if (length <= best[j]) {
+						best[j] = length;
+						collapsed[j].set(i);
+					}
+				}
+			}
+
+			int parent = parents[i];
+			if (parent >= 0) {
+				double[] sums = childSums[parent];
+				if (sums == null)
+					childSums[parent] = best;
+				else
+					for (int j = 0; j < m; j++)
+						sums[j] += best[j];
+			}
+		}
+		return collapsed;
+	}
+
+	/**
+	 * @return the topmost marked nodes, in preorder
+	 */
+	private List<Node> cut(BitSet collapsed) {
+		List<Node> cut = new ArrayList<Node>();
+		for (int i = 0; i < nodes.length;) {
+			if (collapsed.get(i)) {
+				cut.add(nodes[i]);
+				i = subtreeEnds[i];
+			} else
+				i++;
+		}
+		return cut;
+	}
+
+	/**
+	 * @return the weighted description length of the given node as a class of a cut
+	 */
+	private double length(int node, double weight) {
+		return parameterLength + weight * dataScale * dataLengths[node];
+	}
+
+	private static double log2(double x) {
+		return Math.log(x) / Math.log(2);
+	}
+}
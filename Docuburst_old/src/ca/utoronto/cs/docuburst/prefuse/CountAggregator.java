@@ -0,0 +1,239 @@
+package ca.utoronto.cs.docuburst.prefuse;
+
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.WORD;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import prefuse.data.Node;
+import prefuse.data.Table;
+import prefuse.data.Tree;
+import ca.utoronto.cs.docuburst.data.TileCounts;
+
+/**
+ * Propagates word occurrence counts bottom-up through a spanning tree, filling the
+ * {@link DocuBurstActionList#NODECOUNT}, {@link DocuBurstActionList#CHILDCOUNT} and
+ * {@link DocuBurstActionList#LEAFCOUNT} columns.
+ * <br><br>
+ * The tree is first copied into flat arrays in preorder. Subtrees larger than a
+ * threshold are then aggregated as separate fork/join tasks into per node buffers,
+ * and finally all results are written back to the node table in one pass. Only the
+ * first and last steps touch prefuse data structures, and both run on the calling
+ * thread.
+ */
+public class CountAggregator {
+
+	/** subtrees with fewer nodes than this are aggregated on the current thread */
+	private static final int FORK_THRESHOLD = 2048;
+
+	private static ForkJoinPool pool = null;
+
+	private final Map<String, TileCounts> wordMap;
+	private final boolean divideByChildren;
+
+	// the tree in preorder
+	private int size;
+	private int[] row;          // node table row of each node
+	private boolean[] word;     // whether the node is a word
+	private int[] subtreeEnd;   // exclusive end of the preorder range of each subtree
+	private int[] childStart;   // CSR offsets into children, length size + 1
+	private int[] children;
+
+	// results
+	private TileCounts[] nodeCount;
+	private TileCounts[] childCount;
+	private float[] leafCount;
+
+	/**
+	 * @param wordMap counts of each word, keyed by label, part of speech and synset offset
+	 * @param divideByChildren whether a synset passes its childCount to its parent
+	 * divided by the number of children of the parent
+	 */
+	public CountAggregator(Map<String, TileCounts> wordMap, boolean divideByChildren) {
+		this.wordMap = wordMap;
+		this.divideByChildren = divideByChildren;
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null)
+			pool = new ForkJoinPool();
+		return pool;
+	}
+
+	/**
+	 * Aggregate the counts of the given tree and store them in its node table,
+	 * which must already have the counts columns.
+	 * @param tree the tree to aggregate
+	 */
+	public void aggregate(Tree tree) {
+		Node root = tree.getRoot();
+		if (root == null)
+			return;
+		snapshot(tree, root);
+
+		childCount = new TileCounts[size];
+		leafCount = new float[size];
+		getPool().invoke(new SubtreeTask(0));
+
+		write(tree.getNodeTable());
+	}
+
+	/**
+	 * Copy the structure of the tree into the preorder arrays and look up word counts.
+	 */
+	private void snapshot(Tree tree, Node root) {
+		int n = tree.getNodeCount();
+		row = new int[n];
+		word = new boolean[n];
+		subtreeEnd = new int[n];
+		childStart = new int[n + 1];
+		children = new int[Math.max(0, n - 1)];
+		nodeCount = new TileCounts[n];
+
+		// iterative preorder walk; a node's children are numbered when it is visited
+		// and take preorder positions as they are popped
+		Node[] stack = new Node[n];
+		int[] stackParent = new int[n];
+		int top = 0;
+		stack[top] = root;
+		stackParent[top++] = -1;
+		int[] parent = new int[n];
+		size = 0;
+		while (top > 0) {
+			Node node = stack[--top];
+			int i = size++;
+			parent[i] = stackParent[top];
+			row[i] = node.getRow();
+			word[i] = node.getInt("type") == WORD;
+			if (word[i]) {
+				String key = node.getString("label") + node.getString("pos") + node.getLong("offset");
+				nodeCount[i] = wordMap.get(key);
+			}
+			int c = node.getChildCount();
+			for (int k = c - 1; k >= 0; k--) {
+				stack[top] = node.getChild(k);
+				stackParent[top++] = i;
+			}
+		}
+
+		// children in creation order: each node's children appear in increasing preorder
+		for (int i = 1; i < size; i++)
+			childStart[parent[i] + 1]++;
+		for (int i = 0; i < size; i++)
+			childStart[i + 1] += childStart[i];
+		int[] fill = new int[size];
+		System.arraycopy(childStart, 0, fill, 0, size);
+		for (int i = 1; i < size; i++)
+			children[fill[parent[i]]++] = i;
+		for (int i = size - 1; i >= 0; i--) {
+			subtreeEnd[i] = Math.max(subtreeEnd[i], i + 1);
+			if (parent[i] >= 0)
+				subtreeEnd[parent[i]] = Math.max(subtreeEnd[parent[i]], subtreeEnd[i]);
+		}
+	}
+
+	/**
+	 * Aggregate the counts of node i from those of its children. Word counts in the 
+	 * word map are shared, never modified.
+	 */
+	private void aggregate(int i) {
+		int childTotal = childStart[i + 1] - childStart[i];
+		for (int k = childStart[i]; k < childStart[i + 1]; k++) {
+			int c = children[k];
+			if (word[c]) {
+				// words propagate nodeCount and childCount to their parent
+				childCount[c] = nodeCount[c];
+				leafCount[i] += 1;
+				nodeCount[i] = sum(nodeCount[i], nodeCount[c]);
+				childCount[i] = sum(childCount[i], childCount[c]);
+			} else {
+				// lemmas and senses only propagate childCount to parent
+				leafCount[i] += leafCount[c];
+				if (divideByChildren && childCount[c] != null && childTotal != 1) {
+					TileCounts divided = childCount[c].copy();
+					divided.divide(childTotal);
+					childCount[i] = sum(childCount[i], divided);
+				} else
+					childCount[i] = sum(childCount[i], childCount[c]);
+			}
+		}
+	}
+
+	private static TileCounts sum(TileCounts start, TileCounts toAdd) {
+		if (toAdd == null)
+			return start;
+		if (start == null)
+			return toAdd.copy();
+		start.addAll(toAdd);
+		return start;
+	}
+
+	/**
+	 * Aggregate the subtree rooted at node i sequentially, children before parents.
+	 */
+	private void aggregateSubtree(int i) {
+		// in reverse preorder every node comes after all of its descendants
+		for (int j = subtreeEnd[i] - 1; j >= i; j--)
+			if (!word[j])
+				aggregate(j);
+	}
+
+	/**
+	 * Store the results in the node table.
+	 */
+	private void write(Table nodes) {
+		for (int i = 0; i < size; i++) {
+			boolean hasChildren = childStart[i + 1] > childStart[i];
+			if (word[i] && nodeCount[i] != null) {
+				nodes.set(row[i], DocuBurstActionList.NODECOUNT, nodeCount[i]);
+				nodes.set(row[i], DocuBurstActionList.CHILDCOUNT, childCount[i]);
+				nodes.setFloat(row[i], DocuBurstActionList.LEAFCOUNT, 0);
+			} else if (hasChildren) {
+				nodes.set(row[i], DocuBurstActionList.NODECOUNT, nodeCount[i]);
+				nodes.set(row[i], DocuBurstActionList.CHILDCOUNT, childCount[i]);
+				nodes.setFloat(row[i], DocuBurstActionList.LEAFCOUNT, leafCount[i]);
+			}
+		}
+	}
+
+	/**
+	 * Aggregates a subtree, forking a task for every large child subtree and
+	 * aggregating the rest on this thread.
+	 */
+	private class SubtreeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int node;
+
+		SubtreeTask(int node) {
+			this.node = node;
+		}
+
+		protected void compute() {
+			if (subtreeEnd[node] - node < FORK_THRESHOLD) {
+				aggregateSubtree(node);
+				return;
+			}
+			int n = childStart[node + 1] - childStart[node];
+			SubtreeTask[] forked = new SubtreeTask[n];
+			for (int k = 0; k < n; k++) {
+				int c = children[childStart[node] + k];
+				if (!word[c] && subtreeEnd[c] - c >= FORK_THRESHOLD) {
+					forked[k] = new SubtreeTask(c);
+					forked[k].fork();
+				}
+			}
+			for (int k = 0; k < n; k++) {
+				int c = children[childStart[node] + k];
+				if (forked[k] == null)
+					aggregateSubtree(c);
+			}
+			for (int k = n - 1; k >= 0; k--)
+				if (forked[k] != null)
+					forked[k].join();
+			aggregate(node);
+		}
+	}
+
+}
@@ -5,9 +5,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Logger;
 
-import ca.uoit.science.vialab.treecut.Wagner;
-import ca.utoronto.cs.docuburst.data.treecut.DocuburstTreeCut;
 import ca.utoronto.cs.docuburst.data.treecut.TreeCutCache;
+import ca.utoronto.cs.docuburst.data.treecut.WeightedTreeCut;
 import prefuse.Constants;
 import prefuse.data.Graph;
 import prefuse.data.Node;
@@ -20,7 +19,18 @@ import prefuse.visual.VisualItem;
 
 public class DefaultTreeCutFilter extends MultiCriteriaFisheyeFilter {
 
-    private TreeCutCache cache; 
+    /** The number of weights, one per distance from 1, whose cuts are found together */
+    public static final int WEIGHT_STEPS = 20;
+    
+    /**
+     * The cuts of the current tree for the counts of the current range of tiles; 
+     * rebuilt when the tree, its root, the range or the counts change.
+     */
+    private WeightedTreeCut treeCut;
+    private Graph treeCutGraph;
+    private Node treeCutRoot;
+    private String treeCutRange;
+    private double treeCutSampleSize;
     
     private double weightDelta = 250;
     
@@ -77,9 +87,7 @@ public class DefaultTreeCutFilter extends MultiCriteriaFisheyeFilter {
         }
         
         long t3 = System.currentTimeMillis();
-        float sampleSize = root.getFloat("cacheCountchildCount");
-        Wagner measure = new Wagner(weight, sampleSize);
-        List<Node> cut = new DocuburstTreeCut(measure).findcut(root);
+        List<Node> cut = getWeightedTreeCut(graph, root).findcut(weight);
         long t4 = System.currentTimeMillis();
         Logger.getLogger(this.getClass().getName())
     		.info(String.format("Find cut took %f seconds.", (float)(t4-t3)/1000));        
@@ -197,8 +205,53 @@ public class DefaultTreeCutFilter extends MultiCriteriaFisheyeFilter {
         
     }
     
+    /**
+     * Find the cuts of the current tree for all the {@link #getStepWeights() step weights}, 
+     * in parallel.
+     * 
+     * @return the cuts of the current tree, by weight
+     */
     public TreeCutCache getTreeCutCache(){
-    	return null;
+        WeightedTreeCut treeCut = getWeightedTreeCut();
+        treeCut.findcuts(getStepWeights(), null);
+    	return treeCut.getCache();
+    }
+    
+    /**
+     * @return the weights of the distances from 1 to {@link #WEIGHT_STEPS}, in order
+     */
+    public double[] getStepWeights(){
+        double[] weights = new double[WEIGHT_STEPS];
+        for (int i = 0; i < WEIGHT_STEPS; i++)
+            weights[i] = (i + 1) * weightDelta;
+        return weights;
+    }
+    
+    /**
+     * @return the cuts of the current tree for the current counts
+     */
+    public WeightedTreeCut getWeightedTreeCut(){
+        Graph graph = (Graph)m_vis.getGroup(m_group);
+        return getWeightedTreeCut(graph, graph.getSpanningTree().getRoot());
+    }
+    
+    /**
+     * @return the cuts of the given tree, reusing those of the last call if neither
+     * the tree nor its counts have changed since
+     */
+    private synchronized WeightedTreeCut getWeightedTreeCut(Graph graph, Node root){
+        String range = root.getString(DocuBurstActionList.CACHERANGE);
+        double sampleSize = root.getFloat(WeightedTreeCut.FREQUENCY);
+        if (treeCut == null || graph != treeCutGraph || root != treeCutRoot
+                || (range == null ? treeCutRange != null : !range.equals(treeCutRange))
+                || sampleSize != treeCutSampleSize) {
+            treeCut = new WeightedTreeCut(root);
+            treeCutGraph = graph;
+            treeCutRoot = root;
+            treeCutRange = range;
+            treeCutSampleSize = sampleSize;
+        }
+        return treeCut;
     }
     
     public void setWeight(double weight) {
@@ -209,12 +262,12 @@ public class DefaultTreeCutFilter extends MultiCriteriaFisheyeFilter {
         return weight;
     }
     
-    public void reset(){
-        this.cache = null;
+    public synchronized void reset(){
+        this.treeCut = null;
     }
     
     public List<Double> getSortedWeights(){
-        return cache.getSortedWeights();
+        return getTreeCutCache().getSortedWeights();
     }
     
 }
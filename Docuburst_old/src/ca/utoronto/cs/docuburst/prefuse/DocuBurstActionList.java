@@ -4,7 +4,6 @@ package ca.utoronto.cs.docuburst.prefuse;
 import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.LEMMA;
 import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.S2W;
 import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.WORD;
-import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.dictionary;
 
 import java.awt.Color;
 import java.awt.Font;
@@ -14,6 +13,8 @@ import java.awt.Graphics2D;
 import java.awt.event.MouseWheelEvent;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -53,6 +54,7 @@ import prefuse.data.Tree;
 import prefuse.data.Tuple;
 import prefuse.data.event.TupleSetListener;
 import prefuse.data.expression.AndPredicate;
+import prefuse.data.expression.ExpressionCompiler;
 import prefuse.data.expression.OrPredicate;
 import prefuse.data.expression.Predicate;
 import prefuse.data.expression.parser.ExpressionParser;
@@ -78,14 +80,13 @@ import prefuse.visual.sort.ItemSorter;
 import ca.utoronto.cs.docuburst.DocuBurst;
 import ca.utoronto.cs.docuburst.Param;
 import ca.utoronto.cs.docuburst.Param.DepthFilter;
+import ca.utoronto.cs.docuburst.data.TileCounts;
 import ca.utoronto.cs.docuburst.prefuse.action.HighlightTextHoverActionControl;
 import ca.utoronto.cs.docuburst.prefuse.action.NodeColorAction;
 import ca.utoronto.cs.docuburst.prefuse.action.NodeStrokeColorAction;
 import ca.utoronto.cs.docuburst.prefuse.action.PathTraceHoverActionControl;
 import ca.utoronto.cs.docuburst.prefuse.action.StarburstScaleFontAction;
-import ca.utoronto.cs.docuburst.preprocess.POSTagger;
-import ca.utoronto.cs.docuburst.preprocess.Tiling;
-import ca.utoronto.cs.docuburst.preprocess.WordMap;
+import ca.utoronto.cs.docuburst.preprocess.ConcordanceIndex;
 import ca.utoronto.cs.prefuseextensions.layout.StarburstLayout;
 import ca.utoronto.cs.prefuseextensions.layout.StarburstLayout.WidthType;
 import ca.utoronto.cs.prefuseextensions.lib.Colors;
@@ -97,8 +98,6 @@ import ca.utoronto.cs.prefuseextensions.sort.TreeDepthItemSorter;
 import ca.utoronto.cs.wordnetexplorer.prefuse.FisheyeDocument;
 import ca.utoronto.cs.wordnetexplorer.prefuse.action.WordNetExplorerActionList;
 import ca.utoronto.cs.wordnetexplorer.prefuse.controls.DisplaySenseMouseOverControl;
-import ca.utoronto.cs.wordnetexplorer.utilities.LanguageLib.CountMethod;
-import edu.stanford.nlp.ling.TaggedWord;
 
 public class DocuBurstActionList extends WordNetExplorerActionList {
 
@@ -119,7 +118,8 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 	
 
 	/**
-	 * Counts are stored as arrays of counts for each section or tile of the document.
+	 * Counts are stored as sparse vectors of counts for each section or tile of the document.
+	 * @see TileCounts
 	 */
 	public static final String CHILDCOUNT = "childCount"; // accumulated frequency of a node's subtree
 	public static final String NOCOUNT = "noCount";
@@ -141,8 +141,8 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 	private static final Schema AGG_SCHEMA = PrefuseLib.getVisualItemSchema();
 
 	// predicate filtering which nodes should be labeled 
-	private static Predicate labelPredicate = new AndPredicate(ExpressionParser.predicate("(type = 1 or type = 0)"), 
-			new OrPredicate(new VisiblePredicate()));
+	private static Predicate labelPredicate = ExpressionCompiler.compile(new AndPredicate(
+			ExpressionParser.predicate("(type = 1 or type = 0)"), new OrPredicate(new VisiblePredicate())));
 	private static Predicate aggregatePredicate = ExpressionParser.predicate(
 			String.format("%s = true",AGGREGATE));
 
@@ -168,13 +168,15 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 
 	// text document
 	private List<String> tiledText;
+	private ConcordanceIndex concordanceIndex;
+	private FisheyeDocument fisheyeDocument;
 	int startTile, endTile, maxTiles;
 
 	/** 
 	 * Counts are stored per word, not per synset; only non zero counts are stored.
 	 */
-	HashMap<String, float[]> wordMap;
-	HashMap<String, float[]> wordMap2;
+	HashMap<String, TileCounts> wordMap;
+	HashMap<String, TileCounts> wordMap2;
 	
 	// prefuse controls and actions 
 	private FisheyeTreeFilter fisheyeTreeFilter; 
@@ -223,33 +225,18 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 		}
 	}
 
-	public DocuBurstActionList(Visualization visualization, FisheyeDocument fisheyeDocument, String filename) {
+	/**
+	 * Create the actions for an empty document. The document is loaded off the event
+	 * dispatch thread and handed over with {@link #setTiles(List)}, {@link #setWordMap(HashMap)}
+	 * and {@link #setConcordanceIndex(ConcordanceIndex)} as each part becomes ready.
+	 */
+	public DocuBurstActionList(Visualization visualization, FisheyeDocument fisheyeDocument) {
 		super(visualization);
 		
-//		String fullTextFile = "texts/" + filename + ".tiled.txt";
-//		String wordsFile = "texts/" + filename + ".tiled.tagged.cleaned.txt";
-//		String fullTextFile = "texts/" + filename + ".txt";
-		String fullTextFile = filename;
-		
-		// do this on Event processing thread because need this to continue setup
-		if (dictionary == null)
-			System.err.println("WordNet dictionary not initialized.");
-//		String[] fullText = LanguageLib.fillWordCountsMap(wordMap = new HashMap<String, float[]>(), wordsFile, fullTextFile, CountMethod.FIRST);
-//		List<String> tiledText = new ArrayList<String>();
-//		for (int i = 0; i < fullText.length; i++) {
-//			tiledText.add(fullText[i]);
-//		}
-		
-		tiledText = Tiling.tile(fullTextFile);
-		List<List<TaggedWord>> tiledTaggedFile = null;
-		try {
-			tiledTaggedFile = POSTagger.tagTiles(tiledText);
-		} catch (Exception e1) { e1.printStackTrace();}
-		WordMap.fillWordCountsMap(wordMap = new HashMap<String, float[]>(), tiledTaggedFile, CountMethod.FIRST);
-		
-		
-		fisheyeDocument.initializeText(tiledText);
-		fisheyeDocument.getVisualization().run("init");
+		this.fisheyeDocument = fisheyeDocument;
+		tiledText = new ArrayList<String>();
+		wordMap = new HashMap<String, TileCounts>();
+		concordanceIndex = new ConcordanceIndex(tiledText);
 
 		// -- set up renderers --
 
@@ -497,7 +484,7 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 			zoomToFitControl.setZoomOverItem(false);
 
 			display.addControlListener(hoverActionControl = new PathTraceHoverActionControl("repaint"));
-			display.addControlListener(highlightTextHAC = new HighlightTextHoverActionControl(null, null, tiledText, m_vis, fisheyeDocument.getVisualization()));
+			display.addControlListener(highlightTextHAC = new HighlightTextHoverActionControl(null, null, concordanceIndex, m_vis, fisheyeDocument.getVisualization()));
 			highlightTextHAC.setCountField(CACHECOUNT + NODECOUNT);
 			display.addControlListener(panControl = new PanControl(true));
 			display.addControlListener(zoomControl = new ZoomControl());
@@ -715,13 +702,53 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 		return highlightTextHAC;
 	}
 
+	/**
+	 * Show the tiles of a newly loaded document in the document view and the text panes.
+	 * Until the index of the tiles is set, nothing is highlighted in them. Tiles of the
+	 * previous document that are read from its file are closed.
+	 * 
+	 * @param tiles the text of each tile
+	 */
+	public void setTiles(List<String> tiles) {
+		if (tiledText instanceof Closeable && tiledText != tiles) {
+			try {
+				((Closeable) tiledText).close();
+			} catch (IOException e) {
+				Logger.getLogger(this.getClass().getName())
+					.warning("Could not close the previous document: " + e.getMessage());
+			}
+		}
+		tiledText = tiles;
+		highlightTextHAC.setFullText(tiles);
+		fisheyeDocument.initializeText(tiles);
+		fisheyeDocument.getVisualization().run("init");
+	}
+
+	/**
+	 * Set the counts of a newly loaded document. Graphs processed from now on are
+	 * counted with them.
+	 * 
+	 * @param wordMap the per tile counts of each sense
+	 */
+	public void setWordMap(HashMap<String, TileCounts> wordMap) {
+		this.wordMap = wordMap;
+	}
+
+	/**
+	 * Set the index of the tiles, for highlighting and concordances.
+	 */
+	public void setConcordanceIndex(ConcordanceIndex concordanceIndex) {
+		this.concordanceIndex = concordanceIndex;
+		highlightTextHAC.setConcordanceIndex(concordanceIndex);
+	}
+
 	public StarburstLayout getLayout() {
 		return treeLayout;
 	}
 
 	/**
-	 * Add nodeCount and recursive childCount field to the graph schema.  Calls addCounts(Node)
-	 * which populates these new columns with counts from the source document.
+	 * Add nodeCount and recursive childCount field to the graph schema.  Uses a 
+	 * {@link CountAggregator} to populate these new columns with counts from the source document.
 	 * 
 	 * @param graph the graph to add occurrence count columns to
 	 */
@@ -732,8 +759,8 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 		
 		if (!cache){
 			Schema countsSchema = new Schema();
-			countsSchema.addColumn(NODECOUNT, float[].class, null);
-			countsSchema.addColumn(CHILDCOUNT, float[].class, null);
+			countsSchema.addColumn(NODECOUNT, TileCounts.class, null);
+			countsSchema.addColumn(CHILDCOUNT, TileCounts.class, null);
 			countsSchema.addColumn(CACHERANGE, String.class, null);
 			countsSchema.addColumn(CACHECOUNT + CHILDCOUNT, float.class, null);
 			countsSchema.addColumn(CACHECOUNT + NODECOUNT, float.class, null);
@@ -747,7 +774,7 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 			// Graph graph = (Graph) m_vis.getGroup(m_group);
 			graph.addColumns(countsSchema);
 			Tree t = graph.getSpanningTree();
-			addCounts(t.getRoot());
+			new CountAggregator(wordMap, DIVIDE_BY_CHILDREN).aggregate(t);
 		}
 
 		cacheTotals(graph);
@@ -826,28 +853,21 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 		m_vis.run("animatePaint");
 	}
 
-	public float[] sumCounts(float[] start, float[] toAdd) {
+	public TileCounts sumCounts(TileCounts start, TileCounts toAdd) {
 		if (toAdd == null)
 			return start;
 		if (start == null)
-			start = new float[tiledText.size()];
-		// cycle through tiles, adding to counts for each
-		for (int i = 0; i < tiledText.size(); i++) {
-			start[i] += toAdd[i];
-		}
+			return toAdd.copy();
+		start.addAll(toAdd);
 		return start;
 	}
 
-	public float[] divide(float[] start, float divisor) {
-		// cycle through tiles, adding to counts for each
-		if (start == null)
-			start = new float[tiledText.size()];
-		if (divisor == 1)
+	public TileCounts divide(TileCounts start, float divisor) {
+		if (start == null || divisor == 1)
 			return start;
-		for (int i = 0; i < tiledText.size(); i++) {
-			start[i] /= divisor;
-		}
-		return start;
+		TileCounts divided = start.copy();
+		divided.divide(divisor);
+		return divided;
 	}
 
 	
@@ -867,41 +887,6 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 		return linesVector;
 	}
 
-	private void addCounts(Node n) {
-		if (n.getChildCount() == 0) {
-			// leave counts null to save memory
-		} else {
-			Iterator it = n.children();
-			Node c;
-			while (it.hasNext()) {
-				c = (Node) it.next();
-				if (c.getInt("type") == WORD) {
-					String key = c.getString("label") + (c.getString("pos")) + (c.getLong("offset"));
-					if (wordMap.get(key) == null) {
-						// leave counts null to save memory
-					} else {
-						c.set("nodeCount", (float[]) wordMap.get(key));
-						c.set("childCount", (float[]) wordMap.get(key));
-						c.set(LEAFCOUNT, 0);
-					}
-					// words propagate nodeCount and childCount to their parent
-					n.set(LEAFCOUNT, (Float)n.get(LEAFCOUNT) + 1);
-					n.set("nodeCount", sumCounts((float[]) n.get("nodeCount"), (float[]) c.get("nodeCount")));
-					n.set("childCount", sumCounts((float[]) n.get("childCount"), (float[]) c.get("childCount")));
-				} else {
-					addCounts(c);
-					// lemmas and senses only propagate childCount to parent
-					n.set(LEAFCOUNT, (Float)n.get(LEAFCOUNT) + (Float)c.get(LEAFCOUNT));
-					if (DIVIDE_BY_CHILDREN) {
-						n.set("childCount", sumCounts((float[]) n.get("childCount"), divide((float[]) c.get("childCount"), (float) n.getChildCount())));
-					} else {
-						n.set("childCount", sumCounts((float[]) n.get("childCount"), (float[]) c.get("childCount")));
-					}
-				}
-			}
-		}
-	}
-	
 	/**
 	 * Compute conditional entropy all nodes within the subtree rooted by this node.
 	 * @param node root
@@ -956,6 +941,8 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 	/**
 	 * For the currently selected tile range, sum all the counts of those tiles
 	 * and store result in the CACHECOUNT+count_type field of the node. 
+	 * Sums are read off the running totals kept by each {@link TileCounts}, so the cost 
+	 * does not depend on the number of tiles in the range.
 	 * @param g the graph to scan and cache
 	 */
 	private void cacheTotals(Graph g) {
@@ -967,17 +954,11 @@ public class DocuBurstActionList extends WordNetExplorerActionList {
 		String label = makeLabel(startTile, endTile);
 		while (iterator.hasNext()) {
 			n = (Node) iterator.next();
-			float[] nodeCounts = (float[]) n.get(NODECOUNT);
-			float[] childCounts = (float[]) n.get(CHILDCOUNT);
-			float nodeTotal = 0;
-			float childTotal = 0;
+			TileCounts nodeCounts = (TileCounts) n.get(NODECOUNT);
+			TileCounts childCounts = (TileCounts) n.get(CHILDCOUNT);
 			// only count non-null; all zeros are null to save memory
-			for (int i = startTile; i < endTile; i++) {
-				if (nodeCounts != null)
-					nodeTotal += nodeCounts[i];
-				if (childCounts != null)
-					childTotal += childCounts[i];
-			}
+			float nodeTotal = nodeCounts == null ? 0 : nodeCounts.sum(startTile, endTile);
+			float childTotal = childCounts == null ? 0 : childCounts.sum(startTile, endTile);
 
 			// don't count Lemma as max
 			if (n.getInt("type") != LEMMA) {
@@ -15,6 +15,7 @@ import prefuse.visual.NodeItem;
 import prefuse.visual.VisualItem;
 import prefuse.visual.expression.InGroupPredicate;
 import ca.uoit.science.vialab.treecut.Wagner;
+import ca.utoronto.cs.docuburst.data.TileCounts;
 import ca.utoronto.cs.docuburst.data.treecut.DocuburstTreeCut;
 import ca.utoronto.cs.docuburst.util.Util;
 
@@ -68,7 +69,7 @@ public class TreeCutFilterWagner extends GroupAction {
         
         Tree tree = ((Graph)m_vis.getGroup(m_group)).getSpanningTree();
         Node root = tree.getRoot();
-        float s = Util.sum((float[]) root.get("childCount")); // sample size
+        float s = Util.sum((TileCounts) root.get("childCount")); // sample size
         
         double w = distance * 500;
         
@@ -10,10 +10,9 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.swing.JTextPane;
 import javax.swing.text.SimpleAttributeSet;
@@ -28,23 +27,30 @@ import prefuse.Visualization;
 import prefuse.controls.ControlAdapter;
 import prefuse.data.Node;
 import prefuse.data.Tuple;
-import prefuse.data.expression.ColumnExpression;
-import prefuse.data.expression.ComparisonPredicate;
-import prefuse.data.expression.NumericLiteral;
 import prefuse.data.tuple.TupleSet;
 import prefuse.util.ColorLib;
 import prefuse.visual.NodeItem;
 import prefuse.visual.VisualItem;
 import ca.utoronto.cs.docuburst.Param;
 import ca.utoronto.cs.docuburst.prefuse.ColorScheme;
+import ca.utoronto.cs.docuburst.preprocess.ConcordanceIndex;
+import ca.utoronto.cs.docuburst.preprocess.ConcordanceIndex.Hit;
 import ca.utoronto.cs.docuburst.prefuse.DocuBurstActionList;
 import ca.utoronto.cs.docuburst.swing.ConcordancePanel;
 import ca.utoronto.cs.wordnetexplorer.prefuse.FisheyeDocument;
 
 public class HighlightTextHoverActionControl extends ControlAdapter {
-	Pattern p;
 	List<String> fullText;
 	
+	/** Occurrences of words in the tiles of fullText */
+	ConcordanceIndex concordanceIndex;
+	
+	/** The tile shown in the text pane, from 1, or 0 if none has been shown */
+	int currentTile = 0;
+	
+	/** The text of the tile shown, kept so that it is read only once */
+	String currentText;
+	
 	int deepest = 0;
 	int count = 0;
 	
@@ -78,10 +84,16 @@ public class HighlightTextHoverActionControl extends ControlAdapter {
 	
 	public HighlightTextHoverActionControl(JTextPane textPane, JTextPane concordancePane,
 			List<String> fullText, Visualization docuburstVisualization, Visualization documentVisualization) {
+		this(textPane, concordancePane, new ConcordanceIndex(fullText), docuburstVisualization, documentVisualization);
+	}
+
+	public HighlightTextHoverActionControl(JTextPane textPane, JTextPane concordancePane,
+			ConcordanceIndex concordanceIndex, Visualization docuburstVisualization, Visualization documentVisualization) {
 		super();
 		this.fullTextPane = textPane;
 		this.concordancePane = concordancePane;
-		this.fullText = fullText;
+		this.fullText = concordanceIndex.getTiles();
+		this.concordanceIndex = concordanceIndex;
 		this.docuburstVisualization = docuburstVisualization;
 		this.documentVisualization = documentVisualization;
 	}
@@ -93,6 +105,7 @@ public class HighlightTextHoverActionControl extends ControlAdapter {
 		this.fullTextPane = textPane;
 		this.concordancePane = null;
 		this.fullText = fullText;
+		this.concordanceIndex = new ConcordanceIndex(fullText);
 		this.docuburstVisualization = docuburstVisualization;
 		this.documentVisualization = documentVisualization;
 	}
@@ -102,6 +115,7 @@ public class HighlightTextHoverActionControl extends ControlAdapter {
 		this.fullTextPane = null;
 		this.concordancePane = null;
 		this.fullText = fullText;
+		this.concordanceIndex = new ConcordanceIndex(fullText);
 	}
 	
 	public void setTextPane(JTextPane textPane) {
@@ -117,12 +131,30 @@ public class HighlightTextHoverActionControl extends ControlAdapter {
 
 	}
 	
+	/**
+	 * Show the tiles of a newly loaded document. Nothing is highlighted until their
+	 * index is set with {@link #setConcordanceIndex(ConcordanceIndex)}.
+	 */
+	public void setFullText(List<String> fullText) {
+		this.fullText = fullText;
+		this.concordanceIndex = null;
+		currentTile = 0;
+		currentText = null;
+	}
+	
+	public void setConcordanceIndex(ConcordanceIndex concordanceIndex) {
+		this.concordanceIndex = concordanceIndex;
+		this.fullText = concordanceIndex.getTiles();
+	}
+	
 	public void setCountField(String countField) {
 		this.countField = countField;
 	}
 	
 	public void fillTextArea(int tile) {
-		fullTextPane.setText(fullText.get(tile - 1));
+		currentTile = tile;
+		currentText = fullText.get(tile - 1);
+		fullTextPane.setText(currentText);
 		fullTextPane.setCaretPosition(0);
 		updateTextArea(false);
 	}
@@ -144,68 +176,53 @@ public class HighlightTextHoverActionControl extends ControlAdapter {
 			}
 			focusDocuments.clear();
 		}
-		// highlight instances in the text tile
-		String itemsRegEx;
-		StringBuffer regExBuffer = new StringBuffer("(");
-		// build itemsRegEx from all selected word nodes
-		boolean found = false;
+		// collect the forms of all selected word nodes
+		List<String> forms = new ArrayList<String>();
 		while (iter.hasNext()) {
 			Tuple t = (Tuple) iter.next();
-			if (t.getInt("type") == WORD) {
-				if (found) 
-					regExBuffer.append("|");
-				else { 
-					found = true;
-//					regExBuffer.append("(");
-				}
-				regExBuffer.append(getItemRegEx(t));
-//				regExBuffer.append("");
-			}
+			if (t.getInt("type") == WORD)
+				forms.addAll(getItemForms(t));
 		}
-		if (!found) {
-			// none found
+		if (forms.isEmpty() || (concordanceIndex == null)) {
+			// none found, or the text is still being indexed
 			if (concordancePane != null)
 				concordancePane.setText("");
 			documentVisualization.run("distort");
 			return;
 		}
 			
-		// highlight matches and concordances
-		regExBuffer.append(")");
-		itemsRegEx = regExBuffer.toString();
-		p = Pattern.compile(itemsRegEx, Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(fullTextPane.getText());
-		if (m.find()) {
-			// move text tile caret to the beginning of the first match
-			fullTextPane.setCaretPosition(m.start());
-			m.reset();
-			// Replace all occurrences of pattern in input; retain case
-			// Get the match result
-			while (m.find()) {
-				// Get the label match result only
-				((StyledDocument) fullTextPane.getDocument())
-					.setCharacterAttributes(m.start(), m.group().length(), HIGHLIGHT_WORD, true);
+		// highlight instances in the text tile, looked up in the index rather than matched
+		if (currentTile > 0) {
+			List<Hit> tileHits = concordanceIndex.find(forms, currentTile - 1);
+			if (!tileHits.isEmpty()) {
+				// move text tile caret to the beginning of the first match
+				fullTextPane.setCaretPosition(toDocumentOffset(tileHits.get(0).getStart()));
+				for (Hit hit : tileHits) {
+					int start = toDocumentOffset(hit.getStart());
+					((StyledDocument) fullTextPane.getDocument())
+						.setCharacterAttributes(start, toDocumentOffset(hit.getEnd()) - start, HIGHLIGHT_WORD, true);
+				}
 			}
 		}
 			
 		if ((concordancePane != null) && updateConcordances) { 
-			// 	get matches in all texttiles, word + up to 5 words on each side
-			p = Pattern.compile("((\\S+\\s){0,5})(" + itemsRegEx + ")((\\s*\\S+\\s){0,5})", Pattern.CASE_INSENSITIVE); 
-			for (int i = 0; i < fullText.size(); i++) { 
-				if (fullText.get(i) != null) { 
-					m = p.matcher(fullText.get(i)); 
-					while (m.find()) {
-						concordances.append(String.format(ConcordancePanel.CONCORDANCE_FORMAT, i+1, 
-						        m.group(1).replaceAll("[\\n\\r]", " "), 
-						        m.group(3).replaceAll("[\\n\\r]", " "), 
-						        m.group(m.groupCount()-1).replaceAll("[\\n\\r]", " ")));
-						Iterator documentIterator = allDocuments.tuples(new ComparisonPredicate(ComparisonPredicate.EQ, new NumericLiteral(i+1), new ColumnExpression("row")));
-						while (documentIterator.hasNext()) {
-							Tuple document = (Tuple) documentIterator.next();
-							document.setInt(FisheyeDocument.VALUE, document.getInt(FisheyeDocument.VALUE)+1);
-							focusDocuments.addTuple(document);
-						}
-					} 
+			// matches in all text tiles, word + up to 5 words on each side
+			List<Hit> hits = concordanceIndex.find(forms);
+			for (Hit hit : hits) {
+				concordances.append(String.format(ConcordancePanel.CONCORDANCE_FORMAT, hit.getTile() + 1, 
+				        concordanceIndex.getLeftContext(hit), 
+				        concordanceIndex.getText(hit).replaceAll("[\\n\\r]", " "), 
+				        concordanceIndex.getRightContext(hit)));
+			}
+			// one pass over the documents, instead of a query per match
+			int[] tileCounts = concordanceIndex.countPerTile(hits);
+			Iterator documentIterator = allDocuments.tuples();
+			while (documentIterator.hasNext()) {
+				Tuple document = (Tuple) documentIterator.next();
+				int row = document.getInt(FisheyeDocument.ROW);
+				if ((row >= 1) && (row <= tileCounts.length) && (tileCounts[row - 1] > 0)) {
+					document.setInt(FisheyeDocument.VALUE, document.getInt(FisheyeDocument.VALUE) + tileCounts[row - 1]);
+					focusDocuments.addTuple(document);
 				}
 			}
 		}
@@ -221,49 +238,44 @@ public class HighlightTextHoverActionControl extends ControlAdapter {
 		}
 	};
 	
-	public String getItemRegEx(VisualItem item) {
-		return getItemRegEx((Node)item);
+	/**
+	 * Offsets in the text of a tile are offsets in the text pane, except that the pane
+	 * stores each \r\n line break as a single \n.
+	 */
+	private int toDocumentOffset(int offset) {
+		String text = currentText;
+		if (text.indexOf('\r') < 0)
+			return offset;
+		int lineBreaks = 0;
+		for (int i = text.indexOf("\r\n"); (i >= 0) && (i < offset); i = text.indexOf("\r\n", i + 2))
+			lineBreaks++;
+		return offset - lineBreaks;
 	}
 	
-	// matches the word OR its plural
-	public String getWordRegex(String word){
-		return String.format("\\b%1$s\\b|\\b%1$ss\\b", word);
-	}
-
-	public String getItemRegEx(Tuple item) {
+	/**
+	 * @return the words and phrases whose occurrences in the text are occurrences of the item
+	 */
+	public List<String> getItemForms(Tuple item) {
 		int type = item.getInt("type");
-		StringBuffer regEx;
-		Synset synset;
-		try {
-			if ((type == LEMMA)
-					|| (type == WORD)) {
-				regEx = new StringBuffer("(")
-					.append(getWordRegex(item.getString("label")))
-					.append(")");			
-				return regEx.toString();
-			}
-			if (type == SENSE) {
-				synset = dictionary.getSynsetAt(POS
+		List<String> forms = new ArrayList<String>();
+		if ((type == LEMMA) || (type == WORD)) {
+			forms.add(item.getString("label"));
+			return forms;
+		}
+		if (type == SENSE) {
+			try {
+				Synset synset = dictionary.getSynsetAt(POS
 						.getPOSForLabel(item.getString("pos")), item
 						.getLong("offset"));
-				Word[] words = synset.getWords();
-				if (words.length == 1) {
-					return "("+ getWordRegex(words[0].getLemma().replaceAll("_", " ")) + ")";
-				}
-				regEx = new StringBuffer("(");
-				for (int i = 0; i < words.length - 1; i++) {
-					regEx.append(getWordRegex(words[i].getLemma().replaceAll("_", " ")))
-						 .append("|");
-				}
-				return regEx.append(getWordRegex(words[words.length - 1].
-										getLemma().replaceAll("_", " ")))
-						    .append(")\\b")
-						    .toString();
+				for (Word word : synset.getWords())
+					forms.add(word.getLemma().replaceAll("_", " "));
+				return forms;
+			} catch (JWNLException e1) {
+				e1.printStackTrace();
 			}
-		} catch (JWNLException e1) {
-			e1.printStackTrace();
 		}
-		return item.getString("label");
+		forms.add(item.getString("label"));
+		return forms;
 	}
 	
 	/**
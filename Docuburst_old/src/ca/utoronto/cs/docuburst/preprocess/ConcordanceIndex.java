@@ -0,0 +1,423 @@
+package ca.utoronto.cs.docuburst.preprocess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A positional inverted index of the tokens of the tiles of a document. Occurrences
+ * of a word or phrase, its concordance lines and its highlight ranges are found by
+ * looking up the postings of its tokens, instead of running a regular expression
+ * over the text of every tile.
+ * <br><br>
+ * A token is a maximal run of letters, digits and underscores, the characters between
+ * the word boundaries of a regular expression. Tokens are compared ignoring case. A
+ * phrase matches a sequence of tokens separated by exactly the characters that separate
+ * the tokens of the phrase, so <code>ice cream</code> matches "Ice cream" but not
+ * "ice-cream". As in the word patterns used before, a form also matches its plural
+ * made by appending an <code>s</code>.
+ * <br><br>
+ * Postings are keyed by the lower case surface token, not by lemma or sense. This
+ * keeps the semantics of the regular expressions the index replaces, which matched
+ * the lemmas of the selected words and synsets as written: an irregular form such as
+ * "geese" is not an occurrence of "goose", and a word is highlighted wherever it
+ * occurs, whichever of its senses it was counted for.
+ */
+public class ConcordanceIndex {
+
+	/** The number of whitespace separated words on each side of a concordance line */
+	public static final int CONTEXT_WORDS = 5;
+
+	private static final Hit[] NO_HITS = new Hit[0];
+
+	private static final Comparator<Hit> DOCUMENT_ORDER = new Comparator<Hit>() {
+		public int compare(Hit a, Hit b) {
+			if (a.tile != b.tile)
+				return a.tile < b.tile ? -1 : 1;
+			if (a.start != b.start)
+				return a.start < b.start ? -1 : 1;
+			// longest first at the same start
+			return b.end - a.end;
+		}
+	};
+
+	private final List<String> tiles;
+
+	/** Token ids by lower case token */
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+	/** Per tile, the id, first character and end character of each token */
+	private final int[][] tokenIds;
+	private final int[][] tokenStarts;
+	private final int[][] tokenEnds;
+
+	/** Per token id, its occurrences as pairs of tile and token number, in document order */
+	private int[][] postings;
+	private int[] postingsSizes;
+
+	/** Hits of each form already looked up, in document order */
+	private final Map<String, Hit[]> hitsByForm = new HashMap<String, Hit[]>();
+
+	/**
+	 * The last tile read and its text. Tiles may be read from the document file each
+	 * time they are fetched, and hits are visited in document order, so keeping one
+	 * tile reads each tile once per pass over the hits.
+	 */
+	private int lastTile = -1;
+	private String lastText;
+
+	/**
+	 * One occurrence of a form: the tile it is in and the range of characters it covers
+	 * in the text of the tile.
+	 */
+	public static class Hit {
+		private final int tile;
+		private final int start;
+		private final int end;
+
+		Hit(int tile, int start, int end) {
+			this.tile = tile;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * @return the index of the tile, from 0
+		 */
+		public int getTile() {
+			return tile;
+		}
+
+		public int getStart() {
+			return start;
+		}
+
+		public int getEnd() {
+			return end;
+		}
+
+		public int getLength() {
+			return end - start;
+		}
+	}
+
+	/**
+	 * Tokenize and index the given tiles. Null tiles are indexed as empty.
+	 */
+	public ConcordanceIndex(List<String> tiles) {
+		this.tiles = tiles;
+		tokenIds = new int[tiles.size()][];
+		tokenStarts = new int[tiles.size()][];
+		tokenEnds = new int[tiles.size()][];
+		postings = new int[256][];
+		postingsSizes = new int[256];
+
+		IntList idList = new IntList(), startList = new IntList(), endList = new IntList();
+		for (int t = 0; t < tiles.size(); t++) {
+			// fetch each tile once, it may be read from the document file
+			String text = tiles.get(t);
+			if (text == null)
+				text = "";
+			idList.clear();
+			startList.clear();
+			endList.clear();
+			for (int i = 0, n = text.length(); i < n;) {
+				if (!isTokenChar(text.charAt(i))) {
+					i++;
+					continue;
+				}
+				int start = i;
+				while (i < n && isTokenChar(text.charAt(i)))
+					i++;
+				int id = id(text.substring(start, i).toLowerCase(Locale.ENGLISH));
+				addPosting(id, t, idList.size());
+				idList.add(id);
+				startList.add(start);
+				endList.add(i);
+			}
+			tokenIds[t] = idList.toArray();
+			tokenStarts[t] = startList.toArray();
+			tokenEnds[t] = endList.toArray();
+		}
+	}
+
+	/**
+	 * @return the tiles of the document
+	 */
+	public List<String> getTiles() {
+		return tiles;
+	}
+
+	/**
+	 * @return the number of tokens in the given tile
+	 */
+	public int getTokenCount(int tile) {
+		return tokenIds[tile].length;
+	}
+
+	/**
+	 * Find the occurrences of any of the given forms. Where occurrences overlap, only the
+	 * first is kept, and of occurrences starting at the same character, the longest.
+	 *
+	 * @return the occurrences in document order
+	 */
+	public List<Hit> find(Collection<String> forms) {
+		List<Hit> all = new ArrayList<Hit>();
+		for (String form : forms)
+			all.addAll(Arrays.asList(hits(form)));
+		Collections.sort(all, DOCUMENT_ORDER);
+		return removeOverlaps(all);
+	}
+
+	/**
+	 * Find the occurrences of any of the given forms in one tile.
+	 *
+	 * @param tile the index of the tile, from 0
+	 * @return the occurrences in the tile, in order
+	 * @see #find(Collection)
+	 */
+	public List<Hit> find(Collection<String> forms, int tile) {
+		List<Hit> all = new ArrayList<Hit>();
+		for (String form : forms) {
+			Hit[] hits = hits(form);
+			for (int i = firstHitInTile(hits, tile); i < hits.length && hits[i].tile == tile; i++)
+				all.add(hits[i]);
+		}
+		Collections.sort(all, DOCUMENT_ORDER);
+		return removeOverlaps(all);
+	}
+
+	/**
+	 * Count the given occurrences per tile.
+	 *
+	 * @return the number of occurrences in each tile
+	 */
+	public int[] countPerTile(List<Hit> hits) {
+		int[] counts = new int[tiles.size()];
+		for (Hit hit : hits)
+			counts[hit.tile]++;
+		return counts;
+	}
+
+	/**
+	 * @return the text of the occurrence
+	 */
+	public String getText(Hit hit) {
+		return tileText(hit.tile).substring(hit.start, hit.end);
+	}
+
+	/**
+	 * @return up to {@link #CONTEXT_WORDS} words before the occurrence, on one line
+	 */
+	public String getLeftContext(Hit hit) {
+		String text = tileText(hit.tile);
+		int i = hit.start;
+		for (int w = 0; w < CONTEXT_WORDS && i > 0; w++) {
+			while (i > 0 && Character.isWhitespace(text.charAt(i - 1)))
+				i--;
+			while (i > 0 && !Character.isWhitespace(text.charAt(i - 1)))
+				i--;
+		}
+		return oneLine(text.substring(i, hit.start));
+	}
+
+	/**
+	 * @return up to {@link #CONTEXT_WORDS} words after the occurrence, on one line
+	 */
+	public String getRightContext(Hit hit) {
+		String text = tileText(hit.tile);
+		int i = hit.end, n = text.length();
+		for (int w = 0; w < CONTEXT_WORDS && i < n; w++) {
+			while (i < n && Character.isWhitespace(text.charAt(i)))
+				i++;
+			while (i < n && !Character.isWhitespace(text.charAt(i)))
+				i++;
+		}
+		return oneLine(text.substring(hit.end, i));
+	}
+
+	/**
+	 * @return the text of a tile, fetching it only if it is not the last tile read
+	 */
+	private synchronized String tileText(int tile) {
+		if (tile != lastTile) {
+			String text = tiles.get(tile);
+			lastText = text == null ? "" : text;
+			lastTile = tile;
+		}
+		return lastText;
+	}
+
+	/**
+	 * @return the occurrences of a form and of its plural, in document order, matched on
+	 * surface tokens as the old word patterns were
+	 */
+	private Hit[] hits(String form) {
+		String key = form.toLowerCase(Locale.ENGLISH);
+		Hit[] hits = hitsByForm.get(key);
+		if (hits == null) {
+			List<Hit> list = new ArrayList<Hit>();
+			List<String> tokens = new ArrayList<String>();
+			List<String> separators = new ArrayList<String>();
+			split(key, tokens, separators);
+			if (!tokens.isEmpty()) {
+				match(tokens, separators, list);
+				tokens.set(tokens.size() - 1, tokens.get(tokens.size() - 1) + "s");
+				match(tokens, separators, list);
+			}
+			hits = list.isEmpty() ? NO_HITS : list.toArray(new Hit[list.size()]);
+			Arrays.sort(hits, DOCUMENT_ORDER);
+			hitsByForm.put(key, hits);
+		}
+		return hits;
+	}
+
+	/**
+	 * Add the occurrences of a sequence of tokens, each separated from the next by the
+	 * given characters.
+	 */
+	private void match(List<String> tokens, List<String> separators, List<Hit> hits) {
+		int[] phrase = new int[tokens.size()];
+		for (int k = 0; k < phrase.length; k++) {
+			Integer id = ids.get(tokens.get(k));
+			if (id == null)
+				return;
+			phrase[k] = id;
+		}
+		int[] first = postings[phrase[0]];
+		for (int p = 0, n = postingsSizes[phrase[0]]; p < n; p += 2) {
+			int tile = first[p], token = first[p + 1];
+			if (matchesAt(tile, token, phrase, separators))
+				hits.add(new Hit(tile, tokenStarts[tile][token],
+						tokenEnds[tile][token + phrase.length - 1]));
+		}
+	}
+
+	private boolean matchesAt(int tile, int token, int[] phrase, List<String> separators) {
+		int[] tileIds = tokenIds[tile];
+		if (token + phrase.length > tileIds.length)
+			return false;
+		String text = tileText(tile);
+		for (int k = 1; k < phrase.length; k++) {
+			if (tileIds[token + k] != phrase[k])
+				return false;
+			int from = tokenEnds[tile][token + k - 1], to = tokenStarts[tile][token + k];
+			String separator = separators.get(k - 1);
+			if (to - from != separator.length() || !text.regionMatches(true, from, separator, 0, separator.length()))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Split a form into its tokens and the characters between them; characters before
+	 * the first and after the last token are dropped.
+	 */
+	private static void split(String form, List<String> tokens, List<String> separators) {
+		int previousEnd = -1;
+		for (int i = 0, n = form.length(); i < n;) {
+			if (!isTokenChar(form.charAt(i))) {
+				i++;
+				continue;
+			}
+			int start = i;
+			while (i < n && isTokenChar(form.charAt(i)))
+				i++;
+			if (previousEnd >= 0)
+				separators.add(form.substring(previousEnd, start));
+			tokens.add(form.substring(start, i));
+			previousEnd = i;
+		}
+	}
+
+	/**
+	 * Keep the first of each run of overlapping hits, which are sorted in document order.
+	 */
+	private static List<Hit> removeOverlaps(List<Hit> hits) {
+		List<Hit> kept = new ArrayList<Hit>(hits.size());
+		Hit last = null;
+		for (Hit hit : hits) {
+			if (last == null || hit.tile != last.tile || hit.start >= last.end) {
+				kept.add(hit);
+				last = hit;
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * @return the index of the first hit in the given tile, or of the first hit after it
+	 */
+	private static int firstHitInTile(Hit[] hits, int tile) {
+		int low = 0, high = hits.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (hits[mid].tile < tile)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private int id(String token) {
+		Integer id = ids.get(token);
+		if (id == null) {
+			id = ids.size();
+			ids.put(token, id);
+			if (id == postings.length) {
+				postings = Arrays.copyOf(postings, 2 * id);
+				postingsSizes = Arrays.copyOf(postingsSizes, 2 * id);
+			}
+			postings[id] = new int[4];
+		}
+		return id;
+	}
+
+	private void addPosting(int id, int tile, int token) {
+		int size = postingsSizes[id];
+		if (size == postings[id].length)
+			postings[id] = Arrays.copyOf(postings[id], 2 * size);
+		postings[id][size] = tile;
+		postings[id][size + 1] = token;
+		postingsSizes[id] = size + 2;
+	}
+
+	private static boolean isTokenChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+
+	private static String oneLine(String s) {
+		return s.replaceAll("[\\n\\r]", " ");
+	}
+
+	/** A growable array of ints */
+	private static class IntList {
+		private int[] values = new int[64];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2 * size);
+			values[size++] = value;
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
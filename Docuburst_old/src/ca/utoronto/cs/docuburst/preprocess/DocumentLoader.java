@@ -0,0 +1,156 @@
+package ca.utoronto.cs.docuburst.preprocess;
+
+import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.dictionary;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+import net.didion.jwnl.dictionary.Dictionary;
+import ca.utoronto.cs.docuburst.data.TileCounts;
+import ca.utoronto.cs.docuburst.preprocess.PreprocessedDocument.Stage;
+import ca.utoronto.cs.wordnetexplorer.utilities.LanguageLib.CountMethod;
+
+/**
+ * Loads the WordNet dictionary and a document off the event dispatch thread: the
+ * dictionary is initialized, then the document is tiled, tagged and counted (or read
+ * from the preprocessing cache), and finally its tiles are indexed for concordances.
+ * <br><br>
+ * Each result is handed to the {@link Listener} on the event dispatch thread as soon
+ * as it is ready, so the tree can be shown as soon as the counts exist, and the text
+ * panels filled in as the tiles and their index follow. The current stage is the bound
+ * property {@link #STAGE}, and the progress within it the bound property
+ * <code>progress</code>, from 0 to 100. Loading stops between tiles when the loader is
+ * cancelled.
+ */
+public class DocumentLoader extends SwingWorker<ConcordanceIndex, Object> {
+
+	/** The name of the bound property holding the current {@link Stage} */
+	public static final String STAGE = "stage";
+
+	/**
+	 * Receives the results of loading, in order, on the event dispatch thread.
+	 */
+	public interface Listener {
+		public void dictionaryLoaded(Dictionary dictionary);
+
+		public void tilesLoaded(List<String> tiles);
+
+		public void countsLoaded(HashMap<String, TileCounts> wordMap);
+
+		public void indexLoaded(ConcordanceIndex index);
+
+		/**
+		 * Called instead of the remaining methods if loading fails or is cancelled.
+		 *
+		 * @param cause the exception that stopped loading, or null if it was cancelled
+		 */
+		public void loadStopped(Exception cause);
+	}
+
+	private final String filename;
+	private final CountMethod countMethod;
+	private final Callable<Dictionary> dictionaryLoader;
+	private final Listener listener;
+
+	private volatile Stage stage;
+
+	/**
+	 * @param filename the plain text document
+	 * @param countMethod how counts are distributed over the senses of a word
+	 * @param dictionaryLoader initializes JWNL and returns the dictionary
+	 * @param listener receives the results
+	 */
+	public DocumentLoader(String filename, CountMethod countMethod,
+			Callable<Dictionary> dictionaryLoader, Listener listener) {
+		this.filename = filename;
+		this.countMethod = countMethod;
+		this.dictionaryLoader = dictionaryLoader;
+		this.listener = listener;
+	}
+
+	public Stage getStage() {
+		return stage;
+	}
+
+	@Override
+	protected ConcordanceIndex doInBackground() throws Exception {
+		setStage(Stage.DICTIONARY, 0, 1);
+		// counting looks words up in the shared dictionary
+		dictionary = dictionaryLoader.call();
+		publish(dictionary);
+		setStage(Stage.DICTIONARY, 1, 1);
+
+		PreprocessedDocument document = PreprocessedDocument.load(filename, countMethod,
+				new PreprocessedDocument.LoadListener() {
+					public void progress(Stage stage, int done, int total) throws InterruptedException {
+						if (isCancelled())
+							throw new InterruptedException();
+						setStage(stage, done, total);
+					}
+
+					public void tiled(List<String> tiles) {
+						publish(new Tiles(tiles));
+					}
+				});
+		publish(document.getWordMap());
+
+		setStage(Stage.INDEXING, 0, 1);
+		ConcordanceIndex index = new ConcordanceIndex(document.getTiles());
+		setStage(Stage.INDEXING, 1, 1);
+		return index;
+	}
+
+	private void setStage(Stage stage, int done, int total) {
+		Stage old = this.stage;
+		this.stage = stage;
+		if (old != stage) {
+			// a new stage starts from 0, whatever the progress of the last
+			setProgress(0);
+			firePropertyChange(STAGE, old, stage);
+		}
+		setProgress(total == 0 ? 100 : (int) (100L * done / total));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected void process(List<Object> chunks) {
+		if (isCancelled())
+			return;
+		for (Object chunk : chunks) {
+			if (chunk instanceof Dictionary)
+				listener.dictionaryLoaded((Dictionary) chunk);
+			else if (chunk instanceof Tiles)
+				listener.tilesLoaded(((Tiles) chunk).tiles);
+			else
+				listener.countsLoaded((HashMap<String, TileCounts>) chunk);
+		}
+	}
+
+	@Override
+	protected void done() {
+		if (isCancelled()) {
+			listener.loadStopped(null);
+			return;
+		}
+		try {
+			listener.indexLoaded(get());
+		} catch (InterruptedException e) {
+			listener.loadStopped(e);
+		} catch (ExecutionException e) {
+			listener.loadStopped(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+		}
+	}
+
+	/** Tiles, told apart from the other results published */
+	private static class Tiles {
+		private final List<String> tiles;
+
+		Tiles(List<String> tiles) {
+			this.tiles = tiles;
+		}
+	}
+}
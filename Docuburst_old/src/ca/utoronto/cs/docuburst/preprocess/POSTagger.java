@@ -2,7 +2,14 @@ package ca.utoronto.cs.docuburst.preprocess;
 
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.TaggedWord;
@@ -12,20 +19,108 @@ import edu.stanford.nlp.tagger.maxent.MaxentTagger;
 
 public class POSTagger {
 
-	public static List<List<TaggedWord>> tagTiles(List<String> tiles) throws Exception{
-        MaxentTagger tagger = new MaxentTagger("taggers/english-left3words-distsim.tagger");
-        
-        List<List<CoreLabel>> tokenizedTiles = new ArrayList<List<CoreLabel>>();
-        for (String tile : tiles) {
-    	    PTBTokenizer<CoreLabel> tokenizer = new PTBTokenizer<CoreLabel>(
-    	    		new StringReader(tile), new CoreLabelTokenFactory(), "");
-    	    List<CoreLabel> tokens = tokenizer.tokenize();
-    	    tokenizedTiles.add(tokens);
+	/** The tagger model, a file or class path resource. */
+	public static final String MODEL = "taggers/english-left3words-distsim.tagger";
+
+	// the tagger model is large and slow to load, so it is loaded once and shared by
+	// the pool threads rather than loaded once per thread. This is safe with the
+	// tagger in lib (stanford-postagger 3.6.0): tagSentence(List) creates a new
+	// TestSentence for every call, which holds all the state of tagging a sentence,
+	// and only reads the model, the extractors and the dictionary of the tagger after
+	// loading. CoreNLP's POSTaggerAnnotator likewise shares one MaxentTagger over
+	// its threads when pos.nthreads > 1. Check this again before upgrading the tagger.
+	private static MaxentTagger tagger = null;
+
+	private static int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Receives tagged tiles, in document order, as soon as they are ready.
+	 */
+	public interface TileHandler {
+		public void tileTagged(int tile, List<TaggedWord> taggedWords) throws Exception;
+	}
+
+	public static synchronized MaxentTagger getTagger() {
+		if (tagger == null)
+			tagger = new MaxentTagger(MODEL);
+		return tagger;
+	}
+
+	/**
+	 * @param n the number of threads used to tokenize and tag tiles
+	 */
+	public static void setThreads(int n) {
+		threads = Math.max(1, n);
+	}
+
+	public static List<List<TaggedWord>> tagTiles(List<String> tiles) throws Exception {
+		final List<List<TaggedWord>> taggedTiles = new ArrayList<List<TaggedWord>>(tiles.size());
+		tagTiles(tiles, new TileHandler() {
+			public void tileTagged(int tile, List<TaggedWord> taggedWords) {
+				taggedTiles.add(taggedWords);
+			}
+		});
+		return taggedTiles;
+	}
+
+	/**
+	 * Tokenize and tag tiles on a pool of threads, handing each tagged tile to the
+	 * handler on the calling thread, in order. At most a few tiles per thread are in
+	 * flight at any time, so the handler (counting, for example) overlaps with tagging
+	 * without the tagged document piling up in memory ahead of it.
+	 *
+	 * @param tiles the text of each tile
+	 * @param handler receives the tagged tiles
+	 * @throws Exception if tagging fails or the handler throws
+	 */
+	public static void tagTiles(List<String> tiles, TileHandler handler) throws Exception {
+		final MaxentTagger tagger = getTagger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "POSTagger");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		int window = 2 * threads;
+		LinkedList<Future<List<TaggedWord>>> inFlight = new LinkedList<Future<List<TaggedWord>>>();
+		try {
+			int next = 0;
+			for (int tile = 0; tile < tiles.size(); tile++) {
+				while (next < tiles.size() && next < tile + window)
+					inFlight.add(executor.submit(new TagTask(tagger, tiles.get(next++))));
+				List<TaggedWord> taggedWords;
+				try {
+					taggedWords = inFlight.removeFirst().get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof Exception)
+						throw (Exception) e.getCause();
+					throw e;
+				}
+				handler.tileTagged(tile, taggedWords);
+			}
+		} finally {
+			executor.shutdownNow();
 		}
-	    
-	    return tagger.process(tokenizedTiles);
 	}
-	
+
+	private static class TagTask implements Callable<List<TaggedWord>> {
+		private final MaxentTagger tagger;
+		private final String tile;
+
+		TagTask(MaxentTagger tagger, String tile) {
+			this.tagger = tagger;
+			this.tile = tile;
+		}
+
+		public List<TaggedWord> call() {
+			PTBTokenizer<CoreLabel> tokenizer = new PTBTokenizer<CoreLabel>(
+					new StringReader(tile), new CoreLabelTokenFactory(), "");
+			List<CoreLabel> tokens = tokenizer.tokenize();
+			return tagger.tagSentence(tokens);
+		}
+	}
+
 	public static void main(String[] args) throws Exception {
 		tagTiles(Tiling.tile("/Users/rafa/Dropbox/Dev/docuburst/Docuburst_old/texts/hellobarbie_lines_v2.txt"));
 
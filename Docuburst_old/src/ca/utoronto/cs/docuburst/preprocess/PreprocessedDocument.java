@@ -0,0 +1,486 @@
+package ca.utoronto.cs.docuburst.preprocess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import ca.utoronto.cs.docuburst.data.TileCounts;
+import ca.utoronto.cs.wordnetexplorer.utilities.LanguageLib.CountMethod;
+import edu.stanford.nlp.ling.TaggedWord;
+import net.didion.jwnl.JWNL;
+import uk.ac.man.cs.choif.nlp.seg.linear.texttile.StreamingTextTiling.TileList;
+import uk.ac.man.cs.choif.nlp.struct.StreamingText;
+
+/**
+ * The result of preprocessing a plain text document: its tiles, the part of speech
+ * tagged tokens of each tile and the per tile sense counts. Preprocessing a long
+ * document takes minutes, so results are stored in a binary cache file named after
+ * a SHA-1 hash of the document contents and of everything else the results depend
+ * on: the count method, the WordNet version, which fixes the sense offsets, the
+ * tagger model, and the stop words and window sizes used for tiling. Opening an
+ * unchanged document again with the same settings reads the cache file and skips
+ * tiling, tagging and counting.
+ * <br><br>
+ * The text of the tiles is not stored. Each tile is kept as its byte offsets in the
+ * document, whether it was just tiled or read from the cache, and its text is read
+ * from the document when it is fetched, so the text of a large document is never
+ * held in memory.
+ * <br><br>
+ * Cache file layout (big endian):
+ * <pre>
+ * int magic, int version, int count method
+ * int #strings, then per string: int length, UTF-8 bytes   (token words and tags)
+ * int #tiles, then per tile: long start, long end   (byte offsets in the document),
+ *                            int #tokens, then per token: int word id, int tag id
+ * int #keys, then per key: int length, UTF-8 bytes of the sense key,
+ *                          int #tiles, then per tile: int tile, float count
+ * </pre>
+ */
+public class PreprocessedDocument {
+
+	private static final Logger logger = Logger.getLogger(PreprocessedDocument.class.getName());
+
+	private static final int MAGIC = 0x44425043; // "DBPC"
+	private static final int VERSION = 2;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static File cacheDirectory = new File(System.getProperty("user.home"), ".docuburst" + File.separator + "cache");
+
+	/**
+	 * The stages of loading a document, in order. Tiles are counted as soon as they
+	 * are tagged, so TAGGING covers both; COUNTING is reported when the counts are
+	 * read from the cache instead.
+	 */
+	public enum Stage { DICTIONARY, TILING, TAGGING, COUNTING, INDEXING }
+
+	/**
+	 * Follows the loading of a document. Both methods are called on the loading thread.
+	 */
+	public interface LoadListener {
+		/**
+		 * @param stage the stage in progress
+		 * @param done the number of tiles, or other units, done in this stage
+		 * @param total the number of units in this stage
+		 * @throws InterruptedException to stop loading
+		 */
+		public void progress(Stage stage, int done, int total) throws InterruptedException;
+
+		/**
+		 * Receives the tiles of the document as soon as they are known, before they are
+		 * tagged and counted.
+		 */
+		public void tiled(List<String> tiles);
+	}
+
+	private final TileList tiles;
+	private final List<List<TaggedWord>> taggedTiles;
+	private final HashMap<String, TileCounts> wordMap;
+
+	private PreprocessedDocument(TileList tiles, List<List<TaggedWord>> taggedTiles,
+			HashMap<String, TileCounts> wordMap) {
+		this.tiles = tiles;
+		this.taggedTiles = taggedTiles;
+		this.wordMap = wordMap;
+	}
+
+	/**
+	 * @return the text of each tile of the document, read from the document file as
+	 * each tile is fetched. Closing the list closes the file.
+	 */
+	public TileList getTiles() {
+		return tiles;
+	}
+
+	/**
+	 * @return the tagged tokens of each tile
+	 */
+	public List<List<TaggedWord>> getTaggedTiles() {
+		return taggedTiles;
+	}
+
+	/**
+	 * @return the per tile counts of each sense, keyed by lemma, part of speech and offset
+	 */
+	public HashMap<String, TileCounts> getWordMap() {
+		return wordMap;
+	}
+
+	/**
+	 * @param directory the directory in which preprocessed documents are cached
+	 */
+	public static void setCacheDirectory(File directory) {
+		cacheDirectory = directory;
+	}
+
+	public static File getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	/**
+	 * Load a preprocessed document from the cache, or preprocess it and add it to the cache.
+	 *
+	 * @param filename the plain text document
+	 * @param countMethod how counts are distributed over the senses of a word
+	 * @return the preprocessed document
+	 * @throws Exception if the document can not be tagged
+	 */
+	public static PreprocessedDocument load(String filename, CountMethod countMethod) throws Exception {
+		return load(filename, countMethod, null);
+	}
+
+	/**
+	 * Load a preprocessed document from the cache, or preprocess it and add it to the cache,
+	 * reporting each stage to the listener.
+	 *
+	 * @param listener follows the stages of loading, or null
+	 * @throws InterruptedException if the listener stops loading
+	 * @see #load(String, CountMethod)
+	 */
+	public static PreprocessedDocument load(String filename, CountMethod countMethod,
+			LoadListener listener) throws Exception {
+		File cacheFile = null;
+		try {
+			cacheFile = new File(cacheDirectory, hash(new File(filename), settings(countMethod)) + ".dbc");
+		} catch (IOException e) {
+			logger.warning("Could not hash document for the preprocessed document cache: " + e.getMessage());
+		}
+		if (cacheFile != null && cacheFile.isFile()) {
+			PreprocessedDocument doc = null;
+			try {
+				doc = read(cacheFile, filename, countMethod);
+			} catch (IOException e) {
+				// a file that can not be decoded is a miss, and is not tried again
+				logger.warning("Could not read preprocessed document cache: " + e.getMessage());
+				cacheFile.delete();
+			}
+			if (doc != null) {
+				if (listener != null) {
+					listener.tiled(doc.tiles);
+					listener.progress(Stage.COUNTING, 1, 1);
+				}
+				return doc;
+			}
+		}
+
+		PreprocessedDocument doc = preprocess(filename, countMethod, listener);
+		if (cacheFile != null) {
+			try {
+				write(doc, cacheFile, countMethod);
+			} catch (IOException e) {
+				logger.warning("Could not write preprocessed document cache: " + e.getMessage());
+			}
+		}
+		return doc;
+	}
+
+	/**
+	 * Tile, tag and count the given document. Each tile is counted as soon as it has
+	 * been tagged, while later tiles are still being tagged. The tiles are read from
+	 * the document file one at a time as they are tagged, so the text of the whole
+	 * document is never held in memory.
+	 */
+	public static PreprocessedDocument preprocess(String filename, final CountMethod countMethod) throws Exception {
+		return preprocess(filename, countMethod, null);
+	}
+
+	/**
+	 * Tile, tag and count the given document, reporting each tile to the listener.
+	 *
+	 * @param listener follows the stages of preprocessing, or null
+	 * @throws InterruptedException if the listener stops preprocessing
+	 */
+	public static PreprocessedDocument preprocess(String filename, final CountMethod countMethod,
+			final LoadListener listener) throws Exception {
+		if (listener != null)
+			listener.progress(Stage.TILING, 0, 1);
+		final TileList tiles = Tiling.tileStreaming(filename);
+		if (listener != null) {
+			listener.progress(Stage.TILING, 1, 1);
+			listener.tiled(tiles);
+		}
+		final List<List<TaggedWord>> taggedTiles = new ArrayList<List<TaggedWord>>(tiles.size());
+		final HashMap<String, TileCounts> wordMap = new HashMap<String, TileCounts>();
+		POSTagger.tagTiles(tiles, new POSTagger.TileHandler() {
+			public void tileTagged(int tile, List<TaggedWord> taggedWords) throws InterruptedException {
+				taggedTiles.add(taggedWords);
+				WordMap.countTile(wordMap, taggedWords, tile, countMethod);
+				// one stage for both, so the progress bar does not restart on every tile
+				if (listener != null)
+					listener.progress(Stage.TAGGING, tile + 1, tiles.size());
+			}
+		});
+		return new PreprocessedDocument(tiles, taggedTiles, wordMap);
+	}
+
+	/**
+	 * @return a description of the settings, besides the document, that the
+	 * preprocessed results depend on. The count method is included so that each
+	 * method keeps its own cache file.
+	 */
+	private static String settings(CountMethod countMethod) {
+		return "count " + countMethod
+				+ "; wordnet " + JWNL.getVersion()
+				+ "; tagger " + POSTagger.MODEL + " " + fileStamp(POSTagger.MODEL)
+				+ "; stopwords " + Tiling.STOPWORDS + " " + fileStamp(Tiling.STOPWORDS)
+				+ "; window " + Tiling.WINDOW + "; step " + Tiling.STEP;
+	}
+
+	/**
+	 * @return the size and modification time of a file, or nothing if the path is not
+	 * a file, such as a class path resource
+	 */
+	private static String fileStamp(String path) {
+		File file = new File(path);
+		return file.isFile() ? file.length() + " " + file.lastModified() : "";
+	}
+
+	/**
+	 * @return the hex SHA-1 digest of the settings and the contents of the file
+	 */
+	private static String hash(File file, String settings) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e.getMessage());
+		}
+		digest.update(settings.getBytes(UTF8));
+		FileInputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[1 << 16];
+			int n;
+			while ((n = in.read(buffer)) > 0)
+				digest.update(buffer, 0, n);
+		} finally {
+			in.close();
+		}
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest())
+			sb.append(String.format("%02x", b & 0xff));
+		return sb.toString();
+	}
+
+	// ------------------------------------------------------------------------
+	// Cache files
+
+	private static void write(PreprocessedDocument doc, File file, CountMethod countMethod) throws IOException {
+		File dir = file.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Can not create " + dir);
+
+		// intern token words and tags
+		Map<String, Integer> ids = new HashMap<String, Integer>();
+		List<String> strings = new ArrayList<String>();
+		for (List<TaggedWord> tile : doc.taggedTiles) {
+			for (TaggedWord w : tile) {
+				intern(w.word(), ids, strings);
+				intern(w.tag(), ids, strings);
+			}
+		}
+
+		// write to a temporary file and rename, so a partial file is never read
+		File tmp = new File(dir, file.getName() + ".tmp");
+		boolean renamed = false;
+		try {
+			writeTo(doc, tmp, countMethod, ids, strings);
+			if (file.exists())
+				file.delete();
+			if (!tmp.renameTo(file))
+				throw new IOException("Can not rename " + tmp + " to " + file);
+			renamed = true;
+		} finally {
+			if (!renamed)
+				tmp.delete();
+		}
+	}
+
+	private static void writeTo(PreprocessedDocument doc, File tmp, CountMethod countMethod,
+			Map<String, Integer> ids, List<String> strings) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(countMethod.ordinal());
+
+			out.writeInt(strings.size());
+			for (String s : strings)
+				writeString(out, s);
+
+			out.writeInt(doc.tiles.size());
+			for (int t = 0; t < doc.tiles.size(); t++) {
+				out.writeLong(doc.tiles.getStart(t));
+				out.writeLong(doc.tiles.getEnd(t));
+				List<TaggedWord> tile = t < doc.taggedTiles.size() ? doc.taggedTiles.get(t) : new ArrayList<TaggedWord>();
+				out.writeInt(tile.size());
+				for (TaggedWord w : tile) {
+					out.writeInt(ids.get(w.word()));
+					out.writeInt(ids.get(w.tag()));
+				}
+			}
+
+			out.writeInt(doc.wordMap.size());
+			for (Map.Entry<String, TileCounts> e : doc.wordMap.entrySet()) {
+				writeString(out, e.getKey());
+				TileCounts counts = e.getValue();
+				out.writeInt(counts.size());
+				for (int i = 0; i < counts.size(); i++) {
+					out.writeInt(counts.getTile(i));
+					out.writeFloat(counts.getValue(i));
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @param document the document the cache file was made for, from which the tiles are read
+	 * @return the cached document, or null if the cache file is of another version or count method
+	 * @throws IOException if the file can not be read or decoded
+	 */
+	private static PreprocessedDocument read(File file, String document, CountMethod countMethod) throws IOException {
+		// every value is decoded into the document, so the file is read through once
+		CacheInput in = new CacheInput(file);
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != countMethod.ordinal())
+				return null;
+
+			String[] strings = new String[in.readLength(4)];
+			for (int i = 0; i < strings.length; i++)
+				strings[i] = readString(in);
+
+			int ntiles = in.readLength(20);
+			long documentLength = new File(document).length();
+			long[] start = new long[ntiles];
+			long[] end = new long[ntiles];
+			List<List<TaggedWord>> taggedTiles = new ArrayList<List<TaggedWord>>(ntiles);
+			for (int t = 0; t < ntiles; t++) {
+				start[t] = in.readLong();
+				end[t] = in.readLong();
+				if (start[t] < 0 || start[t] > end[t] || end[t] > documentLength)
+					throw new IOException("Corrupt tile offsets in " + file);
+				int ntokens = in.readLength(8);
+				List<TaggedWord> tile = new ArrayList<TaggedWord>(ntokens);
+				for (int i = 0; i < ntokens; i++) {
+					String word = strings[in.readInt()];
+					tile.add(new TaggedWord(word, strings[in.readInt()]));
+				}
+				taggedTiles.add(tile);
+			}
+
+			int nkeys = in.readLength(8);
+			HashMap<String, TileCounts> wordMap = new HashMap<String, TileCounts>(nkeys * 4 / 3 + 1);
+			for (int k = 0; k < nkeys; k++) {
+				String key = readString(in);
+				int n = in.readLength(8);
+				TileCounts counts = new TileCounts(n);
+				for (int i = 0; i < n; i++) {
+					int tile = in.readInt();
+					counts.add(tile, in.readFloat());
+				}
+				wordMap.put(key, counts);
+			}
+			TileList tiles = new TileList(new StreamingText(document), start, end);
+			return new PreprocessedDocument(tiles, taggedTiles, wordMap);
+		} catch (EOFException e) {
+			throw new IOException("Truncated cache file " + file);
+		} catch (RuntimeException e) {
+			// such as an id out of range, or counts out of order
+			throw new IOException("Corrupt cache file " + file + ": " + e);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void intern(String s, Map<String, Integer> ids, List<String> strings) {
+		if (!ids.containsKey(s)) {
+			ids.put(s, strings.size());
+			strings.add(s);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(CacheInput in) throws IOException {
+		byte[] bytes = new byte[in.readLength(1)];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	/**
+	 * Reads a cache file, checking every length read from it against the bytes left in
+	 * the file, so that a corrupt length can not allocate more than the file holds.
+	 */
+	private static class CacheInput extends DataInputStream {
+		private final long length;
+
+		CacheInput(File file) throws IOException {
+			super(new CountingInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16)));
+			length = file.length();
+		}
+
+		/**
+		 * Read a number of elements that follow in the file.
+		 *
+		 * @param elementSize the least number of bytes each element takes in the file
+		 * @throws IOException if that many elements do not fit in the rest of the file
+		 */
+		int readLength(int elementSize) throws IOException {
+			int n = readInt();
+			long left = length - ((CountingInputStream) in).count;
+			if (n < 0 || (long) n * elementSize > left)
+				throw new IOException("Corrupt length " + n + " with " + left + " bytes left");
+			return n;
+		}
+	}
+
+	/** Counts the bytes read through it */
+	private static class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0)
+				count++;
+			return b;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0)
+				count += n;
+			return n;
+		}
+
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+}
@@ -9,21 +9,29 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Vector;
 
+import uk.ac.man.cs.choif.nlp.seg.linear.texttile.StreamingTextTiling;
+import uk.ac.man.cs.choif.nlp.seg.linear.texttile.StreamingTextTiling.TileList;
 import uk.ac.man.cs.choif.nlp.seg.linear.texttile.TextTiling;
 import uk.ac.man.cs.choif.nlp.stopword.Stopword;
 import uk.ac.man.cs.choif.nlp.struct.RawText;
+import uk.ac.man.cs.choif.nlp.struct.StreamingText;
 
 public class Tiling {
 
-    String stopwordsPath = "data/stopwords.txt";
+    /** The stop word list and the TextTiling window and step sizes used to tile documents. */
+    public static final String STOPWORDS = "data/stopwords.txt";
+    public static final int WINDOW = 100;
+    public static final int STEP = 10;
+
+    String stopwordsPath = STOPWORDS;
     
     public static List<String> tile(String file){
-        Stopword stopwords = new Stopword("data/stopwords.txt");
+        Stopword stopwords = new Stopword(STOPWORDS);
         RawText text = new RawText(file);
         
         TextTiling tt = new TextTiling(text, stopwords);
-        tt.w = 100;                        // Set window size according to user parameter
-        tt.s = 10;                         // Set step size according to user parameter
+        tt.w = WINDOW;                     // Set window size according to user parameter
+        tt.s = STEP;                       // Set step size according to user parameter
         tt.similarityDetermination();      // Compute similarity scores
         tt.depthScore();                   // Compute depth scores using the similarity scores
         tt.boundaryIdentification();       // Identify the boundaries
@@ -42,18 +50,22 @@ public class Tiling {
 			Integer tileEnd = iterator.next();
 			if (tileStart == tileEnd) continue;
 			
-			String tile = "";
+			StringBuilder tile = new StringBuilder();
 			
 			int sentStart = tileStart,
 			    sentEnd   = 0;
 			while (!sentBoundaries.isEmpty() && sentEnd != tileEnd){
 				sentEnd = sentBoundaries.poll();
-				String sentence = String.join(" ", text.text.subList(sentStart, sentEnd));
-				tile += sentence + "\n";
+				for (int i = sentStart; i < sentEnd; i++) {
+					if (i > sentStart)
+						tile.append(' ');
+					tile.append((String) text.text.get(i));
+				}
+				tile.append('\n');
 				sentStart = sentEnd;
 			}
 			
-			tiles.add(tile);
+			tiles.add(tile.toString());
 			tileStart = tileEnd;
 		}
         
@@ -64,6 +76,28 @@ public class Tiling {
         return tiles;
     }
     
+    /**
+     * Tile a document without loading it into memory, for very large files. The
+     * document is tokenized in one pass through a buffered channel and tiled as it
+     * is read, with the same boundaries as {@link #tile(String)}. The returned list
+     * keeps only the tile offsets and reads each tile from the file when it is
+     * fetched, through one channel that stays open until the list is closed. Tiles
+     * are the source text between their first and last tokens, with the original
+     * whitespace.
+     * 
+     * @param file a UTF-8 text file
+     * @return the tiles of the document
+     * @throws IOException if the file can not be read
+     */
+    public static TileList tileStreaming(String file) throws IOException {
+        Stopword stopwords = new Stopword(STOPWORDS);
+        StreamingTextTiling tt = new StreamingTextTiling(new StreamingText(file), stopwords);
+        tt.w = WINDOW;
+        tt.s = STEP;
+        tt.segment();
+        return tt.getTiles();
+    }
+    
     public static void printTiles(List<String> tiles, File f){
     	try {
 			FileWriter writer = new FileWriter(f);
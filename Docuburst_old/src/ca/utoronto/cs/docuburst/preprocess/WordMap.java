@@ -5,7 +5,6 @@ import static ca.utoronto.cs.wordnetexplorer.utilities.Constants.dictionary;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
@@ -14,8 +13,9 @@ import prefuse.util.io.IOLib;
 import net.didion.jwnl.JWNL;
 import net.didion.jwnl.JWNLException;
 import net.didion.jwnl.data.POS;
-import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.dictionary.BaseFormSenses;
 import net.didion.jwnl.dictionary.Dictionary;
+import ca.utoronto.cs.docuburst.data.TileCounts;
 import ca.utoronto.cs.wordnetexplorer.utilities.LanguageLib;
 import ca.utoronto.cs.wordnetexplorer.utilities.LanguageLib.CountMethod;
 import edu.stanford.nlp.ling.TaggedWord;
@@ -25,131 +25,124 @@ public class WordMap {
 	private static final Logger logger
 	= Logger.getLogger(LanguageLib.class.getName());
 	
-	@SuppressWarnings("unchecked")
-	public static void fillWordCountsMap(HashMap<String, float[]> wordMap,
+	public static void fillWordCountsMap(HashMap<String, TileCounts> wordMap,
 			List<List<TaggedWord>> tiledTaggedFile, CountMethod countMethod) {
 
 		int tileNumber = -1;
 
 		for (List<TaggedWord> tile : tiledTaggedFile) {
 			tileNumber++;
-			for (TaggedWord taggedWord : tile) {
+			countTile(wordMap, tile, tileNumber, countMethod);
+		}
+	}
+
+	/**
+	 * Add the counts of the words of one tile to the word map. Tiles may be counted 
+	 * as they are tagged, in any order.
+	 */
+	public static void countTile(HashMap<String, TileCounts> wordMap, List<TaggedWord> tile,
+			int tileNumber, CountMethod countMethod) {
+		for (TaggedWord taggedWord : tile) {
+			
+			try {
+				String posLabel = taggedWord.tag();
+				String word     = taggedWord.word();
+
+				if (word.length() == 0 || posLabel.length() == 0)
+					continue;
+				
+				POS pos;
+				
+				if (posLabel.startsWith("N")){
+					pos = POS.NOUN;
+					posLabel = POS.NOUN.getLabel();
+				}
+				else if (posLabel.startsWith("V")){
+					pos = POS.VERB;
+					posLabel = POS.VERB.getLabel();
+				}
+				else
+					continue;
 				
-				try {
-					String posLabel = taggedWord.tag();
-					String word     = taggedWord.word();
+				// note that not all base forms reported by the
+				// MorphologicalProcessor are necessarily valid
+				// (i.e. they may not have any IndexWord for the
+				// POS. e.g. "is", NOUN); lookups are cached by the
+				// MorphologicalProcessor, so repeated words are cheap
+				BaseFormSenses baseForms = BaseFormSenses.lookup(
+						dictionary.getMorphologicalProcessor(), pos, word);
+				
+				int skipForm = -1;
+				if (word.toLowerCase().equals("cookies")){
+					if (baseForms.size() > 1) {
+						skipForm = 1;
+						logger.fine("Removed cooky base form of cookies");
+					}						
+				}
+				
+				logger.fine("word: " + word);
 
-					if (word.length() == 0 || posLabel.length() == 0)
-						continue;
-					
-					POS pos;
-					
-					if (posLabel.startsWith("N")){
-						pos = POS.NOUN;
-						posLabel = POS.NOUN.getLabel();
-					}
-					else if (posLabel.startsWith("V")){
-						pos = POS.VERB;
-						posLabel = POS.VERB.getLabel();
-					}
-					else
+				for (int i = 0; i < baseForms.size(); i++) {
+					// most missing senses are problems with the tagging 
+					// or morphological processing (WordNet exception list)
+					if (i == skipForm || !baseForms.hasSenses(i))
 						continue;
-					
-					// note that not all base forms reported by the
-					// MorphologicalProcessor are necessarily valid
-					// (i.e. they may not have any IndexWord for the
-					// POS. e.g. "is", NOUN)
-					List<String> baseForms = dictionary.getMorphologicalProcessor()
-							.lookupAllBaseForms(pos, word);
-					
-					if (word.toLowerCase().equals("cookies")){
-						if (baseForms.size() > 1) {
-							baseForms.remove(1);
-							logger.info("Removed cooky base form of cookies");
-						}						
-					}
-					
-					Iterator<String> formIterator = baseForms.iterator();
-					
-					logger.info("word: " + word);
-
-					String newWord, key;
-
-					while (formIterator.hasNext()) {
-						newWord = formIterator.next();
-						key = new String(newWord.concat(posLabel));
-						
-						// logger.info("form: "+ newWord + " ");
-						// for each base for and POS, count numSenses
-						Synset[] senses = null;
-						try {
-							 senses = dictionary.getIndexWord(pos, newWord).getSenses();
-						} catch (NullPointerException e) {
-							// most errors generated here are problems
-							// with the tagging or morphological
-							// processing (WordNet exception list)
-							// logger.warning("Base form \'" + newWord +
-							// "\' has no index words for part of speech "
-							// + pos.getLabel() + ".");
-							continue;
-						}
-						logger.info(" numSenses " + senses.length);
-
-						count(key, senses, countMethod, tileNumber, wordMap, tiledTaggedFile.size());
-					}
-				} catch (JWNLException e) {	e.printStackTrace(); }
-			}
+					String key = baseForms.getBaseForm(i).concat(posLabel);
+					long[] senses = baseForms.getSenseOffsets(i);
+					logger.fine(" numSenses " + senses.length);
+
+					count(key, senses, countMethod, tileNumber, wordMap);
+				}
+			} catch (JWNLException e) {	e.printStackTrace(); }
 		}
 	}
 
-	private static void incCount(HashMap<String, float[]> wordMap, String key,
-			int tileNumber, float value, int totalTiles) {
-		if (!wordMap.containsKey(key)) {
-			wordMap.put(key, new float[totalTiles]);
+	private static void incCount(HashMap<String, TileCounts> wordMap, String key,
+			int tileNumber, float value) {
+		TileCounts wordCounts = wordMap.get(key);
+		if (wordCounts == null) {
+			wordCounts = new TileCounts();
+			wordMap.put(key, wordCounts);
 		}
-		float[] wordCounts = (float[]) wordMap.get(key);
-		wordCounts[tileNumber] += value;
+		wordCounts.add(tileNumber, value);
 	}
 	
 
-	private static void count(String key, Synset[] senses,
-			CountMethod countMethod, int tileNumber, HashMap<String, float[]> wordMap, 
-			int totalTiles) {
+	private static void count(String key, long[] senses,
+			CountMethod countMethod, int tileNumber, HashMap<String, TileCounts> wordMap) {
 		float numSenses = senses.length;
 		switch (countMethod) {
 		case EVEN:
 			// evenly distributed amongst all
 			for (int i = 0; i < 1; i++) {
-				String fullKey = key.concat("" + senses[i].getOffset());
-				incCount(wordMap, fullKey, tileNumber, 1 / numSenses,
-						totalTiles);
+				String fullKey = key.concat("" + senses[i]);
+				incCount(wordMap, fullKey, tileNumber, 1 / numSenses);
 			}
 			break;
 		case RANK:
 			// linearly distributed by rank
 			int totalSumRanks = (int) (numSenses * (numSenses + 1) / 2);
 			for (int i = 0; i < numSenses; i++) {
-				String fullKey = key.concat("" + senses[i].getOffset());
-				incCount(wordMap, fullKey, tileNumber, (numSenses - i) / totalSumRanks, 
-						totalTiles);
+				String fullKey = key.concat("" + senses[i]);
+				incCount(wordMap, fullKey, tileNumber, (numSenses - i) / totalSumRanks);
 			}
 			break;
 		case FIRST:
 			// all given to first
 		    if (key.equals("fashionnoun")){
-		        String fullKey = key.concat("" + senses[2].getOffset());
-		        incCount(wordMap, fullKey, tileNumber, 1, totalTiles);
+		        String fullKey = key.concat("" + senses[2]);
+		        incCount(wordMap, fullKey, tileNumber, 1);
 		    } else if (numSenses > 0) {
-				String fullKey = key.concat("" + senses[0].getOffset());
-				incCount(wordMap, fullKey, tileNumber, 1, totalTiles);
+				String fullKey = key.concat("" + senses[0]);
+				incCount(wordMap, fullKey, tileNumber, 1);
 			}
 			break;
 		case FIRSTEVEN:
 			// evenly distributed then only the first is
 			// given a portion; lowers affect of polysemous words
 			if (numSenses > 0) {
-				String fullKey = key.concat("" + senses[0].getOffset());
-				incCount(wordMap, fullKey, tileNumber, 1 / numSenses, totalTiles);
+				String fullKey = key.concat("" + senses[0]);
+				incCount(wordMap, fullKey, tileNumber, 1 / numSenses);
 			}
 			break;
 		}
@@ -173,7 +166,7 @@ public class WordMap {
 
 		List<String> tiles = Tiling.tile("/Users/rafa/Dropbox/Dev/docuburst/Docuburst_old/texts/hellobarbie_lines_v2.txt");
 		List<List<TaggedWord>> tiledTaggedFile = POSTagger.tagTiles(tiles);
-		HashMap<String, float[]> map = new HashMap<String, float[]>();
+		HashMap<String, TileCounts> map = new HashMap<String, TileCounts>();
 		fillWordCountsMap(map, tiledTaggedFile, CountMethod.FIRST);
 	}
 
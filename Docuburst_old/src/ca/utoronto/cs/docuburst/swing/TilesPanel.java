@@ -24,6 +24,7 @@ public class TilesPanel extends JPanel implements ValueListener<Integer> {
 
 	int currentTile = 0;
 	JTextField tileNumber;
+	JButton nextTileButton;
 	HighlightTextHoverActionControl hac;
 	
 	
@@ -69,7 +70,7 @@ public class TilesPanel extends JPanel implements ValueListener<Integer> {
 			}
 		});
 		
-		JButton nextTileButton = new JButton("Next");
+		nextTileButton = new JButton("Next");
 		nextTileButton.setSize(previousTileButton.getSize());
 		nextTileButton.addActionListener(new ActionListener() {
 			@Override
@@ -97,6 +98,15 @@ public class TilesPanel extends JPanel implements ValueListener<Integer> {
 		add(textScrollPanel, BorderLayout.CENTER);
 	}
 
+	/**
+	 * Show the first tile of a newly loaded document.
+	 */
+	public void reset() {
+		currentTile = 0;
+		tileNumber.setText("");
+		nextTileButton.doClick();
+	}
+
 	@Override
 	public void valueChanged(ValueChangedEvent<Integer> e) {
 		int tile = e.getValue();
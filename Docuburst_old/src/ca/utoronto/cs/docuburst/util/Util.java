@@ -1,5 +1,7 @@
 package ca.utoronto.cs.docuburst.util;
 
+import ca.utoronto.cs.docuburst.data.TileCounts;
+
 public class Util {
     
     public static float sum(float[] array){
@@ -11,4 +13,10 @@ public class Util {
         
         return sum;
     }
+    
+    public static float sum(TileCounts counts){
+        if (counts==null)
+            return 0;
+        return counts.total();
+    }
 }
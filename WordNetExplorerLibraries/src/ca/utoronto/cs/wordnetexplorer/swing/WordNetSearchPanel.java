@@ -114,6 +114,13 @@ public class WordNetSearchPanel extends JPanel implements FocusListener {
         setup();
     }
    
+    /**
+     * Set the dictionary words are looked up in, for a panel created before it was loaded.
+     */
+    public void setDictionary(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    
     protected void setEndSelection(JTextPane editor){
         editor.setSelectionStart(editor.getDocument().getLength());
         editor.setSelectionEnd(editor.getDocument().getLength());
@@ -0,0 +1,331 @@
+package uk.ac.man.cs.choif.nlp.seg.linear.texttile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import uk.ac.man.cs.choif.nlp.stemming.Porter;
+import uk.ac.man.cs.choif.nlp.stemming.Stemmer;
+import uk.ac.man.cs.choif.nlp.stopword.Stopword;
+import uk.ac.man.cs.choif.nlp.struct.StreamingText;
+
+/**
+ * Text tiling of a collection that is too large to hold in memory. The
+ * similarity scores are computed while the collection is tokenised, keeping
+ * only the last 2w+1 tokens in a ring buffer, so memory grows with the
+ * vocabulary and the number of sentences rather than with the length of the
+ * text. The segmentation is the same as that of TextTiling on the RawText of
+ * the same file. Tiles are reported as byte offsets into the source and
+ * their text is only read when asked for.
+ */
+public class StreamingTextTiling extends TextTiling implements StreamingText.Handler {
+	/* The collection */
+	protected StreamingText T;
+
+	/* Token id -> stem id and whether the token is a feature */
+	protected Stemmer stemmer = new Porter();
+	protected HashMap<String,Integer> stemIds = new HashMap<String,Integer>(); // Stem -> id
+	protected int[] stemOfToken = new int[0];
+	protected boolean[] includeToken = new boolean[0];
+	protected int tokens = 0; // Number of token ids looked up
+
+	/* The last 2w+1 tokens, as stem ids and feature flags */
+	private int[] ring_stem;
+	private boolean[] ring_include;
+
+	/* Sliding windows, indexed by stem id */
+	private int[] left;
+	private int[] right;
+
+	/* Scores before smoothing; score k is at position w + k*s */
+	private float[] score;
+	private int scores;
+	private int position; // Position of the next token
+	private int step; // Step counter
+
+	/* Tiles, as byte offsets into the source */
+	protected long[] tileStart = new long[0];
+	protected long[] tileEnd = new long[0];
+/**
+ * @param t uk.ac.man.cs.choif.nlp.struct.StreamingText
+ * @param s uk.ac.man.cs.choif.nlp.stopword.Stopword
+ */
+public StreamingTextTiling(StreamingText t, Stopword s) {
+	super();
+	T = t;
+	S = s;
+}
+/**
+ * Read the collection, compute the similarity, depth scores and boundaries,
+ * and find the tiles.
+ * @throws IOException if the collection can not be read
+ */
+public void segment() throws IOException {
+	scan();
+	depthScore();
+	boundaryIdentification();
+	tiles();
+}
+/**
+ * Compute the similarity score by reading the collection
+ */
+public void similarityDetermination() {
+	try {
+		scan();
+	}
+	catch (IOException e) {
+		throw new UncheckedIOException(e);
+	}
+}
+/**
+ * Read the collection once, sliding the windows as tokens arrive.
+ * @throws IOException if the collection can not be read
+ */
+protected void scan() throws IOException {
+	/* Initialise state */
+	ring_stem = new int[2 * w + 1];
+	ring_include = new boolean[2 * w + 1];
+	left = new int[256];
+	right = new int[256];
+	sq_left = 0;
+	sq_right = 0;
+	dot = 0;
+	score = new float[256];
+	scores = 0;
+	position = 0;
+	tokens = 0;
+	stemIds.clear();
+	step = 0;
+
+	T.parse(this);
+
+	/* Compute score for the last step; a collection no longer
+	than two windows has no scores and is a single tile */
+	final int n = position;
+	if (n > 2 * w && step == 0) addScore();
+
+	/* Smoothing with a window size of 3 */
+	sim_score = new float[Math.max(0, scores - 2)];
+	site_loc = new int[sim_score.length];
+	for (int j=0; j<sim_score.length; j++) {
+		sim_score[j] = (score[j] + score[j+1] + score[j+2]) / 3;
+		site_loc[j] = w + (j+1) * s;
+	}
+	score = null;
+}
+/**
+ * Receive a token from the collection. The first 2w tokens fill the
+ * windows; every later token moves both windows one place to the right.
+ * @param id int
+ */
+public void token(int id) {
+	/* Look up the stem and feature flag of a new token; ids are consecutive */
+	if (id == tokens) {
+		if (id == stemOfToken.length) {
+			stemOfToken = Arrays.copyOf(stemOfToken, Math.max(256, 2 * id));
+			includeToken = Arrays.copyOf(includeToken, stemOfToken.length);
+		}
+		String token = T.token(id);
+		String stem = stemmer.stemOf(token);
+		Integer stemId = stemIds.get(stem);
+		if (stemId == null) {
+			stemId = new Integer(stemIds.size());
+			stemIds.put(stem, stemId);
+		}
+		stemOfToken[id] = stemId.intValue();
+		includeToken[id] = !S.isStopword(token.toLowerCase());
+		tokens++;
+		if (stemIds.size() > left.length) {
+			left = Arrays.copyOf(left, 2 * left.length);
+			right = Arrays.copyOf(right, left.length);
+		}
+	}
+
+	final int t = position++;
+	final int r = ring_stem.length;
+	ring_stem[t % r] = stemOfToken[id];
+	ring_include[t % r] = includeToken[id];
+
+	/* Initialise windows */
+	if (t < w) leftAdd(ring_stem[t % r], left, right);
+	else if (t < 2 * w) rightAdd(ring_stem[t % r], left, right);
+	else slide(t - w);
+}
+/**
+ * One step of TextTiling.similarityDetermination() at position i, once
+ * token i+w has been read
+ * @param i int
+ */
+private void slide(final int i) {
+	final int r = ring_stem.length;
+
+	/* Compute score for a step */
+	if (step == 0) {
+		addScore();
+		step = s;
+	}
+
+	/* Remove word which is at the very left of the left window */
+	if (ring_include[(i-w) % r]) {
+		leftRemove(ring_stem[(i-w) % r], left, right);
+	}
+
+	/* Add current word to the left window and remove it from the right window */
+	if (ring_include[i % r]) {
+		leftAdd(ring_stem[i % r], left, right);
+		rightRemove(ring_stem[i % r], left, right);
+	}
+
+	/* Add the first word after the very right of the right window */
+	if (ring_include[(i+w) % r]) {
+		rightAdd(ring_stem[(i+w) % r], left, right);
+	}
+
+	step--;
+}
+/**
+ * Record the score of the current windows
+ */
+private void addScore() {
+	if (scores == score.length) score = Arrays.copyOf(score, scores * 2);
+	score[scores++] = cosine();
+}
+/**
+ * @return int[] the sentence boundaries of the collection
+ */
+protected int[] trueBoundaries() {
+	return T.boundaries();
+}
+/**
+ * Turn the segmentation into byte ranges of the source. A tile runs from the
+ * first token of its first sentence to the last token of its last sentence.
+ * Tokens after the last line break belong to the last tile.
+ */
+protected void tiles() {
+	int[] true_boundaries = T.boundaries();
+	int count = segmentation.size() + 1;
+	tileStart = new long[count];
+	tileEnd = new long[count];
+	int tiles = 0;
+	int start = 0; // Boundary index at which the current tile starts
+	int end; // Boundary index at which it ends
+	for (int i=0; i<count; i++) {
+		end = i < segmentation.size()
+			? Arrays.binarySearch(true_boundaries, ((Integer) segmentation.elementAt(i)).intValue())
+			: true_boundaries.length - 1;
+		if (true_boundaries[start] == true_boundaries[end]) continue;
+		tileStart[tiles] = T.boundaryStart(start);
+		tileEnd[tiles++] = T.boundaryEnd(end);
+		start = end;
+	}
+	if (tiles > 0) tileEnd[tiles - 1] = T.textEnd();
+	else if (T.size() > 0) {
+		tileStart[tiles] = T.boundaryStart(0);
+		tileEnd[tiles++] = T.textEnd();
+	}
+	tileStart = Arrays.copyOf(tileStart, tiles);
+	tileEnd = Arrays.copyOf(tileEnd, tiles);
+}
+/**
+ * @return int the number of tiles
+ */
+public int getTileCount() {
+	return tileStart.length;
+}
+/**
+ * @return long the byte offset of the start of tile i in the source
+ * @param i int
+ */
+public long getTileStart(int i) {
+	return tileStart[i];
+}
+/**
+ * @return long the byte offset after the end of tile i in the source
+ * @param i int
+ */
+public long getTileEnd(int i) {
+	return tileEnd[i];
+}
+/**
+ * @return java.lang.String the text of tile i, read from the source
+ * @param i int
+ * @throws IOException if the source can not be read
+ */
+public String getTileText(int i) throws IOException {
+	return T.getText(tileStart[i], tileEnd[i]);
+}
+/**
+ * @return StreamingTextTiling.TileList the tiles as a list of strings, read
+ * from the source through the channel of the collection when they are fetched
+ */
+public TileList getTiles() {
+	return new TileList(T, tileStart, tileEnd);
+}
+/**
+ * The tiles of a collection as a list of strings. The list holds only the
+ * byte offsets of the tiles; each tile is read from the source when it is
+ * fetched, and is not kept. A tile that can not be read is reported as an
+ * UncheckedIOException. The offsets can be stored and the list made again
+ * for the same source without tiling it. Closing the list closes the
+ * channel of the collection.
+ */
+public static class TileList extends AbstractList<String> implements Closeable {
+	private final StreamingText text;
+	private final long[] start;
+	private final long[] end;
+	/**
+	 * @param text uk.ac.man.cs.choif.nlp.struct.StreamingText the source
+	 * @param start long[] byte offset of the start of each tile
+	 * @param end long[] byte offset after the end of each tile
+	 */
+	public TileList(StreamingText text, long[] start, long[] end) {
+		if (start.length != end.length)
+			throw new IllegalArgumentException(start.length + " starts but " + end.length + " ends");
+		this.text = text;
+		this.start = start;
+		this.end = end;
+	}
+	public String get(int i) {
+		try {
+			return text.getText(start[i], end[i]);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	public int size() {
+		return start.length;
+	}
+	/**
+	 * @return long the byte offset of the start of tile i in the source
+	 * @param i int
+	 */
+	public long getStart(int i) {
+		return start[i];
+	}
+	/**
+	 * @return long the byte offset after the end of tile i in the source
+	 * @param i int
+	 */
+	public long getEnd(int i) {
+		return end[i];
+	}
+	/**
+	 * @return uk.ac.man.cs.choif.nlp.struct.StreamingText the source
+	 */
+	public StreamingText getText() {
+		return text;
+	}
+	/**
+	 * Close the channel on the source
+	 * @throws IOException if the channel can not be closed
+	 */
+	public void close() throws IOException {
+		text.close();
+	}
+}
+}
@@ -5,8 +5,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Vector;
@@ -40,6 +42,15 @@ public class TextTiling {
 	/* Token -> stem dictionary */
 	protected Hashtable stemOf = new Hashtable(); // Token -> stem
 
+	/* Stems interned to consecutive ids, for primitive window counts */
+	protected int[] stemId = new int[0]; // Token position -> stem id
+	protected int stems = 0; // Number of distinct stems
+
+	/* Running state of the two sliding windows */
+	protected int sq_left; // Sum of squared weights for the left window
+	protected int sq_right; // Sum of squared weights for the right window
+	protected int dot; // Sum of product of weights for common terms
+
 	/* Similarity scores and the corresponding locations */
 	protected float[] sim_score = new float[0];
 	protected int[] site_loc = new int[0];
@@ -201,32 +212,40 @@ public void boundaryIdentification() {
 	
 	/* Convert pseudo boundaries into real boundaries.
 	We use the nearest true boundary. */
-
-	/* Convert real boundaries into array for faster access */
-	int[] true_boundaries = new int[C.boundaries.size()];
-	for (int i=true_boundaries.length; i-->0;) true_boundaries[i]= ((Integer) C.boundaries.elementAt(i)).intValue();
-	
-	int pseudo_boundary;
-	int distance; // Distance between pseudo and true boundary
-	int smallest_distance; // Shortest distance
-	int closest_boundary; // Nearest real boundary
+	int[] true_boundaries = trueBoundaries();
 	for (int i=pseudo_boundaries.size(); i-->0;) {
-		pseudo_boundary = ((Integer) pseudo_boundaries.elementAt(i)).intValue();
-
-		/* This is pretty moronic, but it works. Can definitely be improved */
-		smallest_distance = Integer.MAX_VALUE;
-		closest_boundary = true_boundaries[0];
-		for (int j=true_boundaries.length; j-->0;) {
-			distance = Math.abs(true_boundaries[j] - pseudo_boundary);
-			if (distance <= smallest_distance) {
-				smallest_distance = distance;
-				closest_boundary = true_boundaries[j];
-			}
-		}
-
-		segmentation.addElement(new Integer(closest_boundary));
+		segmentation.addElement(new Integer(closestBoundary(true_boundaries, ((Integer) pseudo_boundaries.elementAt(i)).intValue())));
 	}
 }
+/**
+ * Find the true boundary nearest to a pseudo boundary. Of two boundaries
+ * at the same distance, the earlier one is chosen.
+ * @return int
+ * @param true_boundaries int[] sentence boundaries in increasing order
+ * @param pseudo_boundary int
+ */
+protected static int closestBoundary(final int[] true_boundaries, final int pseudo_boundary) {
+	/* First boundary at or after the pseudo boundary */
+	int lo = 0, hi = true_boundaries.length;
+	while (lo < hi) {
+		int mid = (lo + hi) >>> 1;
+		if (true_boundaries[mid] < pseudo_boundary) lo = mid + 1;
+		else hi = mid;
+	}
+	if (lo == 0) return true_boundaries[0];
+	if (lo == true_boundaries.length) return true_boundaries[lo - 1];
+	if (pseudo_boundary - true_boundaries[lo - 1] <= true_boundaries[lo] - pseudo_boundary) return true_boundaries[lo - 1];
+	return true_boundaries[lo];
+}
+/**
+ * The sentence boundaries of the collection, in token positions
+ * @return int[]
+ */
+protected int[] trueBoundaries() {
+	int[] true_boundaries = new int[C.boundaries.size()];
+	for (int i=true_boundaries.length; i-->0;) true_boundaries[i]= ((Integer) C.boundaries.elementAt(i)).intValue();
+	return true_boundaries;
+}
 /**
  * Compute depth score after applying similarityDetermination()
  * Creation date: (07/12/99 06:54:32)
@@ -470,75 +489,166 @@ protected void preprocess() {
 		token = (String) e.nextElement();
 		stemOf.put(token, stemmer.stemOf(token));
 	}
+
+	/* Intern the stem of every token position */
+	HashMap<String,Integer> ids = new HashMap<String,Integer>(); // Stem -> id
+	stemId = new int[text.size()];
+	String stem; // A stem
+	Integer id; // Its id
+	for (int i=0; i<stemId.length; i++) {
+		stem = (String) stemOf.get((String) text.elementAt(i));
+		id = ids.get(stem);
+		if (id == null) {
+			id = new Integer(ids.size());
+			ids.put(stem, id);
+		}
+		stemId[i] = id.intValue();
+	}
+	stems = ids.size();
 }
 /**
- * Compute the similarity score.
+ * Compute the similarity score. The term counts of both windows are kept in arrays
+ * indexed by stem id, together with their squared norms and dot product, which are
+ * updated as each token enters or leaves a window. The scores are the same as
+ * blockCosine() on the two windows, without rebuilding them at every step.
  * Creation date: (07/12/99 03:17:31)
  */
 public void similarityDetermination() {
 	/* Declare variables */
-	Vector text = C.text; // The source text
-	Hashtable left = new Hashtable(); // Left sliding window
-	Hashtable right = new Hashtable(); // Right sliding window
-	Vector<Float> score = new Vector<Float>(); // Scores
-	Vector<Integer> site = new Vector<Integer>(); // Locations
+	final int n = C.text.size(); // Length of the source text
+	int[] left = new int[stems]; // Left sliding window
+	int[] right = new int[stems]; // Right sliding window
+	sq_left = 0;
+	sq_right = 0;
+	dot = 0;
+
+	/* Decide once which tokens are features */
+	boolean[] included = new boolean[n];
+	for (int i=n; i-->0;) included[i] = include(i);
 
 	/* Initialise windows */
 	try{
-		for (int i=w; i-->0;) blockAdd((String) stemOf.get((String) text.elementAt(i)), left);
-		for (int i=w*2; i-->w;) blockAdd((String) stemOf.get((String) text.elementAt(i)), right);
+		for (int i=w; i-->0;) leftAdd(stemId[i], left, right);
+		for (int i=w*2; i-->w;) rightAdd(stemId[i], left, right);
 	}catch(Exception e){
 		System.out.println("debug");
 	}
 
 	/* Slide window and compute score */
-	final int end = text.size() - w; // Last index to check
-	String token; //  A stem
+	final int end = n - w; // Last index to check
+	float[] score = new float[Math.max(0, end - w) / Math.max(1, s) + 2]; // Scores
+	int[] site = new int[score.length]; // Locations
+	int scores = 0; // Number of scores
+	int id; // A stem id
 	int step=0; // Step counter
 	int i; // Counter
 
 	for (i=w; i<end; i++) {
 		/* Compute score for a step */
 		if (step == 0) {
-			score.addElement(new Float(blockCosine(left, right)));
-			site.addElement(new Integer(i));
+			if (scores == score.length) {
+				score = Arrays.copyOf(score, scores * 2);
+				site = Arrays.copyOf(site, scores * 2);
+			}
+			score[scores] = cosine();
+			site[scores++] = i;
 			step = s;
 		}
 
 		/* Remove word which is at the very left of the left window */
-		if (include(i-w)) {
-			blockRemove((String) stemOf.get((String) text.elementAt(i-w)), left);
+		if (included[i-w]) {
+			leftRemove(stemId[i-w], left, right);
 		}
 
 		/* Add current word to the left window and remove it from the right window */
-		if (include(i)) {
-			token = (String) text.elementAt(i);
-			blockAdd((String) stemOf.get(token), left);
-			blockRemove((String) stemOf.get(token), right);
+		if (included[i]) {
+			id = stemId[i];
+			leftAdd(id, left, right);
+			rightRemove(id, left, right);
 		}
 
 		/* Add the first word after the very right of the right window */
-		if (include(i+w)) {
-			blockAdd((String) stemOf.get((String) text.elementAt(i+w)), right);
+		if (included[i+w]) {
+			rightAdd(stemId[i+w], left, right);
 		}
 
 		step--;
 	}
 	/* Compute score for the last step */
 	if (step == 0) {
-		score.addElement(new Float(blockCosine(left, right)));
-		site.addElement(new Integer(i));
+		if (scores == score.length) {
+			score = Arrays.copyOf(score, scores + 1);
+			site = Arrays.copyOf(site, scores + 1);
+		}
+		score[scores] = cosine();
+		site[scores++] = i;
 		step = s;
 	}
 
 	/* Smoothing with a window size of 3 */
-	sim_score = new float[score.size()-2];
-	site_loc = new int[site.size()-2];
+	sim_score = new float[scores-2];
+	site_loc = new int[scores-2];
 	for (int j=0; j<sim_score.length; j++) {
-		sim_score[j] = (((Float) score.elementAt(j)).floatValue() + ((Float) score.elementAt(j+1)).floatValue() + ((Float) score.elementAt(j+2)).floatValue()) / 3;
-		site_loc[j] = ((Integer) site.elementAt(j+1)).intValue();
+		sim_score[j] = (score[j] + score[j+1] + score[j+2]) / 3;
+		site_loc[j] = site[j+1];
 	}
 	
+}
+/**
+ * Cosine similarity of the two windows, computed as in blockCosine()
+ * @return float
+ */
+protected float cosine() {
+	return (float) dot / (float) Math.sqrt(sq_left * sq_right);
+}
+/**
+ * Add an occurrence of a stem to the left window. Its squared weight
+ * grows by 2W+1 and the dot product by its weight in the right window.
+ * @param id int
+ * @param left int[]
+ * @param right int[]
+ */
+protected void leftAdd(final int id, int[] left, int[] right) {
+	sq_left += 2 * left[id] + 1;
+	dot += right[id];
+	left[id]++;
+}
+/**
+ * Remove an occurrence of a stem from the left window, if it has one
+ * @param id int
+ * @param left int[]
+ * @param right int[]
+ */
+protected void leftRemove(final int id, int[] left, int[] right) {
+	if (left[id] > 0) {
+		left[id]--;
+		sq_left -= 2 * left[id] + 1;
+		dot -= right[id];
+	}
+}
+/**
+ * Add an occurrence of a stem to the right window
+ * @param id int
+ * @param left int[]
+ * @param right int[]
+ */
+protected void rightAdd(final int id, int[] left, int[] right) {
+	sq_right += 2 * right[id] + 1;
+	dot += left[id];
+	right[id]++;
+}
+/**
+ * Remove an occurrence of a stem from the right window, if it has one
+ * @param id int
+ * @param left int[]
+ * @param right int[]
+ */
+protected void rightRemove(final int id, int[] left, int[] right) {
+	if (right[id] > 0) {
+		right[id]--;
+		sq_right -= 2 * right[id] + 1;
+		dot -= left[id];
+	}
 }
 	public static void setRutaArchivo(String rutaArchivo) {
 		TextTiling.rutaArchivo = rutaArchivo;
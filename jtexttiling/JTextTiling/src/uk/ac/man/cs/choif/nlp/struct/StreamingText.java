@@ -0,0 +1,266 @@
+package uk.ac.man.cs.choif.nlp.struct;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A text collection that is read in a single pass instead of being held in
+ * memory. The file is read through a channel into a fixed size buffer and
+ * split into tokens and sentences exactly as RawText does. Each token is
+ * interned to an integer id and handed to a Handler, and only the vocabulary
+ * and the sentence boundaries are kept. Sentence boundaries carry the byte
+ * offsets of the surrounding tokens, so any run of sentences can be read back
+ * from the source file, through a single channel that stays open.
+ * <br><br>
+ * The source must be UTF-8. Every byte of a multi-byte character is above
+ * 0x20, so splitting the bytes on whitespace gives the same tokens as
+ * splitting the decoded characters.
+ */
+public class StreamingText implements Closeable {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Receives the tokens of a collection in order
+	 */
+	public interface Handler {
+		/**
+		 * @param id int interned id of the token, see StreamingText.token(int)
+		 */
+		public void token(int id);
+	}
+
+	/* The source */
+	protected File file;
+	private FileChannel channel; // Open on the source for reading tiles back, see channel()
+
+	/* Vocabulary */
+	protected HashMap<String,Integer> ids = new HashMap<String,Integer>(); // Token -> id
+	protected ArrayList<String> vocabulary = new ArrayList<String>(); // Id -> token
+	protected int size = 0; // Number of tokens
+
+	/* Sentence boundaries */
+	protected int boundaryCount = 0;
+	protected int[] boundaries = new int[64]; // Token position of each boundary
+	protected long[] boundaryStart = new long[64]; // Byte offset of the first token after each boundary
+	protected long[] boundaryEnd = new long[64]; // Byte offset after the last token before each boundary
+	protected long textEnd = 0; // Byte offset after the last token
+
+	/* Tokeniser state */
+	private byte[] token = new byte[64]; // Bytes of the current token
+	private int length; // Length of the current token
+	private long start; // Byte offset of the current token
+	private int pending; // Boundaries still waiting for the offset of their first token
+/**
+ * @param file java.lang.String a UTF-8 text file
+ */
+public StreamingText(String file) {
+	this.file = new File(file);
+}
+/**
+ * Tokenise the source, passing every token to the handler. The syntax is
+ * that of RawText: tokens are separated by characters up to 0x20, and a
+ * line break ends a sentence unless the sentence is empty.
+ * @param handler Handler
+ * @throws IOException if the source can not be read
+ */
+public void parse(Handler handler) throws IOException {
+	ids.clear();
+	vocabulary.clear();
+	size = 0;
+	boundaryCount = 0;
+	textEnd = 0;
+
+	/* Define variables */
+	int prev_word = -1; // The location of the previous boundary
+	boolean cr = false; // Was the previous byte a carriage return?
+	long offset = 0; // Byte offset of the current byte
+	int b; // The current byte
+	length = 0;
+	pending = 0;
+
+	/* The implicit boundary at the beginning of the collection */
+	addBoundary(0, 0);
+
+	FileInputStream in = new FileInputStream(file);
+	try {
+		FileChannel channel = in.getChannel();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+		while (channel.read(buffer) >= 0) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				b = buffer.get() & 0xff;
+
+				/* Token character */
+				if (b > 0x20) {
+					if (length == 0) start = offset;
+					if (length == token.length) token = Arrays.copyOf(token, length * 2);
+					token[length++] = (byte) b;
+				}
+				else {
+					if (length > 0) endToken(handler, offset);
+
+					/* End of sentence; \r\n is a single line break */
+					if (((b == '\n' && !cr) || b == '\r') && size != prev_word) {
+						addBoundary(size, textEnd);
+						prev_word = size;
+					}
+				}
+				cr = (b == '\r');
+				offset++;
+			}
+			buffer.clear();
+		}
+		if (length > 0) endToken(handler, offset);
+	}
+	finally {
+		in.close();
+	}
+
+	/* Boundaries after the last token start where the text ends */
+	for (; pending > 0; pending--) boundaryStart[boundaryCount - pending] = textEnd;
+}
+/**
+ * Intern the current token and pass it to the handler
+ * @param handler Handler
+ * @param end long byte offset after the token
+ */
+private void endToken(Handler handler, long end) {
+	handler.token(intern(new String(token, 0, length, UTF8)));
+	for (; pending > 0; pending--) boundaryStart[boundaryCount - pending] = start;
+	textEnd = end;
+	size++;
+	length = 0;
+}
+/**
+ * Record a sentence boundary
+ * @param position int token position
+ * @param end long byte offset after the last token before the boundary
+ */
+protected void addBoundary(int position, long end) {
+	if (boundaryCount == boundaries.length) {
+		boundaries = Arrays.copyOf(boundaries, boundaryCount * 2);
+		boundaryStart = Arrays.copyOf(boundaryStart, boundaryCount * 2);
+		boundaryEnd = Arrays.copyOf(boundaryEnd, boundaryCount * 2);
+	}
+	boundaries[boundaryCount] = position;
+	boundaryEnd[boundaryCount++] = end;
+	pending++;
+}
+/**
+ * @return int the id of a token, adding it to the vocabulary if it is new
+ * @param token java.lang.String
+ */
+protected int intern(String token) {
+	Integer id = ids.get(token);
+	if (id == null) {
+		id = new Integer(vocabulary.size());
+		ids.put(token, id);
+		vocabulary.add(token);
+	}
+	return id.intValue();
+}
+/**
+ * @return java.lang.String the token with the given id
+ * @param id int
+ */
+public String token(int id) {
+	return vocabulary.get(id);
+}
+/**
+ * @return int the number of distinct tokens
+ */
+public int vocabularySize() {
+	return vocabulary.size();
+}
+/**
+ * @return int the number of tokens
+ */
+public int size() {
+	return size;
+}
+/**
+ * @return int the number of sentence boundaries, including the one at the start
+ */
+public int boundaryCount() {
+	return boundaryCount;
+}
+/**
+ * @return int the sentence boundaries as token positions, in increasing order
+ */
+public int[] boundaries() {
+	return Arrays.copyOf(boundaries, boundaryCount);
+}
+/**
+ * @return long the byte offset of the first token after boundary i
+ * @param i int
+ */
+public long boundaryStart(int i) {
+	return boundaryStart[i];
+}
+/**
+ * @return long the byte offset after the last token before boundary i
+ * @param i int
+ */
+public long boundaryEnd(int i) {
+	return boundaryEnd[i];
+}
+/**
+ * @return long the byte offset after the last token of the collection
+ */
+public long textEnd() {
+	return textEnd;
+}
+/**
+ * @return java.io.File the source
+ */
+public File getFile() {
+	return file;
+}
+/**
+ * Read part of the source through the channel kept open by this collection
+ * @return java.lang.String the decoded text
+ * @param start long byte offset
+ * @param end long byte offset
+ * @throws IOException if the source can not be read
+ */
+public String getText(long start, long end) throws IOException {
+	if (end <= start) return "";
+	FileChannel channel = channel();
+	ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+	while (buffer.hasRemaining()) {
+		if (channel.read(buffer, start + buffer.position()) < 0)
+			throw new EOFException(file.toString());
+	}
+	buffer.flip();
+	return UTF8.decode(buffer).toString();
+}
+/**
+ * @return java.nio.channels.FileChannel the channel on the source, opened on
+ * first use and shared by every read. Positional reads do not move the channel,
+ * so threads can read through it at the same time.
+ * @throws IOException if the source can not be opened
+ */
+protected synchronized FileChannel channel() throws IOException {
+	if (channel == null || !channel.isOpen())
+		channel = new RandomAccessFile(file, "r").getChannel();
+	return channel;
+}
+/**
+ * Close the channel on the source. It is opened again by the next read.
+ * @throws IOException if the channel can not be closed
+ */
+public synchronized void close() throws IOException {
+	if (channel != null) channel.close();
+	channel = null;
+}
+}
@@ -0,0 +1,456 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.data.relationship;
+
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.PointerTarget;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.data.Word;
+import net.didion.jwnl.data.list.PointerTargetNodeList;
+import net.didion.jwnl.util.cache.ConcurrentCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the same relationships as <code>RelationshipFinder</code>, in the same order, without building
+ * a <code>PointerTargetTree</code> per synset and comparing every pair of paths node by node.
+ * <p>
+ * For an asymmetric type, a bidirectional breadth first search over the ancestors of both synsets first
+ * checks that they have an ancestor in common, using sets of primitive keys; most pairs of synsets have
+ * none and are answered without expanding either side completely. Otherwise the ancestry of each synset,
+ * its ancestors and the links between them, is taken from a cache or built once, and its paths are paired
+ * only with the paths of the other synset that end at the same ancestor. The lowest node of a source path
+ * that lies on a target path is found through a table of positions instead of a list search.
+ * <p>
+ * Symmetric relationships are searched to a small depth and are left to <code>RelationshipFinder</code>.
+ */
+public class BidirectionalRelationshipFinder {
+	private static final int DEFAULT_ASYMMETRIC_SEARCH_DEPTH = Integer.MAX_VALUE;
+	/** The number of ancestries kept in the cache */
+	private static final int DEFAULT_CACHE_CAPACITY = 2000;
+
+	private static final BidirectionalRelationshipFinder INSTANCE = new BidirectionalRelationshipFinder();
+
+	public static BidirectionalRelationshipFinder getInstance() {
+		return INSTANCE;
+	}
+
+	/** Ancestries by <code>AncestryKey</code> */
+	private ConcurrentCache _ancestries = new ConcurrentCache(DEFAULT_CACHE_CAPACITY);
+
+	private BidirectionalRelationshipFinder() {
+	}
+
+	/**
+	 * Find all relationships of type <var>type</var> between <var>sourceSynset</var> and <var>targetSynset</var>.
+	 * @see RelationshipFinder#findRelationships(Synset, Synset, PointerType)
+	 */
+	public RelationshipList findRelationships(
+	    Synset sourceSynset, Synset targetSynset, PointerType type) throws JWNLException {
+
+		return (type.isSymmetric()) ?
+		    RelationshipFinder.getInstance().findRelationships(sourceSynset, targetSynset, type) :
+		    findAsymmetricRelationships(sourceSynset, targetSynset, type, DEFAULT_ASYMMETRIC_SEARCH_DEPTH);
+	}
+
+	/**
+	 * Find all relationships of type <var>type</var> between <var>sourceSynset</var> and <var>targetSynset</var>
+	 * to depth <var>depth</var>.
+	 * @see RelationshipFinder#findRelationships(Synset, Synset, PointerType, int)
+	 */
+	public RelationshipList findRelationships(
+	    Synset sourceSynset, Synset targetSynset, PointerType type, int depth) throws JWNLException {
+
+		return (type.isSymmetric()) ?
+		    RelationshipFinder.getInstance().findRelationships(sourceSynset, targetSynset, type, depth) :
+		    findAsymmetricRelationships(sourceSynset, targetSynset, type, depth);
+	}
+
+	/**
+	 * Return true if <var>sourceSynset</var> and <var>targetSynset</var> have an ancestor in common through
+	 * pointers of type <var>type</var>, each within <var>depth</var> pointers. A synset is its own ancestor.
+	 */
+	public boolean hasCommonAncestor(
+	    Synset sourceSynset, Synset targetSynset, PointerType type, int depth) throws JWNLException {
+
+		int limit = (depth <= 0) ? Integer.MAX_VALUE : depth;
+		Ancestry sourceAncestry = getCachedAncestry(sourceSynset, type, depth);
+		Ancestry targetAncestry = getCachedAncestry(targetSynset, type, depth);
+		if (sourceAncestry != null && targetAncestry != null) {
+			// neither side has anything left to expand
+			Ancestry smaller = (sourceAncestry.size <= targetAncestry.size) ? sourceAncestry : targetAncestry;
+			Ancestry larger = (smaller == sourceAncestry) ? targetAncestry : sourceAncestry;
+			for (int n = 0; n < smaller.size; n++) {
+				if (larger.indexOf(smaller.keys[n]) >= 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+		Search source = new Search(sourceSynset, sourceAncestry);
+		Search target = new Search(targetSynset, targetAncestry);
+		if (source.visited.contains(target.startKey) || target.visited.contains(source.startKey)) {
+			return true;
+		}
+		// expand the smaller frontier one level at a time until the searches meet
+		while (source.canExpand(limit) || target.canExpand(limit)) {
+			Search next = !target.canExpand(limit)
+			    || (source.canExpand(limit) && source.frontierSize <= target.frontierSize) ? source : target;
+			if (next.expand(type, (next == source) ? target.visited : source.visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Remove all cached ancestries. */
+	public void clearCache() {
+		_ancestries.clear();
+	}
+
+	/** Return the cache of ancestries, to size it or read its statistics. */
+	public ConcurrentCache getCache() {
+		return _ancestries;
+	}
+
+	private RelationshipList findAsymmetricRelationships(
+	    Synset sourceSynset, Synset targetSynset, PointerType type, int depth) throws JWNLException {
+
+		RelationshipList relationships = new RelationshipList();
+		if (!hasCommonAncestor(sourceSynset, targetSynset, type, depth)) {
+			return relationships;
+		}
+		Ancestry source = getAncestry(sourceSynset, type, depth);
+		Ancestry target = getAncestry(targetSynset, type, depth);
+
+		// the target node of each source node, and the position of each target node on each target path
+		int[] inTarget = new int[source.size];
+		for (int n = 0; n < source.size; n++) {
+			inTarget[n] = target.indexOf(source.keys[n]);
+		}
+		int[][] positions = new int[target.paths.length][];
+		Map targetPathsByTop = new HashMap();
+		for (int j = 0; j < target.paths.length; j++) {
+			int[] path = target.paths[j];
+			positions[j] = new int[target.size];
+			Arrays.fill(positions[j], -1);
+			// paths run from the synset up; positions count from the top, as in the reversed tree lists
+			for (int k = 0; k < path.length; k++) {
+				positions[j][path[k]] = path.length - 1 - k;
+			}
+			Object top = topKey(target, path);
+			List paths = (List) targetPathsByTop.get(top);
+			if (paths == null) {
+				paths = new ArrayList();
+				targetPathsByTop.put(top, paths);
+			}
+			paths.add(new Integer(j));
+		}
+
+		PointerType symmetricType = type.getSymmetricType();
+		for (int i = 0; i < source.paths.length; i++) {
+			int[] sourcePath = source.paths[i];
+			List paths = (List) targetPathsByTop.get(topKey(source, sourcePath));
+			if (paths == null) {
+				continue;
+			}
+			for (int p = 0; p < paths.size(); p++) {
+				int j = ((Integer) paths.get(p)).intValue();
+				int[] targetPath = target.paths[j];
+
+				// the lowest node of the source path that is on the target path
+				PointerTargetNodeList relationship = new PointerTargetNodeList();
+				int targetStart = 0;
+				int commonParentIndex = 0;
+				for (int k = 0; k < sourcePath.length; k++) {
+					int t = inTarget[sourcePath[k]];
+					if (t >= 0 && positions[j][t] >= 0) {
+						targetStart = positions[j][t];
+						break;
+					}
+					relationship.add(source.targets[sourcePath[k]], type);
+					commonParentIndex++;
+				}
+				for (int k = targetPath.length - 1 - targetStart; k >= 0; k--) {
+					relationship.add(target.targets[targetPath[k]], symmetricType);
+				}
+				relationships.add(new AsymmetricRelationship(
+				    type, relationship, commonParentIndex, sourceSynset, targetSynset));
+			}
+		}
+		return relationships;
+	}
+
+	/**
+	 * Paths can be paired when their last nodes are equal, including their types. The tree lists of
+	 * <code>RelationshipFinder</code> label every node with the search type, except a list that holds only
+	 * the synset, whose node has no type; so a synset without ancestors is only paired with itself.
+	 */
+	private static Object topKey(Ancestry ancestry, int[] path) {
+		return new Long((ancestry.keys[path[path.length - 1]] << 1) | ((path.length == 1) ? 1 : 0));
+	}
+
+	private Ancestry getCachedAncestry(Synset synset, PointerType type, int depth) {
+		return (Ancestry) _ancestries.get(new AncestryKey(synset, type, depth));
+	}
+
+	private Ancestry getAncestry(Synset synset, PointerType type, int depth) throws JWNLException {
+		AncestryKey key = new AncestryKey(synset, type, depth);
+		Ancestry ancestry = (Ancestry) _ancestries.get(key);
+		if (ancestry == null) {
+			ancestry = new Ancestry(synset, type, depth);
+			_ancestries.put(key, ancestry);
+		}
+		return ancestry;
+	}
+
+	/**
+	 * A key for a pointer target: the part of speech, the index of a word plus one (0 for a synset) and the
+	 * offset of the synset, so that two targets have the same key exactly when they are equal.
+	 */
+	private static long key(PointerTarget target) {
+		Synset synset = (target instanceof Word) ? ((Word) target).getSynset() : (Synset) target;
+		long word = (target instanceof Word) ? ((Word) target).getIndex() + 1 : 0;
+		return ((long) POS.getAllPOS().indexOf(synset.getPOS()) << 56) | (word << 32) | synset.getOffset();
+	}
+
+	private static Synset synsetOf(PointerTarget target) {
+		return (target instanceof Word) ? ((Word) target).getSynset() : (Synset) target;
+	}
+
+	/**
+	 * The ancestors of a synset through one pointer type, within a depth, and the paths from the synset up to
+	 * the last node of each branch. Paths are in the order in which <code>PointerTargetTree.toList</code> lists
+	 * them, so pairing them in order gives the relationships in the order of <code>RelationshipFinder</code>.
+	 */
+	private static final class Ancestry {
+		private int size;
+		private long[] keys = new long[16];
+		private PointerTarget[] targets = new PointerTarget[16];
+		/** The nodes that the pointers of each node lead to, in pointer order */
+		private int[][] parents = new int[16][];
+		/** Node indices by key */
+		private LongIntMap index = new LongIntMap();
+		/** Paths as node indices, from the synset up */
+		private int[][] paths;
+
+		public Ancestry(Synset synset, PointerType type, int depth) throws JWNLException {
+			int limit = (depth <= 0) ? Integer.MAX_VALUE : depth;
+			add(synset);
+			// breadth first, so that each node is expanded once
+			int[] distance = new int[16];
+			for (int n = 0; n < size; n++) {
+				if (distance[n] >= limit) {
+					continue;
+				}
+				PointerTarget[] targets = synsetOf(this.targets[n]).getTargets(type);
+				parents[n] = new int[targets.length];
+				for (int k = 0; k < targets.length; k++) {
+					int parent = indexOf(key(targets[k]));
+					if (parent < 0) {
+						parent = add(targets[k]);
+						if (distance.length < keys.length) {
+							distance = copyOf(distance, keys.length);
+						}
+						distance[parent] = distance[n] + 1;
+					}
+					parents[n][k] = parent;
+				}
+			}
+
+			List paths = new ArrayList();
+			collectPaths(0, limit, new int[Math.min(limit, size) + 1], 0, paths);
+			this.paths = (int[][]) paths.toArray(new int[paths.size()][]);
+		}
+
+		private int add(PointerTarget target) {
+			if (size == keys.length) {
+				keys = copyOf(keys, 2 * size);
+				PointerTarget[] t = new PointerTarget[2 * size];
+				System.arraycopy(targets, 0, t, 0, size);
+				targets = t;
+				int[][] p = new int[2 * size][];
+				System.arraycopy(parents, 0, p, 0, size);
+				parents = p;
+			}
+			keys[size] = key(target);
+			targets[size] = target;
+			index.put(keys[size], size);
+			return size++;
+		}
+
+		public int indexOf(long key) {
+			return index.get(key);
+		}
+
+		/** Depth first, in pointer order, as the tree is built and listed. */
+		private void collectPaths(int node, int remaining, int[] path, int length, List paths) {
+			if (length == path.length) {
+				return; // a cycle, which WordNet does not have
+			}
+			path[length++] = node;
+			int[] up = parents[node];
+			if (remaining == 0 || up == null || up.length == 0) {
+				int[] copy = new int[length];
+				System.arraycopy(path, 0, copy, 0, length);
+				paths.add(copy);
+				return;
+			}
+			for (int k = 0; k < up.length; k++) {
+				collectPaths(up[k], remaining - 1, path, length, paths);
+			}
+		}
+	}
+
+	/** One side of the bidirectional search. */
+	private static final class Search {
+		private long startKey;
+		private LongIntMap visited;
+		private PointerTarget[] frontier;
+		private int frontierSize;
+		private int level;
+
+		public Search(Synset synset, Ancestry ancestry) {
+			startKey = key(synset);
+			if (ancestry != null) {
+				// every ancestor is already known
+				visited = ancestry.index;
+				frontier = new PointerTarget[0];
+			} else {
+				visited = new LongIntMap();
+				visited.put(startKey, 0);
+				frontier = new PointerTarget[] {synset};
+				frontierSize = 1;
+			}
+		}
+
+		public boolean canExpand(int limit) {
+			return frontierSize > 0 && level < limit;
+		}
+
+		/** Expand the frontier by one level; return true if a new node has been visited by the other side. */
+		public boolean expand(PointerType type, LongIntMap other) throws JWNLException {
+			List next = new ArrayList();
+			for (int i = 0; i < frontierSize; i++) {
+				PointerTarget[] targets = synsetOf(frontier[i]).getTargets(type);
+				for (int k = 0; k < targets.length; k++) {
+					long key = key(targets[k]);
+					if (visited.get(key) < 0) {
+						if (other.get(key) >= 0) {
+							return true;
+						}
+						visited.put(key, level + 1);
+						next.add(targets[k]);
+					}
+				}
+			}
+			frontier = (PointerTarget[]) next.toArray(new PointerTarget[next.size()]);
+			frontierSize = frontier.length;
+			level++;
+			return false;
+		}
+	}
+
+	/** An open addressing map from long keys to non-negative ints. */
+	private static final class LongIntMap {
+		private long[] _keys = new long[32];
+		private int[] _values = new int[32];
+		private boolean[] _used = new boolean[32];
+		private int _size;
+
+		public int get(long key) {
+			int mask = _keys.length - 1;
+			for (int i = hash(key) & mask; _used[i]; i = (i + 1) & mask) {
+				if (_keys[i] == key) {
+					return _values[i];
+				}
+			}
+			return -1;
+		}
+
+		public boolean contains(long key) {
+			return get(key) >= 0;
+		}
+
+		public void put(long key, int value) {
+			if (2 * (_size + 1) > _keys.length) {
+				rehash();
+			}
+			int mask = _keys.length - 1;
+			int i = hash(key) & mask;
+			for (; _used[i]; i = (i + 1) & mask) {
+				if (_keys[i] == key) {
+					_values[i] = value;
+					return;
+				}
+			}
+			_used[i] = true;
+			_keys[i] = key;
+			_values[i] = value;
+			_size++;
+		}
+
+		private void rehash() {
+			long[] keys = _keys;
+			int[] values = _values;
+			boolean[] used = _used;
+			_keys = new long[2 * keys.length];
+			_values = new int[_keys.length];
+			_used = new boolean[_keys.length];
+			_size = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (used[i]) {
+					put(keys[i], values[i]);
+				}
+			}
+		}
+
+		private static int hash(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+
+	private static final class AncestryKey {
+		private long _key;
+		private PointerType _type;
+		private int _depth;
+
+		public AncestryKey(Synset synset, PointerType type, int depth) {
+			_key = key(synset);
+			_type = type;
+			_depth = (depth <= 0) ? Integer.MAX_VALUE : depth;
+		}
+
+		public boolean equals(Object obj) {
+			return (obj instanceof AncestryKey)
+			    && ((AncestryKey) obj)._key == _key
+			    && ((AncestryKey) obj)._type.equals(_type)
+			    && ((AncestryKey) obj)._depth == _depth;
+		}
+
+		public int hashCode() {
+			return (int) (_key ^ (_key >>> 32)) ^ _type.hashCode() ^ _depth;
+		}
+	}
+
+	private static int[] copyOf(int[] array, int length) {
+		int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	private static long[] copyOf(long[] array, int length) {
+		long[] copy = new long[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+}
@@ -12,17 +12,19 @@ import net.didion.jwnl.data.POS;
 import net.didion.jwnl.data.Synset;
 import net.didion.jwnl.util.cache.Cache;
 import net.didion.jwnl.util.cache.CacheSet;
-import net.didion.jwnl.util.cache.LRUCache;
+import net.didion.jwnl.util.cache.ConcurrentCache;
 
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.concurrent.ConcurrentHashMap;
 
-/** Extends <code>Dictionary</code> to provide caching of elements. */
+/**
+ * Extends <code>Dictionary</code> to provide caching of elements. The caches are
+ * <code>ConcurrentCache</code>s, so a dictionary can be shared by several threads.
+ */
 public abstract class AbstractCachingDictionary extends Dictionary {
-	private DictionaryCacheSet _caches;
+	private volatile DictionaryCacheSet _caches;
 	private boolean _isCachingEnabled;
 
 	protected AbstractCachingDictionary() {
@@ -68,6 +70,19 @@ public abstract class AbstractCachingDictionary extends Dictionary {
 		getCaches().setCacheCapacity(type, size);
 	}
 
+	/**
+	 * Bound the cache of <var>type</var> by the total weight of its elements, as computed by
+	 * <var>weigher</var>, as well as by their number.
+	 */
+	public void setCacheMaxWeight(DictionaryElementType type, long maxWeight, ConcurrentCache.Weigher weigher) {
+		getCaches().getDictionaryCache(type).setMaxWeight(maxWeight, weigher);
+	}
+
+	/** Return the cache of <var>type</var>, for its hit, miss and eviction counts. */
+	public ConcurrentCache getCache(DictionaryElementType type) {
+		return getCaches().getDictionaryCache(type);
+	}
+
 	public void clearCache() {
 		for (Iterator itr = DictionaryElementType.getAllDictionaryElementTypes().iterator(); itr.hasNext();) {
 			clearCache((DictionaryElementType)itr.next());
@@ -109,7 +124,11 @@ public abstract class AbstractCachingDictionary extends Dictionary {
 			throw new JWNLRuntimeException("DICTIONARY_EXCEPTION_022");
 		}
 		if (_caches == null) {
-			_caches = new DictionaryCacheSet();
+			synchronized (this) {
+				if (_caches == null) {
+					_caches = new DictionaryCacheSet();
+				}
+			}
 		}
 		return _caches;
 	}
@@ -127,7 +146,7 @@ public abstract class AbstractCachingDictionary extends Dictionary {
 		return null;
 	}
 
-	private static final class DictionaryCacheSet extends CacheSet implements Observer {
+	private static final class DictionaryCacheSet extends CacheSet {
 		private Map _lemmaToOffsetMaps;
 
 		public DictionaryCacheSet() {
@@ -163,26 +182,34 @@ public abstract class AbstractCachingDictionary extends Dictionary {
 			super.clearCache(fileType);
 		}
 
-		public void update(Observable obs, Object obj) {
+		public ConcurrentCache getDictionaryCache(DictionaryElementType fileType) {
+			return (ConcurrentCache) getCache(fileType);
+		}
+
+		/** Forget the lemma of an element that has left the cache, unless it now names another element. */
+		private void removed(Object key, Object obj) {
 			if (obj instanceof IndexWord) {
 				IndexWord word = (IndexWord) obj;
-				removeLemma(DictionaryElementType.INDEX_WORD, word.getLemma(), word.getPOS());
+				removeLemma(DictionaryElementType.INDEX_WORD, word.getLemma(), word.getPOS(), key);
 			} else if (obj instanceof Exc) {
 				Exc exc = (Exc) obj;
-				removeLemma(DictionaryElementType.EXCEPTION, exc.getLemma(), exc.getPOS());
+				removeLemma(DictionaryElementType.EXCEPTION, exc.getLemma(), exc.getPOS(), key);
 			}
 		}
 
 		private void initLemmaToOffsetMaps() {
 			_lemmaToOffsetMaps = new HashMap(2);
 			_lemmaToOffsetMaps.put(DictionaryElementType.INDEX_WORD,
-			                       new HashMap(getCache(DictionaryElementType.INDEX_WORD).getCapacity()));
+			                       new ConcurrentHashMap(getCache(DictionaryElementType.INDEX_WORD).getCapacity()));
 			_lemmaToOffsetMaps.put(DictionaryElementType.EXCEPTION,
-			                       new HashMap(getCache(DictionaryElementType.EXCEPTION).getCapacity()));
+			                       new ConcurrentHashMap(getCache(DictionaryElementType.EXCEPTION).getCapacity()));
 		}
 
-		private void removeLemma(DictionaryElementType fileType, String lemma, POS pos) {
-			((Map) _lemmaToOffsetMaps.get(fileType)).remove(new POSKey(pos, lemma));
+		private void removeLemma(DictionaryElementType fileType, String lemma, POS pos, Object key) {
+			// the maps are created after the caches, which are empty until then
+			if (_lemmaToOffsetMaps != null) {
+				((ConcurrentHashMap) _lemmaToOffsetMaps.get(fileType)).remove(new POSKey(pos, lemma), key);
+			}
 		}
 
 		private Map getMap(DictionaryElementType fileType) {
@@ -190,27 +217,21 @@ public abstract class AbstractCachingDictionary extends Dictionary {
 		}
 
 		protected Cache createCache(int size) {
-			ObservableCache cache = new ObservableCache(size);
-			cache.addObserver(this);
-			return cache;
+			return new DictionaryCache(size, this);
 		}
 	}
 
-	private static final class ObservableCache extends LRUCache {
-		private Observable _observable = new Observable();
+	/** A cache that tells its set when an element leaves it, so that the set can forget the element's lemma. */
+	private static final class DictionaryCache extends ConcurrentCache {
+		private DictionaryCacheSet _set;
 
-		public ObservableCache(int capacity) {
+		public DictionaryCache(int capacity, DictionaryCacheSet set) {
 			super(capacity);
+			_set = set;
 		}
 
-		public void addObserver(Observer obs) {
-			_observable.addObserver(obs);
-		}
-
-		public Object remove(Object key) {
-			Object obj = super.remove(key);
-			_observable.notifyObservers(obj);
-			return obj;
+		protected void removed(Object key, Object value) {
+			_set.removed(key, value);
 		}
 	}
 }
\ No newline at end of file
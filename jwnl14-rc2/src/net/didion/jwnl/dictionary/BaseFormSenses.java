@@ -0,0 +1,102 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.dictionary;
+
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.dictionary.morph.DefaultMorphologicalProcessor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fully resolved result of a morphological lookup: every base form of a derivation
+ * and, for each base form, the offsets of its senses in the order of the index file.
+ * Instances are immutable, so they can be cached and shared between threads.
+ */
+public class BaseFormSenses {
+	private static final long[] NO_SENSES = new long[0];
+
+	private final POS _pos;
+	private final String _derivation;
+	private final String[] _baseForms;
+	private final long[][] _senseOffsets;
+
+	/**
+	 * @param baseForms the base forms found for <var>derivation</var>
+	 * @param senseOffsets the sense offsets of each base form, or null for base forms
+	 * 	that have no index word for <var>pos</var>
+	 */
+	public BaseFormSenses(POS pos, String derivation, String[] baseForms, long[][] senseOffsets) {
+		_pos = pos;
+		_derivation = derivation;
+		_baseForms = baseForms;
+		_senseOffsets = senseOffsets;
+	}
+
+	/**
+	 * Return all the base forms of <var>derivation</var> found by <var>processor</var>, with
+	 * the sense offsets of each. A <code>DefaultMorphologicalProcessor</code> answers from its
+	 * cache; the base forms found by any other processor are resolved on every call.
+	 */
+	public static BaseFormSenses lookup(MorphologicalProcessor processor, POS pos, String derivation)
+			throws JWNLException {
+		if (processor instanceof DefaultMorphologicalProcessor) {
+			return ((DefaultMorphologicalProcessor) processor).lookupAllBaseFormSenses(pos, derivation);
+		}
+		return resolve(pos, derivation, processor.lookupAllBaseForms(pos, derivation));
+	}
+
+	/** Look up the sense offsets of each of <var>baseForms</var> in the dictionary */
+	public static BaseFormSenses resolve(POS pos, String derivation, List baseForms) throws JWNLException {
+		String[] forms = (String[]) baseForms.toArray(new String[baseForms.size()]);
+		long[][] offsets = new long[forms.length][];
+		for (int i = 0; i < forms.length; i++) {
+			IndexWord word = Dictionary.getInstance().getIndexWord(pos, forms[i]);
+			offsets[i] = (word == null) ? null : word.getSynsetOffsets();
+		}
+		return new BaseFormSenses(pos, derivation, forms, offsets);
+	}
+
+	public POS getPOS() {
+		return _pos;
+	}
+
+	public String getDerivation() {
+		return _derivation;
+	}
+
+	/** Return the number of base forms */
+	public int size() {
+		return _baseForms.length;
+	}
+
+	public String getBaseForm(int index) {
+		return _baseForms[index];
+	}
+
+	/** Return an unmodifiable list of the base forms */
+	public List getBaseForms() {
+		return Collections.unmodifiableList(Arrays.asList(_baseForms));
+	}
+
+	/**
+	 * Return whether the base form at <var>index</var> has an index word. Not all base forms
+	 * reported by a morphological processor are valid for the part of speech.
+	 */
+	public boolean hasSenses(int index) {
+		return _senseOffsets[index] != null;
+	}
+
+	/**
+	 * Return the sense offsets of the base form at <var>index</var>, or an empty array if it
+	 * has no index word. The returned array must not be modified.
+	 */
+	public long[] getSenseOffsets(int index) {
+		return _senseOffsets[index] == null ? NO_SENSES : _senseOffsets[index];
+	}
+}
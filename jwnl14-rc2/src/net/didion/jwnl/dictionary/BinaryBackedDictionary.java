@@ -0,0 +1,510 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.dictionary;
+
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.Exc;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.PointerTarget;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.data.SynsetProxy;
+import net.didion.jwnl.data.Verb;
+import net.didion.jwnl.data.Word;
+import net.didion.jwnl.util.MessageLog;
+import net.didion.jwnl.util.MessageLogLevel;
+import net.didion.jwnl.util.factory.Param;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A <code>Dictionary</code> backed by a single binary file written by
+ * {@link net.didion.jwnl.utilities.DictionaryToBinary}. The file is memory mapped, so opening
+ * the dictionary costs almost nothing and the pages are shared by every process using the same
+ * file. <code>IndexWord</code>s, <code>Synset</code>s and <code>Exc</code>s are only created
+ * when they are looked up.
+ * <p>
+ * The file starts with a header (magic, version, number of parts of speech) followed by, for each
+ * part of speech, the key of the POS and the size and position of its index, synset and exception
+ * tables. All numbers are big endian and all references are absolute positions in the file.
+ * <ul>
+ * <li>strings: int length, UTF-8 bytes</li>
+ * <li>index table, sorted by the UTF-8 bytes of the lemma: int lemma, int synset offsets
+ * (int count, long offsets)</li>
+ * <li>synset table, sorted by offset: long offset, int lex file id, int flags, int gloss (-1 if
+ * none), int words (int count, then per word: int lemma, int count, long verb frame bits),
+ * int pointers (int count, then per pointer: int type key, int source index, int target POS key,
+ * long target offset, int target index)</li>
+ * <li>exception table, sorted by the UTF-8 bytes of the lemma: int lemma, int exceptions
+ * (int count, int strings)</li>
+ * </ul>
+ */
+public class BinaryBackedDictionary extends AbstractCachingDictionary {
+	private static final MessageLog _log = new MessageLog(BinaryBackedDictionary.class);
+	/**
+	 * <code>MorphologicalProcessor</code> class install parameter. The value should be the
+	 * class of <code>MorphologicalProcessor</code> to use.
+	 */
+	public static final String MORPH = "morphological_processor";
+	/** The path of the binary dictionary file */
+	public static final String PATH = "dictionary_path";
+	/** The value should be "true" or "false". The default is "true". */
+	public static final String ENABLE_CACHING = "enable_caching";
+	/** The default cache size. */
+	public static final String CACHE_SIZE = "cache_size";
+
+	/** First int of a binary dictionary file */
+	public static final int MAGIC = 0x4A574E42; // "JWNB"
+	public static final int VERSION = 1;
+
+	/** Size in bytes of a record in the index and exception tables */
+	public static final int LEMMA_RECORD_SIZE = 8;
+	/** Size in bytes of a record in the synset table */
+	public static final int SYNSET_RECORD_SIZE = 28;
+	/** Synset flag: the synset is an adjective cluster */
+	public static final int ADJECTIVE_CLUSTER = 1;
+
+	private static final Random _rand = new Random(new Date().getTime());
+
+	private File _file;
+	private MappedByteBuffer _buffer;
+	private Map _tables = new HashMap();
+
+	public BinaryBackedDictionary() {
+	}
+
+	public static void install(String path) throws JWNLException {
+		install(path, null, true);
+	}
+
+	public static void install(String path, MorphologicalProcessor morph, boolean enableCaching) throws JWNLException {
+		setDictionary(new BinaryBackedDictionary(new File(path), morph, enableCaching));
+	}
+
+	/**
+	 * Install a <code>BinaryBackedDictionary</code> from a map of parameters. The parameters are chosen from the
+	 * static variables above.
+	 */
+	public void install(Map params) throws JWNLException {
+		Param param = (Param) params.get(MORPH);
+		MorphologicalProcessor morph = (param == null) ? null : (MorphologicalProcessor) param.create();
+		String path = ((Param) params.get(PATH)).getValue();
+		// caching is enabled by default
+		boolean enableCaching =
+		    !params.containsKey(ENABLE_CACHING) || !((Param) params.get(ENABLE_CACHING)).getValue().equalsIgnoreCase("false");
+		install(path, morph, enableCaching);
+
+		if (enableCaching && params.containsKey(CACHE_SIZE)) {
+			((BinaryBackedDictionary) getInstance()).setCacheCapacity(
+			    Integer.parseInt(((Param) params.get(CACHE_SIZE)).getValue()));
+		}
+	}
+
+	private BinaryBackedDictionary(File file, MorphologicalProcessor morph, boolean enableCaching) throws JWNLException {
+		super(morph, enableCaching);
+		_file = file;
+		_log.log(MessageLogLevel.INFO, "Mapping BinaryBackedDictionary " + file);
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				// the mapping stays valid after the file is closed
+				_buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			} finally {
+				raf.close();
+			}
+		} catch (IOException ex) {
+			throw new JWNLException("DICTIONARY_EXCEPTION_020", file, ex);
+		}
+		if (_buffer.capacity() < 12 || _buffer.getInt(0) != MAGIC || _buffer.getInt(4) != VERSION) {
+			throw new JWNLException("DICTIONARY_EXCEPTION_029", file);
+		}
+		int posCount = _buffer.getInt(8);
+		for (int i = 0, p = 12; i < posCount; i++, p += 28) {
+			POS pos = POS.getPOSForKey(getString(_buffer.getInt(p)));
+			_tables.put(pos, new Tables(_buffer, p + 4));
+		}
+	}
+
+	public void close() {
+		_buffer = null;
+		_tables = null;
+	}
+
+	private Tables getTables(POS pos) {
+		return (Tables) _tables.get(pos);
+	}
+
+	//
+	// IndexWord methods
+	//
+
+	public IndexWord getIndexWord(POS pos, String lemma) {
+		lemma = prepareQueryString(lemma);
+		IndexWord word = null;
+		if (lemma.length() > 0) {
+			Tables tables = getTables(pos);
+			int i = find(tables._indexPos, tables._indexCount, lemma);
+			if (i >= 0) {
+				word = getIndexWordAt(pos, i);
+			}
+		}
+		return word;
+	}
+
+	public IndexWord getRandomIndexWord(POS pos) {
+		int count = getTables(pos)._indexCount;
+		return count == 0 ? null : getIndexWordAt(pos, _rand.nextInt(count));
+	}
+
+	public Iterator getIndexWordIterator(final POS pos) {
+		return new TableIterator(getTables(pos)._indexCount) {
+			protected Object get(int i) {
+				return getIndexWordAt(pos, i);
+			}
+		};
+	}
+
+	public Iterator getIndexWordIterator(final POS pos, String substring) {
+		final String s = prepareQueryString(substring);
+		final int base = getTables(pos)._indexPos;
+		return new TableIterator(getTables(pos)._indexCount) {
+			protected boolean accept(int i) {
+				return getString(_buffer.getInt(base + i * LEMMA_RECORD_SIZE)).indexOf(s) != -1;
+			}
+
+			protected Object get(int i) {
+				return getIndexWordAt(pos, i);
+			}
+		};
+	}
+
+	/** Return the <var>i</var>th index word of <var>pos</var>, from the cache if possible. */
+	private IndexWord getIndexWordAt(POS pos, int i) {
+		IndexWord word = null;
+		if (isCachingEnabled()) {
+			word = getCachedIndexWord(new POSKey(pos, i));
+		}
+		return word != null ? word : createIndexWord(pos, i);
+	}
+
+	private IndexWord createIndexWord(POS pos, int i) {
+		int p = getTables(pos)._indexPos + i * LEMMA_RECORD_SIZE;
+		String lemma = getString(_buffer.getInt(p));
+		int offsets = _buffer.getInt(p + 4);
+		long[] synsetOffsets = new long[_buffer.getInt(offsets)];
+		for (int k = 0; k < synsetOffsets.length; k++) {
+			synsetOffsets[k] = _buffer.getLong(offsets + 4 + 8 * k);
+		}
+		IndexWord word = new IndexWord(lemma, pos, synsetOffsets);
+		if (isCachingEnabled()) {
+			cacheIndexWord(new POSKey(pos, i), word);
+		}
+		return word;
+	}
+
+	//
+	// Synset methods
+	//
+
+	public Synset getSynsetAt(POS pos, long offset) {
+		Synset synset = null;
+		if (isCachingEnabled()) {
+			synset = getCachedSynset(new POSKey(pos, offset));
+		}
+		if (synset == null) {
+			Tables tables = getTables(pos);
+			int lo = 0;
+			int hi = tables._synsetCount - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				long midOffset = _buffer.getLong(tables._synsetPos + mid * SYNSET_RECORD_SIZE);
+				if (midOffset < offset) {
+					lo = mid + 1;
+				} else if (midOffset > offset) {
+					hi = mid - 1;
+				} else {
+					return createSynset(pos, mid);
+				}
+			}
+		}
+		return synset;
+	}
+
+	public Iterator getSynsetIterator(final POS pos) {
+		final int base = getTables(pos)._synsetPos;
+		return new TableIterator(getTables(pos)._synsetCount) {
+			protected Object get(int i) {
+				return getSynsetAt(pos, _buffer.getLong(base + i * SYNSET_RECORD_SIZE));
+			}
+		};
+	}
+
+	/**
+	 * Create the <var>i</var>th synset of <var>pos</var>. As in the Princeton element factories, the words and
+	 * pointers are created with a proxy as their synset, which is pointed at the synset once it exists.
+	 */
+	private Synset createSynset(POS pos, int i) {
+		int p = getTables(pos)._synsetPos + i * SYNSET_RECORD_SIZE;
+		long offset = _buffer.getLong(p);
+		long lexFileId = _buffer.getInt(p + 8);
+		int flags = _buffer.getInt(p + 12);
+		int gloss = _buffer.getInt(p + 16);
+		int wordsPos = _buffer.getInt(p + 20);
+		int pointersPos = _buffer.getInt(p + 24);
+
+		SynsetProxy proxy = new SynsetProxy(pos);
+
+		BitSet verbFrames = new BitSet();
+		Word[] words = new Word[_buffer.getInt(wordsPos)];
+		int q = wordsPos + 4;
+		for (int k = 0; k < words.length; k++) {
+			String lemma = getString(_buffer.getInt(q));
+			long[] bits = new long[_buffer.getInt(q + 4)];
+			q += 8;
+			for (int b = 0; b < bits.length; b++, q += 8) {
+				bits[b] = _buffer.getLong(q);
+			}
+			if (pos == POS.VERB) {
+				BitSet frames = BitSet.valueOf(bits);
+				words[k] = new Verb(proxy, k, lemma, frames);
+				verbFrames.or(frames);
+			} else {
+				words[k] = new Word(proxy, k, lemma);
+			}
+		}
+
+		Pointer[] pointers = new Pointer[_buffer.getInt(pointersPos)];
+		q = pointersPos + 4;
+		for (int k = 0; k < pointers.length; k++, q += 24) {
+			PointerType pointerType = PointerType.getPointerTypeForKey(getString(_buffer.getInt(q)));
+			int sourceIndex = _buffer.getInt(q + 4);
+			POS targetPOS = POS.getPOSForKey(getString(_buffer.getInt(q + 8)));
+			PointerTarget source = (sourceIndex == 0) ? (PointerTarget) proxy : (PointerTarget) words[sourceIndex - 1];
+			pointers[k] = new Pointer(source, k, pointerType, targetPOS, _buffer.getLong(q + 12), _buffer.getInt(q + 20));
+		}
+
+		Synset synset = new Synset(pos, offset, words, pointers, gloss < 0 ? null : getString(gloss), verbFrames,
+		                           (flags & ADJECTIVE_CLUSTER) != 0);
+		synset.setLexFileId(lexFileId);
+		proxy.setSource(synset);
+		if (isCachingEnabled()) {
+			cacheSynset(new POSKey(pos, offset), proxy);
+		}
+		return proxy;
+	}
+
+	//
+	// Exception methods
+	//
+
+	public Exc getException(POS pos, String derivation) {
+		derivation = prepareQueryString(derivation);
+		Tables tables = getTables(pos);
+		int i = find(tables._exceptionPos, tables._exceptionCount, derivation);
+		return i < 0 ? null : getExceptionAt(pos, i);
+	}
+
+	public Iterator getExceptionIterator(final POS pos) {
+		return new TableIterator(getTables(pos)._exceptionCount) {
+			protected Object get(int i) {
+				return getExceptionAt(pos, i);
+			}
+		};
+	}
+
+	/** Return the <var>i</var>th exception of <var>pos</var>, from the cache if possible. */
+	private Exc getExceptionAt(POS pos, int i) {
+		Exc exc = null;
+		if (isCachingEnabled()) {
+			exc = getCachedException(new POSKey(pos, i));
+		}
+		return exc != null ? exc : createException(pos, i);
+	}
+
+	private Exc createException(POS pos, int i) {
+		int p = getTables(pos)._exceptionPos + i * LEMMA_RECORD_SIZE;
+		String lemma = getString(_buffer.getInt(p));
+		int list = _buffer.getInt(p + 4);
+		int count = _buffer.getInt(list);
+		List exceptions = new ArrayList(count);
+		for (int k = 0; k < count; k++) {
+			exceptions.add(getString(_buffer.getInt(list + 4 + 4 * k)));
+		}
+		Exc exc = new Exc(pos, lemma, exceptions);
+		if (isCachingEnabled()) {
+			cacheException(new POSKey(pos, i), exc);
+		}
+		return exc;
+	}
+
+	//
+	// File access
+	//
+
+	/** Decode the string at position <var>p</var>. */
+	private String getString(int p) {
+		byte[] bytes = new byte[_buffer.getInt(p)];
+		ByteBuffer b = _buffer.duplicate();
+		b.position(p + 4);
+		b.get(bytes);
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Binary search a table of (lemma, value) records sorted by the bytes of the lemma.
+	 * @return the index of the record for <var>lemma</var>, or -1
+	 */
+	private int find(int table, int count, String lemma) {
+		byte[] key;
+		try {
+			key = lemma.getBytes("UTF-8");
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex.getMessage());
+		}
+		int lo = 0;
+		int hi = count - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = compare(_buffer.getInt(table + mid * LEMMA_RECORD_SIZE), key);
+			if (c < 0) {
+				lo = mid + 1;
+			} else if (c > 0) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/** Compare the string at position <var>p</var> with <var>key</var>, as unsigned bytes. */
+	private int compare(int p, byte[] key) {
+		int length = _buffer.getInt(p);
+		int n = Math.min(length, key.length);
+		for (int i = 0; i < n; i++) {
+			int c = (_buffer.get(p + 4 + i) & 0xff) - (key[i] & 0xff);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return length - key.length;
+	}
+
+	/**
+	 * Compare two strings by their UTF-8 bytes, the order of the lemma tables.
+	 */
+	public static int compareLemmas(String a, String b) {
+		try {
+			byte[] x = a.getBytes("UTF-8");
+			byte[] y = b.getBytes("UTF-8");
+			int n = Math.min(x.length, y.length);
+			for (int i = 0; i < n; i++) {
+				int c = (x[i] & 0xff) - (y[i] & 0xff);
+				if (c != 0) {
+					return c;
+				}
+			}
+			return x.length - y.length;
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Not stored in the binary format.
+	 */
+	public int getUsageCount(long offset, String lemma) {
+		return 0;
+	}
+
+	/**
+	 * Not stored in the binary format.
+	 */
+	public String getSenseKey(long offset, String lemma) {
+		return null;
+	}
+
+	public String toString() {
+		return "BinaryBackedDictionary " + _file;
+	}
+
+	/** The positions and sizes of the tables of one part of speech. */
+	private static final class Tables {
+		private int _indexCount;
+		private int _indexPos;
+		private int _synsetCount;
+		private int _synsetPos;
+		private int _exceptionCount;
+		private int _exceptionPos;
+
+		private Tables(ByteBuffer buffer, int p) {
+			_indexCount = buffer.getInt(p);
+			_indexPos = buffer.getInt(p + 4);
+			_synsetCount = buffer.getInt(p + 8);
+			_synsetPos = buffer.getInt(p + 12);
+			_exceptionCount = buffer.getInt(p + 16);
+			_exceptionPos = buffer.getInt(p + 20);
+		}
+	}
+
+	/** Iterates over the records of a table that are accepted, creating elements as they are returned. */
+	private abstract static class TableIterator implements Iterator {
+		private int _count;
+		private int _next = 0;
+		private boolean _found = false;
+
+		private TableIterator(int count) {
+			_count = count;
+		}
+
+		protected boolean accept(int i) {
+			return true;
+		}
+
+		protected abstract Object get(int i);
+
+		public boolean hasNext() {
+			if (!_found) {
+				while (_next < _count && !accept(_next)) {
+					_next++;
+				}
+				_found = true;
+			}
+			return _next < _count;
+		}
+
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			_found = false;
+			return get(_next++);
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -7,12 +7,15 @@ import net.didion.jwnl.data.Exc;
 import net.didion.jwnl.data.IndexWord;
 import net.didion.jwnl.data.POS;
 import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.dictionary.database.BatchResults;
 import net.didion.jwnl.dictionary.database.DatabaseManager;
 import net.didion.jwnl.dictionary.database.Query;
 import net.didion.jwnl.util.factory.Param;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -26,6 +29,9 @@ public class DatabaseBackedDictionary extends AbstractCachingDictionary {
     public static final String DICTIONARY_ELEMENT_FACTORY = "dictionary_element_factory";
     public static final String DATABASE_MANAGER = "database_manager";
 
+    /** The largest number of synsets fetched by one batch query */
+    private static final int BATCH_SIZE = 256;
+
     private DatabaseDictionaryElementFactory _elementFactory;
     private DatabaseManager _dbManager;
 
@@ -140,6 +146,95 @@ public class DatabaseBackedDictionary extends AbstractCachingDictionary {
         return synset;
     }
 
+    /**
+     * Fetch the synsets that are not cached with one query per table for every
+     * <code>BATCH_SIZE</code> offsets, instead of four queries per synset.
+     */
+    public Synset[] getSynsetsAt(POS pos, long[] offsets) throws JWNLException {
+        Synset[] synsets = new Synset[offsets.length];
+        long[] missing = new long[offsets.length];
+        int count = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            if (isCachingEnabled()) {
+                synsets[i] = getCachedSynset(new POSKey(pos, offsets[i]));
+            }
+            if (synsets[i] == null) {
+                missing[count++] = offsets[i];
+            }
+        }
+        if (count == 0) {
+            return synsets;
+        }
+
+        // the batch queries return rows in order of offset
+        Arrays.sort(missing, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || missing[i] != missing[distinct - 1]) {
+                missing[distinct++] = missing[i];
+            }
+        }
+
+        Map fetched = new HashMap();
+        for (int start = 0; start < distinct; start += BATCH_SIZE) {
+            long[] batch = new long[Math.min(BATCH_SIZE, distinct - start)];
+            System.arraycopy(missing, start, batch, 0, batch.length);
+            fetchSynsets(pos, batch, fetched);
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            if (synsets[i] == null) {
+                synsets[i] = (Synset) fetched.get(new Long(offsets[i]));
+            }
+        }
+        return synsets;
+    }
+
+    /** Fetch the synsets at <var>offsets</var>, which are sorted, into <var>fetched</var> by offset. */
+    private void fetchSynsets(POS pos, long[] offsets, Map fetched) throws JWNLException {
+        Query query = null;
+        Query wordQuery = null;
+        Query pointerQuery = null;
+        Query verbFrameQuery = null;
+        try {
+            query = _dbManager.getSynsetBatchQuery(pos, offsets);
+            wordQuery = _dbManager.getSynsetWordBatchQuery(pos, offsets);
+            pointerQuery = _dbManager.getPointerBatchQuery(pos, offsets);
+            verbFrameQuery = _dbManager.getVerbFrameBatchQuery(pos, offsets);
+            BatchResults synsets = new BatchResults(query.execute());
+            BatchResults words = new BatchResults(wordQuery.execute());
+            BatchResults pointers = new BatchResults(pointerQuery.execute());
+            BatchResults verbFrames = new BatchResults(verbFrameQuery.execute());
+            for (int i = 0; i < offsets.length; i++) {
+                if (!synsets.hasRows(offsets[i])) {
+                    continue;
+                }
+                Synset synset = _elementFactory.createSynset(pos, offsets[i], synsets.getGroup(offsets[i]),
+                        words.getGroup(offsets[i]), pointers.getGroup(offsets[i]), verbFrames.getGroup(offsets[i]));
+                if (synset != null) {
+                    fetched.put(new Long(offsets[i]), synset);
+                    if (isCachingEnabled()) {
+                        cacheSynset(new POSKey(pos, offsets[i]), synset);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new JWNLException("DICTIONARY_EXCEPTION_023", e);
+        } finally {
+            if (query != null) {
+                query.close();
+            }
+            if (wordQuery != null) {
+                wordQuery.close();
+            }
+            if (pointerQuery != null) {
+                pointerQuery.close();
+            }
+            if (verbFrameQuery != null) {
+                verbFrameQuery.close();
+            }
+        }
+    }
+
     public Iterator getSynsetIterator(POS pos) throws JWNLException {
         Query query = _dbManager.getSynsetsQuery(pos);
         return new SynsetIterator(pos, query);
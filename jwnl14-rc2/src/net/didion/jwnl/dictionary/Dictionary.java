@@ -112,6 +112,21 @@ public abstract class Dictionary implements Installable {
 	 */
 	public abstract Synset getSynsetAt(POS pos, long offset) throws JWNLException;
 
+	/**
+	 * Return the <code>Synset</code>s at the offsets <code>offsets</code>. Dictionaries
+	 * that can fetch several synsets at once, such as a database, override this to do so.
+	 * @param pos The part-of-speech file to look in
+	 * @param offsets The offsets of the synsets in the file
+	 * @return The synsets, in the order of <code>offsets</code>; the entry of an offset with no synset is null
+	 */
+	public Synset[] getSynsetsAt(POS pos, long[] offsets) throws JWNLException {
+		Synset[] synsets = new Synset[offsets.length];
+		for (int i = 0; i < offsets.length; i++) {
+			synsets[i] = getSynsetAt(pos, offsets[i]);
+		}
+		return synsets;
+	}
+
 	/**
 	 * Return an Iterator over all the Exceptions in the database.
 	 * @param	pos	the part-of-speech
@@ -0,0 +1,77 @@
+package net.didion.jwnl.dictionary.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The results of a batch query, read one synset at a time. The last column of a batch query is the
+ * offset of a synset and its rows are ordered by offset. A group is a view of the rows of one synset,
+ * whose other columns are those of the query for that synset alone, so it can be read like the results
+ * of that query. Groups must be read in increasing order of offset.
+ */
+public class BatchResults {
+	private ResultSet _results;
+	/** The index of the offset column */
+	private int _offsetColumn;
+	/** Whether the cursor is on a row */
+	private boolean _valid;
+	/** Whether the row under the cursor has already been returned by a group */
+	private boolean _consumed = true;
+
+	public BatchResults(ResultSet results) throws SQLException {
+		_results = results;
+		_offsetColumn = results.getMetaData().getColumnCount();
+	}
+
+	/**
+	 * Return true if there are rows for the synset at <var>offset</var>. Rows of smaller offsets that
+	 * have not been read are skipped.
+	 */
+	public boolean hasRows(long offset) throws SQLException {
+		advance(offset);
+		return _valid && _results.getLong(_offsetColumn) == offset;
+	}
+
+	/** Return the rows of the synset at <var>offset</var> as a result set. */
+	public ResultSet getGroup(long offset) {
+		return new Group(_results, offset);
+	}
+
+	/** Move the cursor to the next row of the synset at <var>offset</var>, if there is one. */
+	private boolean next(long offset) throws SQLException {
+		advance(offset);
+		if (_valid && _results.getLong(_offsetColumn) == offset) {
+			_consumed = true;
+			return true;
+		}
+		return false;
+	}
+
+	/** Move the cursor past the rows that have been read and the rows of offsets smaller than <var>offset</var>. */
+	private void advance(long offset) throws SQLException {
+		if (_consumed) {
+			_valid = _results.next();
+			_consumed = false;
+		}
+		while (_valid && _results.getLong(_offsetColumn) < offset) {
+			_valid = _results.next();
+		}
+	}
+
+	/** The rows of one synset. Its cursor only moves through them, and closing it leaves the batch open. */
+	private class Group extends DelegatingResultSet {
+		private long _offset;
+
+		public Group(ResultSet results, long offset) {
+			super(results);
+			_offset = offset;
+		}
+
+		public boolean next() throws SQLException {
+			return BatchResults.this.next(_offset);
+		}
+
+		public void close() {
+		}
+	}
+}
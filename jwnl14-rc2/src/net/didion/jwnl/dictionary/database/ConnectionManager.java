@@ -6,25 +6,94 @@ import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedList;
 
+/**
+ * Opens connections to the database. Queries are run on pooled connections: closing a
+ * <code>Query</code> returns its connection, with the statements prepared on it, to the
+ * pool, so lookups do not pay for a new connection and a new statement each time.
+ */
 public class ConnectionManager {
+	/** The default number of idle connections kept for reuse */
+	public static final int DEFAULT_MAX_IDLE = 8;
+
 	private String _driverClass;
 	private String _url;
 	private String _userName;
 	private String _password;
     private boolean _registered;
+	private int _maxIdle;
+	/** Idle connections, most recently used first; guarded by itself */
+	private LinkedList _idle = new LinkedList();
 
 	public ConnectionManager(String driverClass, String url, String userName, String password) {
+		this(driverClass, url, userName, password, DEFAULT_MAX_IDLE);
+	}
+
+	public ConnectionManager(String driverClass, String url, String userName, String password, int maxIdle) {
 		_driverClass = driverClass;
 		_url = url;
 		_userName = userName;
 		_password = password;
+		_maxIdle = maxIdle;
 	}
 
+	/**
+	 * Create a query on a pooled connection. The connection goes back to the pool when the query is closed.
+	 */
 	public Query getQuery(String sql) throws SQLException, JWNLException {
-		return new Query(sql, getConnection());
+		return new Query(sql, checkOut(), this);
+	}
+
+	/**
+	 * Take an idle connection from the pool, or open a new one if there is none.
+	 */
+	public PooledConnection checkOut() throws SQLException, JWNLException {
+		synchronized (_idle) {
+			if (!_idle.isEmpty()) {
+				return (PooledConnection) _idle.removeFirst();
+			}
+		}
+		return new PooledConnection(getConnection());
+	}
+
+	/**
+	 * Return a connection to the pool, or close it if the pool is full.
+	 */
+	public void release(PooledConnection connection) {
+		if (connection.isClosed()) {
+			return;
+		}
+		synchronized (_idle) {
+			if (_idle.size() < _maxIdle) {
+				_idle.addFirst(connection);
+				return;
+			}
+		}
+		connection.close();
+	}
+
+	/** Return the number of idle connections in the pool */
+	public int getIdleCount() {
+		synchronized (_idle) {
+			return _idle.size();
+		}
+	}
+
+	/** Close all idle connections */
+	public void close() {
+		synchronized (_idle) {
+			for (Iterator itr = _idle.iterator(); itr.hasNext();) {
+				((PooledConnection) itr.next()).close();
+			}
+			_idle.clear();
+		}
 	}
 
+	/**
+	 * Open a new connection, which is not pooled.
+	 */
 	public Connection getConnection() throws SQLException, JWNLException  {
 		registerDriver();
 		if (_userName == null ) {
@@ -35,7 +104,7 @@ public class ConnectionManager {
 		}
 	}
 
-	private void registerDriver() throws JWNLException {
+	private synchronized void registerDriver() throws JWNLException {
 		if (!_registered) {
 			try {
 				Driver driver = (Driver) Class.forName(_driverClass).newInstance();
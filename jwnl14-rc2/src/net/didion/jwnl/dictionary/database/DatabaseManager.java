@@ -15,6 +15,16 @@ public interface DatabaseManager {
 	Query getVerbFrameQuery(POS pos, long offset) throws JWNLException;
     Query getSynsetsQuery(POS pos) throws JWNLException;
 
+	/*
+	 * Batch queries select the rows of several synsets at once. Their columns are those of the query
+	 * for a single synset followed by the offset of the synset, and their rows are ordered by offset.
+	 * See BatchResults.
+	 */
+	Query getSynsetBatchQuery(POS pos, long[] offsets) throws JWNLException;
+	Query getSynsetWordBatchQuery(POS pos, long[] offsets) throws JWNLException;
+	Query getPointerBatchQuery(POS pos, long[] offsets) throws JWNLException;
+	Query getVerbFrameBatchQuery(POS pos, long[] offsets) throws JWNLException;
+
 	Query getExceptionQuery(POS pos, String derivation) throws JWNLException;
 	Query getExceptionsQuery(POS pos) throws JWNLException;
 }
\ No newline at end of file
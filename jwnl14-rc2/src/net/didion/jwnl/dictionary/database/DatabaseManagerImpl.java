@@ -55,6 +55,32 @@ public class DatabaseManagerImpl implements DatabaseManager, Createable {
             "FROM Synset s, SynsetVerbFrame svf " +
             "WHERE s.synset_id = svf.synset_id AND s.pos = ? AND s.file_offset = ?";
 
+    /** Batch queries; {0} is replaced by the placeholders of the offsets */
+    protected static final String SYNSET_BATCH_SQL =
+            "SELECT is_adj_cluster, gloss, file_offset FROM Synset " +
+            "WHERE pos = ? AND file_offset IN ({0}) ORDER BY file_offset";
+
+    protected static final String SYNSET_WORD_BATCH_SQL =
+            "SELECT sw.word, sw.word_index, s.file_offset " +
+            "FROM Synset s, SynsetWord sw " +
+            "WHERE s.synset_id = sw.synset_id AND s.pos = ? AND s.file_offset IN ({0}) " +
+            "ORDER BY s.file_offset, sw.word_index";
+
+    protected static final String SYNSET_POINTER_BATCH_SQL =
+            "SELECT sp.pointer_type, sp.target_offset, sp.target_pos, sp.source_index, sp.target_index, s.file_offset " +
+            "FROM Synset s, SynsetPointer sp " +
+            "WHERE s.synset_id = sp.synset_id AND s.pos = ? AND s.file_offset IN ({0}) " +
+            "ORDER BY s.file_offset, sp.synset_pointer_id";
+
+    protected static final String SYNSET_VERB_FRAME_BATCH_SQL =
+            "SELECT svf.frame_number, svf.word_index, s.file_offset " +
+            "FROM Synset s, SynsetVerbFrame svf " +
+            "WHERE s.synset_id = svf.synset_id AND s.pos = ? AND s.file_offset IN ({0}) " +
+            "ORDER BY s.file_offset";
+
+    /** The smallest number of placeholders in a batch query */
+    private static final int MIN_BATCH_PARAMETERS = 8;
+
     protected static final String ALL_SYNSETS_SQL =
             "SELECT offset FROM Synset WHERE pos = ?";
 
@@ -155,6 +181,22 @@ public class DatabaseManagerImpl implements DatabaseManager, Createable {
         return createPOSQuery(pos, ALL_SYNSETS_SQL);
     }
 
+    public Query getSynsetBatchQuery(POS pos, long[] offsets) throws JWNLException {
+        return createPOSOffsetsQuery(pos, offsets, SYNSET_BATCH_SQL);
+    }
+
+    public Query getSynsetWordBatchQuery(POS pos, long[] offsets) throws JWNLException {
+        return createPOSOffsetsQuery(pos, offsets, SYNSET_WORD_BATCH_SQL);
+    }
+
+    public Query getPointerBatchQuery(POS pos, long[] offsets) throws JWNLException {
+        return createPOSOffsetsQuery(pos, offsets, SYNSET_POINTER_BATCH_SQL);
+    }
+
+    public Query getVerbFrameBatchQuery(POS pos, long[] offsets) throws JWNLException {
+        return createPOSOffsetsQuery(pos, offsets, SYNSET_VERB_FRAME_BATCH_SQL);
+    }
+
     public Query getExceptionQuery(POS pos, String derivation) throws JWNLException {
         return createPOSStringQuery(pos, derivation, EXCEPTION_SQL);
     }
@@ -207,6 +249,35 @@ public class DatabaseManagerImpl implements DatabaseManager, Createable {
         }
     }
 
+    /**
+     * Create a batch query for <var>offsets</var>. The number of placeholders is rounded up to a power
+     * of two, and the extra ones repeat the last offset, so that few distinct statements are prepared.
+     */
+    protected Query createPOSOffsetsQuery(POS pos, long[] offsets, String sql) throws JWNLException {
+        int count = MIN_BATCH_PARAMETERS;
+        while (count < offsets.length) {
+            count *= 2;
+        }
+        StringBuffer params = new StringBuffer("?");
+        for (int i = 1; i < count; i++) {
+            params.append(",?");
+        }
+        Query query = null;
+        try {
+            query = _connectionManager.getQuery(sql.replace("{0}", params));
+            query.getStatement().setString(1, pos.getKey());
+            for (int i = 0; i < count; i++) {
+                query.getStatement().setLong(i + 2, offsets[Math.min(i, offsets.length - 1)]);
+            }
+            return query;
+        } catch (SQLException ex) {
+            if (query != null) {
+                query.close();
+            }
+            throw new JWNLException("DICTIONARY_EXCEPTION_023", ex);
+        }
+    }
+
     protected Query createPOSIdQuery(POS pos, int id, String sql) throws JWNLException {
         Query query = null;
         try {
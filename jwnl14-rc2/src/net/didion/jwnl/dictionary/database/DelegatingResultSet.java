@@ -0,0 +1,803 @@
+package net.didion.jwnl.dictionary.database;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * A result set that passes every call to another result set. Subclasses override the calls
+ * they change.
+ */
+class DelegatingResultSet implements ResultSet {
+	protected ResultSet _results;
+
+	public DelegatingResultSet(ResultSet results) {
+		_results = results;
+	}
+
+	public boolean absolute(int row) throws SQLException {
+		return _results.absolute(row);
+	}
+
+	public void afterLast() throws SQLException {
+		_results.afterLast();
+	}
+
+	public void beforeFirst() throws SQLException {
+		_results.beforeFirst();
+	}
+
+	public void cancelRowUpdates() throws SQLException {
+		_results.cancelRowUpdates();
+	}
+
+	public void clearWarnings() throws SQLException {
+		_results.clearWarnings();
+	}
+
+	public void close() throws SQLException {
+		_results.close();
+	}
+
+	public void deleteRow() throws SQLException {
+		_results.deleteRow();
+	}
+
+	public int findColumn(String columnLabel) throws SQLException {
+		return _results.findColumn(columnLabel);
+	}
+
+	public boolean first() throws SQLException {
+		return _results.first();
+	}
+
+	public Array getArray(String columnLabel) throws SQLException {
+		return _results.getArray(columnLabel);
+	}
+
+	public Array getArray(int columnIndex) throws SQLException {
+		return _results.getArray(columnIndex);
+	}
+
+	public InputStream getAsciiStream(String columnLabel) throws SQLException {
+		return _results.getAsciiStream(columnLabel);
+	}
+
+	public InputStream getAsciiStream(int columnIndex) throws SQLException {
+		return _results.getAsciiStream(columnIndex);
+	}
+
+	@Deprecated
+	public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+		return _results.getBigDecimal(columnLabel, scale);
+	}
+
+	public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+		return _results.getBigDecimal(columnLabel);
+	}
+
+	@Deprecated
+	public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+		return _results.getBigDecimal(columnIndex, scale);
+	}
+
+	public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+		return _results.getBigDecimal(columnIndex);
+	}
+
+	public InputStream getBinaryStream(String columnLabel) throws SQLException {
+		return _results.getBinaryStream(columnLabel);
+	}
+
+	public InputStream getBinaryStream(int columnIndex) throws SQLException {
+		return _results.getBinaryStream(columnIndex);
+	}
+
+	public Blob getBlob(String columnLabel) throws SQLException {
+		return _results.getBlob(columnLabel);
+	}
+
+	public Blob getBlob(int columnIndex) throws SQLException {
+		return _results.getBlob(columnIndex);
+	}
+
+	public boolean getBoolean(String columnLabel) throws SQLException {
+		return _results.getBoolean(columnLabel);
+	}
+
+	public boolean getBoolean(int columnIndex) throws SQLException {
+		return _results.getBoolean(columnIndex);
+	}
+
+	public byte getByte(String columnLabel) throws SQLException {
+		return _results.getByte(columnLabel);
+	}
+
+	public byte getByte(int columnIndex) throws SQLException {
+		return _results.getByte(columnIndex);
+	}
+
+	public byte[] getBytes(String columnLabel) throws SQLException {
+		return _results.getBytes(columnLabel);
+	}
+
+	public byte[] getBytes(int columnIndex) throws SQLException {
+		return _results.getBytes(columnIndex);
+	}
+
+	public Reader getCharacterStream(String columnLabel) throws SQLException {
+		return _results.getCharacterStream(columnLabel);
+	}
+
+	public Reader getCharacterStream(int columnIndex) throws SQLException {
+		return _results.getCharacterStream(columnIndex);
+	}
+
+	public Clob getClob(String columnLabel) throws SQLException {
+		return _results.getClob(columnLabel);
+	}
+
+	public Clob getClob(int columnIndex) throws SQLException {
+		return _results.getClob(columnIndex);
+	}
+
+	public int getConcurrency() throws SQLException {
+		return _results.getConcurrency();
+	}
+
+	public String getCursorName() throws SQLException {
+		return _results.getCursorName();
+	}
+
+	public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+		return _results.getDate(columnLabel, cal);
+	}
+
+	public Date getDate(String columnLabel) throws SQLException {
+		return _results.getDate(columnLabel);
+	}
+
+	public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+		return _results.getDate(columnIndex, cal);
+	}
+
+	public Date getDate(int columnIndex) throws SQLException {
+		return _results.getDate(columnIndex);
+	}
+
+	public double getDouble(String columnLabel) throws SQLException {
+		return _results.getDouble(columnLabel);
+	}
+
+	public double getDouble(int columnIndex) throws SQLException {
+		return _results.getDouble(columnIndex);
+	}
+
+	public int getFetchDirection() throws SQLException {
+		return _results.getFetchDirection();
+	}
+
+	public int getFetchSize() throws SQLException {
+		return _results.getFetchSize();
+	}
+
+	public float getFloat(String columnLabel) throws SQLException {
+		return _results.getFloat(columnLabel);
+	}
+
+	public float getFloat(int columnIndex) throws SQLException {
+		return _results.getFloat(columnIndex);
+	}
+
+	public int getHoldability() throws SQLException {
+		return _results.getHoldability();
+	}
+
+	public int getInt(String columnLabel) throws SQLException {
+		return _results.getInt(columnLabel);
+	}
+
+	public int getInt(int columnIndex) throws SQLException {
+		return _results.getInt(columnIndex);
+	}
+
+	public long getLong(String columnLabel) throws SQLException {
+		return _results.getLong(columnLabel);
+	}
+
+	public long getLong(int columnIndex) throws SQLException {
+		return _results.getLong(columnIndex);
+	}
+
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return _results.getMetaData();
+	}
+
+	public Reader getNCharacterStream(String columnLabel) throws SQLException {
+		return _results.getNCharacterStream(columnLabel);
+	}
+
+	public Reader getNCharacterStream(int columnIndex) throws SQLException {
+		return _results.getNCharacterStream(columnIndex);
+	}
+
+	public NClob getNClob(String columnLabel) throws SQLException {
+		return _results.getNClob(columnLabel);
+	}
+
+	public NClob getNClob(int columnIndex) throws SQLException {
+		return _results.getNClob(columnIndex);
+	}
+
+	public String getNString(String columnLabel) throws SQLException {
+		return _results.getNString(columnLabel);
+	}
+
+	public String getNString(int columnIndex) throws SQLException {
+		return _results.getNString(columnIndex);
+	}
+
+	public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+		return _results.getObject(columnLabel, type);
+	}
+
+	public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+		return _results.getObject(columnLabel, map);
+	}
+
+	public Object getObject(String columnLabel) throws SQLException {
+		return _results.getObject(columnLabel);
+	}
+
+	public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+		return _results.getObject(columnIndex, type);
+	}
+
+	public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+		return _results.getObject(columnIndex, map);
+	}
+
+	public Object getObject(int columnIndex) throws SQLException {
+		return _results.getObject(columnIndex);
+	}
+
+	public Ref getRef(String columnLabel) throws SQLException {
+		return _results.getRef(columnLabel);
+	}
+
+	public Ref getRef(int columnIndex) throws SQLException {
+		return _results.getRef(columnIndex);
+	}
+
+	public int getRow() throws SQLException {
+		return _results.getRow();
+	}
+
+	public RowId getRowId(String columnLabel) throws SQLException {
+		return _results.getRowId(columnLabel);
+	}
+
+	public RowId getRowId(int columnIndex) throws SQLException {
+		return _results.getRowId(columnIndex);
+	}
+
+	public SQLXML getSQLXML(String columnLabel) throws SQLException {
+		return _results.getSQLXML(columnLabel);
+	}
+
+	public SQLXML getSQLXML(int columnIndex) throws SQLException {
+		return _results.getSQLXML(columnIndex);
+	}
+
+	public short getShort(String columnLabel) throws SQLException {
+		return _results.getShort(columnLabel);
+	}
+
+	public short getShort(int columnIndex) throws SQLException {
+		return _results.getShort(columnIndex);
+	}
+
+	public Statement getStatement() throws SQLException {
+		return _results.getStatement();
+	}
+
+	public String getString(String columnLabel) throws SQLException {
+		return _results.getString(columnLabel);
+	}
+
+	public String getString(int columnIndex) throws SQLException {
+		return _results.getString(columnIndex);
+	}
+
+	public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+		return _results.getTime(columnLabel, cal);
+	}
+
+	public Time getTime(String columnLabel) throws SQLException {
+		return _results.getTime(columnLabel);
+	}
+
+	public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+		return _results.getTime(columnIndex, cal);
+	}
+
+	public Time getTime(int columnIndex) throws SQLException {
+		return _results.getTime(columnIndex);
+	}
+
+	public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+		return _results.getTimestamp(columnLabel, cal);
+	}
+
+	public Timestamp getTimestamp(String columnLabel) throws SQLException {
+		return _results.getTimestamp(columnLabel);
+	}
+
+	public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+		return _results.getTimestamp(columnIndex, cal);
+	}
+
+	public Timestamp getTimestamp(int columnIndex) throws SQLException {
+		return _results.getTimestamp(columnIndex);
+	}
+
+	public int getType() throws SQLException {
+		return _results.getType();
+	}
+
+	public URL getURL(String columnLabel) throws SQLException {
+		return _results.getURL(columnLabel);
+	}
+
+	public URL getURL(int columnIndex) throws SQLException {
+		return _results.getURL(columnIndex);
+	}
+
+	@Deprecated
+	public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+		return _results.getUnicodeStream(columnLabel);
+	}
+
+	@Deprecated
+	public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+		return _results.getUnicodeStream(columnIndex);
+	}
+
+	public SQLWarning getWarnings() throws SQLException {
+		return _results.getWarnings();
+	}
+
+	public void insertRow() throws SQLException {
+		_results.insertRow();
+	}
+
+	public boolean isAfterLast() throws SQLException {
+		return _results.isAfterLast();
+	}
+
+	public boolean isBeforeFirst() throws SQLException {
+		return _results.isBeforeFirst();
+	}
+
+	public boolean isClosed() throws SQLException {
+		return _results.isClosed();
+	}
+
+	public boolean isFirst() throws SQLException {
+		return _results.isFirst();
+	}
+
+	public boolean isLast() throws SQLException {
+		return _results.isLast();
+	}
+
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return _results.isWrapperFor(iface);
+	}
+
+	public boolean last() throws SQLException {
+		return _results.last();
+	}
+
+	public void moveToCurrentRow() throws SQLException {
+		_results.moveToCurrentRow();
+	}
+
+	public void moveToInsertRow() throws SQLException {
+		_results.moveToInsertRow();
+	}
+
+	public boolean next() throws SQLException {
+		return _results.next();
+	}
+
+	public boolean previous() throws SQLException {
+		return _results.previous();
+	}
+
+	public void refreshRow() throws SQLException {
+		_results.refreshRow();
+	}
+
+	public boolean relative(int rows) throws SQLException {
+		return _results.relative(rows);
+	}
+
+	public boolean rowDeleted() throws SQLException {
+		return _results.rowDeleted();
+	}
+
+	public boolean rowInserted() throws SQLException {
+		return _results.rowInserted();
+	}
+
+	public boolean rowUpdated() throws SQLException {
+		return _results.rowUpdated();
+	}
+
+	public void setFetchDirection(int direction) throws SQLException {
+		_results.setFetchDirection(direction);
+	}
+
+	public void setFetchSize(int rows) throws SQLException {
+		_results.setFetchSize(rows);
+	}
+
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return _results.unwrap(iface);
+	}
+
+	public void updateArray(String columnLabel, Array x) throws SQLException {
+		_results.updateArray(columnLabel, x);
+	}
+
+	public void updateArray(int columnIndex, Array x) throws SQLException {
+		_results.updateArray(columnIndex, x);
+	}
+
+	public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+		_results.updateAsciiStream(columnLabel, x, length);
+	}
+
+	public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+		_results.updateAsciiStream(columnLabel, x, length);
+	}
+
+	public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+		_results.updateAsciiStream(columnLabel, x);
+	}
+
+	public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+		_results.updateAsciiStream(columnIndex, x, length);
+	}
+
+	public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+		_results.updateAsciiStream(columnIndex, x, length);
+	}
+
+	public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+		_results.updateAsciiStream(columnIndex, x);
+	}
+
+	public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+		_results.updateBigDecimal(columnLabel, x);
+	}
+
+	public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+		_results.updateBigDecimal(columnIndex, x);
+	}
+
+	public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+		_results.updateBinaryStream(columnLabel, x, length);
+	}
+
+	public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+		_results.updateBinaryStream(columnLabel, x, length);
+	}
+
+	public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+		_results.updateBinaryStream(columnLabel, x);
+	}
+
+	public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+		_results.updateBinaryStream(columnIndex, x, length);
+	}
+
+	public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+		_results.updateBinaryStream(columnIndex, x, length);
+	}
+
+	public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+		_results.updateBinaryStream(columnIndex, x);
+	}
+
+	public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
+		_results.updateBlob(columnLabel, inputStream, length);
+	}
+
+	public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
+		_results.updateBlob(columnLabel, inputStream);
+	}
+
+	public void updateBlob(String columnLabel, Blob x) throws SQLException {
+		_results.updateBlob(columnLabel, x);
+	}
+
+	public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
+		_results.updateBlob(columnIndex, inputStream, length);
+	}
+
+	public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
+		_results.updateBlob(columnIndex, inputStream);
+	}
+
+	public void updateBlob(int columnIndex, Blob x) throws SQLException {
+		_results.updateBlob(columnIndex, x);
+	}
+
+	public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+		_results.updateBoolean(columnLabel, x);
+	}
+
+	public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+		_results.updateBoolean(columnIndex, x);
+	}
+
+	public void updateByte(String columnLabel, byte x) throws SQLException {
+		_results.updateByte(columnLabel, x);
+	}
+
+	public void updateByte(int columnIndex, byte x) throws SQLException {
+		_results.updateByte(columnIndex, x);
+	}
+
+	public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+		_results.updateBytes(columnLabel, x);
+	}
+
+	public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+		_results.updateBytes(columnIndex, x);
+	}
+
+	public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
+		_results.updateCharacterStream(columnLabel, reader, length);
+	}
+
+	public void updateCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+		_results.updateCharacterStream(columnLabel, reader, length);
+	}
+
+	public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
+		_results.updateCharacterStream(columnLabel, reader);
+	}
+
+	public void updateCharacterStream(int columnIndex, Reader reader, int length) throws SQLException {
+		_results.updateCharacterStream(columnIndex, reader, length);
+	}
+
+	public void updateCharacterStream(int columnIndex, Reader reader, long length) throws SQLException {
+		_results.updateCharacterStream(columnIndex, reader, length);
+	}
+
+	public void updateCharacterStream(int columnIndex, Reader reader) throws SQLException {
+		_results.updateCharacterStream(columnIndex, reader);
+	}
+
+	public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+		_results.updateClob(columnLabel, reader, length);
+	}
+
+	public void updateClob(String columnLabel, Reader reader) throws SQLException {
+		_results.updateClob(columnLabel, reader);
+	}
+
+	public void updateClob(String columnLabel, Clob x) throws SQLException {
+		_results.updateClob(columnLabel, x);
+	}
+
+	public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+		_results.updateClob(columnIndex, reader, length);
+	}
+
+	public void updateClob(int columnIndex, Reader reader) throws SQLException {
+		_results.updateClob(columnIndex, reader);
+	}
+
+	public void updateClob(int columnIndex, Clob x) throws SQLException {
+		_results.updateClob(columnIndex, x);
+	}
+
+	public void updateDate(String columnLabel, Date x) throws SQLException {
+		_results.updateDate(columnLabel, x);
+	}
+
+	public void updateDate(int columnIndex, Date x) throws SQLException {
+		_results.updateDate(columnIndex, x);
+	}
+
+	public void updateDouble(String columnLabel, double x) throws SQLException {
+		_results.updateDouble(columnLabel, x);
+	}
+
+	public void updateDouble(int columnIndex, double x) throws SQLException {
+		_results.updateDouble(columnIndex, x);
+	}
+
+	public void updateFloat(String columnLabel, float x) throws SQLException {
+		_results.updateFloat(columnLabel, x);
+	}
+
+	public void updateFloat(int columnIndex, float x) throws SQLException {
+		_results.updateFloat(columnIndex, x);
+	}
+
+	public void updateInt(String columnLabel, int length) throws SQLException {
+		_results.updateInt(columnLabel, length);
+	}
+
+	public void updateInt(int columnIndex, int length) throws SQLException {
+		_results.updateInt(columnIndex, length);
+	}
+
+	public void updateLong(String columnLabel, long length) throws SQLException {
+		_results.updateLong(columnLabel, length);
+	}
+
+	public void updateLong(int columnIndex, long length) throws SQLException {
+		_results.updateLong(columnIndex, length);
+	}
+
+	public void updateNCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+		_results.updateNCharacterStream(columnLabel, reader, length);
+	}
+
+	public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
+		_results.updateNCharacterStream(columnLabel, reader);
+	}
+
+	public void updateNCharacterStream(int columnIndex, Reader reader, long length) throws SQLException {
+		_results.updateNCharacterStream(columnIndex, reader, length);
+	}
+
+	public void updateNCharacterStream(int columnIndex, Reader reader) throws SQLException {
+		_results.updateNCharacterStream(columnIndex, reader);
+	}
+
+	public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+		_results.updateNClob(columnLabel, reader, length);
+	}
+
+	public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+		_results.updateNClob(columnLabel, reader);
+	}
+
+	public void updateNClob(String columnLabel, NClob x) throws SQLException {
+		_results.updateNClob(columnLabel, x);
+	}
+
+	public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+		_results.updateNClob(columnIndex, reader, length);
+	}
+
+	public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+		_results.updateNClob(columnIndex, reader);
+	}
+
+	public void updateNClob(int columnIndex, NClob x) throws SQLException {
+		_results.updateNClob(columnIndex, x);
+	}
+
+	public void updateNString(String columnLabel, String x) throws SQLException {
+		_results.updateNString(columnLabel, x);
+	}
+
+	public void updateNString(int columnIndex, String x) throws SQLException {
+		_results.updateNString(columnIndex, x);
+	}
+
+	public void updateNull(String columnLabel) throws SQLException {
+		_results.updateNull(columnLabel);
+	}
+
+	public void updateNull(int columnIndex) throws SQLException {
+		_results.updateNull(columnIndex);
+	}
+
+	public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+		_results.updateObject(columnLabel, x, scaleOrLength);
+	}
+
+	public void updateObject(String columnLabel, Object x) throws SQLException {
+		_results.updateObject(columnLabel, x);
+	}
+
+	public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+		_results.updateObject(columnIndex, x, scaleOrLength);
+	}
+
+	public void updateObject(int columnIndex, Object x) throws SQLException {
+		_results.updateObject(columnIndex, x);
+	}
+
+	public void updateRef(String columnLabel, Ref x) throws SQLException {
+		_results.updateRef(columnLabel, x);
+	}
+
+	public void updateRef(int columnIndex, Ref x) throws SQLException {
+		_results.updateRef(columnIndex, x);
+	}
+
+	public void updateRow() throws SQLException {
+		_results.updateRow();
+	}
+
+	public void updateRowId(String columnLabel, RowId x) throws SQLException {
+		_results.updateRowId(columnLabel, x);
+	}
+
+	public void updateRowId(int columnIndex, RowId x) throws SQLException {
+		_results.updateRowId(columnIndex, x);
+	}
+
+	public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+		_results.updateSQLXML(columnLabel, x);
+	}
+
+	public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+		_results.updateSQLXML(columnIndex, x);
+	}
+
+	public void updateShort(String columnLabel, short x) throws SQLException {
+		_results.updateShort(columnLabel, x);
+	}
+
+	public void updateShort(int columnIndex, short x) throws SQLException {
+		_results.updateShort(columnIndex, x);
+	}
+
+	public void updateString(String columnLabel, String x) throws SQLException {
+		_results.updateString(columnLabel, x);
+	}
+
+	public void updateString(int columnIndex, String x) throws SQLException {
+		_results.updateString(columnIndex, x);
+	}
+
+	public void updateTime(String columnLabel, Time x) throws SQLException {
+		_results.updateTime(columnLabel, x);
+	}
+
+	public void updateTime(int columnIndex, Time x) throws SQLException {
+		_results.updateTime(columnIndex, x);
+	}
+
+	public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+		_results.updateTimestamp(columnLabel, x);
+	}
+
+	public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+		_results.updateTimestamp(columnIndex, x);
+	}
+
+	public boolean wasNull() throws SQLException {
+		return _results.wasNull();
+	}
+}
@@ -0,0 +1,57 @@
+package net.didion.jwnl.dictionary.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A connection kept by a <code>ConnectionManager</code> for reuse, together with the statements
+ * that have been prepared on it. A pooled connection is used by one <code>Query</code> at a time.
+ */
+public class PooledConnection {
+	private Connection _connection;
+	private Map _statements = new HashMap();
+
+	public PooledConnection(Connection connection) {
+		_connection = connection;
+	}
+
+	public Connection getConnection() {
+		return _connection;
+	}
+
+	/**
+	 * Return the statement for <var>sql</var>, preparing it the first time it is asked for.
+	 */
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		PreparedStatement statement = (PreparedStatement) _statements.get(sql);
+		if (statement == null) {
+			statement = _connection.prepareStatement(sql);
+			_statements.put(sql, statement);
+		}
+		return statement;
+	}
+
+	public boolean isClosed() {
+		try {
+			return _connection.isClosed();
+		} catch (SQLException ex) {
+			return true;
+		}
+	}
+
+	public void close() {
+		for (Iterator itr = _statements.values().iterator(); itr.hasNext();) {
+			try {
+				((PreparedStatement) itr.next()).close();
+			} catch (SQLException ex) {}
+		}
+		_statements.clear();
+		try {
+			_connection.close();
+		} catch (SQLException ex) {}
+	}
+}
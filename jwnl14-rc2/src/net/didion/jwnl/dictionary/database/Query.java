@@ -12,12 +12,24 @@ public class Query {
 	private PreparedStatement _statement;
 	private ResultSet _results;
 	private String _sql;
+	private PooledConnection _pooled;
+	private ConnectionManager _manager;
 
 	public Query(String sql, Connection conn) {
 		_connection = conn;
 		_sql = sql;
 	}
 
+	/**
+	 * Create a query on a pooled connection. Its statement is kept with the connection, and
+	 * both are returned to <var>manager</var> when the query is closed.
+	 */
+	public Query(String sql, PooledConnection conn, ConnectionManager manager) {
+		this(sql, conn.getConnection());
+		_pooled = conn;
+		_manager = manager;
+	}
+
 	public ResultSet execute() throws SQLException {
 		if (isExecuted()) {
 			throw new JWNLRuntimeException("DICTIONARY_EXCEPTION_025");
@@ -35,7 +47,7 @@ public class Query {
 
 	public PreparedStatement getStatement() throws SQLException {
 		if (_statement == null) {
-			_statement = _connection.prepareStatement(_sql);
+			_statement = (_pooled != null) ? _pooled.prepareStatement(_sql) : _connection.prepareStatement(_sql);
 		}
 		return _statement;
 	}
@@ -51,6 +63,18 @@ public class Query {
 				_results = null;
 			} catch (SQLException ex) {}
 		}
+		if (_pooled != null) {
+			if (_statement != null) {
+				try {
+					_statement.clearParameters();
+				} catch (SQLException ex) {}
+				_statement = null;
+			}
+			_connection = null;
+			_manager.release(_pooled);
+			_pooled = null;
+			return;
+		}
 		if (_statement != null) {
 			try {
 				_statement.close();
@@ -21,6 +21,15 @@ public class SenseAndUsageDatabaseManager extends DatabaseManagerImpl implements
         "SELECT sw.word, sw.word_index, sw.sense_key, sw.usage_cnt " +
         "FROM Synset s, SynsetWord sw " +
         "WHERE s.synset_id = sw.synset_id AND s.pos = ? AND s.file_offset = ?";
+
+    /**
+     * The SQL statement to grab the synset words of several synsets.
+     */
+    protected static final String SENSE_SYNSET_WORD_BATCH_SQL =
+        "SELECT sw.word, sw.word_index, sw.sense_key, sw.usage_cnt, s.file_offset " +
+        "FROM Synset s, SynsetWord sw " +
+        "WHERE s.synset_id = sw.synset_id AND s.pos = ? AND s.file_offset IN ({0}) " +
+        "ORDER BY s.file_offset, sw.word_index";
     
     /**
      * Create a new database manager with no connection.  
@@ -54,5 +63,12 @@ public class SenseAndUsageDatabaseManager extends DatabaseManagerImpl implements
     public Query getSynsetWordQuery(POS pos, long offset) throws JWNLException {
         return createPOSOffsetQuery(pos, offset, SENSE_SYNSET_WORD_SQL);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Query getSynsetWordBatchQuery(POS pos, long[] offsets) throws JWNLException {
+        return createPOSOffsetsQuery(pos, offsets, SENSE_SYNSET_WORD_BATCH_SQL);
+    }
     
 }
@@ -0,0 +1,20 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.dictionary.file;
+
+import java.io.IOException;
+
+/**
+ * <code>DictionaryFile</code> that reads bytes at an absolute position instead of at a file pointer.
+ * Since reads do not change any state, any number of threads can read the same file at once without
+ * locking it.
+ */
+public interface PositionalDictionaryFile extends DictionaryFile {
+	/** Read the byte at position <var>pos</var> in the file, or -1 if <var>pos</var> is at or past the end */
+	public int read(long pos) throws IOException;
+
+	/** Get the length, in bytes, of the file */
+	public long length() throws IOException;
+}
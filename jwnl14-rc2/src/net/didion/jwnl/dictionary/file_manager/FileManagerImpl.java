@@ -17,6 +17,7 @@ import net.didion.jwnl.data.POS;
 import net.didion.jwnl.dictionary.file.DictionaryCatalogSet;
 import net.didion.jwnl.dictionary.file.DictionaryFile;
 import net.didion.jwnl.dictionary.file.DictionaryFileType;
+import net.didion.jwnl.dictionary.file.PositionalDictionaryFile;
 import net.didion.jwnl.dictionary.file.RandomAccessDictionaryFile;
 import net.didion.jwnl.util.Grep;
 import net.didion.jwnl.util.factory.Param;
@@ -26,6 +27,10 @@ import net.didion.jwnl.util.factory.Param;
  * <code>FileManagerImpl</code> caches the file position before and after <code>readLineAt</code>
  * in order to eliminate the redundant IO activity that a naive implementation of these methods
  * would necessitate.
+ * <p>
+ * Reads from a <code>RandomAccessDictionaryFile</code> move its file pointer, so they are synchronized
+ * on the file. A <code>PositionalDictionaryFile</code> is read without a file pointer and without locks,
+ * so any number of threads can look up words in the same file at once.
  */
 public class FileManagerImpl implements FileManager {
     
@@ -147,6 +152,9 @@ public class FileManagerImpl implements FileManager {
      * {@inheritDoc}
 	 */
 	public String readLineAt(POS pos, DictionaryFileType fileType, long offset) throws IOException {
+		if (getFile(pos, fileType) instanceof PositionalDictionaryFile) {
+			return readLine((PositionalDictionaryFile)getFile(pos, fileType), offset);
+		}
 		RandomAccessDictionaryFile file = (RandomAccessDictionaryFile)getFile(pos, fileType);
 		synchronized (file) {
 			file.seek(offset);
@@ -180,6 +188,9 @@ public class FileManagerImpl implements FileManager {
      * {@inheritDoc}
      */
 	public long getNextLinePointer(POS pos, DictionaryFileType fileType, long offset) throws IOException {
+		if (getFile(pos, fileType) instanceof PositionalDictionaryFile) {
+			return nextLineOffset((PositionalDictionaryFile)getFile(pos, fileType), offset);
+		}
 		RandomAccessDictionaryFile file = (RandomAccessDictionaryFile)getFile(pos, fileType);
 		synchronized (file) {
 			if (file.isPreviousLineOffset(offset) && offset != file.getNextLineOffset()) {
@@ -197,6 +208,13 @@ public class FileManagerImpl implements FileManager {
 	public long getMatchingLinePointer(POS pos, DictionaryFileType fileType, long offset, String substring)
 	    throws IOException {
 
+		if (getFile(pos, fileType) instanceof PositionalDictionaryFile) {
+			PositionalDictionaryFile file = (PositionalDictionaryFile)getFile(pos, fileType);
+			for (long length = file.length(); offset < length; offset = nextLineOffset(file, offset)) {
+				if (readLineWord(file, offset).indexOf(substring) >= 0) return offset;
+			}
+			return -1;
+		}
 		RandomAccessDictionaryFile file = (RandomAccessDictionaryFile)getFile(pos, fileType);
 		if (file == null || file.length() == 0) return -1;
 
@@ -219,6 +237,9 @@ public class FileManagerImpl implements FileManager {
      * by using an offset and string comparison algorithm. 
      */
 	public long getIndexedLinePointer(POS pos, DictionaryFileType fileType, String target) throws IOException {
+		if (getFile(pos, fileType) instanceof PositionalDictionaryFile) {
+			return getIndexedLinePointer((PositionalDictionaryFile)getFile(pos, fileType), target);
+		}
 		RandomAccessDictionaryFile file = (RandomAccessDictionaryFile)getFile(pos, fileType);
 		if (file == null || file.length() == 0) {
 			return -1;
@@ -264,11 +285,104 @@ public class FileManagerImpl implements FileManager {
 		}
 	}
 
+	/**
+	 * The same search as {@link #getIndexedLinePointer(POS, DictionaryFileType, String)}, keeping the
+	 * position in local variables instead of in the file.
+	 */
+	private long getIndexedLinePointer(PositionalDictionaryFile file, String target) throws IOException {
+		if (file == null || file.length() == 0) {
+			return -1;
+		}
+		long start = 0;
+		long stop = file.length();
+		long offset, midpoint;
+		int compare;
+		String word;
+		while (true) {
+			midpoint = (start + stop) / 2;
+			offset = nextLineOffset(file, midpoint);
+			if (stop == offset) {
+				for (offset = start; offset != stop; offset = nextLineOffset(file, offset)) {
+					if (readLineWord(file, offset).equals(target)) {
+						return offset;
+					}
+				}
+				return -1;
+			}
+			word = readLineWord(file, offset);
+			compare = word.compareTo(target);
+			if (compare == 0) {
+				return offset;
+			} else if (compare > 0) {
+				stop = offset;
+			} else {
+				start = offset;
+			}
+		}
+	}
+
+	/**
+	 * Reads the line starting at <var>offset</var>, or returns null at the end of the file.
+	 */
+	private String readLine(PositionalDictionaryFile file, long offset) throws IOException {
+		int c = file.read(offset);
+		if (c == -1) {
+			return null;
+		}
+		StringBuffer input = new StringBuffer();
+		for (; c != -1 && c != '\n' && c != '\r'; c = file.read(++offset)) {
+			input.append((char) c);
+		}
+		return input.toString();
+	}
+
+	/**
+	 * Reads the first word of the line starting at <var>offset</var>.
+	 */
+	private String readLineWord(PositionalDictionaryFile file, long offset) throws IOException {
+		StringBuffer input = new StringBuffer();
+		int c;
+		while (((c = file.read(offset++)) != -1) && c != '\n' && c != '\r' && c != ' ') {
+			input.append((char) c);
+		}
+		return input.toString();
+	}
+
+	/**
+	 * Returns the offset of the line after the one containing <var>offset</var>. A line ends
+	 * with "\n", "\r" or "\r\n", as in <code>RandomAccessFile.readLine()</code>.
+	 */
+	private long nextLineOffset(PositionalDictionaryFile file, long offset) throws IOException {
+		int c;
+		while ((c = file.read(offset)) != -1) {
+			offset++;
+			if (c == '\n') {
+				break;
+			} else if (c == '\r') {
+				if (file.read(offset) == '\n') {
+					offset++;
+				}
+				break;
+			}
+		}
+		return offset;
+	}
+
+	/**
+	 * Get the length, in bytes, of a random-access or positional file.
+	 */
+	private long length(DictionaryFile file) throws IOException {
+		if (file instanceof PositionalDictionaryFile) {
+			return ((PositionalDictionaryFile) file).length();
+		}
+		return ((RandomAccessDictionaryFile) file).length();
+	}
+
     /**
      * {@inheritDoc}
      */
     public long getRandomLinePointer(POS pos, DictionaryFileType fileType) throws IOException {
-        long fileLength = ((RandomAccessDictionaryFile) getFile(pos, fileType)).length();
+        long fileLength = length(getFile(pos, fileType));
         long start = getFirstLinePointer(pos, fileType);
         long offset = start + (long) _rand.nextInt(((int) fileLength) - (int) start);
         return getNextLinePointer(pos, fileType, offset);
@@ -279,6 +393,15 @@ public class FileManagerImpl implements FileManager {
      */
     public long getFirstLinePointer(POS pos, DictionaryFileType fileType) throws IOException {
         long offset = 0;
+        if (getFile(pos, fileType) instanceof PositionalDictionaryFile) {
+            PositionalDictionaryFile file = (PositionalDictionaryFile) getFile(pos, fileType);
+            String line = null;
+            for (long length = file.length(); offset < length && (line == null || line.trim().length() == 0);
+                 line = readLineWord(file, offset)) {
+                offset = nextLineOffset(file, offset);
+            }
+            return offset;
+        }
         RandomAccessDictionaryFile file = (RandomAccessDictionaryFile) getFile(pos, fileType);
         String line = null;
         for (line = null; line == null || line.trim().length() == 0; line = readLineWord(file)) {
@@ -7,16 +7,18 @@ package net.didion.jwnl.dictionary.morph;
 import net.didion.jwnl.JWNLException;
 import net.didion.jwnl.JWNLRuntimeException;
 import net.didion.jwnl.dictionary.morph.Operation;
+import net.didion.jwnl.dictionary.BaseFormSenses;
 import net.didion.jwnl.dictionary.MorphologicalProcessor;
 import net.didion.jwnl.dictionary.POSKey;
 import net.didion.jwnl.dictionary.Dictionary;
 import net.didion.jwnl.data.IndexWord;
 import net.didion.jwnl.data.POS;
 import net.didion.jwnl.util.cache.Cache;
-import net.didion.jwnl.util.cache.LRUCache;
+import net.didion.jwnl.util.cache.ConcurrentCache;
 import net.didion.jwnl.util.factory.Param;
 import net.didion.jwnl.util.factory.ParamList;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -32,12 +34,23 @@ public class DefaultMorphologicalProcessor implements MorphologicalProcessor {
 	public static final String CACHE_CAPACITY = "cache_capacity";
 	/** Parameter that determines the operations this morphological processor will perform */
 	public static final String OPERATIONS = "operations";
+	/** Parameter that determines the size of the resolved base form and sense cache */
+	public static final String SENSE_CACHE_CAPACITY = "sense_cache_capacity";
+	/**
+	 * Parameter that bounds the resolved base form and sense cache by the estimated size of its
+	 * entries in bytes, in addition to their number. There is no such bound by default.
+	 */
+	public static final String SENSE_CACHE_BYTES = "sense_cache_bytes";
 
 	private static final int DEFAULT_CACHE_CAPACITY = 1000;
+	private static final int DEFAULT_SENSE_CACHE_CAPACITY = 10000;
 
-	private Cache _lookupCache;;
+	private Cache _lookupCache;
 	private Operation[] _operations;
 
+	// resolved lookups
+	private ConcurrentCache _senseCache;
+
 	public DefaultMorphologicalProcessor() {
 	}
 
@@ -46,10 +59,24 @@ public class DefaultMorphologicalProcessor implements MorphologicalProcessor {
 	}
 
 	public DefaultMorphologicalProcessor(Operation[] operations, int cacheCapacity) {
-		_lookupCache = new LRUCache(cacheCapacity);
+		this(operations, cacheCapacity, DEFAULT_SENSE_CACHE_CAPACITY);
+	}
+
+	public DefaultMorphologicalProcessor(Operation[] operations, int cacheCapacity, int senseCacheCapacity) {
+		_lookupCache = new ConcurrentCache(cacheCapacity);
+		_senseCache = new ConcurrentCache(senseCacheCapacity);
 		_operations = operations;
 	}
 
+	/**
+	 * @param senseCacheBytes the largest estimated size, in bytes, of the resolved base form and sense cache
+	 */
+	public DefaultMorphologicalProcessor(Operation[] operations, int cacheCapacity, int senseCacheCapacity,
+	                                     long senseCacheBytes) {
+		this(operations, cacheCapacity, senseCacheCapacity);
+		_senseCache.setMaxWeight(senseCacheBytes, new BaseFormSensesWeigher());
+	}
+
 	public Object create(Map params) throws JWNLException {
 		ParamList operationParams = (ParamList) params.get(OPERATIONS);
 		if (operationParams == null) {
@@ -62,7 +89,16 @@ public class DefaultMorphologicalProcessor implements MorphologicalProcessor {
 		int capacity = (param == null) ?
 		    DEFAULT_CACHE_CAPACITY : new Integer(param.getValue()).intValue();
 
-		return new DefaultMorphologicalProcessor(operationArray, capacity);
+		param = (Param) params.get(SENSE_CACHE_CAPACITY);
+		int senseCapacity = (param == null) ?
+		    DEFAULT_SENSE_CACHE_CAPACITY : new Integer(param.getValue()).intValue();
+
+		param = (Param) params.get(SENSE_CACHE_BYTES);
+		if (param != null) {
+			return new DefaultMorphologicalProcessor(operationArray, capacity, senseCapacity,
+			                                         Long.parseLong(param.getValue()));
+		}
+		return new DefaultMorphologicalProcessor(operationArray, capacity, senseCapacity);
 	}
 
 	/**
@@ -75,7 +111,7 @@ public class DefaultMorphologicalProcessor implements MorphologicalProcessor {
 	 * @param derivation the word to look up
 	 * @return IndexWord the IndexWord found during lookup
 	 */
-	public IndexWord lookupBaseForm(POS pos, String derivation) throws JWNLException {
+	public synchronized IndexWord lookupBaseForm(POS pos, String derivation) throws JWNLException {
 		// See if we've already looked this word up
 		LookupInfo info = getCachedLookupInfo(new POSKey(pos, derivation));
 		if (info != null && info.getBaseForms().isCurrentFormAvailable()) {
@@ -131,7 +167,11 @@ public class DefaultMorphologicalProcessor implements MorphologicalProcessor {
 		return (str == null) ? null : Dictionary.getInstance().getIndexWord(pos, str);
 	}
 
-	public List lookupAllBaseForms(POS pos, String derivation) throws JWNLException {
+	/**
+	 * Return all the base forms of a pos/word pair. The returned list is a copy, which
+	 * the caller may modify.
+	 */
+	public synchronized List lookupAllBaseForms(POS pos, String derivation) throws JWNLException {
 		LookupInfo info = getCachedLookupInfo(new POSKey(pos, derivation));
 		if (info == null) {
 			info = new LookupInfo(pos, derivation, _operations);
@@ -142,7 +182,75 @@ public class DefaultMorphologicalProcessor implements MorphologicalProcessor {
 			lookupNextBaseForm(pos, derivation, info);
 		}
 		info.getBaseForms().setIndex(index);
-		return info.getBaseForms().getForms();
+		return new ArrayList(info.getBaseForms().getForms());
+	}
+
+	/**
+	 * Return all the base forms of a pos/word pair with the sense offsets of each. Results
+	 * are kept in a bounded cache; this method may be called from several threads. Callers
+	 * that may be given another processor should go through <code>BaseFormSenses.lookup</code>.
+	 */
+	public BaseFormSenses lookupAllBaseFormSenses(POS pos, String derivation) throws JWNLException {
+		POSKey key = new POSKey(pos, derivation);
+		BaseFormSenses senses = (BaseFormSenses) _senseCache.get(key);
+		if (senses != null) {
+			return senses;
+		}
+
+		senses = BaseFormSenses.resolve(pos, derivation, lookupAllBaseForms(pos, derivation));
+		_senseCache.put(key, senses);
+		return senses;
+	}
+
+	/** Return the number of calls to <code>lookupAllBaseFormSenses</code> answered from the cache */
+	public long getSenseCacheHits() {
+		return _senseCache.getHitCount();
+	}
+
+	/** Return the number of calls to <code>lookupAllBaseFormSenses</code> that had to resolve the word */
+	public long getSenseCacheMisses() {
+		return _senseCache.getMissCount();
+	}
+
+	/** Return the fraction of calls to <code>lookupAllBaseFormSenses</code> answered from the cache */
+	public double getSenseCacheHitRate() {
+		return _senseCache.getHitRate();
+	}
+
+	/** Return the number of resolved lookups dropped to keep the cache within its bounds */
+	public long getSenseCacheEvictions() {
+		return _senseCache.getEvictionCount();
+	}
+
+	public int getSenseCacheSize() {
+		return _senseCache.getSize();
+	}
+
+	/** Remove all resolved lookups and reset the statistics */
+	public void clearSenseCache() {
+		_senseCache.clear();
+		_senseCache.resetStatistics();
+	}
+
+	/** Estimates the size in bytes of a cached <code>BaseFormSenses</code> and its key. */
+	private static final class BaseFormSensesWeigher implements ConcurrentCache.Weigher {
+		// object headers, references and array lengths, roughly, for a 64-bit VM
+		private static final int OBJECT = 16;
+		private static final int REFERENCE = 8;
+
+		public long weigh(Object key, Object value) {
+			BaseFormSenses senses = (BaseFormSenses) value;
+			long weight = 2 * OBJECT + 4 * REFERENCE + string(senses.getDerivation());
+			for (int i = 0; i < senses.size(); i++) {
+				weight += 2 * REFERENCE + string(senses.getBaseForm(i));
+				weight += OBJECT + 8 * senses.getSenseOffsets(i).length;
+			}
+			return weight;
+		}
+
+		private static long string(String s) {
+			return 2 * OBJECT + 2 * s.length();
+		}
 	}
 
 	private class LookupInfo {
@@ -176,4 +284,4 @@ public class DefaultMorphologicalProcessor implements MorphologicalProcessor {
 			return _baseForms;
 		}
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.princeton.file;
+
+import net.didion.jwnl.JWNLRuntimeException;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.dictionary.file.DictionaryFile;
+import net.didion.jwnl.dictionary.file.DictionaryFileType;
+import net.didion.jwnl.dictionary.file.PositionalDictionaryFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A <code>PositionalDictionaryFile</code> that accesses files named with Princeton's dictionary file naming convention.
+ * The file is memory mapped and read with absolute gets, which do not touch the position of the buffer, so
+ * lookups from several threads run in parallel. Unlike <code>PrincetonChannelDictionaryFile</code>, the file is
+ * not decoded up front; bytes are read as ISO-8859-1, as <code>RandomAccessFile.readLine()</code> does.
+ */
+public class PrincetonMappedDictionaryFile extends AbstractPrincetonDictionaryFile implements PositionalDictionaryFile {
+	/** The mapped file. */
+	private MappedByteBuffer _buffer = null;
+	private long _length;
+
+	public PrincetonMappedDictionaryFile() {}
+
+	public DictionaryFile newInstance(String path, POS pos, DictionaryFileType fileType) {
+		return new PrincetonMappedDictionaryFile(path, pos, fileType);
+	}
+
+	public PrincetonMappedDictionaryFile(String path, POS pos, DictionaryFileType fileType) {
+		super(path, pos, fileType);
+	}
+
+	public int read(long pos) throws IOException {
+		MappedByteBuffer buffer = _buffer;
+		if (buffer == null) {
+			throw new JWNLRuntimeException("PRINCETON_EXCEPTION_001");
+		}
+		return (pos < _length) ? buffer.get((int)pos) & 0xff : -1;
+	}
+
+	public long length() throws IOException {
+		return _length;
+	}
+
+	public boolean isOpen() {
+		return _buffer != null;
+	}
+
+	public void close() {
+		_buffer = null;
+	}
+
+	protected void openFile(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			// the mapping stays valid after the file is closed
+			_length = raf.length();
+			_buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, _length);
+		} finally {
+			raf.close();
+		}
+	}
+}
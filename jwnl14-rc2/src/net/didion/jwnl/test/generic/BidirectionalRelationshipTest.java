@@ -0,0 +1,67 @@
+package net.didion.jwnl.test.generic;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import net.didion.jwnl.JWNL;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.data.relationship.AsymmetricRelationship;
+import net.didion.jwnl.data.relationship.BidirectionalRelationshipFinder;
+import net.didion.jwnl.data.relationship.RelationshipFinder;
+import net.didion.jwnl.data.relationship.RelationshipList;
+import net.didion.jwnl.dictionary.Dictionary;
+
+public class BidirectionalRelationshipTest extends TestCase {
+
+    public void testSameRelationshipsAsRelationshipFinder() {
+        try {
+            JWNL.initialize(TestDefaults.getInputStream());
+            Synset[] dogs = Dictionary.getInstance().getIndexWord(POS.NOUN, "dog").getSenses();
+            Synset[] cats = Dictionary.getInstance().getIndexWord(POS.NOUN, "cat").getSenses();
+            BidirectionalRelationshipFinder finder = BidirectionalRelationshipFinder.getInstance();
+            finder.clearCache();
+
+            // twice, the second time with the ancestries cached
+            for (int run = 0; run < 2; run++) {
+                for (int i = 0; i < dogs.length; i++) {
+                    for (int j = 0; j < cats.length; j++) {
+                        assertSameRelationships(dogs[i], cats[j], Integer.MAX_VALUE);
+                        assertSameRelationships(dogs[i], cats[j], 3);
+                    }
+                    assertSameRelationships(dogs[i], dogs[i], Integer.MAX_VALUE);
+                }
+            }
+            if (finder.getCache().getHitCount() == 0) {
+                fail("Ancestries were not cached");
+            }
+
+            IndexWord dog = Dictionary.getInstance().getIndexWord(POS.NOUN, "dog");
+            IndexWord cat = Dictionary.getInstance().getIndexWord(POS.NOUN, "cat");
+            RelationshipList list = finder.findRelationships(dog.getSense(1), cat.getSense(1), PointerType.HYPERNYM);
+            AsymmetricRelationship shallowest = (AsymmetricRelationship) list.getShallowest();
+            if (!shallowest.getTargetSynset().equals(cat.getSense(1)) || shallowest.getCommonParentIndex() <= 0) {
+                fail("No common parent between dog and cat");
+            }
+        } catch(Exception e) {
+            e.printStackTrace();
+            fail("Exception in BidirectionalRelationshipFinder test caught");
+        }
+
+        System.out.println("BidirectionalRelationshipFinder test passed.");
+    }
+
+    private void assertSameRelationships(Synset source, Synset target, int depth) throws Exception {
+        RelationshipList expected = RelationshipFinder.getInstance().findRelationships(source, target, PointerType.HYPERNYM, depth);
+        RelationshipList actual = BidirectionalRelationshipFinder.getInstance().findRelationships(source, target, PointerType.HYPERNYM, depth);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            AsymmetricRelationship a = (AsymmetricRelationship) expected.get(i);
+            AsymmetricRelationship b = (AsymmetricRelationship) actual.get(i);
+            assertEquals(a.getCommonParentIndex(), b.getCommonParentIndex());
+            assertEquals(new ArrayList(a.getNodeList()), new ArrayList(b.getNodeList()));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package net.didion.jwnl.test.generic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.didion.jwnl.util.cache.ConcurrentCache;
+
+/**
+ * Tests the eviction, weight bound, removal callback and statistics of <code>ConcurrentCache</code>.
+ * The caches hold fewer than 128 elements, so they have a single segment and evict in
+ * least recently used order.
+ */
+public class ConcurrentCacheTest extends TestCase {
+
+	private static final ConcurrentCache.Weigher LENGTH = new ConcurrentCache.Weigher() {
+		public long weigh(Object key, Object value) {
+			return ((String) value).length();
+		}
+	};
+
+	public void testEvictionOrder() {
+		ConcurrentCache cache = new ConcurrentCache(3);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		// reading "a" makes "b" the least recently used element
+		assertEquals("1", cache.get("a"));
+		cache.put("d", "4");
+		assertEquals(3, cache.getSize());
+		assertNull(cache.get("b"));
+		assertEquals("1", cache.get("a"));
+		assertEquals("3", cache.get("c"));
+		assertEquals("4", cache.get("d"));
+
+		// replacing an element does not evict anything
+		assertEquals("3", cache.put("c", "5"));
+		assertEquals(3, cache.getSize());
+		assertEquals("5", cache.get("c"));
+
+		// shrinking evicts the least recently used elements first
+		cache.setCapacity(1);
+		assertEquals(1, cache.getSize());
+		assertEquals("5", cache.get("c"));
+		assertEquals(3, cache.getEvictionCount());
+	}
+
+	public void testWeightBound() {
+		ConcurrentCache cache = new ConcurrentCache(100, 10, LENGTH);
+		cache.put("a", "xxxx");
+		cache.put("b", "xxxx");
+		assertEquals(8, cache.getWeight());
+		cache.put("c", "xxxx");
+		assertEquals(2, cache.getSize());
+		assertEquals(8, cache.getWeight());
+		assertNull(cache.get("a"));
+
+		// a heavier replacement is weighed in place of the old value
+		cache.put("c", "xxxxxx");
+		assertEquals(10, cache.getWeight());
+		assertEquals(2, cache.getSize());
+		cache.remove("b");
+		assertEquals(6, cache.getWeight());
+
+		// lowering the bound evicts until the remaining elements fit
+		cache.setMaxWeight(5, LENGTH);
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getWeight());
+	}
+
+	public void testRemovedCallback() {
+		final List removed = new ArrayList();
+		ConcurrentCache cache = new ConcurrentCache(2) {
+			protected void removed(Object key, Object value) {
+				removed.add(key + "=" + value);
+			}
+		};
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		assertEquals(1, removed.size());
+		assertEquals("a=1", removed.get(0));
+
+		assertEquals("2", cache.remove("b"));
+		assertNull(cache.remove("b"));
+		assertEquals(2, removed.size());
+		assertEquals("b=2", removed.get(1));
+
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertEquals(2, removed.size());
+	}
+
+	public void testStatistics() {
+		ConcurrentCache cache = new ConcurrentCache(2);
+		cache.put("a", "1");
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2.0 / 3.0, cache.getHitRate(), 1e-9);
+
+		cache.put("b", "2");
+		cache.put("c", "3");
+		assertEquals(1, cache.getEvictionCount());
+
+		cache.resetStatistics();
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+		assertEquals(0.0, cache.getHitRate(), 0.0);
+	}
+
+}
@@ -0,0 +1,58 @@
+package net.didion.jwnl.test.mysql;
+
+import junit.framework.TestCase;
+import net.didion.jwnl.JWNL;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.dictionary.AbstractCachingDictionary;
+import net.didion.jwnl.dictionary.Dictionary;
+import net.didion.jwnl.test.generic.TestDefaults;
+
+public class DatabaseBatchSynsetTest extends TestCase {
+
+    public void testBatchMatchesSingleLookups() {
+    try {
+
+    JWNL.initialize(TestDefaults.getInputStream());
+
+    IndexWord iw = Dictionary.getInstance().getIndexWord(POS.NOUN, "tank");
+    long[] offsets = iw.getSynsetOffsets();
+    // an offset twice, and one with no synset
+    long[] batch = new long[offsets.length + 2];
+    System.arraycopy(offsets, 0, batch, 0, offsets.length);
+    batch[offsets.length] = offsets[0];
+    batch[offsets.length + 1] = 1;
+
+    Synset[] synsets = Dictionary.getInstance().getSynsetsAt(POS.NOUN, batch);
+    assertEquals(batch.length, synsets.length);
+    assertEquals(synsets[0], synsets[offsets.length]);
+    assertNull(synsets[offsets.length + 1]);
+
+    // the single lookups must read the database, not the synsets the batch cached
+    if (Dictionary.getInstance() instanceof AbstractCachingDictionary) {
+        ((AbstractCachingDictionary) Dictionary.getInstance()).clearCache();
+    }
+    for (int i = 0; i < offsets.length; i++) {
+        Synset single = Dictionary.getInstance().getSynsetAt(POS.NOUN, offsets[i]);
+        assertNotSame(single, synsets[i]);
+        assertEquals(single, synsets[i]);
+        assertEquals(single.getGloss(), synsets[i].getGloss());
+        assertEquals(single.getWordsSize(), synsets[i].getWordsSize());
+        for (int k = 0; k < single.getWordsSize(); k++) {
+            assertEquals(single.getWord(k).getLemma(), synsets[i].getWord(k).getLemma());
+        }
+        Pointer[] pointers = single.getPointers();
+        assertEquals(pointers.length, synsets[i].getPointers().length);
+        for (int k = 0; k < pointers.length; k++) {
+            assertEquals(pointers[k].getTargetOffset(), synsets[i].getPointers()[k].getTargetOffset());
+        }
+    }
+
+} catch(Exception e) {
+    fail("Exception in Database test caught: " + e);
+}
+    }
+
+}
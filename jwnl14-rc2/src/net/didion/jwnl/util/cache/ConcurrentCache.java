@@ -0,0 +1,253 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.util.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe <code>Cache</code> that stores the most recently used elements. The cache is split into
+ * segments by the hash of the key. Each segment is an access-ordered map with its own lock, so threads
+ * that use different segments do not wait for each other, and each segment removes its least recently
+ * used elements once it holds more than its share of the capacity.
+ * <p>
+ * If a <code>Weigher</code> is set, the cache is also bounded by the total weight of its elements, which
+ * is usually an estimate of their size in bytes. Hits, misses and evictions are counted.
+ */
+public class ConcurrentCache implements Cache {
+	/** The largest number of segments used */
+	public static final int MAX_SEGMENTS = 16;
+	/** The smallest share of the capacity given to a segment */
+	private static final int MIN_SEGMENT_CAPACITY = 64;
+
+	/** Estimates the weight of a cached element, usually its size in bytes. */
+	public interface Weigher {
+		long weigh(Object key, Object value);
+	}
+
+	private Segment[] _segments;
+	private volatile int _capacity;
+	private volatile long _maxWeight;
+	private volatile Weigher _weigher;
+
+	private AtomicLong _hits = new AtomicLong();
+	private AtomicLong _misses = new AtomicLong();
+	private AtomicLong _evictions = new AtomicLong();
+
+	/**
+	 * @param capacity the maximum number of elements that can be contained in the cache.
+	 */
+	public ConcurrentCache(int capacity) {
+		int segments = 1;
+		while (segments < MAX_SEGMENTS && segments * 2 * MIN_SEGMENT_CAPACITY <= capacity) {
+			segments *= 2;
+		}
+		_segments = new Segment[segments];
+		for (int i = 0; i < segments; i++) {
+			_segments[i] = new Segment(i);
+		}
+		_capacity = capacity;
+	}
+
+	/**
+	 * @param capacity the maximum number of elements that can be contained in the cache.
+	 * @param maxWeight the maximum total weight of the elements
+	 * @param weigher computes the weight of each element
+	 */
+	public ConcurrentCache(int capacity, long maxWeight, Weigher weigher) {
+		this(capacity);
+		setMaxWeight(maxWeight, weigher);
+	}
+
+	public Object put(Object key, Object value) {
+		Segment segment = getSegment(key);
+		Weigher weigher = _weigher;
+		Entry entry = new Entry(value, (weigher == null) ? 0 : weigher.weigh(key, value));
+		synchronized (segment) {
+			Entry previous = (Entry) segment.put(key, entry);
+			segment._weight += entry._weight;
+			if (previous != null) {
+				segment._weight -= previous._weight;
+			}
+			trim(segment);
+			return (previous == null) ? null : previous._value;
+		}
+	}
+
+	public Object get(Object key) {
+		Segment segment = getSegment(key);
+		Entry entry;
+		synchronized (segment) {
+			entry = (Entry) segment.get(key);
+		}
+		if (entry == null) {
+			_misses.incrementAndGet();
+			return null;
+		}
+		_hits.incrementAndGet();
+		return entry._value;
+	}
+
+	public Object remove(Object key) {
+		Segment segment = getSegment(key);
+		Entry entry;
+		synchronized (segment) {
+			entry = (Entry) segment.remove(key);
+			if (entry == null) {
+				return null;
+			}
+			segment._weight -= entry._weight;
+			removed(key, entry._value);
+		}
+		return entry._value;
+	}
+
+	public int getCapacity() {
+		return _capacity;
+	}
+
+	public int setCapacity(int capacity) {
+		_capacity = capacity;
+		trimAll();
+		return _capacity;
+	}
+
+	/** Returns the maximum total weight of the elements, or 0 if the cache is not bounded by weight. */
+	public long getMaxWeight() {
+		return (_weigher == null) ? 0 : _maxWeight;
+	}
+
+	/**
+	 * Bound the cache by the total weight of its elements as well as by their number. Elements already
+	 * in the cache keep the weight they were given when they were added.
+	 * @param weigher computes the weight of each element, or null to remove the bound
+	 */
+	public void setMaxWeight(long maxWeight, Weigher weigher) {
+		_maxWeight = maxWeight;
+		_weigher = weigher;
+		trimAll();
+	}
+
+	/** Returns the total weight of the elements in the cache. */
+	public long getWeight() {
+		long weight = 0;
+		for (int i = 0; i < _segments.length; i++) {
+			synchronized (_segments[i]) {
+				weight += _segments[i]._weight;
+			}
+		}
+		return weight;
+	}
+
+	public int getSize() {
+		int size = 0;
+		for (int i = 0; i < _segments.length; i++) {
+			synchronized (_segments[i]) {
+				size += _segments[i].size();
+			}
+		}
+		return size;
+	}
+
+	public void clear() {
+		for (int i = 0; i < _segments.length; i++) {
+			synchronized (_segments[i]) {
+				_segments[i].clear();
+				_segments[i]._weight = 0;
+			}
+		}
+	}
+
+	/** Returns the number of calls to <code>get</code> that found an element */
+	public long getHitCount() {
+		return _hits.get();
+	}
+
+	/** Returns the number of calls to <code>get</code> that found nothing */
+	public long getMissCount() {
+		return _misses.get();
+	}
+
+	/** Returns the fraction of calls to <code>get</code> that found an element */
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	/** Returns the number of elements removed to keep the cache within its bounds */
+	public long getEvictionCount() {
+		return _evictions.get();
+	}
+
+	/** Set the hit, miss and eviction counts to zero */
+	public void resetStatistics() {
+		_hits.set(0);
+		_misses.set(0);
+		_evictions.set(0);
+	}
+
+	/**
+	 * Called when an element is removed from the cache, either by <code>remove</code> or to keep the
+	 * cache within its bounds, but not by <code>clear</code>. The segment holding the element is locked
+	 * while this is called, so subclasses must not use the cache from it.
+	 */
+	protected void removed(Object key, Object value) {
+	}
+
+	private Segment getSegment(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return _segments[h & (_segments.length - 1)];
+	}
+
+	private void trimAll() {
+		for (int i = 0; i < _segments.length; i++) {
+			synchronized (_segments[i]) {
+				trim(_segments[i]);
+			}
+		}
+	}
+
+	/** Remove least recently used elements from a locked segment until it is within its share of the bounds. */
+	private void trim(Segment segment) {
+		int n = _segments.length;
+		int capacity = _capacity / n + ((segment._index < _capacity % n) ? 1 : 0);
+		long maxWeight = (_weigher == null) ? Long.MAX_VALUE : _maxWeight / n + ((segment._index < _maxWeight % n) ? 1 : 0);
+		for (Iterator itr = segment.entrySet().iterator();
+		     itr.hasNext() && (segment.size() > capacity || segment._weight > maxWeight);) {
+			Map.Entry eldest = (Map.Entry) itr.next();
+			Entry entry = (Entry) eldest.getValue();
+			itr.remove();
+			segment._weight -= entry._weight;
+			_evictions.incrementAndGet();
+			removed(eldest.getKey(), entry._value);
+		}
+	}
+
+	private static final class Segment extends LinkedHashMap {
+		private static final long serialVersionUID = 1L;
+
+		private int _index;
+		private long _weight;
+
+		public Segment(int index) {
+			super(16, 0.75f, true);
+			_index = index;
+		}
+	}
+
+	private static final class Entry {
+		private Object _value;
+		private long _weight;
+
+		public Entry(Object value, long weight) {
+			_value = value;
+			_weight = weight;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package net.didion.jwnl.utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.didion.jwnl.JWNL;
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.Exc;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.data.Verb;
+import net.didion.jwnl.data.Word;
+import net.didion.jwnl.dictionary.AbstractCachingDictionary;
+import net.didion.jwnl.dictionary.BinaryBackedDictionary;
+import net.didion.jwnl.dictionary.Dictionary;
+
+/**
+ * DictionaryToBinary writes the current Dictionary to a single file in the format read by
+ * {@link BinaryBackedDictionary}. Like {@link DictionaryToMap}, it is run once against a
+ * file-based WordNet; unlike the serialized maps, the result is memory mapped rather than
+ * deserialized when it is opened.
+ */
+public class DictionaryToBinary {
+	private static final int HEADER_POS_SIZE = 28;
+
+	private File _destFile;
+
+	/** All blocks referenced from the tables; positions are relative to the end of the header */
+	private ByteArrayOutputStream _bytes;
+	private DataOutputStream _body;
+	private Map _strings;
+	private int _headerSize;
+
+	/**
+	 * Initalize with the given destination file, using the properties file (usually file_properties.xml)
+	 * @param destFile - the binary dictionary file to create
+	 * @param propFile - properties file of file-based WordNet
+	 * @throws JWNLException
+	 * @throws IOException
+	 */
+	public DictionaryToBinary(String destFile, String propFile) throws JWNLException, IOException {
+		JWNL.initialize(new FileInputStream(propFile));
+		_destFile = new File(destFile);
+	}
+
+	/**
+	 * Converts the current Dictionary to a binary dictionary file.
+	 * @throws JWNLException
+	 * @throws IOException
+	 */
+	public void convert() throws JWNLException, IOException {
+		List allPOS = POS.getAllPOS();
+		_bytes = new ByteArrayOutputStream(1 << 20);
+		_body = new DataOutputStream(_bytes);
+		_strings = new HashMap();
+		_headerSize = 12 + HEADER_POS_SIZE * allPOS.size();
+
+		int[][] tables = new int[allPOS.size()][];
+		for (int i = 0; i < allPOS.size(); i++) {
+			POS pos = (POS) allPOS.get(i);
+			tables[i] = new int[7];
+			tables[i][0] = string(pos.getKey());
+			System.out.println("Converting " + pos + " index words...");
+			writeIndexWords(pos, tables[i]);
+			System.out.println("Converting " + pos + " synsets...");
+			writeSynsets(pos, tables[i]);
+			System.out.println("Converting " + pos + " exceptions...");
+			writeExceptions(pos, tables[i]);
+			clearCache();
+		}
+		_body.flush();
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_destFile), 1 << 16));
+		try {
+			out.writeInt(BinaryBackedDictionary.MAGIC);
+			out.writeInt(BinaryBackedDictionary.VERSION);
+			out.writeInt(allPOS.size());
+			for (int i = 0; i < tables.length; i++) {
+				for (int k = 0; k < tables[i].length; k++) {
+					out.writeInt(tables[i][k]);
+				}
+			}
+			_bytes.writeTo(out);
+		} finally {
+			out.close();
+		}
+		System.out.println("Wrote " + _destFile + " (" + _destFile.length() / 1024L + "K)");
+	}
+
+	private void writeIndexWords(POS pos, int[] table) throws JWNLException, IOException {
+		List words = new ArrayList();
+		for (Iterator itr = Dictionary.getInstance().getIndexWordIterator(pos); itr.hasNext();) {
+			words.add(itr.next());
+		}
+		Collections.sort(words, new Comparator() {
+			public int compare(Object a, Object b) {
+				return BinaryBackedDictionary.compareLemmas(((IndexWord) a).getLemma(), ((IndexWord) b).getLemma());
+			}
+		});
+
+		int[] records = new int[2 * words.size()];
+		for (int i = 0; i < words.size(); i++) {
+			IndexWord word = (IndexWord) words.get(i);
+			records[2 * i] = string(word.getLemma());
+			records[2 * i + 1] = position();
+			long[] offsets = word.getSynsetOffsets();
+			_body.writeInt(offsets.length);
+			for (int k = 0; k < offsets.length; k++) {
+				_body.writeLong(offsets[k]);
+			}
+		}
+		table[1] = words.size();
+		table[2] = position();
+		for (int i = 0; i < records.length; i++) {
+			_body.writeInt(records[i]);
+		}
+	}
+
+	private void writeSynsets(POS pos, int[] table) throws JWNLException, IOException {
+		// offsets are increasing in the data files, but sort to be sure
+		List offsets = new ArrayList();
+		Map records = new HashMap();
+		for (Iterator itr = Dictionary.getInstance().getSynsetIterator(pos); itr.hasNext();) {
+			Synset synset = (Synset) itr.next();
+			Long offset = new Long(synset.getOffset());
+			if (records.containsKey(offset)) {
+				continue;
+			}
+			int gloss = synset.getGloss() == null ? -1 : string(synset.getGloss());
+
+			Word[] words = synset.getWords();
+			int[] lemmas = new int[words.length];
+			for (int k = 0; k < words.length; k++) {
+				lemmas[k] = string(words[k].getLemma());
+			}
+			int wordsPos = position();
+			_body.writeInt(words.length);
+			for (int k = 0; k < words.length; k++) {
+				long[] bits = (words[k] instanceof Verb)
+				    ? toLongArray(((Verb) words[k]).getVerbFrameFlags()) : new long[0];
+				_body.writeInt(lemmas[k]);
+				_body.writeInt(bits.length);
+				for (int b = 0; b < bits.length; b++) {
+					_body.writeLong(bits[b]);
+				}
+			}
+
+			Pointer[] pointers = synset.getPointers();
+			int[][] keys = new int[pointers.length][];
+			for (int k = 0; k < pointers.length; k++) {
+				keys[k] = new int[] {string(pointers[k].getType().getKey()), string(pointers[k].getTargetPOS().getKey())};
+			}
+			int pointersPos = position();
+			_body.writeInt(pointers.length);
+			for (int k = 0; k < pointers.length; k++) {
+				Pointer pointer = pointers[k];
+				int sourceIndex = pointer.isLexical() ? ((Word) pointer.getSource()).getIndex() + 1 : 0;
+				_body.writeInt(keys[k][0]);
+				_body.writeInt(sourceIndex);
+				_body.writeInt(keys[k][1]);
+				_body.writeLong(pointer.getTargetOffset());
+				_body.writeInt(pointer.getTargetIndex());
+			}
+
+			offsets.add(offset);
+			records.put(offset, new long[] {
+			    synset.getLexFileId(), synset.isAdjectiveCluster() ? BinaryBackedDictionary.ADJECTIVE_CLUSTER : 0,
+			    gloss, wordsPos, pointersPos});
+		}
+		Collections.sort(offsets);
+
+		table[3] = offsets.size();
+		table[4] = position();
+		for (Iterator itr = offsets.iterator(); itr.hasNext();) {
+			Long offset = (Long) itr.next();
+			long[] record = (long[]) records.get(offset);
+			_body.writeLong(offset.longValue());
+			for (int k = 0; k < record.length; k++) {
+				_body.writeInt((int) record[k]);
+			}
+		}
+	}
+
+	private void writeExceptions(POS pos, int[] table) throws JWNLException, IOException {
+		List excs = new ArrayList();
+		Map seen = new HashMap();
+		for (Iterator itr = Dictionary.getInstance().getExceptionIterator(pos); itr.hasNext();) {
+			Exc exc = (Exc) itr.next();
+			if (seen.put(exc.getLemma(), exc) == null) {
+				excs.add(exc);
+			}
+		}
+		Collections.sort(excs, new Comparator() {
+			public int compare(Object a, Object b) {
+				return BinaryBackedDictionary.compareLemmas(((Exc) a).getLemma(), ((Exc) b).getLemma());
+			}
+		});
+
+		int[] records = new int[2 * excs.size()];
+		for (int i = 0; i < excs.size(); i++) {
+			Exc exc = (Exc) excs.get(i);
+			int[] exceptions = new int[exc.getExceptionsSize()];
+			for (int k = 0; k < exceptions.length; k++) {
+				exceptions[k] = string(exc.getException(k));
+			}
+			records[2 * i] = string(exc.getLemma());
+			records[2 * i + 1] = position();
+			_body.writeInt(exceptions.length);
+			for (int k = 0; k < exceptions.length; k++) {
+				_body.writeInt(exceptions[k]);
+			}
+		}
+		table[5] = excs.size();
+		table[6] = position();
+		for (int i = 0; i < records.length; i++) {
+			_body.writeInt(records[i]);
+		}
+	}
+
+	/** Write <var>s</var> if it has not been written yet and return its position */
+	private int string(String s) throws IOException {
+		Integer p = (Integer) _strings.get(s);
+		if (p == null) {
+			p = new Integer(position());
+			byte[] bytes = s.getBytes("UTF-8");
+			_body.writeInt(bytes.length);
+			_body.write(bytes);
+			_strings.put(s, p);
+		}
+		return p.intValue();
+	}
+
+	/** The position in the file of the next byte written to the body */
+	private int position() {
+		return _headerSize + _body.size();
+	}
+
+	private static long[] toLongArray(BitSet bits) {
+		return bits == null ? new long[0] : bits.toLongArray();
+	}
+
+	private void clearCache() {
+		if ((Dictionary.getInstance() instanceof AbstractCachingDictionary)
+		    && ((AbstractCachingDictionary) Dictionary.getInstance()).isCachingEnabled()) {
+			((AbstractCachingDictionary) Dictionary.getInstance()).clearCache();
+		}
+	}
+
+	public static void main(String args[]) {
+		if (args.length != 2) {
+			System.out.println("java DictionaryToBinary <destination file> <properties file>");
+			System.exit(-1);
+		}
+		try {
+			new DictionaryToBinary(args[0], args[1]).convert();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.utilities;
+
+import net.didion.jwnl.JWNL;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.dictionary.file.DictionaryFileType;
+import net.didion.jwnl.dictionary.file_manager.FileManager;
+import net.didion.jwnl.dictionary.file_manager.FileManagerImpl;
+import net.didion.jwnl.princeton.file.PrincetonMappedDictionaryFile;
+import net.didion.jwnl.princeton.file.PrincetonRandomAccessDictionaryFile;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how noun lookups through <code>FileManagerImpl</code> scale with the number of threads, once
+ * with <code>PrincetonRandomAccessDictionaryFile</code>, whose reads are serialized on each file, and once
+ * with <code>PrincetonMappedDictionaryFile</code>, whose reads take no locks. Each lookup finds a lemma in
+ * the index file and reads its index line and the data line of its last sense.
+ */
+public class FileLookupBenchmark {
+	private static final String USAGE = "java FileLookupBenchmark <properties file> <dictionary path> [max threads]";
+	/** Lookups per thread in each run */
+	private static final int LOOKUPS = 50000;
+
+	public static void main(String[] args) {
+		if (args.length < 2 || args.length > 3) {
+			System.out.println(USAGE);
+			System.exit(-1);
+		}
+		try {
+			JWNL.initialize(new FileInputStream(args[0]));
+			int maxThreads = (args.length == 3) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			new FileLookupBenchmark(args[1]).go(maxThreads);
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			System.exit(-1);
+		}
+	}
+
+	private String _path;
+	private String[] _lemmas;
+
+	public FileLookupBenchmark(String path) throws Exception {
+		_path = path;
+		FileManager files = new FileManagerImpl(path, PrincetonMappedDictionaryFile.class);
+		List lemmas = new ArrayList();
+		long offset = files.getFirstLinePointer(POS.NOUN, DictionaryFileType.INDEX);
+		for (String line; (line = files.readLineAt(POS.NOUN, DictionaryFileType.INDEX, offset)) != null;) {
+			if (line.length() > 0) {
+				lemmas.add(line.substring(0, line.indexOf(' ')));
+			}
+			offset = files.getNextLinePointer(POS.NOUN, DictionaryFileType.INDEX, offset);
+		}
+		files.close();
+		_lemmas = (String[]) lemmas.toArray(new String[lemmas.size()]);
+	}
+
+	public void go(int maxThreads) throws Exception {
+		System.out.println(_lemmas.length + " noun lemmas, " + LOOKUPS + " lookups per thread");
+		run(PrincetonRandomAccessDictionaryFile.class, maxThreads);
+		run(PrincetonMappedDictionaryFile.class, maxThreads);
+	}
+
+	private void run(Class fileType, int maxThreads) throws Exception {
+		final FileManager files = new FileManagerImpl(_path, fileType);
+		System.out.println(fileType.getName());
+		// warm up
+		lookup(files, 0, LOOKUPS);
+		double single = 0;
+		for (int n = 1; n <= maxThreads; n *= 2) {
+			Thread[] threads = new Thread[n];
+			final Exception[] error = new Exception[1];
+			for (int i = 0; i < n; i++) {
+				final int seed = i;
+				threads[i] = new Thread() {
+					public void run() {
+						try {
+							lookup(files, seed, LOOKUPS);
+						} catch (Exception ex) {
+							error[0] = ex;
+						}
+					}
+				};
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < n; i++) {
+				threads[i].start();
+			}
+			for (int i = 0; i < n; i++) {
+				threads[i].join();
+			}
+			if (error[0] != null) {
+				throw error[0];
+			}
+			double rate = (double) n * LOOKUPS / ((System.nanoTime() - start) / 1e9);
+			if (n == 1) {
+				single = rate;
+			}
+			System.out.println("  " + n + " threads: " + (long) rate + " lookups/s, " +
+			    (Math.round(rate / single * 100) / 100.0) + "x");
+		}
+		files.close();
+	}
+
+	private void lookup(FileManager files, int seed, int count) throws Exception {
+		for (int i = 0, k = seed * 7919; i < count; i++, k += 31) {
+			String lemma = _lemmas[k % _lemmas.length];
+			long offset = files.getIndexedLinePointer(POS.NOUN, DictionaryFileType.INDEX, lemma);
+			String line = files.readLineAt(POS.NOUN, DictionaryFileType.INDEX, offset);
+			String sense = line.substring(line.trim().lastIndexOf(' ') + 1).trim();
+			if (files.readLineAt(POS.NOUN, DictionaryFileType.DATA, Long.parseLong(sense)) == null) {
+				throw new IllegalStateException("No data line for " + lemma);
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Java WordNet Library (JWNL)
+ * See the documentation for copyright information.
+ */
+package net.didion.jwnl.utilities;
+
+import net.didion.jwnl.JWNL;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.data.relationship.BidirectionalRelationshipFinder;
+import net.didion.jwnl.data.relationship.Relationship;
+import net.didion.jwnl.data.relationship.RelationshipFinder;
+import net.didion.jwnl.data.relationship.RelationshipList;
+import net.didion.jwnl.dictionary.Dictionary;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares <code>RelationshipFinder</code> and <code>BidirectionalRelationshipFinder</code> on hypernym
+ * relationships between random pairs of noun synsets. Every pair is looked up once by each finder before
+ * timing, which loads the synsets and checks that both finders return the same relationships; then each
+ * finder is timed over all the pairs, the bidirectional finder once with an empty cache and once with the
+ * ancestries of the first run.
+ */
+public class RelationshipBenchmark {
+	private static final String USAGE = "java RelationshipBenchmark <properties file> [pairs]";
+	private static final int DEFAULT_PAIRS = 2000;
+
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.out.println(USAGE);
+			System.exit(-1);
+		}
+		try {
+			JWNL.initialize(new FileInputStream(args[0]));
+			int pairs = (args.length == 2) ? Integer.parseInt(args[1]) : DEFAULT_PAIRS;
+			new RelationshipBenchmark(pairs).go();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			System.exit(-1);
+		}
+	}
+
+	private Synset[] _sources;
+	private Synset[] _targets;
+
+	public RelationshipBenchmark(int pairs) throws Exception {
+		List synsets = new ArrayList();
+		for (Iterator itr = Dictionary.getInstance().getSynsetIterator(POS.NOUN); itr.hasNext();) {
+			synsets.add(itr.next());
+		}
+		Random random = new Random(1);
+		_sources = new Synset[pairs];
+		_targets = new Synset[pairs];
+		for (int i = 0; i < pairs; i++) {
+			_sources[i] = (Synset) synsets.get(random.nextInt(synsets.size()));
+			_targets[i] = (Synset) synsets.get(random.nextInt(synsets.size()));
+		}
+	}
+
+	public void go() throws Exception {
+		BidirectionalRelationshipFinder finder = BidirectionalRelationshipFinder.getInstance();
+		finder.getCache().setCapacity(2 * _sources.length);
+		int relationships = 0;
+		for (int i = 0; i < _sources.length; i++) {
+			RelationshipList expected = RelationshipFinder.getInstance().findRelationships(
+			    _sources[i], _targets[i], PointerType.HYPERNYM);
+			RelationshipList actual = finder.findRelationships(_sources[i], _targets[i], PointerType.HYPERNYM);
+			check(expected, actual, i);
+			relationships += expected.size();
+		}
+		System.out.println(_sources.length + " noun pairs, " + relationships + " hypernym relationships");
+
+		long start = System.nanoTime();
+		for (int i = 0; i < _sources.length; i++) {
+			RelationshipFinder.getInstance().findRelationships(_sources[i], _targets[i], PointerType.HYPERNYM);
+		}
+		report(RelationshipFinder.class.getName(), start);
+
+		finder.clearCache();
+		start = System.nanoTime();
+		for (int i = 0; i < _sources.length; i++) {
+			finder.findRelationships(_sources[i], _targets[i], PointerType.HYPERNYM);
+		}
+		report(BidirectionalRelationshipFinder.class.getName() + ", empty cache", start);
+
+		start = System.nanoTime();
+		for (int i = 0; i < _sources.length; i++) {
+			finder.findRelationships(_sources[i], _targets[i], PointerType.HYPERNYM);
+		}
+		report(BidirectionalRelationshipFinder.class.getName() + ", cached", start);
+	}
+
+	private void report(String name, long start) {
+		double rate = _sources.length / ((System.nanoTime() - start) / 1e9);
+		System.out.println("  " + name + ": " + (long) rate + " pairs/s");
+	}
+
+	private void check(RelationshipList expected, RelationshipList actual, int pair) {
+		boolean same = expected.size() == actual.size();
+		for (int i = 0; same && i < expected.size(); i++) {
+			Relationship a = (Relationship) expected.get(i);
+			Relationship b = (Relationship) actual.get(i);
+			same = a.toString().equals(b.toString()) && new ArrayList(a.getNodeList()).equals(new ArrayList(b.getNodeList()));
+		}
+		if (!same) {
+			throw new IllegalStateException("Different relationships between " + _sources[pair] + " and " + _targets[pair]);
+		}
+	}
+}
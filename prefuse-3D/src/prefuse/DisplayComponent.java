@@ -57,14 +57,17 @@ import prefuse.util.ColorLib;
 import prefuse.util.StringLib;
 import prefuse.util.UpdateListener;
 import prefuse.util.collections.CopyOnWriteArrayList;
+import prefuse.util.collections.IntIterator;
 import prefuse.util.display.BackgroundPainter;
 import prefuse.util.display.Clip;
 import prefuse.util.display.DebugStatsPainter;
 import prefuse.util.display.ExportDisplayAction;
+import prefuse.util.display.ItemBoundsIndex;
 import prefuse.util.display.ItemBoundsListener;
 import prefuse.util.display.PaintListener;
 import prefuse.util.display.RenderingQueue;
 import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
 import prefuse.visual.expression.VisiblePredicate;
 import prefuse.visual.sort.ItemSorter;
 
@@ -86,6 +89,12 @@ import prefuse.visual.sort.ItemSorter;
  * are drawn later, and hence on top of lower scoring items.
  * </p>
  * 
+ * <p>When all visual data groups are backed by
+ * {@link prefuse.visual.VisualTable} instances, the Display finds the items
+ * to draw within a damaged region, and the items under the mouse, using the
+ * {@link prefuse.util.display.ItemBoundsIndex} of each table, rather than
+ * visiting every item.</p>
+ * 
  * <p>The {@link prefuse.controls.Control Control}
  * interface provides the user interface callbacks for supporting
  * interaction. The {@link prefuse.controls} package contains a number
@@ -141,6 +150,10 @@ public class DisplayComponent extends JComponent implements Display {
     protected RenderingQueue m_queue = new RenderingQueue();
     protected int            m_visibleCount = 0;
     
+    // tables drawn using their bounds indices, null if not indexed
+    protected VisualTable[]  m_tables = null;
+    protected boolean        m_boundsValid = false;
+    
     // transform variables
     protected AffineTransform   m_transform  = new AffineTransform();
     protected AffineTransform   m_itransform = new AffineTransform();
@@ -392,6 +405,7 @@ public class DisplayComponent extends JComponent implements Display {
             m_vis.removeDisplay(this);
         }
         m_vis = vis;
+        m_tables = null;
         if ( m_vis != null )
             m_vis.addDisplay(this);
     }
@@ -442,7 +456,9 @@ public class DisplayComponent extends JComponent implements Display {
      * panning or zooming state.
      * @return the count of visible items
      */
-    public int getVisibleItemCount() {
+    public synchronized int getVisibleItemCount() {
+        if ( m_tables != null && !m_boundsValid )
+            computeItemBounds();
         return m_visibleCount;
     }
     
@@ -656,6 +672,8 @@ public class DisplayComponent extends JComponent implements Display {
      * @return the bounding box of all visibile VisualItems
      */
     public synchronized Rectangle2D getItemBounds(Rectangle2D b) {
+        if ( m_tables != null && !m_boundsValid )
+            computeItemBounds();
         b.setFrameFromDiagonal(m_bounds.getMinX(), m_bounds.getMinY(),
                                m_bounds.getMaxX(), m_bounds.getMaxY());
         return b;
@@ -921,22 +939,48 @@ public class DisplayComponent extends JComponent implements Display {
             // -- render ----------------------------
             // the actual rendering  loop
             
-            // copy current item bounds into m_rclip, reset item bounds
-            getItemBounds(m_rclip);
-            m_bounds.reset();
+            // copy current item bounds into m_rclip
+            m_rclip.setFrameFromDiagonal(m_bounds.getMinX(), m_bounds.getMinY(),
+                                         m_bounds.getMaxX(), m_bounds.getMaxY());
             
             // fill the rendering and picking queues
             m_queue.clear();   // clear the queue
-            Iterator items = m_vis.items(m_predicate);
-            for ( m_visibleCount=0; items.hasNext(); ++m_visibleCount ) {
-                VisualItem item = (VisualItem)items.next();
-                Rectangle2D bounds = item.getBounds();
-                m_bounds.union(bounds); // add to item bounds
-                
-                if ( m_clip.intersects(bounds, pixel) )
-                    m_queue.addToRenderQueue(item);
-                if ( item.isInteractive() )
-                    m_queue.addToPickingQueue(item);
+            m_tables = m_vis.getVisualTables();
+            m_boundsValid = false;
+            if ( m_tables != null ) {
+                // only visit the items in the damaged region
+                for ( int i=0; i<m_tables.length; ++i ) {
+                    VisualTable t = m_tables[i];
+                    ItemBoundsIndex index = t.getBoundsIndex();
+                    index.validate();
+                    IntIterator rows = index.rows(
+                        m_clip.getMinX()-pixel, m_clip.getMinY()-pixel,
+                        m_clip.getMaxX()+pixel, m_clip.getMaxY()+pixel);
+                    while ( rows.hasNext() ) {
+                        int row = rows.nextInt();
+                        if ( !t.isValidRow(row) ) continue;
+                        VisualItem item = t.getItem(row);
+                        if ( m_predicate.getBoolean(item) &&
+                             m_clip.intersects(item.getBounds(), pixel) )
+                            m_queue.addToRenderQueue(item);
+                    }
+                }
+                // the item bounds are only kept current for listeners
+                if ( m_bounders != null && m_bounders.size() > 0 )
+                    computeItemBounds();
+            } else {
+                m_bounds.reset();
+                Iterator items = m_vis.items(m_predicate);
+                for ( m_visibleCount=0; items.hasNext(); ++m_visibleCount ) {
+                    VisualItem item = (VisualItem)items.next();
+                    Rectangle2D bounds = item.getBounds();
+                    m_bounds.union(bounds); // add to item bounds
+                    
+                    if ( m_clip.intersects(bounds, pixel) )
+                        m_queue.addToRenderQueue(item);
+                    if ( item.isInteractive() )
+                        m_queue.addToPickingQueue(item);
+                }
             }
             
             // sort the rendering queue
@@ -957,6 +1001,22 @@ public class DisplayComponent extends JComponent implements Display {
         }} // end synchronized block
     }
     
+    /**
+     * Compute the total bounds and the number of all items passing the
+     * predicate of this Display. Used when the items are drawn using
+     * bounds indices, which only visit the items in the damaged region;
+     * the result is kept until the next repaint.
+     */
+    private void computeItemBounds() {
+        m_bounds.reset();
+        Iterator items = m_vis.items(m_predicate);
+        for ( m_visibleCount=0; items.hasNext(); ++m_visibleCount ) {
+            VisualItem item = (VisualItem)items.next();
+            m_bounds.union(item.getBounds());
+        }
+        m_boundsValid = true;
+    }
+    
     /**
      * Immediately render the given VisualItem to the screen. This method
      * bypasses the Display's offscreen buffer.
@@ -1536,6 +1596,24 @@ public class DisplayComponent extends JComponent implements Display {
         // transform mouse point from screen space to item space
         Point2D p2 = (m_itransform==null ? p : 
                       m_itransform.transform(p, m_tmpPoint));
+        if ( m_tables != null ) {
+            // fill the picking queue with the items near the point
+            m_queue.clearPickingQueue();
+            double x = p2.getX(), y = p2.getY();
+            double pixel = 1.0 + 1.0/getScale();
+            for ( int i=0; i<m_tables.length; ++i ) {
+                VisualTable t = m_tables[i];
+                IntIterator rows = t.getBoundsIndex().rows(
+                    x-pixel, y-pixel, x+pixel, y+pixel);
+                while ( rows.hasNext() ) {
+                    int row = rows.nextInt();
+                    if ( !t.isValidRow(row) ) continue;
+                    VisualItem item = t.getItem(row);
+                    if ( item.isInteractive() && m_predicate.getBoolean(item) )
+                        m_queue.addToPickingQueue(item);
+                }
+            }
+        }
         // ensure that the picking queue has been z-sorted
         if ( !m_queue.psorted )
             m_queue.sortPickingQueue();
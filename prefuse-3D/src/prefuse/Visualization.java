@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import prefuse.action.Action;
@@ -982,6 +983,43 @@ public class Visualization {
         }
     }
     
+    /**
+     * Get the tables backing the items of all visual data groups, in the
+     * order in which {@link #items(Predicate)} visits them.
+     * @return the visual tables, or null if a visual data group is not
+     * backed by VisualTable instances
+     */
+    public VisualTable[] getVisualTables() {
+        ArrayList tables = new ArrayList();
+        boolean all = m_visual.size() == 1;
+        Iterator it = m_visual.keySet().iterator();
+        while ( it.hasNext() ) {
+            String group = (String)it.next();
+            if ( (all || !PrefuseLib.isChildGroup(group)) &&
+                 !addVisualTables((TupleSet)m_visual.get(group), tables) )
+            {
+                return null;
+            }
+        }
+        return (VisualTable[])tables.toArray(new VisualTable[tables.size()]);
+    }
+    
+    private boolean addVisualTables(TupleSet ts, List tables) {
+        if ( ts instanceof VisualTable ) {
+            tables.add(ts);
+            return true;
+        } else if ( ts instanceof CompositeTupleSet ) {
+            CompositeTupleSet cts = (CompositeTupleSet)ts;
+            for ( Iterator names = cts.setNames(); names.hasNext(); ) {
+                if ( !addVisualTables(cts.getSet((String)names.next()), tables) )
+                    return false;
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+    
     /**
      * Get an iterator over all items in the specified group.
      * @param group the visual data group name
@@ -1269,6 +1307,24 @@ public class Visualization {
      * bounding box
      */
     public Rectangle2D getBounds(String group, Rectangle2D r) {
+        TupleSet ts = getGroup(group);
+        if ( ts instanceof VisualTable ) {
+            getBounds((VisualTable)ts, r);
+            return r;
+        } else if ( ts instanceof VisualGraph ) {
+            // union the bounds of the nodes and of the edges
+            VisualGraph vg = (VisualGraph)ts;
+            Rectangle2D b = new Rectangle2D.Double();
+            boolean nodes = getBounds((VisualTable)vg.getNodeTable(), r);
+            if ( getBounds((VisualTable)vg.getEdgeTable(), b) ) {
+                if ( nodes )
+                    Rectangle2D.union(b, r, r);
+                else
+                    r.setRect(b);
+            }
+            return r;
+        }
+        
         Iterator iter = visibleItems(group);
         if ( iter.hasNext() ) {
             VisualItem item = (VisualItem)iter.next();
@@ -1281,6 +1337,14 @@ public class Visualization {
         return r;
     }
     
+    /**
+     * Compute the bounding rectangle of the visible items of a table.
+     * @return true if the table has visible items, false otherwise
+     */
+    private boolean getBounds(VisualTable t, Rectangle2D r) {
+        return t.getBounds(t.rows(VisiblePredicate.TRUE), r);
+    }
+    
     // ------------------------------------------------------------------------
     // Displays
     
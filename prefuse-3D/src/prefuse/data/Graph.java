@@ -54,6 +54,13 @@ import prefuse.util.collections.IntIterator;
  * internally by the Graph class, storing node indegree and outdegree
  * counts and adjacency lists for the inlinks and outlinks for all nodes.</p>
  * 
+ * <p>Large graphs that are built once and then mostly traversed can be
+ * loaded with {@link #addEdges(int[], int[])} and {@link #compact()}ed. A
+ * compacted graph keeps the adjacency lists of all nodes in two flat arrays,
+ * one for inlinks and one for outlinks, rather than in one array per node.
+ * The next change to the graph linkage structure restores the per-node
+ * adjacency lists.</p>
+ * 
  * <p>Graph nodes and edges can be accessed by application code by either
  * using the row numbers of the node and edge tables, which provide unique ids
  * for each, or using the {@link prefuse.data.Node} and
@@ -116,6 +123,17 @@ public class Graph extends CompositeTupleSet {
     /** The spanning tree over this graph */
     protected SpanningTree m_spanning = null;
     
+    /** Offsets of each node's inlinks in m_inlinks, null if not compacted */
+    private int[] m_inOffsets;
+    /** The inlinks of all nodes, null if not compacted */
+    private int[] m_inlinks;
+    /** Offsets of each node's outlinks in m_outlinks, null if not compacted */
+    private int[] m_outOffsets;
+    /** The outlinks of all nodes, null if not compacted */
+    private int[] m_outlinks;
+    /** Indicates if edges are being added by {@link #addEdges(int[], int[])} */
+    private boolean m_bulkLoad = false;
+    
     /** The node key field (for the Node table) */
     protected String m_nkey;
     /** The source node key field (for the Edge table) */
@@ -349,6 +367,7 @@ public class Graph extends CompositeTupleSet {
     protected void initLinkTable() {
         // set up cache of node data
         m_links = createLinkTable();
+        m_inOffsets = m_inlinks = m_outOffsets = m_outlinks = null;
                 
         IntIterator edges = getEdgeTable().rows();
         while ( edges.hasNext() ) {
@@ -390,6 +409,7 @@ public class Graph extends CompositeTupleSet {
      * -1 for a removed link
      */
     protected void updateDegrees(int e, int s, int t, int incr) {
+        expandLinks();
         int od = m_links.getInt(s, OUTDEGREE);
         int id = m_links.getInt(t, INDEGREE);
         // update adjacency lists
@@ -456,6 +476,7 @@ public class Graph extends CompositeTupleSet {
      * @param added indicates if a node was added or removed
      */
     protected void updateNodeData(int r, boolean added) {
+        expandLinks();
         if ( added ) {
             m_links.addRow();
         } else {
@@ -464,6 +485,156 @@ public class Graph extends CompositeTupleSet {
         }
     }
     
+    /**
+     * Get an edge from the inlinks adjacency list of a node.
+     * @param node the node id (node table row number)
+     * @param idx the index into the adjacency list, less than the
+     * in-degree of the node
+     * @return the edge id (edge table row number) of the inlink
+     */
+    protected int getInLink(int node, int idx) {
+        if ( m_inlinks != null ) {
+            return m_inlinks[m_inOffsets[node]+idx];
+        } else {
+            return ((int[])m_links.get(node, INLINKS))[idx];
+        }
+    }
+    
+    /**
+     * Get an edge from the outlinks adjacency list of a node.
+     * @param node the node id (node table row number)
+     * @param idx the index into the adjacency list, less than the
+     * out-degree of the node
+     * @return the edge id (edge table row number) of the outlink
+     */
+    protected int getOutLink(int node, int idx) {
+        if ( m_outlinks != null ) {
+            return m_outlinks[m_outOffsets[node]+idx];
+        } else {
+            return ((int[])m_links.get(node, OUTLINKS))[idx];
+        }
+    }
+    
+    /**
+     * Indicates if this graph is compacted, in which case the adjacency lists
+     * of all nodes are stored in flat arrays.
+     * @return true if the graph is compacted, false otherwise
+     * @see #compact()
+     */
+    public boolean isCompact() {
+        return m_outlinks != null;
+    }
+    
+    /**
+     * Compact the adjacency lists of this graph. The inlinks and outlinks of
+     * all nodes are copied, in order, into two flat arrays with an offset
+     * array each, and the per-node adjacency lists are released. Edge and
+     * neighbor iterators are then served from the flat arrays. Changes to
+     * node or edge data values keep the graph compacted; adding or removing
+     * nodes or edges, or changing the source or target of an edge, restores
+     * the per-node adjacency lists.
+     */
+    public void compact() {
+        if ( isCompact() ) return;
+        
+        int nrows = m_links.getMaximumRow()+1;
+        int[] inOffsets  = new int[nrows+1];
+        int[] outOffsets = new int[nrows+1];
+        for ( int r=0; r<nrows; ++r ) {
+            boolean valid = m_links.isValidRow(r);
+            inOffsets[r+1] = inOffsets[r] + (valid ? getInDegree(r) : 0);
+            outOffsets[r+1] = outOffsets[r] + (valid ? getOutDegree(r) : 0);
+        }
+        int[] inlinks  = new int[inOffsets[nrows]];
+        int[] outlinks = new int[outOffsets[nrows]];
+        for ( int r=0; r<nrows; ++r ) {
+            if ( !m_links.isValidRow(r) ) continue;
+            compactLinks(INLINKS, r, inlinks, inOffsets);
+            compactLinks(OUTLINKS, r, outlinks, outOffsets);
+        }
+        m_inOffsets  = inOffsets;
+        m_inlinks    = inlinks;
+        m_outOffsets = outOffsets;
+        m_outlinks   = outlinks;
+    }
+    
+    /**
+     * Move an adjacency list from the link table into a flat array.
+     */
+    private void compactLinks(String field, int n, int[] links, int[] offsets) {
+        int len = offsets[n+1] - offsets[n];
+        if ( len > 0 ) {
+            int[] array = (int[])m_links.get(n, field);
+            System.arraycopy(array, 0, links, offsets[n], len);
+        }
+        m_links.set(n, field, null);
+    }
+    
+    /**
+     * Restore the per-node adjacency lists of a compacted graph, so that the
+     * linkage structure can be changed. Does nothing if the graph is not
+     * compacted.
+     */
+    protected void expandLinks() {
+        if ( !isCompact() ) return;
+        
+        for ( int r=m_outOffsets.length-1; --r>=0; ) {
+            if ( !m_links.isValidRow(r) ) continue;
+            expandLinks(INLINKS, r, m_inlinks, m_inOffsets);
+            expandLinks(OUTLINKS, r, m_outlinks, m_outOffsets);
+        }
+        m_inOffsets = m_inlinks = m_outOffsets = m_outlinks = null;
+    }
+    
+    /**
+     * Move an adjacency list from a flat array back into the link table.
+     */
+    private void expandLinks(String field, int n, int[] links, int[] offsets) {
+        int len = offsets[n+1] - offsets[n];
+        if ( len > 0 ) {
+            int[] array = new int[len];
+            System.arraycopy(links, offsets[n], array, 0, len);
+            m_links.set(n, field, array);
+        }
+    }
+    
+    /**
+     * Merge edges into a flat adjacency list array, after the existing
+     * links of each node.
+     * @param offsets the current adjacency list offsets, updated in place
+     * @param links the current adjacency lists
+     * @param nodes the node whose adjacency list each edge is added to
+     * @param edges the edges to add
+     * @return the merged adjacency lists
+     */
+    private static int[] mergeLinks(int[] offsets, int[] links,
+                                    int[] nodes, int[] edges)
+    {
+        int nrows = offsets.length-1;
+        
+        // count the links added to each node
+        int[] count = new int[nrows+1];
+        for ( int i=0; i<nodes.length; ++i )
+            count[nodes[i]+1]++;
+        
+        // copy the current lists to their new positions
+        int[] merged = new int[links.length + edges.length];
+        for ( int r=0, shift=0; r<nrows; ++r ) {
+            int start = offsets[r], len = offsets[r+1]-start;
+            System.arraycopy(links, start, merged, start+shift, len);
+            offsets[r] = start + shift;
+            shift += count[r+1];
+            // count[r] becomes the next free position of node r
+            count[r] = offsets[r] + len;
+        }
+        offsets[nrows] = merged.length;
+        
+        // append the new links, in order
+        for ( int i=0; i<edges.length; ++i )
+            merged[count[nodes[i]]++] = edges[i];
+        return merged;
+    }
+    
     // ------------------------------------------------------------------------
     // Key Transforms
     
@@ -574,6 +745,53 @@ public class Graph extends CompositeTupleSet {
         return getEdge(e);
     }
     
+    /**
+     * Add a batch of edges to the graph, leaving it {@link #compact()}ed.
+     * The adjacency lists are updated once for the whole batch rather than
+     * once per edge, and each node's new edges are appended to its lists
+     * in the given order. Graph listeners are notified of each added edge,
+     * but the linkage structure only includes the new edges once all of
+     * them have been added.
+     * @param src the source node ids of the edges
+     * @param tgt the target node ids of the edges, of the same length
+     * @return the edge ids (edge table row numbers) of the added edges
+     */
+    public int[] addEdges(int[] src, int[] tgt) {
+        if ( src.length != tgt.length ) {
+            throw new IllegalArgumentException(
+                "Source and target arrays must have the same length.");
+        }
+        Table nodes = getNodeTable();
+        for ( int i=0; i<src.length; ++i ) {
+            if ( !nodes.isValidRow(src[i]) || !nodes.isValidRow(tgt[i]) ) {
+                throw new IllegalArgumentException(
+                    "Invalid node id for edge "+i+": "+src[i]+", "+tgt[i]);
+            }
+        }
+        
+        compact();
+        int[] edges = new int[src.length];
+        m_bulkLoad = true;
+        try {
+            for ( int i=0; i<src.length; ++i )
+                edges[i] = addEdge(src[i], tgt[i]);
+        } finally {
+            m_bulkLoad = false;
+        }
+        
+        // merge the new edges into the adjacency lists
+        m_inlinks  = mergeLinks(m_inOffsets, m_inlinks, tgt, edges);
+        m_outlinks = mergeLinks(m_outOffsets, m_outlinks, src, edges);
+        for ( int i=0; i<src.length; ++i ) {
+            int s = src[i], t = tgt[i];
+            m_links.setInt(s, OUTDEGREE, m_outOffsets[s+1]-m_outOffsets[s]);
+            m_links.setInt(t, INDEGREE, m_inOffsets[t+1]-m_inOffsets[t]);
+        }
+        // link structure changed, invalidate spanning tree
+        m_spanning = null;
+        return edges;
+    }
+    
     /**
      * Remove a node from the graph, also removing all incident edges.
      * @param node the node id (node table row number) of the node to remove
@@ -583,6 +801,7 @@ public class Graph extends CompositeTupleSet {
     public boolean removeNode(int node) {
         Table nodeTable = getNodeTable();
         if ( nodeTable.isValidRow(node) ) {
+            expandLinks();
             int id = getInDegree(node);
             if ( id > 0 ) {
                 int[] links = (int[])m_links.get(node, INLINKS);
@@ -854,12 +1073,10 @@ public class Graph extends CompositeTupleSet {
      */
     public int getEdge(int source, int target) {
         int outd = getOutDegree(source); 
-        if ( outd > 0 ) {
-            int[] edges = (int[])m_links.get(source, OUTLINKS);
-            for ( int i=0; i<outd; ++i ) {
-                if ( getTargetNode(edges[i]) == target )
-                    return edges[i];
-            }
+        for ( int i=0; i<outd; ++i ) {
+            int e = getOutLink(source, i);
+            if ( getTargetNode(e) == target )
+                return e;
         }
         return -1;
     }
@@ -997,7 +1214,13 @@ public class Graph extends CompositeTupleSet {
      * node
      */
     public IntIterator edgeRows(int node, int direction) {
-        if ( direction==OUTEDGES ) {
+        if ( direction==OUTEDGES && m_outlinks != null ) {
+            return new IntArrayIterator(m_outlinks, m_outOffsets[node],
+                                        getOutDegree(node));
+        } else if ( direction==INEDGES && m_inlinks != null ) {
+            return new IntArrayIterator(m_inlinks, m_inOffsets[node],
+                                        getInDegree(node));
+        } else if ( direction==OUTEDGES ) {
             int[] outedges = (int[])m_links.get(node, OUTLINKS);
             return new IntArrayIterator(outedges, 0, getOutDegree(node));
         } else if ( direction==INEDGES ) {
@@ -1332,7 +1555,7 @@ public class Graph extends CompositeTupleSet {
                         for ( int r=start; r<=end; ++r )
                             updateNodeData(r, added);
                     }
-                } else {
+                } else if ( !m_bulkLoad ) {
                     // update the linkage structure table
                     if ( col == EventConstants.ALL_COLUMNS ) {
                         boolean added = type==EventConstants.INSERT;
@@ -1351,7 +1574,10 @@ public class Graph extends CompositeTupleSet {
         }
 
         public void columnChanged(Column src, int idx, long prev) {
-            if ( src==m_scol || src==m_tcol ) {
+            if ( m_bulkLoad && (src==m_scol || src==m_tcol) ) {
+                // added by addEdges, linked once all edges are added
+                return;
+            } else if ( src==m_scol || src==m_tcol ) {
                 boolean isSrc = src==m_scol;
                 int e = m_edges.getTableRow(idx, isSrc?m_sidx:m_tidx);
                 if ( e == -1 )
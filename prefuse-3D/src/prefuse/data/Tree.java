@@ -1,5 +1,6 @@
 package prefuse.data;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.logging.Logger;
 
@@ -143,15 +144,32 @@ public class Tree extends Graph {
             m_links.setInt(t, CHILDINDEX, od-1);
         } else if ( incr < 0 ) {
             // if removed, we renumber each child in the array
-            int[] links = (int[])m_links.get(s, OUTLINKS);
             for ( int i=0; i<od; ++i ) {
-                int n = getTargetNode(links[i]);
+                int n = getTargetNode(getOutLink(s, i));
                 m_links.setInt(n, CHILDINDEX, i);
             }
             m_links.setInt(t, CHILDINDEX, -1);
         }
     }
     
+    /**
+     * @see prefuse.data.Graph#addEdges(int[], int[])
+     */
+    public int[] addEdges(int[] src, int[] tgt) {
+        int[] edges = super.addEdges(src, tgt);
+        // the new edges are the last children of their parents, so
+        // number them backwards from each parent's child count
+        int[] next = new int[getNodeTable().getMaximumRow()+1];
+        Arrays.fill(next, -1);
+        for ( int i=edges.length; --i>=0; ) {
+            int s = src[i];
+            if ( next[s] < 0 )
+                next[s] = getChildCount(s)-1;
+            m_links.setInt(tgt[i], CHILDINDEX, next[s]--);
+        }
+        return edges;
+    }
+    
     // ------------------------------------------------------------------------
     // Tree Mutators
     
@@ -295,8 +313,7 @@ public class Tree extends Graph {
     public int getChildRow(int node, int idx) {
         int cc = getChildCount(node);
         if ( idx < 0 || idx >= cc ) return -1;
-        int[] links = (int[])m_links.get(node, OUTLINKS);
-        return getTargetNode(links[idx]);
+        return getTargetNode(getOutLink(node, idx));
     }
     
     /**
@@ -384,9 +401,8 @@ public class Tree extends Graph {
         int p = getParent(node);
         if ( p < 0 )
             return -1;
-        int[] links = (int[])m_links.get(p, OUTLINKS);
         int idx = m_links.getInt(node, CHILDINDEX);
-        return ( idx<=0 ? -1 : getTargetNode(links[idx-1]));
+        return ( idx<=0 ? -1 : getTargetNode(getOutLink(p, idx-1)));
     }
     
     /**
@@ -409,10 +425,9 @@ public class Tree extends Graph {
         int p = getParent(node);
         if ( p < 0 )
             return -1;
-        int[] links = (int[])m_links.get(p, OUTLINKS);
         int idx = m_links.getInt(node, CHILDINDEX);
         int max = getChildCount(p)-1;
-        return ( idx<0 || idx>=max ? -1 : getTargetNode(links[idx+1]));
+        return ( idx<0 || idx>=max ? -1 : getTargetNode(getOutLink(p, idx+1)));
     }
     
     /**
@@ -459,8 +474,7 @@ public class Tree extends Graph {
      */
     public int getParentEdge(int node) {
         if ( getInDegree(node) > 0 ) {
-            int[] inlinks = (int[])m_links.get(node, INLINKS);
-            return inlinks[0];
+            return getInLink(node, 0);
         } else {
             return -1;
         }
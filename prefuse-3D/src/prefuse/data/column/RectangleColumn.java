@@ -0,0 +1,315 @@
+package prefuse.data.column;
+
+import java.awt.geom.Rectangle2D;
+
+import prefuse.data.DataReadOnlyException;
+import prefuse.data.DataTypeException;
+
+/**
+ * Column implementation for storing rectangles, such as the bounds of
+ * visual items. The x, y, width and height values of all rows are stored in
+ * four arrays of doubles rather than in one Rectangle2D object per row, so
+ * loops over many rows, like bounds unions and clipping tests, read
+ * contiguous memory through the {@link #getX(int)}, {@link #getY(int)},
+ * {@link #getWidth(int)} and {@link #getHeight(int)} methods.
+ *
+ * <p>The {@link #get(int)} method returns a Rectangle2D view onto a row,
+ * created the first time it is requested and reused afterwards. The view
+ * reads and writes the column arrays, so it always reflects the current
+ * values of its row, just as the rectangle stored in an ObjectColumn would.
+ * Setting a value copies the values of the given rectangle.</p>
+ */
+public class RectangleColumn extends AbstractColumn {
+
+    private double[] m_x, m_y, m_w, m_h;
+    private Rectangle2D[] m_views;
+    private int m_size;
+
+    /**
+     * Create a new empty RectangleColumn.
+     */
+    public RectangleColumn() {
+        this(0, 10, new Rectangle2D.Double());
+    }
+
+    /**
+     * Create a new RectangleColumn.
+     * @param nrows the initial size of the column
+     */
+    public RectangleColumn(int nrows) {
+        this(nrows, nrows, new Rectangle2D.Double());
+    }
+
+    /**
+     * Create a new RectangleColumn.
+     * @param nrows the initial size of the column
+     * @param capacity the initial capacity of the column
+     * @param defaultValue the default value for the column. Its values are
+     * copied into each row; null is treated as an empty rectangle at the
+     * origin.
+     */
+    public RectangleColumn(int nrows, int capacity, Rectangle2D defaultValue) {
+        super(Rectangle2D.class, defaultValue==null ? new Rectangle2D.Double()
+                : (Rectangle2D)defaultValue.clone());
+        if ( capacity < nrows ) {
+            throw new IllegalArgumentException(
+                "Capacity value can not be less than the row count.");
+        }
+        m_x = new double[capacity];
+        m_y = new double[capacity];
+        m_w = new double[capacity];
+        m_h = new double[capacity];
+        m_views = new Rectangle2D[capacity];
+        fillDefault(0, capacity);
+        m_size = nrows;
+    }
+
+    private void fillDefault(int start, int end) {
+        Rectangle2D dflt = (Rectangle2D)m_defaultValue;
+        double x = dflt.getX(), y = dflt.getY();
+        double w = dflt.getWidth(), h = dflt.getHeight();
+        for ( int i=start; i<end; ++i ) {
+            m_x[i] = x; m_y[i] = y; m_w[i] = w; m_h[i] = h;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Column Metadata
+
+    /**
+     * @see prefuse.data.column.Column#getRowCount()
+     */
+    public int getRowCount() {
+        return m_size;
+    }
+
+    /**
+     * @see prefuse.data.column.Column#setMaximumRow(int)
+     */
+    public void setMaximumRow(int nrows) {
+        if ( nrows > m_x.length ) {
+            int capacity = Math.max((3*m_x.length)/2 + 1, nrows);
+            m_x = grow(m_x, capacity);
+            m_y = grow(m_y, capacity);
+            m_w = grow(m_w, capacity);
+            m_h = grow(m_h, capacity);
+            Rectangle2D[] views = new Rectangle2D[capacity];
+            System.arraycopy(m_views, 0, views, 0, m_size);
+            m_views = views;
+            fillDefault(m_size, capacity);
+        }
+        m_size = nrows;
+    }
+
+    private double[] grow(double[] a, int capacity) {
+        double[] b = new double[capacity];
+        System.arraycopy(a, 0, b, 0, m_size);
+        return b;
+    }
+
+    /**
+     * @see prefuse.data.column.AbstractColumn#setDefaultValue(java.lang.Object)
+     */
+    public void setDefaultValue(Object dflt) {
+        if ( dflt == null ) {
+            throw new IllegalArgumentException(
+                "Column does not accept null values");
+        }
+        super.setDefaultValue(((Rectangle2D)dflt).clone());
+    }
+
+    // ------------------------------------------------------------------------
+    // Data Access Methods
+
+    /**
+     * Get the rectangle at the given row. The returned rectangle is a view
+     * onto the column values of the row, not a copy.
+     * @see prefuse.data.column.Column#get(int)
+     */
+    public Object get(int row) {
+        if ( row < 0 || row > m_size ) {
+            throw new IllegalArgumentException(
+                "Row index out of bounds: "+row);
+        }
+        Rectangle2D view = m_views[row];
+        if ( view == null ) {
+            m_views[row] = view = new RowRectangle(row);
+        }
+        return view;
+    }
+
+    /**
+     * Copy the values of the given rectangle into the given row.
+     * @see prefuse.data.column.Column#set(java.lang.Object, int)
+     */
+    public void set(Object val, int row) throws DataTypeException {
+        if ( m_readOnly ) {
+            throw new DataReadOnlyException();
+        } else if ( row < 0 || row >= m_size ) {
+            throw new IllegalArgumentException(
+                "Row index out of bounds: "+row);
+        } else if ( val instanceof Rectangle2D ) {
+            Rectangle2D r = (Rectangle2D)val;
+            double x = r.getX(), y = r.getY();
+            double w = r.getWidth(), h = r.getHeight();
+
+            // exit early if no change
+            if ( x == m_x[row] && y == m_y[row] &&
+                 w == m_w[row] && h == m_h[row] ) return;
+
+            // keep the previous values for the change event
+            Rectangle2D prev = new Rectangle2D.Double(
+                m_x[row], m_y[row], m_w[row], m_h[row]);
+            setRect(row, x, y, w, h);
+
+            // fire a change event
+            fireColumnEvent(row, prev);
+        } else if ( val != null ) {
+            throw new DataTypeException(val.getClass());
+        } else {
+            throw new DataTypeException("Column does not accept null values");
+        }
+    }
+
+    /**
+     * @see prefuse.data.column.AbstractColumn#revertToDefault(int)
+     */
+    public void revertToDefault(int row) {
+        set(m_defaultValue, row);
+    }
+
+    // ------------------------------------------------------------------------
+    // Rectangle Access Methods
+
+    /**
+     * Get the x-coordinate of the rectangle at the given row.
+     * @param row the row to retrieve
+     * @return the minimum x-coordinate
+     */
+    public double getX(int row) {
+        return m_x[row];
+    }
+
+    /**
+     * Get the y-coordinate of the rectangle at the given row.
+     * @param row the row to retrieve
+     * @return the minimum y-coordinate
+     */
+    public double getY(int row) {
+        return m_y[row];
+    }
+
+    /**
+     * Get the width of the rectangle at the given row.
+     * @param row the row to retrieve
+     * @return the width
+     */
+    public double getWidth(int row) {
+        return m_w[row];
+    }
+
+    /**
+     * Get the height of the rectangle at the given row.
+     * @param row the row to retrieve
+     * @return the height
+     */
+    public double getHeight(int row) {
+        return m_h[row];
+    }
+
+    /**
+     * Set the rectangle at the given row. Like editing the rectangle stored
+     * in an ObjectColumn, this does not fire a column event.
+     * @param row the row to set
+     * @param x the minimum x-coordinate
+     * @param y the minimum y-coordinate
+     * @param w the width
+     * @param h the height
+     */
+    public void setRect(int row, double x, double y, double w, double h) {
+        if ( m_readOnly ) {
+            throw new DataReadOnlyException();
+        } else if ( row < 0 || row >= m_size ) {
+            throw new IllegalArgumentException(
+                "Row index out of bounds: "+row);
+        }
+        m_x[row] = x;
+        m_y[row] = y;
+        m_w[row] = w;
+        m_h[row] = h;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+     * Rectangle2D view onto one row of the column.
+     */
+    private class RowRectangle extends Rectangle2D {
+        private final int m_row;
+
+        RowRectangle(int row) {
+            m_row = row;
+        }
+
+        public double getX() {
+            return m_x[m_row];
+        }
+        public double getY() {
+            return m_y[m_row];
+        }
+        public double getWidth() {
+            return m_w[m_row];
+        }
+        public double getHeight() {
+            return m_h[m_row];
+        }
+        public boolean isEmpty() {
+            return m_w[m_row] <= 0 || m_h[m_row] <= 0;
+        }
+        public void setRect(double x, double y, double w, double h) {
+            RectangleColumn.this.setRect(m_row, x, y, w, h);
+        }
+        public int outcode(double x, double y) {
+            double rx = m_x[m_row], ry = m_y[m_row];
+            double rw = m_w[m_row], rh = m_h[m_row];
+            int out = 0;
+            if ( rw <= 0 ) {
+                out |= OUT_LEFT | OUT_RIGHT;
+            } else if ( x < rx ) {
+                out |= OUT_LEFT;
+            } else if ( x > rx + rw ) {
+                out |= OUT_RIGHT;
+            }
+            if ( rh <= 0 ) {
+                out |= OUT_TOP | OUT_BOTTOM;
+            } else if ( y < ry ) {
+                out |= OUT_TOP;
+            } else if ( y > ry + rh ) {
+                out |= OUT_BOTTOM;
+            }
+            return out;
+        }
+        public Rectangle2D createIntersection(Rectangle2D r) {
+            Rectangle2D dest = new Rectangle2D.Double();
+            Rectangle2D.intersect(this, r, dest);
+            return dest;
+        }
+        public Rectangle2D createUnion(Rectangle2D r) {
+            Rectangle2D dest = new Rectangle2D.Double();
+            Rectangle2D.union(this, r, dest);
+            return dest;
+        }
+        /**
+         * Returns a copy of the current values, not another view.
+         */
+        public Object clone() {
+            return new Rectangle2D.Double(getX(), getY(),
+                getWidth(), getHeight());
+        }
+        public String toString() {
+            return getClass().getName()+"[x="+getX()+",y="+getY()+
+                ",w="+getWidth()+",h="+getHeight()+"]";
+        }
+    }
+
+} // end of class RectangleColumn
@@ -0,0 +1,186 @@
+package prefuse.data.expression;
+
+import prefuse.data.Schema;
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.data.expression.ExpressionCompiler.Code;
+
+/**
+ * <p>Expression that evaluates another expression through code compiled by
+ * the {@link ExpressionCompiler}. The code is compiled the first time a
+ * tuple with a given {@link Schema} is evaluated, and kept for the last few
+ * schemas seen; tables cache their schema, so this is once per table until
+ * its columns change. Tuples that are not backed by a table, or are no
+ * longer valid, are evaluated by the wrapped expression itself.</p>
+ *
+ * <p>The compiled code is discarded whenever the wrapped expression tree
+ * changes. Visitors are passed through the wrapped expression.</p>
+ */
+public class CompiledExpression extends AbstractExpression implements Predicate {
+
+    /** The number of schemas whose code is kept. */
+    private static final int MAX_SCHEMAS = 8;
+
+    private final Expression m_expr;
+
+    /** Schemas and their code, most recently compiled last; never modified */
+    private volatile Entry[] m_entries = new Entry[0];
+
+    /**
+     * Create a new CompiledExpression. Use
+     * {@link ExpressionCompiler#compile(Expression)} instead.
+     * @param expr the expression to compile
+     */
+    CompiledExpression(Expression expr) {
+        m_expr = expr;
+        m_expr.addExpressionListener(this);
+    }
+
+    /**
+     * Get the compiled expression.
+     * @return the expression this expression evaluates
+     */
+    public Expression getExpression() {
+        return m_expr;
+    }
+
+    /**
+     * Get the code for the given schema, compiling it if needed.
+     */
+    Code getCode(Schema s) {
+        Entry[] entries = m_entries;
+        for ( int i=entries.length; --i>=0; ) {
+            if ( entries[i].schema == s )
+                return entries[i].code;
+        }
+        return compile(s);
+    }
+
+    private synchronized Code compile(Schema s) {
+        Entry[] entries = m_entries;
+        for ( int i=0; i<entries.length; ++i ) {
+            if ( entries[i].schema == s )
+                return entries[i].code;
+        }
+        Code code = ExpressionCompiler.generate(m_expr, s);
+        int keep = Math.min(entries.length, MAX_SCHEMAS-1);
+        Entry[] update = new Entry[keep+1];
+        System.arraycopy(entries, entries.length-keep, update, 0, keep);
+        update[keep] = new Entry(s, code);
+        m_entries = update;
+        return code;
+    }
+
+    /**
+     * Discard the compiled code and relay the change.
+     * @see prefuse.data.event.ExpressionListener#expressionChanged(prefuse.data.expression.Expression)
+     */
+    public void expressionChanged(Expression expr) {
+        synchronized ( this ) {
+            m_entries = new Entry[0];
+        }
+        fireExpressionChange();
+    }
+
+    // ------------------------------------------------------------------------
+    // Expression Interface
+
+    /**
+     * @see prefuse.data.expression.Expression#getType(prefuse.data.Schema)
+     */
+    public Class getType(Schema s) {
+        return m_expr.getType(s);
+    }
+
+    /**
+     * @see prefuse.data.expression.Expression#visit(prefuse.data.expression.ExpressionVisitor)
+     */
+    public void visit(ExpressionVisitor v) {
+        m_expr.visit(v);
+    }
+
+    /**
+     * @see prefuse.data.expression.Expression#get(prefuse.data.Tuple)
+     */
+    public Object get(Tuple t) {
+        Table table = t.getTable();
+        int row = t.getRow();
+        if ( table == null || row < 0 )
+            return m_expr.get(t);
+        return getCode(t.getSchema()).get(t, table, row);
+    }
+
+    /**
+     * @see prefuse.data.expression.Expression#getInt(prefuse.data.Tuple)
+     */
+    public int getInt(Tuple t) {
+        Table table = t.getTable();
+        int row = t.getRow();
+        if ( table == null || row < 0 )
+            return m_expr.getInt(t);
+        return getCode(t.getSchema()).getInt(t, table, row);
+    }
+
+    /**
+     * @see prefuse.data.expression.Expression#getLong(prefuse.data.Tuple)
+     */
+    public long getLong(Tuple t) {
+        Table table = t.getTable();
+        int row = t.getRow();
+        if ( table == null || row < 0 )
+            return m_expr.getLong(t);
+        return getCode(t.getSchema()).getLong(t, table, row);
+    }
+
+    /**
+     * @see prefuse.data.expression.Expression#getFloat(prefuse.data.Tuple)
+     */
+    public float getFloat(Tuple t) {
+        Table table = t.getTable();
+        int row = t.getRow();
+        if ( table == null || row < 0 )
+            return m_expr.getFloat(t);
+        return getCode(t.getSchema()).getFloat(t, table, row);
+    }
+
+    /**
+     * @see prefuse.data.expression.Expression#getDouble(prefuse.data.Tuple)
+     */
+    public double getDouble(Tuple t) {
+        Table table = t.getTable();
+        int row = t.getRow();
+        if ( table == null || row < 0 )
+            return m_expr.getDouble(t);
+        return getCode(t.getSchema()).getDouble(t, table, row);
+    }
+
+    /**
+     * @see prefuse.data.expression.Expression#getBoolean(prefuse.data.Tuple)
+     */
+    public boolean getBoolean(Tuple t) {
+        Table table = t.getTable();
+        int row = t.getRow();
+        if ( table == null || row < 0 )
+            return m_expr.getBoolean(t);
+        return getCode(t.getSchema()).getBoolean(t, table, row);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return m_expr.toString();
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static class Entry {
+        final Schema schema;
+        final Code code;
+        Entry(Schema schema, Code code) {
+            this.schema = schema;
+            this.code = code;
+        }
+    }
+
+} // end of class CompiledExpression
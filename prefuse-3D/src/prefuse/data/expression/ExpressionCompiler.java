@@ -0,0 +1,652 @@
+package prefuse.data.expression;
+
+import java.util.Comparator;
+
+import prefuse.data.Schema;
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.util.TypeLib;
+import prefuse.util.collections.LiteralComparator;
+
+/**
+ * <p>Library class that compiles an expression tree for the tuples of a
+ * given {@link Schema}. Compiling resolves, once, everything the interpreted
+ * expressions look up on every evaluation: data fields are bound to column
+ * numbers and read with the primitive accessors of the backing
+ * {@link Table}, the operand types of comparisons and arithmetic are fixed,
+ * and numeric literals are unboxed. Evaluating a compiled comparison such as
+ * <code>type = 1</code> thus costs two array lookups and a primitive
+ * comparison, instead of two type look ups by field name, a hash lookup of
+ * the field and a comparator call.</p>
+ *
+ * <p>Compiled expressions are wrapped in a {@link CompiledExpression}, which
+ * compiles the tree for each schema it encounters and falls back to the
+ * interpreted tree for tuples not backed by a table. Sub-expressions that
+ * cannot be compiled, such as function calls, or whose interpreted semantics
+ * the compiler does not reproduce, are evaluated by the interpreter as part
+ * of the compiled tree, so compiling an expression never changes its
+ * results.</p>
+ */
+public class ExpressionCompiler {
+
+    private ExpressionCompiler() {
+        // prevent instantiation
+    }
+
+    /**
+     * Compile an expression, for the schema of each tuple it is evaluated on.
+     * @param expr the expression to compile
+     * @return an expression returning the same values as the given one
+     */
+    public static Expression compile(Expression expr) {
+        return new CompiledExpression(expr);
+    }
+
+    /**
+     * Compile a predicate, for the schema of each tuple it is evaluated on.
+     * @param p the predicate to compile
+     * @return a predicate returning the same values as the given one
+     */
+    public static Predicate compile(Predicate p) {
+        return new CompiledExpression(p);
+    }
+
+    /**
+     * Compile an expression for the given schema right away, and for the
+     * schema of any other tuple it is evaluated on.
+     * @param expr the expression to compile
+     * @param s the schema of the tuples it will be evaluated on
+     * @return an expression returning the same values as the given one
+     */
+    public static Expression compile(Expression expr, Schema s) {
+        CompiledExpression c = new CompiledExpression(expr);
+        c.getCode(s);
+        return c;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+     * Generate the code of an expression tree for the given schema.
+     * @param e the root of the expression tree
+     * @param s the schema of the tuples the code will be evaluated on
+     * @return the code of the tree
+     */
+    static Code generate(Expression e, Schema s) {
+        try {
+            return generateNode(e, s);
+        } catch ( RuntimeException ex ) {
+            // e.g. a type that cannot be determined; the interpreter will
+            // fail, or not, in its own way when evaluating
+            return new InterpretedCode(e);
+        }
+    }
+
+    private static Code generateNode(Expression e, Schema s) {
+        // match exact classes only: subclasses may evaluate differently
+        Class c = e.getClass();
+        if ( c == ColumnExpression.class ) {
+            int col = s.getColumnIndex(((ColumnExpression)e).getColumnName());
+            if ( col >= 0 )
+                return new ColumnCode(col);
+        } else if ( c == NumericLiteral.class ) {
+            return new NumericCode((NumericLiteral)e);
+        } else if ( c == BooleanLiteral.class ) {
+            return new BooleanCode(((BooleanLiteral)e).getBoolean(null));
+        } else if ( c == ComparisonPredicate.class ) {
+            return generateComparison((ComparisonPredicate)e, s);
+        } else if ( c == RangePredicate.class ) {
+            return generateRange((RangePredicate)e, s);
+        } else if ( c == ArithmeticExpression.class ) {
+            ArithmeticExpression a = (ArithmeticExpression)e;
+            return new ArithmeticCode(a.getOperation(), a.getType(s),
+                generate(a.getLeftExpression(), s),
+                generate(a.getRightExpression(), s));
+        } else if ( c == AndPredicate.class || c == OrPredicate.class
+                    || c == XorPredicate.class )
+        {
+            CompositePredicate p = (CompositePredicate)e;
+            Code[] clauses = new Code[p.size()];
+            for ( int i=0; i<clauses.length; ++i )
+                clauses[i] = generate(p.get(i), s);
+            if ( c == AndPredicate.class )
+                return new AndCode(clauses);
+            else if ( c == OrPredicate.class )
+                return new OrCode(clauses);
+            else
+                return new XorCode(clauses);
+        } else if ( c == NotPredicate.class ) {
+            return new NotCode(generate(((NotPredicate)e).getPredicate(), s));
+        }
+        return new InterpretedCode(e);
+    }
+
+    private static Code generateComparison(ComparisonPredicate p, Schema s) {
+        Class lType = p.getLeftExpression().getType(s);
+        Class rType = p.getRightExpression().getType(s);
+        Code left = generate(p.getLeftExpression(), s);
+        Code right = generate(p.getRightExpression(), s);
+        Comparator cmp = p.getComparator();
+
+        if ( TypeLib.isNumericType(lType) && TypeLib.isNumericType(rType) ) {
+            if ( !(cmp instanceof LiteralComparator) )
+                return new InterpretedCode(p);
+            Class type = TypeLib.getNumericType(lType, rType);
+            int kind = kind(type);
+            if ( kind == OBJECT )
+                return new InterpretedCode(p);
+            return new ComparisonCode(p.getOperation(), kind,
+                    (LiteralComparator)cmp, left, right);
+        } else {
+            return new ComparisonCode(p.getOperation(), OBJECT, cmp, left, right);
+        }
+    }
+
+    private static Code generateRange(RangePredicate p, Schema s) {
+        Class lType = p.getLeftExpression().getType(s);
+        Class rType = p.getRightExpression().getType(s);
+        Class mType = p.getMiddleExpression().getType(s);
+        Code left = generate(p.getLeftExpression(), s);
+        Code right = generate(p.getRightExpression(), s);
+        Code middle = generate(p.getMiddleExpression(), s);
+        Comparator cmp = p.getComparator();
+
+        Class sType = null;
+        if ( lType.isAssignableFrom(rType) ) {
+            sType = lType;
+        } else if ( rType.isAssignableFrom(lType) ) {
+            sType = rType;
+        }
+        if ( sType != null && TypeLib.isNumericType(sType) &&
+                TypeLib.isNumericType(mType) )
+        {
+            int kind = kind(TypeLib.getNumericType(sType, mType));
+            if ( kind == OBJECT || !(cmp instanceof LiteralComparator) )
+                return new InterpretedCode(p);
+            return new RangeCode(p.getOperation(), kind,
+                    (LiteralComparator)cmp, left, middle, right);
+        } else {
+            return new RangeCode(p.getOperation(), OBJECT,
+                    cmp, left, middle, right);
+        }
+    }
+
+    private static final int INT    = 0;
+    private static final int LONG   = 1;
+    private static final int FLOAT  = 2;
+    private static final int DOUBLE = 3;
+    private static final int OBJECT = 4;
+
+    private static int kind(Class type) {
+        if ( type == int.class ) {
+            return INT;
+        } else if ( type == long.class ) {
+            return LONG;
+        } else if ( type == float.class ) {
+            return FLOAT;
+        } else if ( type == double.class ) {
+            return DOUBLE;
+        } else {
+            return OBJECT;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Generated Code
+
+    /**
+     * The code of a compiled expression. Each method evaluates the expression
+     * on a tuple, given also as the table backing it and its row in that
+     * table. By default, every method throws an
+     * UnsupportedOperationException, as in {@link AbstractExpression}.
+     */
+    static abstract class Code {
+        Object get(Tuple t, Table table, int row) {
+            throw new UnsupportedOperationException();
+        }
+        int getInt(Tuple t, Table table, int row) {
+            throw new UnsupportedOperationException();
+        }
+        long getLong(Tuple t, Table table, int row) {
+            throw new UnsupportedOperationException();
+        }
+        float getFloat(Tuple t, Table table, int row) {
+            throw new UnsupportedOperationException();
+        }
+        double getDouble(Tuple t, Table table, int row) {
+            throw new UnsupportedOperationException();
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Evaluates a sub-expression with the interpreter.
+     */
+    private static class InterpretedCode extends Code {
+        private final Expression m_expr;
+        InterpretedCode(Expression expr) {
+            m_expr = expr;
+        }
+        Object get(Tuple t, Table table, int row) {
+            return m_expr.get(t);
+        }
+        int getInt(Tuple t, Table table, int row) {
+            return m_expr.getInt(t);
+        }
+        long getLong(Tuple t, Table table, int row) {
+            return m_expr.getLong(t);
+        }
+        float getFloat(Tuple t, Table table, int row) {
+            return m_expr.getFloat(t);
+        }
+        double getDouble(Tuple t, Table table, int row) {
+            return m_expr.getDouble(t);
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            return m_expr.getBoolean(t);
+        }
+    }
+
+    /**
+     * Reads a data field by column number.
+     */
+    private static class ColumnCode extends Code {
+        private final int m_col;
+        ColumnCode(int col) {
+            m_col = col;
+        }
+        Object get(Tuple t, Table table, int row) {
+            return table.get(row, m_col);
+        }
+        int getInt(Tuple t, Table table, int row) {
+            return table.getInt(row, m_col);
+        }
+        long getLong(Tuple t, Table table, int row) {
+            return table.getLong(row, m_col);
+        }
+        float getFloat(Tuple t, Table table, int row) {
+            return table.getFloat(row, m_col);
+        }
+        double getDouble(Tuple t, Table table, int row) {
+            return table.getDouble(row, m_col);
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            return table.getBoolean(row, m_col);
+        }
+    }
+
+    /**
+     * A number, unboxed to each primitive type.
+     */
+    private static class NumericCode extends Code {
+        private final Object m_number;
+        private final int    m_int;
+        private final long   m_long;
+        private final float  m_float;
+        private final double m_double;
+        NumericCode(NumericLiteral lit) {
+            m_number = lit.get(null);
+            m_int = lit.getInt(null);
+            m_long = lit.getLong(null);
+            m_float = lit.getFloat(null);
+            m_double = lit.getDouble(null);
+        }
+        Object get(Tuple t, Table table, int row) {
+            return m_number;
+        }
+        int getInt(Tuple t, Table table, int row) {
+            return m_int;
+        }
+        long getLong(Tuple t, Table table, int row) {
+            return m_long;
+        }
+        float getFloat(Tuple t, Table table, int row) {
+            return m_float;
+        }
+        double getDouble(Tuple t, Table table, int row) {
+            return m_double;
+        }
+    }
+
+    /**
+     * A boolean constant.
+     */
+    private static class BooleanCode extends Code {
+        private final boolean m_value;
+        BooleanCode(boolean value) {
+            m_value = value;
+        }
+        Object get(Tuple t, Table table, int row) {
+            return ( m_value ? Boolean.TRUE : Boolean.FALSE );
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            return m_value;
+        }
+    }
+
+    /**
+     * Base class of the code of predicates.
+     */
+    private static abstract class PredicateCode extends Code {
+        Object get(Tuple t, Table table, int row) {
+            return ( getBoolean(t, table, row) ? Boolean.TRUE : Boolean.FALSE );
+        }
+    }
+
+    /**
+     * A comparison of two operands whose type is known.
+     */
+    private static class ComparisonCode extends PredicateCode {
+        private final int m_op;
+        private final int m_kind;
+        private final Comparator m_cmp;
+        private final Code m_left, m_right;
+        ComparisonCode(int op, int kind, Comparator cmp, Code left, Code right) {
+            m_op = op;
+            m_kind = kind;
+            m_cmp = cmp;
+            m_left = left;
+            m_right = right;
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            int c;
+            switch ( m_kind ) {
+            case INT:
+                c = ((LiteralComparator)m_cmp).compare(
+                        m_left.getInt(t, table, row),
+                        m_right.getInt(t, table, row));
+                break;
+            case LONG:
+                c = ((LiteralComparator)m_cmp).compare(
+                        m_left.getLong(t, table, row),
+                        m_right.getLong(t, table, row));
+                break;
+            case FLOAT:
+                c = ((LiteralComparator)m_cmp).compare(
+                        m_left.getFloat(t, table, row),
+                        m_right.getFloat(t, table, row));
+                break;
+            case DOUBLE:
+                c = ((LiteralComparator)m_cmp).compare(
+                        m_left.getDouble(t, table, row),
+                        m_right.getDouble(t, table, row));
+                break;
+            default:
+                c = m_cmp.compare(m_left.get(t, table, row),
+                                  m_right.get(t, table, row));
+            }
+
+            switch ( m_op ) {
+            case ComparisonPredicate.LT:
+                return ( c == -1 );
+            case ComparisonPredicate.GT:
+                return ( c == 1 );
+            case ComparisonPredicate.EQ:
+                return ( c == 0 );
+            case ComparisonPredicate.NEQ:
+                return ( c != 0 );
+            case ComparisonPredicate.LTEQ:
+                return ( c <= 0 );
+            case ComparisonPredicate.GTEQ:
+                return ( c >= 0 );
+            default:
+                throw new IllegalStateException("Unknown operation.");
+            }
+        }
+    }
+
+    /**
+     * A range test of operands whose type is known.
+     */
+    private static class RangeCode extends PredicateCode {
+        private final int m_op;
+        private final int m_kind;
+        private final Comparator m_cmp;
+        private final Code m_left, m_middle, m_right;
+        RangeCode(int op, int kind, Comparator cmp,
+                Code left, Code middle, Code right)
+        {
+            m_op = op;
+            m_kind = kind;
+            m_cmp = cmp;
+            m_left = left;
+            m_middle = middle;
+            m_right = right;
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            int c1, c2;
+            switch ( m_kind ) {
+            case INT: {
+                LiteralComparator cmp = (LiteralComparator)m_cmp;
+                int lo = m_left.getInt(t, table, row);
+                int hi = m_right.getInt(t, table, row);
+                int x  = m_middle.getInt(t, table, row);
+                c1 = cmp.compare(x, lo);
+                c2 = cmp.compare(x, hi);
+                break;
+            }
+            case LONG: {
+                LiteralComparator cmp = (LiteralComparator)m_cmp;
+                long lo = m_left.getLong(t, table, row);
+                long hi = m_right.getLong(t, table, row);
+                long x  = m_middle.getLong(t, table, row);
+                c1 = cmp.compare(x, lo);
+                c2 = cmp.compare(x, hi);
+                break;
+            }
+            case FLOAT: {
+                LiteralComparator cmp = (LiteralComparator)m_cmp;
+                float lo = m_left.getFloat(t, table, row);
+                float hi = m_right.getFloat(t, table, row);
+                float x  = m_middle.getFloat(t, table, row);
+                c1 = cmp.compare(x, lo);
+                c2 = cmp.compare(x, hi);
+                break;
+            }
+            case DOUBLE: {
+                LiteralComparator cmp = (LiteralComparator)m_cmp;
+                double lo = m_left.getDouble(t, table, row);
+                double hi = m_right.getDouble(t, table, row);
+                double x  = m_middle.getDouble(t, table, row);
+                c1 = cmp.compare(x, lo);
+                c2 = cmp.compare(x, hi);
+                break;
+            }
+            default: {
+                Object lo = m_left.get(t, table, row);
+                Object hi = m_right.get(t, table, row);
+                Object x  = m_middle.get(t, table, row);
+                c1 = m_cmp.compare(x, lo);
+                c2 = m_cmp.compare(x, hi);
+            }
+            }
+
+            switch ( m_op ) {
+            case RangePredicate.IN_IN:
+                return ( c1 >= 0 && c2 <= 0 );
+            case RangePredicate.IN_EX:
+                return ( c1 >= 0 && c2 < 0 );
+            case RangePredicate.EX_IN:
+                return ( c1 > 0 && c2 <= 0 );
+            case RangePredicate.EX_EX:
+                return ( c1 > 0 && c2 < 0 );
+            default:
+                throw new IllegalStateException("Unknown operation.");
+            }
+        }
+    }
+
+    /**
+     * An arithmetic operation, computed in the type asked for by the caller.
+     */
+    private static class ArithmeticCode extends Code {
+        private final int m_op;
+        private final Class m_type;
+        private final Code m_left, m_right;
+        ArithmeticCode(int op, Class type, Code left, Code right) {
+            m_op = op;
+            m_type = type;
+            m_left = left;
+            m_right = right;
+        }
+        Object get(Tuple t, Table table, int row) {
+            if ( int.class == m_type || byte.class == m_type ) {
+                return new Integer(getInt(t, table, row));
+            } else if ( long.class == m_type ) {
+                // as interpreted
+                return new Long(getInt(t, table, row));
+            } else if ( float.class == m_type ) {
+                return new Float(getFloat(t, table, row));
+            } else if ( double.class == m_type ) {
+                return new Double(getDouble(t, table, row));
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+        int getInt(Tuple t, Table table, int row) {
+            int x = m_left.getInt(t, table, row);
+            int y = m_right.getInt(t, table, row);
+            switch ( m_op ) {
+            case ArithmeticExpression.ADD:
+                return x+y;
+            case ArithmeticExpression.SUB:
+                return x-y;
+            case ArithmeticExpression.MUL:
+                return x*y;
+            case ArithmeticExpression.DIV:
+                return x/y;
+            case ArithmeticExpression.POW:
+                return (int)Math.pow(x,y);
+            case ArithmeticExpression.MOD:
+                return x%y;
+            }
+            throw new IllegalStateException("Unknown operation type.");
+        }
+        long getLong(Tuple t, Table table, int row) {
+            long x = m_left.getLong(t, table, row);
+            long y = m_right.getLong(t, table, row);
+            switch ( m_op ) {
+            case ArithmeticExpression.ADD:
+                return x+y;
+            case ArithmeticExpression.SUB:
+                return x-y;
+            case ArithmeticExpression.MUL:
+                return x*y;
+            case ArithmeticExpression.DIV:
+                return x/y;
+            case ArithmeticExpression.POW:
+                return (long)Math.pow(x,y);
+            case ArithmeticExpression.MOD:
+                return x%y;
+            }
+            throw new IllegalStateException("Unknown operation type.");
+        }
+        float getFloat(Tuple t, Table table, int row) {
+            float x = m_left.getFloat(t, table, row);
+            float y = m_right.getFloat(t, table, row);
+            switch ( m_op ) {
+            case ArithmeticExpression.ADD:
+                return x+y;
+            case ArithmeticExpression.SUB:
+                return x-y;
+            case ArithmeticExpression.MUL:
+                return x*y;
+            case ArithmeticExpression.DIV:
+                return x/y;
+            case ArithmeticExpression.POW:
+                return (float)Math.pow(x,y);
+            case ArithmeticExpression.MOD:
+                return (float)Math.IEEEremainder(x,y);
+            }
+            throw new IllegalStateException("Unknown operation type.");
+        }
+        double getDouble(Tuple t, Table table, int row) {
+            double x = m_left.getDouble(t, table, row);
+            double y = m_right.getDouble(t, table, row);
+            switch ( m_op ) {
+            case ArithmeticExpression.ADD:
+                return x+y;
+            case ArithmeticExpression.SUB:
+                return x-y;
+            case ArithmeticExpression.MUL:
+                return x*y;
+            case ArithmeticExpression.DIV:
+                return x/y;
+            case ArithmeticExpression.POW:
+                return Math.pow(x,y);
+            case ArithmeticExpression.MOD:
+                return Math.IEEEremainder(x,y);
+            }
+            throw new IllegalStateException("Unknown operation type.");
+        }
+    }
+
+    /**
+     * A conjunction of clauses, false if there are none.
+     */
+    private static class AndCode extends PredicateCode {
+        private final Code[] m_clauses;
+        AndCode(Code[] clauses) {
+            m_clauses = clauses;
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            if ( m_clauses.length == 0 )
+                return false;
+            for ( int i=0; i<m_clauses.length; ++i ) {
+                if ( !m_clauses[i].getBoolean(t, table, row) )
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A disjunction of clauses, false if there are none.
+     */
+    private static class OrCode extends PredicateCode {
+        private final Code[] m_clauses;
+        OrCode(Code[] clauses) {
+            m_clauses = clauses;
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            for ( int i=0; i<m_clauses.length; ++i ) {
+                if ( m_clauses[i].getBoolean(t, table, row) )
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * An exclusive or of clauses, false if there are none.
+     */
+    private static class XorCode extends PredicateCode {
+        private final Code[] m_clauses;
+        XorCode(Code[] clauses) {
+            m_clauses = clauses;
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            boolean val = false;
+            for ( int i=0; i<m_clauses.length; ++i ) {
+                val ^= m_clauses[i].getBoolean(t, table, row);
+            }
+            return val;
+        }
+    }
+
+    /**
+     * A negated predicate.
+     */
+    private static class NotCode extends PredicateCode {
+        private final Code m_predicate;
+        NotCode(Code predicate) {
+            m_predicate = predicate;
+        }
+        boolean getBoolean(Tuple t, Table table, int row) {
+            return !m_predicate.getBoolean(t, table, row);
+        }
+    }
+
+} // end of class ExpressionCompiler
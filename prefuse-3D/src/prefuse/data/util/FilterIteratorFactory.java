@@ -7,6 +7,7 @@ import prefuse.data.Table;
 import prefuse.data.expression.AndPredicate;
 import prefuse.data.expression.ColumnExpression;
 import prefuse.data.expression.ComparisonPredicate;
+import prefuse.data.expression.CompiledExpression;
 import prefuse.data.expression.Expression;
 import prefuse.data.expression.ExpressionAnalyzer;
 import prefuse.data.expression.NotPredicate;
@@ -89,9 +90,36 @@ public class FilterIteratorFactory {
      * @return an optimized iterator, or null if no optimization was found
      */
     protected static IntIterator getOptimizedIterator(Table t, Predicate p) {
-        if ( t.getRowCount() < OPTIMIZATION_THRESHOLD ) 
-            return null; // avoid overhead for small tables
+        return getOptimizedIterator(t, p, true);
+    }
+    
+    /**
+     * Get an optimized iterator over the rows of a table, if possible.
+     * @param t the Table to iterator over
+     * @param p the filter predicate
+     * @param exact true to return only the rows passing the predicate,
+     * false if the iterator may also return rows the caller filters out
+     * @return an optimized iterator, or null if no optimization was found
+     */
+    private static IntIterator getOptimizedIterator(
+            Table t, Predicate p, boolean exact)
+    {
+        if ( p instanceof CompiledExpression ) {
+            // plan with the expression the compiled code evaluates, but
+            // check the rows the indexes find with the compiled code rather
+            // than interpreting the clauses the indexes do not cover
+            Expression e = ((CompiledExpression)p).getExpression();
+            if ( !(e instanceof Predicate) )
+                return null;
+            IntIterator rows = getOptimizedIterator(t, (Predicate)e, false);
+            if ( rows == null || !exact )
+                return rows;
+            return new FilterRowIterator(rows, t, p);
+        }
         
+        // boolean columns are indexed with bit sets, which visit only the
+        // matching rows at little cost whatever the size of the table, so
+        // they are used for tables of any size
         if ( p instanceof ColumnExpression ) {
             // try to optimize a boolean column
             return getColumnIterator(t,
@@ -105,16 +133,21 @@ public class FilterIteratorFactory {
                 return getColumnIterator(t,
                         ((ColumnExpression)pp).getColumnName(), false);
             }
+            return null;
         }
-        else if ( p instanceof AndPredicate )
+        
+        if ( t.getRowCount() < OPTIMIZATION_THRESHOLD ) 
+            return null; // avoid overhead for small tables
+        
+        if ( p instanceof AndPredicate )
         {
             // try to optimize an and clause
-            return getAndIterator(t, (AndPredicate)p);
+            return getAndIterator(t, (AndPredicate)p, exact);
         }
         else if ( p instanceof OrPredicate )
         {
             // try to optimize an or clause
-            return getOrIterator(t, (OrPredicate)p);
+            return getOrIterator(t, (OrPredicate)p, exact);
         }
         else if ( p instanceof ComparisonPredicate )
         {
@@ -145,12 +178,18 @@ public class FilterIteratorFactory {
     }
     
     protected static IntIterator getOrIterator(Table t, OrPredicate op) {
+        return getOrIterator(t, op, true);
+    }
+    
+    private static IntIterator getOrIterator(
+            Table t, OrPredicate op, boolean exact)
+    {
         int size = op.size();
         if ( size > 1 ) {
             // if all subclauses can be optimized, we can optimize the query
             IntIterator[] rows = new IntIterator[size];
             for ( int i=0; i<rows.length; ++i ) {
-                rows[i] = getOptimizedIterator(t, op.get(i));
+                rows[i] = getOptimizedIterator(t, op.get(i), exact);
                 
                 // all clauses must be optimized to avoid linear scan
                 if ( rows[i] == null ) return null;
@@ -159,7 +198,7 @@ public class FilterIteratorFactory {
             return new UniqueRowIterator(new CompositeIntIterator(rows));
         } else if ( size == 1 ) {
             // only one clause, optimize for that
-            return getOptimizedIterator(t, op.get(0));
+            return getOptimizedIterator(t, op.get(0), exact);
         } else {
             // no woman, no cry
             return null;
@@ -167,6 +206,12 @@ public class FilterIteratorFactory {
     }
     
     protected static IntIterator getAndIterator(Table t, AndPredicate ap) {
+        return getAndIterator(t, ap, true);
+    }
+    
+    private static IntIterator getAndIterator(
+            Table t, AndPredicate ap, boolean exact)
+    {
         // possible TODO: add scoring to select best optimized iterator
         // for now just work from the end backwards and take the first
         // optimized iterator we find
@@ -174,15 +219,15 @@ public class FilterIteratorFactory {
         Predicate clause = null;
         for ( int i=ap.size(); --i >= 0; ) {
             clause = ap.get(i);
-            if ( (rows=getOptimizedIterator(t,clause)) != null )
+            if ( (rows=getOptimizedIterator(t,clause,exact)) != null )
                 break;
         }
         
         // exit if we didn't optimize
         if ( rows == null ) return null;
         
-        // if only one clause, no extras needed
-        if ( ap.size() == 1 ) return rows;
+        // if only one clause, or the caller filters, no extras needed
+        if ( ap.size() == 1 || !exact ) return rows;
         
         // otherwise get optimized source, run through other clauses
         return new FilterRowIterator(rows, t, ap.getSubPredicate(clause));
@@ -0,0 +1,419 @@
+package prefuse.util.display;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import prefuse.data.Table;
+import prefuse.data.event.EventConstants;
+import prefuse.data.event.TableListener;
+import prefuse.util.collections.IntArrayIterator;
+import prefuse.util.collections.IntIterator;
+import prefuse.util.collections.IntObjectHashMap;
+import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
+
+/**
+ * <p>A spatial index over the bounds of the visible items of a
+ * {@link VisualTable}. Displays use it to find the items intersecting a
+ * damaged region, or lying under the mouse, without visiting every item.</p>
+ *
+ * <p>Items are hashed into the cells of a uniform grid whose cell size is
+ * the average item size when the index is built. Items spanning too many
+ * cells are kept in a separate list that every query returns. The index
+ * listens to its table and marks the rows whose bounds, visibility or
+ * validated flag change; {@link #validate()} validates the bounds of those
+ * rows and indexes them again. Marked rows are also returned by every query
+ * until then, so query results always include all visible items that
+ * intersect the query region, along with some that do not.</p>
+ *
+ * @see VisualTable#getBoundsIndex()
+ */
+public class ItemBoundsIndex implements TableListener {
+
+    /** Items spanning more grid cells than this are kept in a list. */
+    private static final int MAX_CELLS = 16;
+    /** Bound on cell coordinates, items beyond it are kept in the list. */
+    private static final double MAX_COORD = 1 << 30;
+
+    // where a row is indexed
+    private static final byte NONE = 0, GRID = 1, LIST = 2;
+
+    private VisualTable m_table;
+    private int m_bcol, m_vcol, m_valcol;
+    private boolean m_columns = false;
+
+    // the grid, from cell keys to arrays of rows whose first entry is
+    // the number of rows in the cell
+    private double m_cell = 1;
+    private IntObjectHashMap m_cells = new IntObjectHashMap();
+    private int m_minX, m_minY, m_maxX, m_maxY;
+
+    // indexed rows and their cell ranges
+    private byte[] m_where = new byte[0];
+    private int[]  m_x1 = new int[0], m_y1 = new int[0];
+    private int[]  m_x2 = new int[0], m_y2 = new int[0];
+    private int    m_count = 0;
+    private int    m_builtCount = 0;
+
+    // rows spanning too many cells
+    private int[] m_list = new int[8];
+    private int   m_lsize = 0;
+
+    // rows to index again
+    private BitSet  m_dirty = new BitSet();
+    private boolean m_rebuild = true;
+
+    // query buffers
+    private int[] m_stamp = new int[0];
+    private int   m_query = 0;
+    private int[] m_buf = new int[64];
+
+    /**
+     * Create a new ItemBoundsIndex over the given table. The index is empty
+     * until the first call to {@link #validate()}.
+     * @param table the VisualTable to index
+     */
+    public ItemBoundsIndex(VisualTable table) {
+        m_table = table;
+        m_table.addTableListener(this);
+    }
+
+    /**
+     * Get the indexed table.
+     * @return the VisualTable indexed by this index
+     */
+    public VisualTable getTable() {
+        return m_table;
+    }
+
+    // ------------------------------------------------------------------------
+    // Maintenance
+
+    /**
+     * Marks rows whose bounds, visibility or validated flag changed.
+     * @see prefuse.data.event.TableListener#tableChanged(prefuse.data.Table, int, int, int, int)
+     */
+    public synchronized void tableChanged(Table t, int start, int end,
+                                          int col, int type)
+    {
+        if ( col == EventConstants.ALL_COLUMNS ) {
+            // rows were added, removed or updated
+            mark(start, end);
+        } else if ( type != EventConstants.UPDATE ) {
+            // columns were added or removed
+            m_columns = false;
+            m_rebuild = true;
+        } else {
+            if ( !m_columns ) {
+                m_bcol = t.getColumnNumber(VisualItem.BOUNDS);
+                m_vcol = t.getColumnNumber(VisualItem.VISIBLE);
+                m_valcol = t.getColumnNumber(VisualItem.VALIDATED);
+                m_columns = true;
+            }
+            if ( col == m_bcol || col == m_vcol || col == m_valcol )
+                mark(start, end);
+        }
+    }
+
+    private void mark(int start, int end) {
+        if ( !m_rebuild && start >= 0 && end >= start )
+            m_dirty.set(start, end+1);
+    }
+
+    /**
+     * Bring the index up to date. Validates the bounds of the visible rows
+     * that changed since the last call, and indexes them. Like drawing the
+     * items, this should be done while holding the lock of the
+     * visualization.
+     */
+    public void validate() {
+        int[] rows;
+        synchronized ( this ) {
+            rows = m_rebuild ? null : getDirtyRows();
+            if ( rows != null && rows.length == 0 )
+                return;
+        }
+
+        // validate outside of the lock, as validation reports damage
+        IntIterator iter = ( rows == null ? m_table.rows()
+                             : new IntArrayIterator(rows, 0, rows.length) );
+        while ( iter.hasNext() ) {
+            int row = iter.nextInt();
+            if ( m_table.isValidRow(row) && m_table.isVisible(row)
+                    && !m_table.isValidated(row) )
+            {
+                m_table.getItem(row).validateBounds();
+            }
+        }
+
+        synchronized ( this ) {
+            if ( m_rebuild || (rows != null && rows.length > m_count/2) ) {
+                rebuild();
+                return;
+            }
+            for ( int i=0; i<rows.length; ++i ) {
+                m_dirty.clear(rows[i]);
+                update(rows[i]);
+            }
+            // rebuild when the item count or size changed a lot
+            if ( m_count > 4*m_builtCount+64 || 4*m_count < m_builtCount
+                    || m_lsize > 32+m_count/8 )
+            {
+                rebuild();
+            }
+        }
+    }
+
+    private int[] getDirtyRows() {
+        int[] rows = new int[m_dirty.cardinality()];
+        for ( int i=0, r=m_dirty.nextSetBit(0); r>=0;
+              r=m_dirty.nextSetBit(r+1) )
+        {
+            rows[i++] = r;
+        }
+        return rows;
+    }
+
+    /**
+     * Index all rows from scratch, with a cell size fit to the current
+     * item sizes.
+     */
+    private void rebuild() {
+        m_rebuild = false;
+        m_dirty.clear();
+        m_cells.clear();
+        Arrays.fill(m_where, NONE);
+        m_lsize = 0;
+        m_count = 0;
+        m_minX = m_minY = Integer.MAX_VALUE;
+        m_maxX = m_maxY = Integer.MIN_VALUE;
+
+        // use the average item size as the cell size
+        double sum = 0;
+        int n = 0;
+        for ( IntIterator rows = m_table.rows(); rows.hasNext(); ) {
+            int row = rows.nextInt();
+            if ( !m_table.isVisible(row) || !m_table.isValidated(row) )
+                continue;
+            Rectangle2D b = m_table.getBounds(row);
+            double s = (b.getWidth() + b.getHeight()) / 2;
+            if ( s > 0 && s < Double.POSITIVE_INFINITY ) {
+                sum += s;
+                ++n;
+            }
+        }
+        m_cell = ( n > 0 ? sum / n : 1 );
+
+        for ( IntIterator rows = m_table.rows(); rows.hasNext(); ) {
+            update(rows.nextInt());
+        }
+        m_builtCount = m_count;
+    }
+
+    /**
+     * Index a row again. Visible rows that are not validated stay marked.
+     */
+    private void update(int row) {
+        remove(row);
+        if ( !m_table.isValidRow(row) || !m_table.isVisible(row) ) {
+            return;
+        } else if ( !m_table.isValidated(row) ) {
+            m_dirty.set(row);
+            return;
+        }
+
+        Rectangle2D b = m_table.getBounds(row);
+        double x1 = b.getMinX() / m_cell, y1 = b.getMinY() / m_cell;
+        double x2 = b.getMaxX() / m_cell, y2 = b.getMaxY() / m_cell;
+        ensureCapacity(row);
+        ++m_count;
+
+        if ( !(Math.abs(x1) < MAX_COORD && Math.abs(x2) < MAX_COORD &&
+               Math.abs(y1) < MAX_COORD && Math.abs(y2) < MAX_COORD) )
+        {
+            addToList(row);
+            return;
+        }
+        int cx1 = (int)Math.floor(x1), cy1 = (int)Math.floor(y1);
+        int cx2 = (int)Math.floor(x2), cy2 = (int)Math.floor(y2);
+        if ( (double)(cx2-cx1+1)*(cy2-cy1+1) > MAX_CELLS ) {
+            addToList(row);
+            return;
+        }
+
+        m_where[row] = GRID;
+        m_x1[row] = cx1; m_y1[row] = cy1;
+        m_x2[row] = cx2; m_y2[row] = cy2;
+        for ( int cx=cx1; cx<=cx2; ++cx ) {
+            for ( int cy=cy1; cy<=cy2; ++cy ) {
+                int key = key(cx, cy);
+                int[] cell = (int[])m_cells.get(key);
+                if ( cell == null ) {
+                    cell = new int[4];
+                    m_cells.put(key, cell);
+                } else if ( cell[0]+1 == cell.length ) {
+                    int[] c = new int[2*cell.length];
+                    System.arraycopy(cell, 0, c, 0, cell.length);
+                    cell = c;
+                    m_cells.put(key, cell);
+                }
+                cell[++cell[0]] = row;
+            }
+        }
+        m_minX = Math.min(m_minX, cx1); m_maxX = Math.max(m_maxX, cx2);
+        m_minY = Math.min(m_minY, cy1); m_maxY = Math.max(m_maxY, cy2);
+    }
+
+    private void addToList(int row) {
+        m_where[row] = LIST;
+        if ( m_lsize == m_list.length ) {
+            int[] list = new int[2*m_list.length];
+            System.arraycopy(m_list, 0, list, 0, m_lsize);
+            m_list = list;
+        }
+        m_list[m_lsize++] = row;
+    }
+
+    /**
+     * Remove a row from the grid or list.
+     */
+    private void remove(int row) {
+        if ( row >= m_where.length || m_where[row] == NONE ) {
+            return;
+        } else if ( m_where[row] == LIST ) {
+            for ( int i=0; i<m_lsize; ++i ) {
+                if ( m_list[i] == row ) {
+                    m_list[i] = m_list[--m_lsize];
+                    break;
+                }
+            }
+        } else {
+            for ( int cx=m_x1[row]; cx<=m_x2[row]; ++cx ) {
+                for ( int cy=m_y1[row]; cy<=m_y2[row]; ++cy ) {
+                    int key = key(cx, cy);
+                    int[] cell = (int[])m_cells.get(key);
+                    for ( int i=cell[0]; i>0; --i ) {
+                        if ( cell[i] == row ) {
+                            cell[i] = cell[cell[0]--];
+                            break;
+                        }
+                    }
+                    if ( cell[0] == 0 )
+                        m_cells.removeKey(key);
+                }
+            }
+        }
+        m_where[row] = NONE;
+        --m_count;
+    }
+
+    private void ensureCapacity(int row) {
+        if ( row < m_where.length ) return;
+        int capacity = Math.max(row+1, (3*m_where.length)/2 + 1);
+        byte[] where = new byte[capacity];
+        System.arraycopy(m_where, 0, where, 0, m_where.length);
+        m_where = where;
+        m_x1 = grow(m_x1, capacity);
+        m_y1 = grow(m_y1, capacity);
+        m_x2 = grow(m_x2, capacity);
+        m_y2 = grow(m_y2, capacity);
+    }
+
+    private static int[] grow(int[] a, int capacity) {
+        int[] b = new int[capacity];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+
+    /**
+     * Hash key of a grid cell. Cells sharing a key share a row array, which
+     * only adds candidates to query results.
+     */
+    private static int key(int cx, int cy) {
+        return cx*73856093 ^ cy*19349663;
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries
+
+    /**
+     * Get the rows of items that may intersect the given region. The result
+     * includes every visible item whose bounds intersect the region, in
+     * increasing row order.
+     * @param x1 the minimum x-coordinate of the region
+     * @param y1 the minimum y-coordinate of the region
+     * @param x2 the maximum x-coordinate of the region
+     * @param y2 the maximum y-coordinate of the region
+     * @return an iterator over candidate table rows
+     */
+    public synchronized IntIterator rows(double x1, double y1,
+                                         double x2, double y2)
+    {
+        if ( m_rebuild )
+            return m_table.rows();
+
+        if ( m_stamp.length < m_where.length ) {
+            m_stamp = new int[m_where.length];
+            m_query = 0;
+        }
+        ++m_query;
+        int n = 0;
+
+        // rows in the grid cells intersecting the region
+        int cx1 = Math.max(m_minX, cell(x1)), cx2 = Math.min(m_maxX, cell(x2));
+        int cy1 = Math.max(m_minY, cell(y1)), cy2 = Math.min(m_maxY, cell(y2));
+        if ( cx1 <= cx2 && cy1 <= cy2 ) {
+            if ( (double)(cx2-cx1+1)*(cy2-cy1+1) > m_cells.size() ) {
+                // fewer rows to check than cells, so check all rows
+                for ( int r=0; r<m_where.length; ++r ) {
+                    if ( m_where[r] == GRID && m_x1[r] <= cx2 &&
+                         m_x2[r] >= cx1 && m_y1[r] <= cy2 && m_y2[r] >= cy1 )
+                    {
+                        n = add(r, n);
+                    }
+                }
+            } else {
+                for ( int cx=cx1; cx<=cx2; ++cx ) {
+                    for ( int cy=cy1; cy<=cy2; ++cy ) {
+                        int[] cell = (int[])m_cells.get(key(cx, cy));
+                        if ( cell == null ) continue;
+                        for ( int i=cell[0]; i>0; --i )
+                            n = add(cell[i], n);
+                    }
+                }
+            }
+        }
+
+        // rows spanning many cells, and rows still to be indexed
+        for ( int i=0; i<m_lsize; ++i )
+            n = add(m_list[i], n);
+        for ( int r=m_dirty.nextSetBit(0); r>=0; r=m_dirty.nextSetBit(r+1) )
+            n = add(r, n);
+
+        Arrays.sort(m_buf, 0, n);
+        int[] rows = new int[n];
+        System.arraycopy(m_buf, 0, rows, 0, n);
+        return new IntArrayIterator(rows, 0, n);
+    }
+
+    private int cell(double v) {
+        double c = Math.floor(v / m_cell);
+        return (int)Math.max(-MAX_COORD, Math.min(MAX_COORD, c));
+    }
+
+    private int add(int row, int n) {
+        if ( row < m_stamp.length ) {
+            if ( m_stamp[row] == m_query ) return n;
+            m_stamp[row] = m_query;
+        }
+        if ( n == m_buf.length ) {
+            int[] buf = new int[2*n];
+            System.arraycopy(m_buf, 0, buf, 0, n);
+            m_buf = buf;
+        }
+        m_buf[n] = row;
+        return n+1;
+    }
+
+} // end of class ItemBoundsIndex
@@ -44,6 +44,14 @@ public class RenderingQueue {
         psize = 0;
     }
     
+    /**
+     * Clear the picking queue.
+     */
+    public void clearPickingQueue() {
+        Arrays.fill(pitems, 0, psize, null);
+        psize = 0;
+    }
+    
     /**
      * Clears the rendering queue and resizes internal arrays to a small size.
      * This should help reclaim used memory.
@@ -8,8 +8,12 @@ import prefuse.Visualization;
 import prefuse.data.CascadedTable;
 import prefuse.data.Schema;
 import prefuse.data.Table;
+import prefuse.data.column.Column;
+import prefuse.data.column.RectangleColumn;
 import prefuse.data.event.EventConstants;
 import prefuse.data.expression.Predicate;
+import prefuse.util.collections.IntIterator;
+import prefuse.util.display.ItemBoundsIndex;
 import prefuse.visual.tuple.TableVisualItem;
 
 /**
@@ -21,6 +25,10 @@ import prefuse.visual.tuple.TableVisualItem;
  * by adding data to a Visualization, for example by using the
  * {@link Visualization#addTable(String, Table)} method.
  * 
+ * <p>Bounds columns are stored in a {@link RectangleColumn}, and the column
+ * numbers of the position, bounds and validated fields are looked up once
+ * per change of columns, rather than by name on every access.</p>
+ * 
  * @author <a href="http://jheer.org">jeffrey heer</a>
  */
 public class VisualTable extends CascadedTable implements VisualTupleSet {
@@ -28,6 +36,20 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
     private Visualization m_vis;
     private String m_group;
     
+    /** The geometry fields whose column numbers are cached. */
+    private static final String[] GEOMETRY_FIELDS = {
+        VisualItem.X, VisualItem.Y, VisualItem.STARTX, VisualItem.STARTY,
+        VisualItem.ENDX, VisualItem.ENDY, VisualItem.BOUNDS,
+        VisualItem.VALIDATED
+    };
+    private static final int X = 0, Y = 1, STARTX = 2, STARTY = 3,
+        ENDX = 4, ENDY = 5, BOUNDS = 6, VALIDATED = 7;
+    
+    /** Column numbers of the geometry fields, null after columns change. */
+    private int[] m_geometry;
+    /** Spatial index over the item bounds, created on first use. */
+    private ItemBoundsIndex m_boundsIndex;
+    
     // ------------------------------------------------------------------------
     // Constructors
     
@@ -126,6 +148,47 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
             index(VisualItem.VALIDATED);
     }
     
+    /**
+     * Adds bounds fields as a {@link RectangleColumn}, which stores the
+     * rectangles of all rows in arrays of doubles.
+     * @see prefuse.data.Table#addColumn(java.lang.String, java.lang.Class, java.lang.Object)
+     */
+    public void addColumn(String name, Class type, Object defaultValue) {
+        if ( VisualItem.BOUNDS.equals(name) && type == Rectangle2D.class ) {
+            int nrows = m_rows.getMaximumRow()+1;
+            addColumn(name, new RectangleColumn(nrows, nrows,
+                                                (Rectangle2D)defaultValue));
+        } else {
+            super.addColumn(name, type, defaultValue);
+        }
+    }
+    
+    /**
+     * Discards the cached geometry column numbers whenever the columns of
+     * this table change.
+     * @see prefuse.data.CascadedTable#filterColumns()
+     */
+    protected void filterColumns() {
+        super.filterColumns();
+        m_geometry = null;
+    }
+    
+    /**
+     * Get the column number of a geometry field.
+     * @param field one of the geometry field indices
+     * @return the column number, or -1 if the field is missing
+     */
+    private int getGeometryColumn(int field) {
+        int[] cols = m_geometry;
+        if ( cols == null ) {
+            cols = new int[GEOMETRY_FIELDS.length];
+            for ( int i=0; i<cols.length; ++i )
+                cols[i] = getColumnNumber(GEOMETRY_FIELDS[i]);
+            m_geometry = cols;
+        }
+        return cols[field];
+    }
+    
     // ------------------------------------------------------------------------
     
     /**
@@ -196,6 +259,18 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
         m_group = group;
     }
     
+    /**
+     * Get the spatial index over the bounds of the visible items of this
+     * table, creating it on first use. The index is shared by all displays
+     * drawing this table.
+     * @return the bounds index of this table
+     */
+    public synchronized ItemBoundsIndex getBoundsIndex() {
+        if ( m_boundsIndex == null )
+            m_boundsIndex = new ItemBoundsIndex(this);
+        return m_boundsIndex;
+    }
+    
     /**
      * Get the VisualItem for the given table row.
      * @param row a table row index
@@ -224,7 +299,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return true if validated, false otherwise
      */
     public boolean isValidated(int row) {
-        return getBoolean(row, VisualItem.VALIDATED);
+        return getBoolean(row, getGeometryColumn(VALIDATED));
     }
     
     /**
@@ -234,7 +309,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @param value the value of the validated flag to set.
      */
     public void setValidated(int row, boolean value) {
-        setBoolean(row, VisualItem.VALIDATED, value);
+        setBoolean(row, getGeometryColumn(VALIDATED), value);
     }
     
     /**
@@ -404,7 +479,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return the current x-coordinate
      */
     public double getX(int row) {
-        return getDouble(row, VisualItem.X);
+        return getDouble(row, getGeometryColumn(X));
     }
     
     /**
@@ -413,7 +488,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @param x the new current x-coordinate
      */
     public void setX(int row, double x) {
-        setDouble(row, VisualItem.X, x);
+        setDouble(row, getGeometryColumn(X), x);
     }
     
     /**
@@ -422,7 +497,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return the current y-coordinate
      */
     public double getY(int row) {
-        return getDouble(row, VisualItem.Y);
+        return getDouble(row, getGeometryColumn(Y));
     }
     
     /**
@@ -431,7 +506,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @param y the new current y-coordinate
      */
     public void setY(int row, double y) {
-        setDouble(row, VisualItem.Y, y);
+        setDouble(row, getGeometryColumn(Y), y);
     }    
     
     /**
@@ -440,7 +515,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return the starting x-coordinate
      */
     public double getStartX(int row) {
-        return getDouble(row, VisualItem.STARTX);
+        return getDouble(row, getGeometryColumn(STARTX));
     }
     
     /**
@@ -449,7 +524,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @param x the new starting x-coordinate
      */
     public void setStartX(int row, double x) {
-        setDouble(row, VisualItem.STARTX, x);
+        setDouble(row, getGeometryColumn(STARTX), x);
     }
     
     /**
@@ -458,7 +533,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return the starting y-coordinate
      */
     public double getStartY(int row) {
-        return getDouble(row, VisualItem.STARTY);
+        return getDouble(row, getGeometryColumn(STARTY));
     }
     
     /**
@@ -467,7 +542,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @param y the new starting y-coordinate
      */
     public void setStartY(int row, double y) {
-        setDouble(row, VisualItem.STARTY, y);
+        setDouble(row, getGeometryColumn(STARTY), y);
     }
     
     /**
@@ -476,7 +551,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return the ending x-coordinate
      */
     public double getEndX(int row) {
-        return getDouble(row, VisualItem.ENDX);
+        return getDouble(row, getGeometryColumn(ENDX));
     }
     
     /**
@@ -485,7 +560,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @param x the new ending x-coordinate
      */
     public void setEndX(int row, double x) {
-        setDouble(row, VisualItem.ENDX, x);
+        setDouble(row, getGeometryColumn(ENDX), x);
     }
     
     /**
@@ -494,7 +569,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return the ending y-coordinate
      */
     public double getEndY(int row) {
-        return getDouble(row, VisualItem.ENDY);
+        return getDouble(row, getGeometryColumn(ENDY));
     }
 
     /**
@@ -503,7 +578,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @param y the new ending y-coordinate
      */
     public void setEndY(int row, double y) {
-        setDouble(row, VisualItem.ENDY, y);
+        setDouble(row, getGeometryColumn(ENDY), y);
     }
     
     /**
@@ -516,7 +591,7 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @return the bounding box for the item at the given row
      */
     public Rectangle2D getBounds(int row) {
-        return (Rectangle2D)get(row, VisualItem.BOUNDS);
+        return (Rectangle2D)get(row, getGeometryColumn(BOUNDS));
     }
     
     /**
@@ -532,9 +607,57 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
      * @see VisualItem#BOUNDS
      */
     public void setBounds(int row, double x, double y, double w, double h) {
-        getBounds(row).setRect(x, y, w, h);
-        fireTableEvent(row, row,
-                getColumnNumber(VisualItem.BOUNDS), EventConstants.UPDATE);
+        int col = getGeometryColumn(BOUNDS);
+        Column c = getColumn(col);
+        if ( c instanceof RectangleColumn ) {
+            ((RectangleColumn)c).setRect(getColumnRow(row, col), x, y, w, h);
+        } else {
+            getBounds(row).setRect(x, y, w, h);
+        }
+        fireTableEvent(row, row, col, EventConstants.UPDATE);
+    }
+    
+    /**
+     * Compute the bounding box of the given rows, validating the bounds of
+     * rows that are not validated. When the bounds are stored in a
+     * {@link RectangleColumn} they are read straight from its arrays.
+     * @param rows an iterator over table rows
+     * @param r a rectangle in which to store the computed bounding box. It
+     * is left unchanged if there are no rows.
+     * @return true if there was at least one row, false otherwise
+     */
+    public boolean getBounds(IntIterator rows, Rectangle2D r) {
+        if ( !rows.hasNext() )
+            return false;
+        
+        int col = getGeometryColumn(BOUNDS);
+        Column c = getColumn(col);
+        if ( !(c instanceof RectangleColumn) ) {
+            int row = rows.nextInt();
+            r.setRect(getItem(row).getBounds());
+            while ( rows.hasNext() ) {
+                row = rows.nextInt();
+                Rectangle2D.union(getItem(row).getBounds(), r, r);
+            }
+            return true;
+        }
+        
+        RectangleColumn bounds = (RectangleColumn)c;
+        double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY;
+        double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY;
+        while ( rows.hasNext() ) {
+            int row = rows.nextInt();
+            if ( !isValidated(row) )
+                getItem(row).validateBounds();
+            int crow = getColumnRow(row, col);
+            double x = bounds.getX(crow), y = bounds.getY(crow);
+            x1 = Math.min(x1, x);
+            y1 = Math.min(y1, y);
+            x2 = Math.max(x2, x + bounds.getWidth(crow));
+            y2 = Math.max(y2, y + bounds.getHeight(crow));
+        }
+        r.setFrameFromDiagonal(x1, y1, x2, y2);
+        return true;
     }
     
     // ------------------------------------------------------------------------
@@ -0,0 +1,91 @@
+package test;
+
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.data.expression.ExpressionCompiler;
+import prefuse.data.expression.Predicate;
+import prefuse.data.expression.parser.ExpressionParser;
+
+/**
+ * ExpressionBenchmarks: evaluates predicates of the kind used to pick
+ * renderers and filter items on every frame, interpreted and compiled by the
+ * {@link ExpressionCompiler}, over the tuples of a table. Each predicate is
+ * run for a number of warm up rounds before it is timed.
+ * <p>
+ * Usage: ExpressionBenchmarks [rows [rounds]]
+ */
+public class ExpressionBenchmarks {
+
+    private static final String[] PREDICATES = {
+        "type = 4",
+        "type = 1 or type = 0",
+        "(type != 3) and (type != 2)",
+        "(type = 1 or type = 0) and (depth < 3 or count > 0.5)",
+        "count * 2 + depth >= 3",
+        "ingroup('labels') and rotation != 0",
+    };
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        Table table = new Table();
+        table.addColumn("type", int.class);
+        table.addColumn("depth", int.class);
+        table.addColumn("count", float.class);
+        table.addColumn("rotation", double.class);
+        table.addColumn("label", String.class);
+        for ( int i=0; i<rows; ++i ) {
+            int row = table.addRow();
+            table.setInt(row, "type", i % 6);
+            table.setInt(row, "depth", i % 9);
+            table.setFloat(row, "count", (i % 10) / 10f);
+            table.setDouble(row, "rotation", i % 2);
+            table.setString(row, "label", "item"+i);
+        }
+        Tuple[] tuples = new Tuple[rows];
+        for ( int i=0; i<rows; ++i )
+            tuples[i] = table.getTuple(i);
+
+        System.out.println(rows+" tuples, "+rounds+" rounds per predicate");
+        for ( int i=0; i<PREDICATES.length; ++i ) {
+            Predicate p = ExpressionParser.predicate(PREDICATES[i]);
+            Predicate c = ExpressionCompiler.compile(p);
+            double interpreted = time(p, tuples, rounds);
+            double compiled = time(c, tuples, rounds);
+            System.out.println(PREDICATES[i]);
+            System.out.println("  interpreted: "+format(interpreted)+" ns/tuple"
+                +", compiled: "+format(compiled)+" ns/tuple"
+                +", "+format(interpreted/compiled)+"x");
+        }
+    }
+
+    /**
+     * @return the mean time to evaluate the predicate on a tuple, in ns
+     */
+    private static double time(Predicate p, Tuple[] tuples, int rounds) {
+        int count = run(p, tuples, rounds);
+        long t0 = System.nanoTime();
+        count += run(p, tuples, rounds);
+        long t = System.nanoTime() - t0;
+        if ( count < 0 ) // keep the results live
+            System.out.println(count);
+        return t / ((double)rounds * tuples.length);
+    }
+
+    private static int run(Predicate p, Tuple[] tuples, int rounds) {
+        int count = 0;
+        for ( int r=0; r<rounds; ++r ) {
+            for ( int i=0; i<tuples.length; ++i ) {
+                if ( p.getBoolean(tuples[i]) )
+                    ++count;
+            }
+        }
+        return count;
+    }
+
+    private static String format(double x) {
+        return String.valueOf(Math.round(x*100)/100.0);
+    }
+
+} // end of class ExpressionBenchmarks
@@ -1,5 +1,6 @@
 package test.prefuse.data;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import junit.framework.TestCase;
@@ -8,6 +9,7 @@ import prefuse.data.Graph;
 import prefuse.data.Node;
 import prefuse.data.Table;
 import prefuse.util.GraphLib;
+import prefuse.util.collections.IntIterator;
 import test.prefuse.TestConfig;
 
 public class GraphTest extends TestCase implements GraphTestData {
@@ -160,4 +162,122 @@ public class GraphTest extends TestCase implements GraphTestData {
             assertEquals(false, edges[i].isValid());
         }
     }
+    
+    public void testCompact() {
+        int[][] in = inLinks(graph), out = outLinks(graph);
+        assertEquals(false, graph.isCompact());
+        
+        graph.compact();
+        assertEquals(true, graph.isCompact());
+        assertLinks(graph, in, out);
+        
+        // data changes keep the graph compacted
+        graph.getNode(0).set(NHEADERS[1], NODES[1][1]);
+        graph.getEdge(0).set(EHEADERS[2], EDGES[2][1]);
+        assertEquals(true, graph.isCompact());
+        assertLinks(graph, in, out);
+        
+        // linkage changes restore the adjacency lists
+        int e = graph.getEdge(0).getRow();
+        assertEquals(e, graph.getEdge(graph.getSourceNode(e), 
+                                      graph.getTargetNode(e)));
+        assertEquals(true, graph.removeEdge(e));
+        assertEquals(false, graph.isCompact());
+        assertEquals(NEDGES-1, graph.getEdgeCount());
+        
+        graph.compact();
+        Node n = graph.addNode();
+        assertEquals(false, graph.isCompact());
+        assertEquals(0, n.getDegree());
+        
+        graph.compact();
+        Node s = graph.getNode(1);
+        assertEquals(true, graph.removeNode(s));
+        assertEquals(false, graph.isCompact());
+        Iterator nodes = graph.nodes();
+        while ( nodes.hasNext() ) {
+            Iterator neighbors = ((Node)nodes.next()).neighbors();
+            while ( neighbors.hasNext() )
+                assertEquals(true, neighbors.next() != s);
+        }
+    }
+    
+    public void testAddEdges() {
+        int nnodes = 50, nedges = 400;
+        int[] src = new int[nedges], tgt = new int[nedges];
+        for ( int i=0; i<nedges; ++i ) {
+            src[i] = (i*7) % nnodes;
+            tgt[i] = (i*i+3) % nnodes;
+        }
+        
+        Graph g1 = new Graph(true), g2 = new Graph(true);
+        for ( int i=0; i<nnodes; ++i ) {
+            g1.addNodeRow();
+            g2.addNodeRow();
+        }
+        // existing links, with a free edge row to reuse
+        for ( int i=0; i<10; ++i ) {
+            g1.addEdge(tgt[i], src[i]);
+            g2.addEdge(tgt[i], src[i]);
+        }
+        g1.removeEdge(3);
+        g2.removeEdge(3);
+        
+        for ( int i=0; i<nedges; ++i )
+            g1.addEdge(src[i], tgt[i]);
+        int[] edges = g2.addEdges(src, tgt);
+        assertEquals(true, g2.isCompact());
+        assertEquals(nedges, edges.length);
+        for ( int i=0; i<nedges; ++i ) {
+            assertEquals(src[i], g2.getSourceNode(edges[i]));
+            assertEquals(tgt[i], g2.getTargetNode(edges[i]));
+        }
+        assertLinks(g2, inLinks(g1), outLinks(g1));
+        
+        // and again, on the compacted graph
+        g2.addEdges(tgt, src);
+        for ( int i=0; i<nedges; ++i )
+            g1.addEdge(tgt[i], src[i]);
+        assertLinks(g2, inLinks(g1), outLinks(g1));
+        assertEquals(g1.getSpanningTree().getNodeCount(),
+                     g2.getSpanningTree().getNodeCount());
+        
+        try {
+            g2.addEdges(new int[] {0}, new int[] {nnodes});
+            fail();
+        } catch ( IllegalArgumentException e ) {
+            assertEquals(2*nedges+9, g2.getEdgeCount());
+        }
+    }
+    
+    private static int[][] inLinks(Graph g) {
+        int[][] links = new int[g.getNodeTable().getMaximumRow()+1][];
+        for ( int n=0; n<links.length; ++n )
+            links[n] = toArray(g.inEdgeRows(n), g.getInDegree(n));
+        return links;
+    }
+    
+    private static int[][] outLinks(Graph g) {
+        int[][] links = new int[g.getNodeTable().getMaximumRow()+1][];
+        for ( int n=0; n<links.length; ++n )
+            links[n] = toArray(g.outEdgeRows(n), g.getOutDegree(n));
+        return links;
+    }
+    
+    private static int[] toArray(IntIterator iter, int len) {
+        int[] a = new int[len];
+        for ( int i=0; i<len; ++i )
+            a[i] = iter.nextInt();
+        assertEquals(false, iter.hasNext());
+        return a;
+    }
+    
+    private static void assertLinks(Graph g, int[][] in, int[][] out) {
+        for ( int n=0; n<in.length; ++n ) {
+            assertEquals(in[n].length, g.getInDegree(n));
+            assertEquals(out[n].length, g.getOutDegree(n));
+            assertTrue(Arrays.equals(in[n], inLinks(g)[n]));
+            assertTrue(Arrays.equals(out[n], outLinks(g)[n]));
+        }
+    }
 }
@@ -92,6 +92,35 @@ public class TreeTest extends TestCase {
         assertEquals(true, tree.isValidTree());
     }
     
+    public void testAddEdges() {
+        Tree tree = GraphLib.getBalancedTree(2,1);
+        int r = tree.getRootRow();
+        int c = tree.getFirstChildRow(r);
+        int[] src = new int[3], tgt = new int[3];
+        for ( int i=0; i<3; ++i ) {
+            src[i] = i==1 ? c : r;
+            tgt[i] = tree.addNodeRow();
+        }
+        tree.addEdges(src, tgt);
+        
+        assertEquals(true, tree.isValidTree());
+        assertEquals(4, tree.getChildCount(r));
+        assertEquals(tgt[0], tree.getChildRow(r, 2));
+        assertEquals(tgt[2], tree.getLastChildRow(r));
+        assertEquals(2, tree.getChildIndex(r, tgt[0]));
+        assertEquals(3, tree.getChildIndex(r, tgt[2]));
+        assertEquals(tgt[0], tree.getNextSiblingRow(c+1));
+        assertEquals(tgt[0], tree.getPreviousSiblingRow(tgt[2]));
+        assertEquals(0, tree.getChildIndex(c, tgt[1]));
+        assertEquals(c, tree.getParent(tgt[1]));
+        assertEquals(2, tree.getDepth(tgt[1]));
+        
+        assertEquals(true, tree.removeChild(tgt[0]));
+        assertEquals(tgt[2], tree.getNextSiblingRow(c+1));
+        assertEquals(2, tree.getChildIndex(r, tgt[2]));
+        assertEquals(true, tree.isValidTree());
+    }
+    
     public static void main(String[] argv) {
         URL url = TreeMap.class.getResource(TREE_CHI);
         Tree t = null;
@@ -9,6 +9,7 @@ public class All_PrefuseDataColumn_Tests {
         TestSuite suite = new TestSuite("Test for test.prefuse.data.column");
         //$JUnit-BEGIN$
         suite.addTestSuite(ExpressionColumnTest.class);
+        suite.addTestSuite(RectangleColumnTest.class);
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,64 @@
+package test.prefuse.data.column;
+
+import java.awt.geom.Rectangle2D;
+
+import junit.framework.TestCase;
+import prefuse.data.column.RectangleColumn;
+
+public class RectangleColumnTest extends TestCase {
+
+    public void testDefaultValue() {
+        RectangleColumn c = new RectangleColumn(2, 2,
+            new Rectangle2D.Double(1, 2, 3, 4));
+        assertEquals(new Rectangle2D.Double(1, 2, 3, 4), c.get(1));
+
+        // rows added later also get the default
+        c.setMaximumRow(20);
+        assertEquals(new Rectangle2D.Double(1, 2, 3, 4), c.get(19));
+        assertEquals(3.0, c.getWidth(19), 0);
+    }
+
+    public void testView() {
+        RectangleColumn c = new RectangleColumn(3);
+        Rectangle2D r = (Rectangle2D)c.get(1);
+        assertSame(r, c.get(1));
+
+        // the view reflects later changes, and writes through
+        c.setRect(1, 5, 6, 7, 8);
+        assertEquals(new Rectangle2D.Double(5, 6, 7, 8), r);
+        r.setRect(1, 1, 2, 2);
+        assertEquals(1.0, c.getX(1), 0);
+        assertEquals(2.0, c.getHeight(1), 0);
+        assertEquals(true, r.contains(2, 2));
+        assertEquals(false, r.contains(4, 2));
+        assertEquals(Rectangle2D.OUT_RIGHT, r.outcode(4, 2));
+
+        // the view survives growing the column
+        c.setMaximumRow(100);
+        assertSame(r, c.get(1));
+        assertEquals(new Rectangle2D.Double(1, 1, 2, 2), r);
+
+        // clones are copies
+        Rectangle2D copy = (Rectangle2D)r.clone();
+        c.setRect(1, 0, 0, 0, 0);
+        assertEquals(new Rectangle2D.Double(1, 1, 2, 2), copy);
+    }
+
+    public void testSet() {
+        RectangleColumn c = new RectangleColumn(3);
+        Rectangle2D r = new Rectangle2D.Double(1, 2, 3, 4);
+        c.set(r, 2);
+        r.setRect(0, 0, 0, 0);
+        assertEquals(new Rectangle2D.Double(1, 2, 3, 4), c.get(2));
+
+        c.revertToDefault(2);
+        assertEquals(new Rectangle2D.Double(), c.get(2));
+        try {
+            c.set(null, 2);
+            fail();
+        } catch ( Exception e ) {
+            // null rectangles are not supported
+        }
+    }
+
+}
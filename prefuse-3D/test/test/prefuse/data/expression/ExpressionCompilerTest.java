@@ -0,0 +1,166 @@
+package test.prefuse.data.expression;
+
+import junit.framework.TestCase;
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.data.expression.AndPredicate;
+import prefuse.data.expression.ColumnExpression;
+import prefuse.data.expression.CompiledExpression;
+import prefuse.data.expression.Expression;
+import prefuse.data.expression.ExpressionCompiler;
+import prefuse.data.expression.NumericLiteral;
+import prefuse.data.expression.ObjectLiteral;
+import prefuse.data.expression.Predicate;
+import prefuse.data.expression.RangePredicate;
+import prefuse.data.expression.parser.ExpressionParser;
+
+public class ExpressionCompilerTest extends TestCase {
+
+    private static String[] expr = {
+        "type = 1",
+        "type = 1 or type = 0",
+        "(type != 3) and (type != 2)",
+        "NOT (type < 2)",
+        "type >= 1 XOR weight > 0.5",
+        "weight <= 0.25",
+        "weight * 2 + type",
+        "count % 3",
+        "count / 2 - type",
+        "count ^ 2",
+        "size > 2000000000",
+        "size + type",
+        "label = 'b'",
+        "label != 'a' and visible",
+        "visible",
+        "IF type = 1 THEN weight ELSE count",
+        "abs(count - 5) > 2 and type = 1",
+        "TRUE",
+        "missing = 1",
+    };
+
+    private static Expression[] ranges = {
+        new RangePredicate(new ColumnExpression("type"),
+            new NumericLiteral(1), new NumericLiteral(2)),
+        new RangePredicate(RangePredicate.EX_IN, new ColumnExpression("weight"),
+            new NumericLiteral(0.25), new ColumnExpression("count")),
+        new RangePredicate(RangePredicate.IN_EX, new ColumnExpression("label"),
+            new ObjectLiteral("a"), new ObjectLiteral("b")),
+    };
+
+    private Table table;
+
+    protected void setUp() throws Exception {
+        table = new Table();
+        table.addColumn("type", int.class);
+        table.addColumn("weight", double.class);
+        table.addColumn("count", float.class);
+        table.addColumn("size", long.class);
+        table.addColumn("label", String.class);
+        table.addColumn("visible", boolean.class);
+        String[] labels = { "a", "b", "c" };
+        for ( int i=0; i<40; ++i ) {
+            int row = table.addRow();
+            table.setInt(row, "type", i % 4);
+            table.setDouble(row, "weight", (i % 5) / 4.0);
+            table.setFloat(row, "count", i % 7);
+            table.setLong(row, "size", i * 1000000000L);
+            table.setString(row, "label", labels[i % 3]);
+            table.setBoolean(row, "visible", i % 2 == 0);
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        table = null;
+    }
+
+    public void testSameValues() {
+        for ( int i=0; i<expr.length; ++i ) {
+            Expression e = ExpressionParser.parse(expr[i], true);
+            Expression c = ExpressionCompiler.compile(e, table.getSchema());
+            for ( int row=0; row<table.getRowCount(); ++row ) {
+                assertSameValues(expr[i], e, c, table.getTuple(row));
+            }
+        }
+        for ( int i=0; i<ranges.length; ++i ) {
+            Expression c = ExpressionCompiler.compile(ranges[i]);
+            for ( int row=0; row<table.getRowCount(); ++row ) {
+                assertSameValues(ranges[i].toString(), ranges[i], c,
+                                 table.getTuple(row));
+            }
+        }
+    }
+
+    public void testPredicateChange() {
+        AndPredicate and = new AndPredicate(
+            ExpressionParser.predicate("type = 1"));
+        Predicate c = ExpressionCompiler.compile(and);
+        Tuple t = table.getTuple(1);
+        assertEquals(true, c.getBoolean(t));
+
+        and.add(ExpressionParser.predicate("visible"));
+        assertEquals(false, c.getBoolean(t));
+
+        and.clear();
+        assertEquals(false, c.getBoolean(t));
+    }
+
+    public void testSchemaChange() {
+        Predicate p = ExpressionParser.predicate("extra = 2 or count > 3");
+        Predicate c = ExpressionCompiler.compile(p);
+        assertEquals(true, c instanceof CompiledExpression);
+        for ( int row=0; row<table.getRowCount(); ++row ) {
+            assertSameValues(p.toString(), p, c, table.getTuple(row));
+        }
+
+        // new and removed columns change the schema and the column numbers
+        table.addColumn("extra", int.class, new Integer(2));
+        table.removeColumn("weight");
+        for ( int row=0; row<table.getRowCount(); ++row ) {
+            assertSameValues(p.toString(), p, c, table.getTuple(row));
+            assertEquals(true, c.getBoolean(table.getTuple(row)));
+        }
+    }
+
+    public void testRemovedRow() {
+        Predicate c = ExpressionCompiler.compile(
+            ExpressionParser.predicate("type = 1"));
+        Tuple t = table.getTuple(1);
+        table.removeRow(1);
+        try {
+            c.getBoolean(t);
+            fail();
+        } catch ( IllegalStateException e ) {
+            // invalid tuple, as when interpreted
+        }
+    }
+
+    private void assertSameValues(String s, Expression e, Expression c, Tuple t) {
+        assertSame(s, e.getType(t.getSchema()), c.getType(t.getSchema()));
+
+        Object expected, actual;
+        try { expected = e.get(t); } catch ( Exception ex ) { expected = ex.getClass(); }
+        try { actual = c.get(t); } catch ( Exception ex ) { actual = ex.getClass(); }
+        assertEquals(s, expected, actual);
+
+        try { expected = new Integer(e.getInt(t)); } catch ( Exception ex ) { expected = ex.getClass(); }
+        try { actual = new Integer(c.getInt(t)); } catch ( Exception ex ) { actual = ex.getClass(); }
+        assertEquals(s, expected, actual);
+
+        try { expected = new Long(e.getLong(t)); } catch ( Exception ex ) { expected = ex.getClass(); }
+        try { actual = new Long(c.getLong(t)); } catch ( Exception ex ) { actual = ex.getClass(); }
+        assertEquals(s, expected, actual);
+
+        try { expected = new Float(e.getFloat(t)); } catch ( Exception ex ) { expected = ex.getClass(); }
+        try { actual = new Float(c.getFloat(t)); } catch ( Exception ex ) { actual = ex.getClass(); }
+        assertEquals(s, expected, actual);
+
+        try { expected = new Double(e.getDouble(t)); } catch ( Exception ex ) { expected = ex.getClass(); }
+        try { actual = new Double(c.getDouble(t)); } catch ( Exception ex ) { actual = ex.getClass(); }
+        assertEquals(s, expected, actual);
+
+        try { expected = Boolean.valueOf(e.getBoolean(t)); } catch ( Exception ex ) { expected = ex.getClass(); }
+        try { actual = Boolean.valueOf(c.getBoolean(t)); } catch ( Exception ex ) { actual = ex.getClass(); }
+        assertEquals(s, expected, actual);
+    }
+
+}
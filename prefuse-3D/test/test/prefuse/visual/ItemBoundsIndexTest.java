@@ -0,0 +1,162 @@
+package test.prefuse.visual;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import prefuse.DisplayComponent;
+import prefuse.Visualization;
+import prefuse.data.Table;
+import prefuse.util.collections.IntIterator;
+import prefuse.util.display.ItemBoundsIndex;
+import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
+
+public class ItemBoundsIndexTest extends TestCase {
+
+    private static final int NROWS = 400;
+
+    private Visualization m_vis;
+    private VisualTable m_vt;
+    private ItemBoundsIndex m_index;
+    private Random m_rand = new Random(42);
+
+    protected void setUp() throws Exception {
+        Table t = new Table();
+        t.addRows(NROWS);
+        m_vis = new Visualization();
+        m_vt = (VisualTable)m_vis.add("t", t);
+        for ( int r=0; r<NROWS; ++r ) {
+            VisualItem item = m_vt.getItem(r);
+            item.setX((r % 20) * 20);
+            item.setY((r / 20) * 20);
+        }
+        m_index = m_vt.getBoundsIndex();
+    }
+
+    protected void tearDown() throws Exception {
+        m_vis = null;
+        m_vt = null;
+        m_index = null;
+    }
+
+    public void testQuery() {
+        // before validation every row is a candidate
+        assertEquals(NROWS, count(m_index.rows(0, 0, 1, 1)));
+        m_index.validate();
+        for ( int i=0; i<50; ++i )
+            assertQuery(randomRegion());
+
+        // a small region only has a few candidates
+        assertEquals(true, count(m_index.rows(0, 0, 1, 1)) < 10);
+        assertEquals(0, count(m_index.rows(-1000, -1000, -900, -900)));
+    }
+
+    public void testUpdates() {
+        m_index.validate();
+
+        // moved, hidden, removed and added items
+        m_vt.getItem(0).setX(1000);
+        m_vt.getItem(1).setVisible(false);
+        m_vt.getParentTable().removeRow(2);
+        VisualItem added = m_vt.getItem(m_vt.getParentTable().addRow());
+        added.setX(-500);
+        added.setY(-500);
+
+        // changed rows are candidates until the index is validated
+        assertEquals(true, contains(m_index.rows(-10, -10, 10, 10), 0));
+        assertQuery(new Rectangle2D.Double(990, -10, 20, 20));
+        assertQuery(new Rectangle2D.Double(-510, -510, 20, 20));
+
+        m_index.validate();
+        assertEquals(false, contains(m_index.rows(-10, -10, 10, 10), 0));
+        assertEquals(false, contains(m_index.rows(10, -10, 30, 10), 1));
+        assertEquals(false, contains(m_index.rows(30, -10, 50, 10), 2));
+        assertQuery(new Rectangle2D.Double(990, -10, 20, 20));
+        assertQuery(new Rectangle2D.Double(-510, -510, 20, 20));
+        for ( int i=0; i<50; ++i )
+            assertQuery(randomRegion());
+
+        // a large item is a candidate for every region
+        m_vt.getItem(3).setSize(100);
+        m_index.validate();
+        assertEquals(true, contains(m_index.rows(-1000, 0, -999, 1), 3));
+        for ( int i=0; i<50; ++i )
+            assertQuery(randomRegion());
+    }
+
+    public void testFindItem() {
+        DisplayComponent d = new DisplayComponent(m_vis);
+        d.setSize(400, 400);
+        BufferedImage img = new BufferedImage(400, 400,
+                                              BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        d.paintDisplay(g, new Dimension(400, 400));
+
+        assertEquals(m_vt.getItem(21), d.findItem(new Point(20, 20)));
+        assertEquals(null, d.findItem(new Point(10, 10)));
+        assertEquals(NROWS, d.getVisibleItemCount());
+
+        // picking uses the items as changed since the last paint
+        m_vt.getItem(21).setX(-100);
+        assertEquals(null, d.findItem(new Point(20, 20)));
+        m_vt.getItem(22).setInteractive(false);
+        assertEquals(null, d.findItem(new Point(40, 20)));
+
+        d.damageReport();
+        d.paintDisplay(g, new Dimension(400, 400));
+        assertEquals(null, d.findItem(new Point(20, 20)));
+        assertEquals(m_vt.getItem(23), d.findItem(new Point(60, 20)));
+        assertEquals(NROWS, d.getVisibleItemCount());
+        g.dispose();
+    }
+
+    private Rectangle2D randomRegion() {
+        double x = m_rand.nextDouble()*500 - 50;
+        double y = m_rand.nextDouble()*500 - 50;
+        double s = m_rand.nextDouble()*60;
+        return new Rectangle2D.Double(x, y, s, s);
+    }
+
+    /**
+     * Checks that the query returns all visible items intersecting the
+     * region, in increasing row order.
+     */
+    private void assertQuery(Rectangle2D r) {
+        IntIterator rows = m_index.rows(r.getMinX(), r.getMinY(),
+                                        r.getMaxX(), r.getMaxY());
+        boolean[] found = new boolean[m_vt.getMaximumRow()+1];
+        int prev = -1;
+        while ( rows.hasNext() ) {
+            int row = rows.nextInt();
+            assertEquals(true, row > prev);
+            found[row] = true;
+            prev = row;
+        }
+        for ( IntIterator iter = m_vt.rows(); iter.hasNext(); ) {
+            int row = iter.nextInt();
+            VisualItem item = m_vt.getItem(row);
+            if ( item.isVisible() && item.getBounds().intersects(r) )
+                assertEquals(r+" "+row, true, found[row]);
+        }
+    }
+
+    private static int count(IntIterator rows) {
+        int n = 0;
+        for ( ; rows.hasNext(); rows.nextInt() ) ++n;
+        return n;
+    }
+
+    private static boolean contains(IntIterator rows, int row) {
+        while ( rows.hasNext() ) {
+            if ( rows.nextInt() == row )
+                return true;
+        }
+        return false;
+    }
+
+}
@@ -1,16 +1,25 @@
 package test.prefuse.visual;
 
+import java.awt.geom.Rectangle2D;
+import java.util.Iterator;
+
 import junit.framework.TestCase;
 import prefuse.Visualization;
 import prefuse.data.Graph;
 import prefuse.data.Node;
 import prefuse.data.Table;
 import prefuse.data.Tuple;
+import prefuse.data.expression.AndPredicate;
+import prefuse.data.expression.ExpressionCompiler;
+import prefuse.data.expression.OrPredicate;
+import prefuse.data.expression.Predicate;
+import prefuse.data.expression.parser.ExpressionParser;
 import prefuse.data.tuple.TupleSet;
 import prefuse.visual.NodeItem;
 import prefuse.visual.VisualGraph;
 import prefuse.visual.VisualItem;
 import prefuse.visual.VisualTable;
+import prefuse.visual.expression.VisiblePredicate;
 import test.prefuse.data.GraphTest;
 import test.prefuse.data.TableTest;
 
@@ -145,4 +154,125 @@ public class VisualizationTest extends TestCase {
         assertEquals(m_vn0, m_vis.getVisualItem("g.nodes", m_n0));
     }
 
+    /*
+     * Test method for 'prefuse.Visualization.visibleItems(String)'
+     */
+    public void testVisibleItems() {
+        Table big = new Table();
+        big.addColumn("id", int.class);
+        for ( int i=0; i<1000; ++i )
+            big.setInt(big.addRow(), "id", i);
+        VisualTable vt = (VisualTable)m_vis.add("big", big);
+        
+        Iterator items = m_vis.items();
+        for ( int i=0; items.hasNext(); ++i )
+            ((VisualItem)items.next()).setVisible(i % 3 == 0);
+        assertVisibleItems("t");
+        assertVisibleItems("g");
+        assertVisibleItems("big");
+        
+        vt.getItem(3).setVisible(false);
+        vt.getItem(4).setVisible(true);
+        big.removeRow(6);
+        m_vn0.setVisible(!m_vn0.isVisible());
+        assertVisibleItems("big");
+        assertVisibleItems("g.nodes");
+        
+        // compiled predicates still use the index over the visible rows
+        Predicate p = ExpressionCompiler.compile(new AndPredicate(
+            ExpressionParser.predicate("id % 2 = 0"), VisiblePredicate.TRUE));
+        int count = 0;
+        for ( items = m_vis.items("big", p); items.hasNext(); ++count ) {
+            VisualItem item = (VisualItem)items.next();
+            assertEquals(true, item.isVisible());
+            assertEquals(0, item.getInt("id") % 2);
+        }
+        int expected = 0;
+        for ( items = m_vis.items("big"); items.hasNext(); ) {
+            if ( p.getBoolean((VisualItem)items.next()) ) ++expected;
+        }
+        assertEquals(expected, count);
+        
+        // and with a nested index, as in a label filter
+        p = ExpressionCompiler.compile(new AndPredicate(
+            ExpressionParser.predicate("id % 3 = 0"),
+            new OrPredicate(VisiblePredicate.TRUE)));
+        count = 0;
+        for ( items = m_vis.items("big", p); items.hasNext(); ++count ) {
+            VisualItem item = (VisualItem)items.next();
+            assertEquals(true, item.isVisible());
+            assertEquals(0, item.getInt("id") % 3);
+        }
+        expected = 0;
+        for ( items = m_vis.items("big"); items.hasNext(); ) {
+            if ( p.getBoolean((VisualItem)items.next()) ) ++expected;
+        }
+        assertEquals(expected, count);
+    }
+    
+    /*
+     * Test method for 'prefuse.Visualization.getBounds(String)'
+     */
+    public void testGetBounds() {
+        Iterator items = m_vis.items();
+        for ( int i=0; items.hasNext(); ++i ) {
+            VisualItem item = (VisualItem)items.next();
+            item.setBounds(i, -i, 2, 3);
+            item.setValidated(true);
+            item.setVisible(i % 4 != 1);
+        }
+        
+        String[] groups = { "t", "g", "g.nodes", "g.edges" };
+        for ( int i=0; i<groups.length; ++i ) {
+            Rectangle2D expected = null;
+            for ( items = m_vis.visibleItems(groups[i]); items.hasNext(); ) {
+                Rectangle2D b = ((VisualItem)items.next()).getBounds();
+                if ( expected == null )
+                    expected = (Rectangle2D)b.clone();
+                else
+                    Rectangle2D.union(b, expected, expected);
+            }
+            assertEquals(groups[i], expected, m_vis.getBounds(groups[i]));
+        }
+        
+        // the stored bounds are views that follow later changes
+        Rectangle2D b = m_vt0.getBounds();
+        m_vt0.setBounds(-50, -60, 10, 10);
+        assertEquals(new Rectangle2D.Double(-50, -60, 10, 10), b);
+        m_vt0.setValidated(true);
+        m_vt0.setVisible(true);
+        assertEquals(-50.0, m_vis.getBounds("t").getMinX(), 0);
+    }
+    
+    /*
+     * Test method for 'prefuse.Visualization.getVisualTables()'
+     */
+    public void testGetVisualTables() {
+        VisualTable[] tables = m_vis.getVisualTables();
+        assertEquals(3, tables.length);
+        
+        // the tables hold the same items, in the same order, as items()
+        Iterator items = m_vis.items();
+        for ( int i=0; i<tables.length; ++i ) {
+            for ( Iterator rows = tables[i].tuples(); rows.hasNext(); ) {
+                assertEquals(true, items.hasNext());
+                assertEquals(items.next(), rows.next());
+            }
+        }
+        assertEquals(false, items.hasNext());
+    }
+    
+    private void assertVisibleItems(String group) {
+        Iterator visible = m_vis.visibleItems(group);
+        Iterator items = m_vis.items(group);
+        while ( items.hasNext() ) {
+            VisualItem item = (VisualItem)items.next();
+            if ( item.isVisible() ) {
+                assertEquals(true, visible.hasNext());
+                assertEquals(item, visible.next());
+            }
+        }
+        assertEquals(false, visible.hasNext());
+    }
+
 }